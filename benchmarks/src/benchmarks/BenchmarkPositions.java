@@ -0,0 +1,61 @@
+package benchmarks;
+
+/**
+ * The positions that the benchmarks are run from, which {@link chesspieces.Fen#toBoard(String)} sets up as game boards
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class BenchmarkPositions {
+
+	/**
+	 * A Ruy Lopez opening, after 1. e4 e5 2. Nf3 Nc6 3. Bb5
+	 */
+	public static final String OPENING = "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3";
+
+	/**
+	 * A Queen's Gambit Declined middlegame with all pieces still on the board
+	 */
+	public static final String MIDDLEGAME = "r2q1rk1/pp2bppp/2n1bn2/3p4/3P4/2NBPN2/PP3PPP/R1BQ1RK1 w - - 0 10";
+
+	/**
+	 * An endgame with a Queen, Rook and Bishop left for each team
+	 */
+	public static final String ENDGAME = "4r1k1/5ppp/8/3b4/8/2q2B2/5PPP/2Q1R1K1 w - - 0 35";
+
+	/**
+	 * The position after 1. e4 f5 2. e5 d5, where the Pawn on e5 can capture d5 en passant but not f5
+	 */
+	public static final String EN_PASSANT = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3";
+
+	/**
+	 * A position where white can castle on both sides, capture d5 en passant, and promote on b8 with or without
+	 * capturing the Rook on a8
+	 */
+	public static final String SPECIAL_MOVES = "r3k2r/1P3ppp/8/3pP3/8/8/5PPP/R3K2R w KQkq d6 0 20";
+
+	private BenchmarkPositions() {
+	}
+
+	/**
+	 * Get the FEN of a benchmark position by name
+	 *
+	 * @param name - "opening", "middlegame", "endgame" or "special"
+	 * @return the FEN of the position
+	 */
+	public static String fen( String name ) {
+		switch ( name ) {
+			case "opening":
+				return OPENING;
+			case "middlegame":
+				return MIDDLEGAME;
+			case "endgame":
+				return ENDGAME;
+			case "special":
+				return SPECIAL_MOVES;
+			default:
+				throw new IllegalArgumentException( "Unknown benchmark position: " + name );
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chesspieces.Evaluation;
+import chesspieces.Fen;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * Benchmarks of the static evaluation, in evaluations per second. The material and square bonuses are kept by the
+ * position as moves are made; the "scan" benchmark adds them up from scratch instead, to show what the incremental
+ * update saves. Run with "java -jar benchmarks/target/benchmarks.jar Evaluation".
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class EvaluationBenchmark {
+
+	/**
+	 * The name of the position to run from
+	 */
+	@Param( { "opening", "middlegame", "endgame", "special" } )
+	public String positionName;
+
+	/**
+	 * The position
+	 */
+	private Position position;
+
+	/**
+	 * The legal moves of the position
+	 */
+	private int[] moves;
+
+	/**
+	 * The number of legal moves
+	 */
+	private int numMoves;
+
+	/**
+	 * Set up the position and generate its legal moves
+	 */
+	@Setup
+	public void setUp() {
+		position = Fen.toPosition( BenchmarkPositions.fen( positionName ) );
+		moves = new int[MoveGenerator.MAX_MOVES];
+		numMoves = MoveGenerator.generateLegalMoves( position, moves );
+	}
+
+	/**
+	 * Evaluate the position
+	 *
+	 * @return the score, so that the work is not optimized away
+	 */
+	@Benchmark
+	public int evaluate() {
+		return Evaluation.evaluate( position );
+	}
+
+	/**
+	 * Add up the material and square bonuses of the position from scratch, the part of the evaluation that the
+	 * position keeps incrementally
+	 *
+	 * @return the sum of the scores, so that the work is not optimized away
+	 */
+	@Benchmark
+	public int scan() {
+		return Evaluation.midgameScore( position ) + Evaluation.endgameScore( position ) + Evaluation.phase( position );
+	}
+
+	/**
+	 * Make every legal move, evaluate the position after it and take it back, as the search does at its leaves
+	 *
+	 * @return the sum of the scores, so that the work is not optimized away
+	 */
+	@Benchmark
+	public int makeEvaluateUnmake() {
+		int total = 0;
+		for ( int i = 0; i < numMoves; i++ ) {
+			position.makeMove( moves[i] );
+			total += Evaluation.evaluate( position );
+			position.unmakeMove( moves[i] );
+		}
+		return total;
+	}
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chesspieces.Board;
+import chesspieces.Fen;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * Benchmarks of making and taking back every legal move of a position, on the game board and on the position of the
+ * search. The "special" position includes captures, castling on both sides, en passant and promotions. Run with
+ * "java -jar benchmarks/target/benchmarks.jar MakeUnmake -prof gc" to check that no bytes are allocated per
+ * operation.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class MakeUnmakeBenchmark {
+
+	/**
+	 * The name of the position to run from
+	 */
+	@Param( { "opening", "middlegame", "endgame", "special" } )
+	public String positionName;
+
+	/**
+	 * The game board of the position
+	 */
+	private Board board;
+
+	/**
+	 * The position, as searched by the computer player
+	 */
+	private Position position;
+
+	/**
+	 * The legal moves of the position
+	 */
+	private int[] moves;
+
+	/**
+	 * The number of legal moves
+	 */
+	private int numMoves;
+
+	/**
+	 * Set up the board and position, and generate their legal moves
+	 */
+	@Setup
+	public void setUp() {
+		String fen = BenchmarkPositions.fen( positionName );
+		board = Fen.toBoard( fen );
+		position = Fen.toPosition( fen );
+		moves = new int[MoveGenerator.MAX_MOVES];
+		numMoves = MoveGenerator.generateLegalMoves( position, moves );
+	}
+
+	/**
+	 * Make and take back every legal move on the game board, which also updates the chess pieces and attack map
+	 *
+	 * @return the hash of the board, so that the work is not optimized away
+	 */
+	@Benchmark
+	public long boardMakeUnmake() {
+		for ( int i = 0; i < numMoves; i++ ) {
+			board.makeMove( moves[i], 20 );
+			board.unmakeMove();
+		}
+		return board.getHash();
+	}
+
+	/**
+	 * Make and take back every legal move on the position
+	 *
+	 * @return the hash of the position, so that the work is not optimized away
+	 */
+	@Benchmark
+	public long positionMakeUnmake() {
+		for ( int i = 0; i < numMoves; i++ ) {
+			position.makeMove( moves[i] );
+			position.unmakeMove( moves[i] );
+		}
+		return position.getHash();
+	}
+}
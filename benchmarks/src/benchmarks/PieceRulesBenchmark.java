@@ -0,0 +1,263 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.Chess;
+import chesspieces.Bishop;
+import chesspieces.Board;
+import chesspieces.ChessPiece;
+import chesspieces.Fen;
+import chesspieces.King;
+import chesspieces.Pawn;
+import chesspieces.Queen;
+import chesspieces.Rook;
+
+/**
+ * Benchmarks of the rules of the chess pieces, run from an opening, middlegame and endgame position. Run with
+ * "java -jar benchmarks/target/benchmarks.jar -prof gc" to also report the bytes allocated per operation.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class PieceRulesBenchmark {
+
+	/**
+	 * The name of the position to run from
+	 */
+	@Param( { "opening", "middlegame", "endgame" } )
+	public String positionName;
+
+	/**
+	 * The board of the position
+	 */
+	private Board board;
+
+	/**
+	 * Every chess piece on the board
+	 */
+	private List<ChessPiece> pieces;
+
+	/**
+	 * The Rooks, Bishops and Queens on the board
+	 */
+	private List<ChessPiece> rooks, bishops, queens;
+
+	/**
+	 * The Kings on the board
+	 */
+	private List<King> kings;
+
+	/**
+	 * A stream that discards everything printed to it
+	 */
+	private PrintStream nullStream;
+
+	/**
+	 * Set up the board and collect its chess pieces
+	 */
+	@Setup
+	public void setup() {
+		board = Fen.toBoard( BenchmarkPositions.fen( positionName ) );
+		pieces = new ArrayList<ChessPiece>();
+		rooks = new ArrayList<ChessPiece>();
+		bishops = new ArrayList<ChessPiece>();
+		queens = new ArrayList<ChessPiece>();
+		kings = new ArrayList<King>();
+		for ( int row = 0; row < 8; row++ ) {
+			for ( int col = 0; col < 8; col++ ) {
+				ChessPiece piece = board.getPiece( row, col );
+				if ( piece == null ) {
+					continue;
+				}
+				pieces.add( piece );
+				if ( piece instanceof Rook ) {
+					rooks.add( piece );
+				}
+				else if ( piece instanceof Bishop ) {
+					bishops.add( piece );
+				}
+				else if ( piece instanceof Queen ) {
+					queens.add( piece );
+				}
+				else if ( piece instanceof King ) {
+					kings.add( (King) piece );
+				}
+			}
+		}
+		nullStream = new PrintStream( OutputStream.nullOutputStream() );
+	}
+
+	/**
+	 * Look up the location of every chess piece on the board
+	 *
+	 * @return the sum of the coordinates, so the lookups cannot be optimized away
+	 */
+	@Benchmark
+	public int getRowGetCol() {
+		int sum = 0;
+		for ( ChessPiece piece : pieces ) {
+			sum += piece.getRow() + piece.getCol();
+		}
+		return sum;
+	}
+
+	/**
+	 * Ask every Rook whether it can move to each of the 64 tiles
+	 *
+	 * @return the number of legal targets
+	 */
+	@Benchmark
+	public int rookCanMoveTo() {
+		return countTargets( rooks );
+	}
+
+	/**
+	 * Ask every Bishop whether it can move to each of the 64 tiles
+	 *
+	 * @return the number of legal targets
+	 */
+	@Benchmark
+	public int bishopCanMoveTo() {
+		return countTargets( bishops );
+	}
+
+	/**
+	 * Ask every Queen whether it can move to each of the 64 tiles
+	 *
+	 * @return the number of legal targets
+	 */
+	@Benchmark
+	public int queenCanMoveTo() {
+		return countTargets( queens );
+	}
+
+	/**
+	 * Ask both Kings whether they are in check
+	 *
+	 * @return the number of Kings in check
+	 */
+	@Benchmark
+	public int kingIsInCheck() {
+		int count = 0;
+		for ( King king : kings ) {
+			if ( king.isInCheck() ) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Ask both Kings whether they are in checkmate
+	 *
+	 * @return the number of Kings in checkmate
+	 */
+	@Benchmark
+	public int kingIsInCheckmate() {
+		int count = 0;
+		for ( King king : kings ) {
+			if ( king.isInCheckmate() ) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Print the board to a stream that discards it
+	 */
+	@Benchmark
+	public void printChessboard() {
+		Chess.printChessboard( board, nullStream );
+	}
+
+	/**
+	 * Ask the Pawn on e5 whether it can capture en passant to the left (d6, which it can) and to the right (f6, which
+	 * it cannot as the Pawn on f5 moved too long ago)
+	 *
+	 * @param state - the en passant position
+	 * @return the number of possible en passant captures
+	 */
+	@Benchmark
+	public int pawnCanEnPessant( EnPassantState state ) {
+		int count = 0;
+		if ( state.pawn.canEnPessantLeftTo( 2, 3, state.currentMoveNumber ) ) {
+			count++;
+		}
+		if ( state.pawn.canEnPessantRightTo( 2, 5, state.currentMoveNumber ) ) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Count the tiles that the chess pieces can legally move to
+	 *
+	 * @param movingPieces - the chess pieces to ask
+	 * @return the number of legal targets
+	 */
+	private static int countTargets( List<ChessPiece> movingPieces ) {
+		int count = 0;
+		for ( ChessPiece piece : movingPieces ) {
+			for ( int row = 0; row < 8; row++ ) {
+				for ( int col = 0; col < 8; col++ ) {
+					if ( piece.canMoveTo( row, col, true ) ) {
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The position after 1. e4 f5 2. e5 d5, with white about to make its third move
+	 */
+	@State( Scope.Thread )
+	public static class EnPassantState {
+
+		/**
+		 * The move number of white's third move
+		 */
+		public final int currentMoveNumber = 5;
+
+		/**
+		 * The white Pawn on e5
+		 */
+		public Pawn pawn;
+
+		/**
+		 * Set up the board and record that the black Pawn on f5 moved on black's first move
+		 */
+		@Setup
+		public void setup() {
+			// The board already records that d5 moved on the move before, as the en passant square of the FEN
+			Board board = Fen.toBoard( BenchmarkPositions.EN_PASSANT );
+			pawn = (Pawn) board.getPiece( 3, 4 );
+			board.getPiece( 3, 5 ).setLastMoveNumber( 2 );
+		}
+	}
+}
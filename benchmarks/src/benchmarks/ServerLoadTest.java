@@ -0,0 +1,210 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.GameServer;
+
+/**
+ * A load test of the game server: many clients connect at once, and each plays scripted games one after another.
+ * Reports the games per second and the latency of moves (the time from sending a move to reading its answer).
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar benchmarks.ServerLoadTest [clients] [games per client] [port]
+ * <br>
+ * Without a port, a server is started inside the load test on a free port.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class ServerLoadTest {
+
+	/**
+	 * The scripted games, each ending the game on its last move
+	 */
+	private static final String[][] GAMES = {
+			// Fool's mate
+			{ "f2 f3", "e7 e5", "g2 g4", "d8 h4" },
+			// Scholar's mate
+			{ "e2 e4", "e7 e5", "f1 c4", "b8 c6", "d1 h5", "g8 f6", "h5 f7" },
+			// An Italian opening where black resigns
+			{ "e2 e4", "e7 e5", "g1 f3", "b8 c6", "f1 c4", "f8 c5", "c2 c3", "g8 f6", "d2 d4", "e5 d4", "c3 d4",
+					"c5 b4", "c1 d2", "b4 d2", "b1 d2", "d7 d5", "e4 d5", "f6 d5", "d1 b3", "c6 e7", "e1 g1", "c7 c6",
+					"f1 e1", "e8 g8", "resign" },
+			// A Queen's Gambit where white offers a draw that black accepts
+			{ "d2 d4", "d7 d5", "c2 c4", "e7 e6", "b1 c3", "g8 f6", "c1 g5", "f8 e7", "e2 e3", "e8 g8", "g1 f3",
+					"b8 d7", "a1 c1", "c7 c6", "f1 d3 draw?", "draw" } };
+
+	/**
+	 * Run the load test
+	 *
+	 * @param args - the number of clients (default 64), games per client (default 200), and the port of a running
+	 *             server (optional)
+	 * @throws Exception if a client fails
+	 */
+	public static void main( String[] args ) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt( args[0] ) : 64;
+		int gamesPerClient = args.length > 1 ? Integer.parseInt( args[1] ) : 200;
+
+		GameServer server = null;
+		int port;
+		if ( args.length > 2 ) {
+			port = Integer.parseInt( args[2] );
+		}
+		else {
+			server = new GameServer( 0 );
+			server.start();
+			port = server.getPort();
+		}
+
+		// Warm up the server before measuring
+		runClients( port, Math.min( clients, 8 ), Math.min( gamesPerClient, 50 ) );
+
+		long start = System.nanoTime();
+		long[] latencies = runClients( port, clients, gamesPerClient );
+		double seconds = ( System.nanoTime() - start ) / 1e9;
+		if ( server != null ) {
+			server.close();
+		}
+
+		Arrays.sort( latencies );
+		int games = clients * gamesPerClient;
+		System.out.printf( "Clients: %d, games: %d, moves: %d%n", clients, games, latencies.length );
+		System.out.printf( "Time: %.3f s%n", seconds );
+		System.out.printf( "Games/second: %.0f%n", games / seconds );
+		System.out.printf( "Moves/second: %.0f%n", latencies.length / seconds );
+		System.out.printf( "Move latency: p50 %.1f us, p99 %.1f us, max %.1f us%n", percentile( latencies, 50 ) / 1e3,
+				percentile( latencies, 99 ) / 1e3, latencies[latencies.length - 1] / 1e3 );
+	}
+
+	/**
+	 * Run clients at once until each has played its games
+	 *
+	 * @param port           - the port of the server
+	 * @param clients        - the number of clients
+	 * @param gamesPerClient - the number of games each client plays
+	 * @return the latency of every move, in nanoseconds
+	 * @throws Exception if a client fails
+	 */
+	private static long[] runClients( int port, int clients, int gamesPerClient ) throws Exception {
+		ExecutorService clientThreads = Executors.newFixedThreadPool( clients );
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		for ( int i = 0; i < clients; i++ ) {
+			int firstGame = i;
+			results.add( clientThreads.submit( () -> playGames( port, firstGame, gamesPerClient ) ) );
+		}
+
+		long[][] clientLatencies = new long[clients][];
+		int totalMoves = 0;
+		for ( int i = 0; i < clients; i++ ) {
+			clientLatencies[i] = results.get( i ).get();
+			totalMoves += clientLatencies[i].length;
+		}
+		clientThreads.shutdown();
+
+		long[] latencies = new long[totalMoves];
+		int offset = 0;
+		for ( long[] moveLatencies : clientLatencies ) {
+			System.arraycopy( moveLatencies, 0, latencies, offset, moveLatencies.length );
+			offset += moveLatencies.length;
+		}
+		return latencies;
+	}
+
+	/**
+	 * Connect to the server and play scripted games, cycling through the scripts
+	 *
+	 * @param port      - the port of the server
+	 * @param firstGame - the index of the script to start with
+	 * @param games     - the number of games to play
+	 * @return the latency of every move, in nanoseconds
+	 * @throws IOException if the connection fails or the server answers unexpectedly
+	 */
+	private static long[] playGames( int port, int firstGame, int games ) throws IOException {
+		int totalMoves = 0;
+		for ( int i = 0; i < games; i++ ) {
+			totalMoves += GAMES[( firstGame + i ) % GAMES.length].length;
+		}
+
+		long[] latencies = new long[totalMoves];
+		int numMoves = 0;
+		try ( Socket socket = new Socket( InetAddress.getLoopbackAddress(), port );
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader( socket.getInputStream(), StandardCharsets.UTF_8 ) );
+				Writer out = new BufferedWriter(
+						new OutputStreamWriter( socket.getOutputStream(), StandardCharsets.UTF_8 ) ) ) {
+			socket.setTcpNoDelay( true );
+			for ( int i = 0; i < games; i++ ) {
+				String[] moves = GAMES[( firstGame + i ) % GAMES.length];
+				expect( send( in, out, "new" ), "ok" );
+				for ( int j = 0; j < moves.length; j++ ) {
+					long start = System.nanoTime();
+					String answer = send( in, out, moves[j] );
+					latencies[numMoves++] = System.nanoTime() - start;
+					expect( answer, j == moves.length - 1 ? "over" : "ok" );
+				}
+			}
+			out.write( "quit\n" );
+			out.flush();
+		}
+		return latencies;
+	}
+
+	/**
+	 * Send a command and read its answer
+	 *
+	 * @param in      - the stream of answers from the server
+	 * @param out     - the stream of commands to the server
+	 * @param command - the command
+	 * @return the answer
+	 * @throws IOException if the connection fails
+	 */
+	private static String send( BufferedReader in, Writer out, String command ) throws IOException {
+		out.write( command );
+		out.write( '\n' );
+		out.flush();
+		String answer = in.readLine();
+		if ( answer == null ) {
+			throw new IOException( "The server closed the connection" );
+		}
+		return answer;
+	}
+
+	/**
+	 * Check that an answer starts as expected
+	 *
+	 * @param answer - the answer of the server
+	 * @param prefix - the expected start of the answer
+	 * @throws IOException if the answer is unexpected
+	 */
+	private static void expect( String answer, String prefix ) throws IOException {
+		if ( !answer.startsWith( prefix ) ) {
+			throw new IOException( "Expected \"" + prefix + "\" but the server answered \"" + answer + "\"" );
+		}
+	}
+
+	/**
+	 * Get a percentile of sorted values
+	 *
+	 * @param sorted  - the values, in increasing order
+	 * @param percent - the percentile
+	 * @return the value below which the given percent of the values fall
+	 */
+	private static long percentile( long[] sorted, double percent ) {
+		int index = (int) Math.ceil( percent / 100 * sorted.length ) - 1;
+		return sorted[Math.max( 0, Math.min( index, sorted.length - 1 ) )];
+	}
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.util.Random;
+
+import chesspieces.Bitboards;
+
+/**
+ * Measures the start-up cost of the magic attack tables of the Rooks, Bishops and Queens, and the lookups per second
+ * they give afterwards. The tables are built when the Bitboards class is initialized, so the class must not be used
+ * before it is timed here; run the benchmark in its own JVM.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar benchmarks.SlidingAttacks [lookups]
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class SlidingAttacks {
+
+	/**
+	 * The number of random occupancies to look up, a power of two
+	 */
+	private static final int NUM_OCCUPANCIES = 1 << 12;
+
+	/**
+	 * Run the benchmark
+	 *
+	 * @param args - the number of lookups of each piece type (default 100000000)
+	 * @throws ClassNotFoundException if the Bitboards class cannot be found
+	 */
+	public static void main( String[] args ) throws ClassNotFoundException {
+		long numLookups = args.length > 0 ? Long.parseLong( args[0] ) : 100000000L;
+
+		long start = System.nanoTime();
+		Class.forName( "chesspieces.Bitboards" );
+		double initMillis = ( System.nanoTime() - start ) / 1e6;
+		System.out.printf( "Table initialization: %.2f ms, %d entries (%d KB)%n", initMillis,
+				Bitboards.getAttackTableSize(), Bitboards.getAttackTableSize() * 8L / 1024 );
+
+		// Occupancies with about a quarter of the tiles filled, as in a middlegame
+		Random random = new Random( 1 );
+		long[] occupancies = new long[NUM_OCCUPANCIES];
+		for ( int i = 0; i < NUM_OCCUPANCIES; i++ ) {
+			occupancies[i] = random.nextLong() & random.nextLong();
+		}
+
+		String[] names = { "Rook", "Bishop", "Queen" };
+		for ( int type = 0; type < names.length; type++ ) {
+			// Warm up the JIT compiler
+			runLookups( type, occupancies, numLookups / 10 );
+			start = System.nanoTime();
+			long checksum = runLookups( type, occupancies, numLookups );
+			double seconds = ( System.nanoTime() - start ) / 1e9;
+			System.out.printf( "%-6s %14.0f lookups/second (checksum %d)%n", names[type], numLookups / seconds,
+					checksum );
+		}
+	}
+
+	/**
+	 * Look up the attacks of one piece type on every square in turn
+	 *
+	 * @param type        - 0 for Rooks, 1 for Bishops and 2 for Queens
+	 * @param occupancies - the occupancies to look up
+	 * @param numLookups  - the number of lookups
+	 * @return the sum of the number of attacked tiles, so the lookups cannot be optimized away
+	 */
+	private static long runLookups( int type, long[] occupancies, long numLookups ) {
+		long checksum = 0;
+		for ( long i = 0; i < numLookups; i++ ) {
+			int square = (int) i & 63;
+			long occupancy = occupancies[(int) ( i >>> 6 ) & ( NUM_OCCUPANCIES - 1 )];
+			long attacks;
+			if ( type == 0 ) {
+				attacks = Bitboards.rookAttacks( square, occupancy );
+			}
+			else if ( type == 1 ) {
+				attacks = Bitboards.bishopAttacks( square, occupancy );
+			}
+			else {
+				attacks = Bitboards.queenAttacks( square, occupancy );
+			}
+			checksum += Long.bitCount( attacks );
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ParallelSearch;
+import chess.TranspositionTable;
+import chesspieces.Fen;
+import chesspieces.Position;
+
+/**
+ * Measures how the nodes per second of the parallel search scale with the number of threads. Each thread count
+ * searches the opening, middlegame and endgame positions for a fixed time with a fresh transposition table, and the
+ * total nodes per second is compared against one thread.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar benchmarks.SmpScaling [max threads] [milliseconds per position]
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class SmpScaling {
+
+	/**
+	 * The size of the transposition table of each run, in megabytes
+	 */
+	private static final int HASH_MEGABYTES = 64;
+
+	/**
+	 * Run the benchmark
+	 *
+	 * @param args - the largest number of threads (default one per processor), and the time to search each position
+	 *             for in milliseconds (default 5000)
+	 */
+	public static void main( String[] args ) {
+		int maxThreads = args.length > 0 ? Integer.parseInt( args[0] ) : ParallelSearch.defaultThreads();
+		long searchTime = args.length > 1 ? Long.parseLong( args[1] ) : 5000;
+		String[] fens = { BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME };
+
+		// Warm up the JIT compiler before measuring
+		runSearches( 1, fens, Math.min( searchTime, 2000 ) );
+
+		double singleThreadSpeed = 0;
+		System.out.printf( "%8s %14s %14s %8s%n", "threads", "nodes", "nodes/second", "speedup" );
+		for ( int threads : threadCounts( maxThreads ) ) {
+			long start = System.nanoTime();
+			long nodes = runSearches( threads, fens, searchTime );
+			double seconds = ( System.nanoTime() - start ) / 1e9;
+			double speed = nodes / seconds;
+			if ( threads == 1 ) {
+				singleThreadSpeed = speed;
+			}
+			System.out.printf( "%8d %14d %14.0f %7.2fx%n", threads, nodes, speed, speed / singleThreadSpeed );
+		}
+	}
+
+	/**
+	 * Search every position with a number of threads
+	 *
+	 * @param threads    - the number of threads
+	 * @param fens       - the positions to search
+	 * @param searchTime - the time to search each position for, in milliseconds
+	 * @return the total number of nodes searched
+	 */
+	private static long runSearches( int threads, String[] fens, long searchTime ) {
+		ParallelSearch search = new ParallelSearch( new TranspositionTable( HASH_MEGABYTES ), threads );
+		long nodes = 0;
+		for ( String fen : fens ) {
+			Position position = Fen.toPosition( fen );
+			search.findBestMove( position, Integer.MAX_VALUE, searchTime );
+			nodes += search.getNodes();
+		}
+		search.shutdown();
+		return nodes;
+	}
+
+	/**
+	 * Get the thread counts to measure: the powers of two up to the largest count, and the largest count itself
+	 *
+	 * @param maxThreads - the largest number of threads
+	 * @return the thread counts, from 1 upwards
+	 */
+	private static List<Integer> threadCounts( int maxThreads ) {
+		List<Integer> counts = new ArrayList<Integer>();
+		for ( int threads = 1; threads < maxThreads; threads *= 2 ) {
+			counts.add( threads );
+		}
+		counts.add( maxThreads );
+		return counts;
+	}
+}
@@ -0,0 +1,149 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import chess.SyzygyTablebases;
+import chesspieces.Position;
+
+/**
+ * Measures the probes per second of the Syzygy tablebases of a directory, with a cold and a warm cache of decompressed
+ * blocks. Random legal positions of every ending of the directory are probed once right after the cache is cleared,
+ * so that most probes decompress a block, and then once more with the blocks in the cache. Another set of positions
+ * is probed first to warm up the JIT compiler.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar benchmarks.SyzygyProbes directory [positions] [cache megabytes]
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class SyzygyProbes {
+
+	/**
+	 * The letters of the piece types in the names of endings, indexed by piece type
+	 */
+	private static final String PIECE_LETTERS = "PNBRQK";
+
+	/**
+	 * Run the benchmark
+	 *
+	 * @param args - the directory of the tablebases, the number of positions (default 10000) and the size of the cache
+	 *             in megabytes (default 16)
+	 */
+	public static void main( String[] args ) {
+		if ( args.length < 1 || args.length > 3 ) {
+			System.out.println( "Usage: java benchmarks.SyzygyProbes directory [positions] [cache megabytes]" );
+			System.exit( 2 );
+		}
+		int numPositions = args.length > 1 ? Integer.parseInt( args[1] ) : 10000;
+		long cacheBytes = args.length > 2 ? Long.parseLong( args[2] ) << 20 : SyzygyTablebases.DEFAULT_CACHE_BYTES;
+
+		SyzygyTablebases tablebases = null;
+		try {
+			tablebases = SyzygyTablebases.load( Paths.get( args[0] ), cacheBytes );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot load the tablebases: " + e.getMessage() );
+			System.exit( 1 );
+		}
+		List<String> endings = tablebases.getEndings();
+		if ( endings.isEmpty() ) {
+			System.out.println( "No Syzygy tablebases in " + args[0] );
+			System.exit( 1 );
+		}
+		System.out.printf( "%d endings of up to %d pieces%n", endings.size(), tablebases.getMaxPieces() );
+
+		Random random = new Random( 1 );
+		runProbes( tablebases, randomPositions( endings, numPositions, random ), false );
+		runProbes( tablebases, randomPositions( endings, numPositions, random ), true );
+		List<Position> positions = randomPositions( endings, numPositions, random );
+
+		System.out.printf( "%-5s %-5s %10s %10s %10s %14s%n", "probe", "cache", "probes", "hits", "misses",
+				"probes/second" );
+		for ( boolean isDtz : new boolean[] { false, true } ) {
+			tablebases.clearCache();
+			measure( tablebases, positions, isDtz, "cold" );
+			measure( tablebases, positions, isDtz, "warm" );
+		}
+	}
+
+	/**
+	 * Probe positions once and print the speed and the cache lookups
+	 *
+	 * @param tablebases - the tablebases
+	 * @param positions  - the positions
+	 * @param isDtz      - whether to probe the distance to zeroing rather than the outcome
+	 * @param cache      - the name of the state of the cache
+	 */
+	private static void measure( SyzygyTablebases tablebases, List<Position> positions, boolean isDtz, String cache ) {
+		long hits = tablebases.getCacheHits();
+		long misses = tablebases.getCacheMisses();
+		long start = System.nanoTime();
+		runProbes( tablebases, positions, isDtz );
+		double seconds = ( System.nanoTime() - start ) / 1e9;
+		System.out.printf( "%-5s %-5s %10d %10d %10d %14.0f%n", isDtz ? "DTZ" : "WDL", cache, positions.size(),
+				tablebases.getCacheHits() - hits, tablebases.getCacheMisses() - misses, positions.size() / seconds );
+	}
+
+	/**
+	 * Probe positions once
+	 *
+	 * @param tablebases - the tablebases
+	 * @param positions  - the positions
+	 * @param isDtz      - whether to probe the distance to zeroing rather than the outcome
+	 * @return the number of positions found in the tablebases
+	 */
+	private static int runProbes( SyzygyTablebases tablebases, List<Position> positions, boolean isDtz ) {
+		int found = 0;
+		for ( Position position : positions ) {
+			int value = isDtz ? tablebases.probeDtz( position ) : tablebases.probeWdl( position );
+			if ( value != SyzygyTablebases.UNKNOWN ) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Set up random legal positions of endings, taking the endings in turn and either team as the stronger one
+	 *
+	 * @param endings      - the names of the endings, e.g. "KRPvKR"
+	 * @param numPositions - the number of positions
+	 * @param random       - the random numbers
+	 * @return the positions
+	 */
+	private static List<Position> randomPositions( List<String> endings, int numPositions, Random random ) {
+		List<Position> positions = new ArrayList<Position>( numPositions );
+		while ( positions.size() < numPositions ) {
+			String ending = endings.get( positions.size() % endings.size() );
+			int strongTeam = random.nextInt( 2 );
+			Position position = new Position();
+			int team = strongTeam;
+			for ( char letter : ending.toCharArray() ) {
+				if ( letter == 'v' ) {
+					team = 1 - strongTeam;
+					continue;
+				}
+				int type = PIECE_LETTERS.indexOf( letter );
+				int square;
+				do {
+					square = random.nextInt( 64 );
+				} while ( position.getPiece( square ) != Position.EMPTY
+						|| ( type == Position.PAWN && ( square < 8 || square >= 56 ) ) );
+				position.put( team, type, square );
+			}
+			int sideToMove = random.nextInt( 2 );
+			position.setSideToMove( sideToMove );
+			// The team that just moved cannot be in check
+			int other = 1 - sideToMove;
+			if ( !position.isAttacked( position.getKingSquare( other ), sideToMove ) ) {
+				positions.add( position );
+			}
+		}
+		return positions;
+	}
+}
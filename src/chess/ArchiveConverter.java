@@ -0,0 +1,107 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chesspieces.Team;
+
+/**
+ * The ArchiveConverter class converts games typed in the coordinate input of the game ("e2 e4", "e7 e8 N",
+ * "e2 e4 draw?", "resign", "draw"), one input per line, into a {@link GameArchive}. Games follow each other: a new game
+ * starts after one ends by checkmate, resignation, an accepted draw or a draw by the rules. Inputs that the game would
+ * not accept are skipped, just as the game asks for another input, and a game left unfinished at the end of the file
+ * is stored as unfinished.
+ *
+ * Usage: java chess.ArchiveConverter moves.txt archive.bin
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class ArchiveConverter {
+
+	/**
+	 * The number of inputs skipped by the last conversion
+	 */
+	private long skippedInputs;
+
+	/**
+	 * Convert the games of a file of inputs into an archive
+	 *
+	 * @param input   - the file of inputs
+	 * @param archive - the path of the archive to write
+	 * @return the number of games converted
+	 * @throws IOException if the input cannot be read or the archive cannot be written
+	 */
+	public int convert( Path input, Path archive ) throws IOException {
+		skippedInputs = 0;
+		short[] packedMoves = new short[GameArchive.MAX_MOVES];
+		int numMoves = 0;
+		Game game = new Game();
+		try ( BufferedReader in = Files.newBufferedReader( input, StandardCharsets.UTF_8 );
+				ArchiveWriter writer = new ArchiveWriter( archive ) ) {
+			String line;
+			while ( ( line = in.readLine() ) != null ) {
+				Team team = game.getTeamToMove();
+				Game.Outcome outcome = game.submit( line );
+				if ( outcome == Game.Outcome.MOVED ) {
+					if ( numMoves == GameArchive.MAX_MOVES ) {
+						throw new IOException( "A game has more than " + GameArchive.MAX_MOVES + " moves" );
+					}
+					int move = game.getBoard().getLastMove();
+					packedMoves[numMoves++] = (short) GameArchive.packMove( move, game.isRequestingDraw( team ) );
+				}
+				else if ( outcome != Game.Outcome.RESIGNED && outcome != Game.Outcome.DRAWN ) {
+					skippedInputs++;
+				}
+
+				int ending = ArchiveReader.endingOf( game );
+				if ( ending != GameArchive.NOT_ENDED ) {
+					writer.addGame( packedMoves, numMoves, ArchiveReader.resultOf( game ), ending );
+					game = new Game();
+					numMoves = 0;
+				}
+			}
+
+			if ( numMoves > 0 ) {
+				writer.addGame( packedMoves, numMoves, GameArchive.UNFINISHED, GameArchive.NOT_ENDED );
+			}
+			return writer.getGameCount();
+		}
+	}
+
+	/**
+	 * Get the number of inputs that the last conversion skipped, because the game would not accept them
+	 *
+	 * @return the number of skipped inputs
+	 */
+	public long getSkippedInputs() {
+		return skippedInputs;
+	}
+
+	/**
+	 * Convert a file of inputs into an archive
+	 *
+	 * @param args - the file of inputs and the path of the archive
+	 */
+	public static void main( String[] args ) {
+		if ( args.length != 2 ) {
+			System.out.println( "Usage: java chess.ArchiveConverter moves.txt archive.bin" );
+			System.exit( 2 );
+		}
+
+		ArchiveConverter converter = new ArchiveConverter();
+		try {
+			int games = converter.convert( Paths.get( args[0] ), Paths.get( args[1] ) );
+			System.out.println( "Games: " + games + ", skipped inputs: " + converter.getSkippedInputs() );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot convert the games: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+}
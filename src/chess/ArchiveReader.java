@@ -0,0 +1,263 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ArchiveReader class reads games from a file in the {@link GameArchive} format. The file is mapped into memory,
+ * and moves are read straight from the mapping, so no game is copied to be read. A reader can be used by many threads
+ * at once.
+ *
+ * Usage: java chess.ArchiveReader archive.bin
+ * <br>
+ * Replays every game of the archive through {@link Game}, which checks every move against the legal moves of the
+ * move generator, reporting the games that do not replay to their recorded end, and the games per second.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class ArchiveReader implements Closeable {
+
+	/**
+	 * The file of the archive
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The contents of the file
+	 */
+	private final MappedByteBuffer archive;
+
+	/**
+	 * The number of games in the archive
+	 */
+	private final int numGames;
+
+	/**
+	 * The byte offset of the index of the archive
+	 */
+	private final int indexOffset;
+
+	/**
+	 * Open an archive
+	 *
+	 * @param file - the path of the archive
+	 * @throws IOException if the file cannot be read, or is not an archive
+	 */
+	public ArchiveReader( Path file ) throws IOException {
+		channel = FileChannel.open( file, StandardOpenOption.READ );
+		try {
+			long size = channel.size();
+			if ( size > ArchiveWriter.MAX_SIZE ) {
+				throw new IOException( file + " is too large to be an archive" );
+			}
+			archive = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+			if ( size < GameArchive.HEADER_SIZE || archive.getInt( 0 ) != GameArchive.MAGIC ) {
+				throw new IOException( file + " is not a game archive" );
+			}
+			if ( archive.getShort( 4 ) < 1 || archive.getShort( 4 ) > GameArchive.VERSION ) {
+				throw new IOException( file + " has an unsupported version: " + archive.getShort( 4 ) );
+			}
+
+			numGames = archive.getInt( 8 );
+			long index = archive.getLong( 16 );
+			if ( numGames < 0 || index < GameArchive.HEADER_SIZE || index + 8L * numGames > size ) {
+				throw new IOException( file + " has a corrupt header" );
+			}
+			indexOffset = (int) index;
+		}
+		catch ( IOException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the number of games in the archive
+	 *
+	 * @return the number of games
+	 */
+	public int getGameCount() {
+		return numGames;
+	}
+
+	/**
+	 * Get the number of moves of a game
+	 *
+	 * @param game - the index of the game
+	 * @return the number of moves
+	 */
+	public int getMoveCount( int game ) {
+		return archive.getShort( gameOffset( game ) + 2 ) & 0xFFFF;
+	}
+
+	/**
+	 * Get the result of a game
+	 *
+	 * @param game - the index of the game
+	 * @return the result, e.g. {@link GameArchive#WHITE_WINS}
+	 */
+	public int getResult( int game ) {
+		return archive.get( gameOffset( game ) );
+	}
+
+	/**
+	 * Get how a game ended
+	 *
+	 * @param game - the index of the game
+	 * @return how the game ended, e.g. {@link GameArchive#CHECKMATE}
+	 */
+	public int getEnding( int game ) {
+		return archive.get( gameOffset( game ) + 1 );
+	}
+
+	/**
+	 * Get a packed move of a game
+	 *
+	 * @param game - the index of the game
+	 * @param ply  - the index of the move in the game, from 0
+	 * @return the packed move, which {@link GameArchive#unpackMove(int)} unpacks
+	 */
+	public int getPackedMove( int game, int ply ) {
+		return archive.getShort( gameOffset( game ) + GameArchive.GAME_HEADER_SIZE + 2 * ply ) & 0xFFFF;
+	}
+
+	/**
+	 * Replay a game through {@link Game}, including its draw requests and how it ended
+	 *
+	 * @param game - the index of the game
+	 * @return the replayed game, or null if a move is illegal or the game does not end as recorded
+	 */
+	public Game replay( int game ) {
+		Game replayed = new Game();
+		int offset = gameOffset( game );
+		int numMoves = archive.getShort( offset + 2 ) & 0xFFFF;
+		for ( int i = 0; i < numMoves; i++ ) {
+			int packed = archive.getShort( offset + GameArchive.GAME_HEADER_SIZE + 2 * i ) & 0xFFFF;
+			if ( replayed.isOver() || replayed.submit( GameArchive.unpackMove( packed ),
+					GameArchive.isDrawRequest( packed ) ) != Game.Outcome.MOVED ) {
+				return null;
+			}
+		}
+
+		int ending = archive.get( offset + 1 );
+		if ( ending == GameArchive.RESIGNATION ) {
+			replayed.submit( "resign" );
+		}
+		else if ( ending == GameArchive.DRAW_AGREED ) {
+			replayed.submit( "draw" );
+		}
+		if ( endingOf( replayed ) != ending || resultOf( replayed ) != archive.get( offset ) ) {
+			return null;
+		}
+		return replayed;
+	}
+
+	/**
+	 * Get the result of a game in the archive's terms
+	 *
+	 * @param game - the game
+	 * @return the result, e.g. {@link GameArchive#WHITE_WINS}
+	 */
+	static int resultOf( Game game ) {
+		String result = game.getResult();
+		if ( result == null ) {
+			return GameArchive.UNFINISHED;
+		}
+		else if ( result.equals( "Draw" ) ) {
+			return GameArchive.DRAW;
+		}
+		return result.startsWith( "White" ) ? GameArchive.WHITE_WINS : GameArchive.BLACK_WINS;
+	}
+
+	/**
+	 * Get how a game ended in the archive's terms
+	 *
+	 * @param game - the game
+	 * @return how the game ended, e.g. {@link GameArchive#CHECKMATE}, or {@link GameArchive#NOT_ENDED}
+	 */
+	static int endingOf( Game game ) {
+		if ( game.getEnding() == null ) {
+			return GameArchive.NOT_ENDED;
+		}
+		switch ( game.getEnding() ) {
+			case CHECKMATE:
+				return GameArchive.CHECKMATE;
+			case RESIGNATION:
+				return GameArchive.RESIGNATION;
+			case AGREEMENT:
+				return GameArchive.DRAW_AGREED;
+			case STALEMATE:
+				return GameArchive.STALEMATE;
+			case REPETITION:
+				return GameArchive.REPETITION;
+			case FIFTY_MOVES:
+				return GameArchive.FIFTY_MOVES;
+			default:
+				return GameArchive.INSUFFICIENT_MATERIAL;
+		}
+	}
+
+	/**
+	 * Find where a game starts, from the index
+	 *
+	 * @param game - the index of the game
+	 * @return the byte offset of the game
+	 */
+	private int gameOffset( int game ) {
+		if ( game < 0 || game >= numGames ) {
+			throw new IndexOutOfBoundsException( "No game " + game + " in an archive of " + numGames );
+		}
+		return (int) archive.getLong( indexOffset + 8 * game );
+	}
+
+	/**
+	 * Close the file. The mapping stays valid until it is garbage collected
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Replay every game of an archive
+	 *
+	 * @param args - the path of the archive
+	 */
+	public static void main( String[] args ) {
+		if ( args.length != 1 ) {
+			System.out.println( "Usage: java chess.ArchiveReader archive.bin" );
+			System.exit( 2 );
+		}
+
+		try ( ArchiveReader reader = new ArchiveReader( Paths.get( args[0] ) ) ) {
+			long start = System.nanoTime();
+			long moves = 0;
+			int failed = 0;
+			for ( int game = 0; game < reader.getGameCount(); game++ ) {
+				moves += reader.getMoveCount( game );
+				if ( reader.replay( game ) == null ) {
+					failed++;
+					System.out.println( "Game " + game + " does not replay" );
+				}
+			}
+			double seconds = ( System.nanoTime() - start ) / 1e9;
+
+			System.out.printf( "Games: %d, not replayed: %d, moves: %d%n", reader.getGameCount(), failed, moves );
+			System.out.printf( "Time: %.3f s%n", seconds );
+			System.out.printf( "Games/second: %.0f%n", reader.getGameCount() / seconds );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot read the archive: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+}
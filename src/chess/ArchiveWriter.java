@@ -0,0 +1,162 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The ArchiveWriter class writes completed games into a file in the {@link GameArchive} format. Games are written as
+ * they are added, and the index and header are written when the writer is closed.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class ArchiveWriter implements Closeable {
+
+	/**
+	 * The largest archive that can be written, as it must be mapped into memory in one piece to be read
+	 */
+	public static final long MAX_SIZE = Integer.MAX_VALUE;
+
+	/**
+	 * The file being written
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The bytes written but not yet sent to the file
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocate( 1 << 16 );
+
+	/**
+	 * The byte offset of every game written so far
+	 */
+	private long[] offsets = new long[1024];
+
+	/**
+	 * The number of games written so far
+	 */
+	private int numGames;
+
+	/**
+	 * The byte offset in the file of the next byte written
+	 */
+	private long position = GameArchive.HEADER_SIZE;
+
+	/**
+	 * Create an archive, replacing any file at the path
+	 *
+	 * @param file - the path of the archive
+	 * @throws IOException if the file cannot be created
+	 */
+	public ArchiveWriter( Path file ) throws IOException {
+		channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING );
+		channel.position( GameArchive.HEADER_SIZE );
+	}
+
+	/**
+	 * Write a game
+	 *
+	 * @param packedMoves - the moves of the game, packed by {@link GameArchive#packMove(int, boolean)}
+	 * @param numMoves    - the number of moves
+	 * @param result      - the result, e.g. {@link GameArchive#WHITE_WINS}
+	 * @param ending      - how the game ended, e.g. {@link GameArchive#CHECKMATE}
+	 * @throws IOException if the game cannot be written, or the game or archive is too large
+	 */
+	public void addGame( short[] packedMoves, int numMoves, int result, int ending ) throws IOException {
+		if ( numMoves > GameArchive.MAX_MOVES ) {
+			throw new IOException( "A game cannot have more than " + GameArchive.MAX_MOVES + " moves" );
+		}
+		long size = GameArchive.GAME_HEADER_SIZE + 2L * numMoves;
+		if ( position + size + 8L * ( numGames + 1 ) > MAX_SIZE ) {
+			throw new IOException( "The archive is full" );
+		}
+
+		if ( numGames == offsets.length ) {
+			offsets = Arrays.copyOf( offsets, numGames * 2 );
+		}
+		offsets[numGames++] = position;
+
+		ensureRoom( GameArchive.GAME_HEADER_SIZE );
+		buffer.put( (byte) result );
+		buffer.put( (byte) ending );
+		buffer.putShort( (short) numMoves );
+		for ( int i = 0; i < numMoves; i++ ) {
+			ensureRoom( 2 );
+			buffer.putShort( packedMoves[i] );
+		}
+		position += size;
+	}
+
+	/**
+	 * Get the number of games written so far
+	 *
+	 * @return the number of games
+	 */
+	public int getGameCount() {
+		return numGames;
+	}
+
+	/**
+	 * Write the index and the header, and close the file
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			long indexOffset = position;
+			for ( int i = 0; i < numGames; i++ ) {
+				ensureRoom( 8 );
+				buffer.putLong( offsets[i] );
+			}
+			flush();
+
+			ByteBuffer header = ByteBuffer.allocate( GameArchive.HEADER_SIZE );
+			header.putInt( GameArchive.MAGIC );
+			header.putShort( (short) GameArchive.VERSION );
+			header.putShort( (short) 0 );
+			header.putInt( numGames );
+			header.putInt( 0 );
+			header.putLong( indexOffset );
+			header.flip();
+			while ( header.hasRemaining() ) {
+				channel.write( header, header.position() );
+			}
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Make room in the buffer, sending it to the file if it is too full
+	 *
+	 * @param bytes - the number of bytes about to be put into the buffer
+	 * @throws IOException if the buffer cannot be written
+	 */
+	private void ensureRoom( int bytes ) throws IOException {
+		if ( buffer.remaining() < bytes ) {
+			flush();
+		}
+	}
+
+	/**
+	 * Send the buffer to the file
+	 *
+	 * @throws IOException if the buffer cannot be written
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while ( buffer.hasRemaining() ) {
+			channel.write( buffer );
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,212 @@
+package chess;
+
+import java.io.PrintStream;
+
+import chesspieces.Board;
+import chesspieces.ChessPiece;
+
+/**
+ * The BoardRenderer class prints boards the way the game shows them, e.g. "wK " for a white King, "## " for an empty
+ * black tile and "   " for an empty white tile, followed by the rank of each row and then the files. Every frame is
+ * built in a reusable buffer and written to the stream in one call, rather than one call per tile.
+ *
+ * In ANSI mode the board stays at the top of the terminal: the first frame clears the screen, and later frames only
+ * redraw the tiles that changed, then clear the text printed below the board since the last frame.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class BoardRenderer {
+
+	/**
+	 * The characters shown for the tiles and the line of files
+	 */
+	private static final String BLACK_TILE = "##", WHITE_TILE = "  ", FILES = " a  b  c  d  e  f  g  h";
+
+	/**
+	 * The escape sequences that move the cursor to the top left corner and clear the screen, and that clear from the
+	 * cursor to the end of the screen
+	 */
+	private static final String CLEAR_SCREEN = "\033[H\033[2J", CLEAR_BELOW = "\033[J";
+
+	/**
+	 * The number of lines of a frame: a line per row, the files, and an empty line
+	 */
+	private static final int FRAME_LINES = 10;
+
+	/**
+	 * The stream that boards are printed to
+	 */
+	private final PrintStream out;
+
+	/**
+	 * Whether only the tiles that changed are redrawn
+	 */
+	private final boolean isAnsi;
+
+	/**
+	 * The line break of the platform, as printed by {@link PrintStream#println()}
+	 */
+	private final byte[] lineSeparator = System.lineSeparator().getBytes();
+
+	/**
+	 * The buffer that every frame is built in, large enough for a full frame with the screen cleared or for every
+	 * tile redrawn
+	 */
+	private final byte[] frame = new byte[1024];
+
+	/**
+	 * The number of bytes of the frame being built
+	 */
+	private int length;
+
+	/**
+	 * What the terminal shows on each tile, as a chess piece (e.g. "wK") or an empty tile, or null before the first
+	 * frame in ANSI mode
+	 */
+	private final String[] shownTiles = new String[64];
+
+	/**
+	 * Create a renderer
+	 *
+	 * @param out    - the stream to print boards to
+	 * @param isAnsi - whether to keep the board at the top of the terminal and only redraw the tiles that changed
+	 */
+	public BoardRenderer( PrintStream out, boolean isAnsi ) {
+		this.out = out;
+		this.isAnsi = isAnsi;
+	}
+
+	/**
+	 * Print a board in one write
+	 *
+	 * @param board - the board to print
+	 */
+	public void render( Board board ) {
+		length = 0;
+		if ( isAnsi && shownTiles[0] != null ) {
+			appendChangedTiles( board );
+		}
+		else {
+			if ( isAnsi ) {
+				append( CLEAR_SCREEN );
+			}
+			appendFullFrame( board );
+		}
+		out.write( frame, 0, length );
+	}
+
+	/**
+	 * Redraw the whole board with the next frame, e.g. after something else has been drawn over it
+	 */
+	public void reset() {
+		shownTiles[0] = null;
+	}
+
+	/**
+	 * Build a frame of the whole board
+	 *
+	 * @param board - the board
+	 */
+	private void appendFullFrame( Board board ) {
+		for ( int i = 0; i < 8; i++ ) {
+			for ( int j = 0; j < 8; j++ ) {
+				String tile = tileOf( board, i, j );
+				append( tile );
+				frame[length++] = ' ';
+				shownTiles[i * 8 + j] = tile;
+			}
+			frame[length++] = (byte) ( '0' + 8 - i );
+			appendLineSeparator();
+		}
+		append( FILES );
+		appendLineSeparator();
+		appendLineSeparator();
+	}
+
+	/**
+	 * Build a frame that moves the cursor to every tile that changed since the last frame and redraws it, and then
+	 * clears everything below the board
+	 *
+	 * @param board - the board
+	 */
+	private void appendChangedTiles( Board board ) {
+		for ( int i = 0; i < 8; i++ ) {
+			for ( int j = 0; j < 8; j++ ) {
+				String tile = tileOf( board, i, j );
+				if ( !tile.equals( shownTiles[i * 8 + j] ) ) {
+					appendCursorMove( i + 1, j * 3 + 1 );
+					append( tile );
+					shownTiles[i * 8 + j] = tile;
+				}
+			}
+		}
+		appendCursorMove( FRAME_LINES + 1, 1 );
+		append( CLEAR_BELOW );
+	}
+
+	/**
+	 * Get what is shown on a tile
+	 *
+	 * @param board - the board
+	 * @param row   - the row of the tile
+	 * @param col   - the column of the tile
+	 * @return the chess piece on the tile (e.g. "wK"), or the empty tile
+	 */
+	private static String tileOf( Board board, int row, int col ) {
+		ChessPiece piece = board.getPiece( row, col );
+		if ( piece != null ) {
+			return piece.toString();
+		}
+		// The tile in the top left corner is white, and the colors alternate
+		return ( row + col ) % 2 == 1 ? BLACK_TILE : WHITE_TILE;
+	}
+
+	/**
+	 * Add the escape sequence that moves the cursor to a position on the screen
+	 *
+	 * @param line   - the line, from 1
+	 * @param column - the column, from 1
+	 */
+	private void appendCursorMove( int line, int column ) {
+		frame[length++] = '\033';
+		frame[length++] = '[';
+		appendNumber( line );
+		frame[length++] = ';';
+		appendNumber( column );
+		frame[length++] = 'H';
+	}
+
+	/**
+	 * Add a number of one or two digits
+	 *
+	 * @param number - the number
+	 */
+	private void appendNumber( int number ) {
+		if ( number >= 10 ) {
+			frame[length++] = (byte) ( '0' + number / 10 );
+		}
+		frame[length++] = (byte) ( '0' + number % 10 );
+	}
+
+	/**
+	 * Add text, which must be ASCII
+	 *
+	 * @param text - the text
+	 */
+	private void append( String text ) {
+		for ( int i = 0; i < text.length(); i++ ) {
+			frame[length++] = (byte) text.charAt( i );
+		}
+	}
+
+	/**
+	 * Add a line break
+	 */
+	private void appendLineSeparator() {
+		for ( byte b : lineSeparator ) {
+			frame[length++] = b;
+		}
+	}
+}
@@ -0,0 +1,343 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chesspieces.Bitboards;
+import chesspieces.Fen;
+import chesspieces.Move;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * The BookBuilder class builds an {@link OpeningBook} from the games of {@link GameArchive} files. The first moves of
+ * every finished game are replayed, and every move is counted for the position it was played from, together with
+ * whether the team that played it went on to win, draw or lose. Positions reached by different move orders are
+ * counted together. Unfinished games and games with an illegal move are skipped.
+ *
+ * Usage: java chess.BookBuilder [--plies n] [--min-games n] book.bin archive.bin ...
+ * <br>
+ * Counts the first n plies of every game (default {@link #DEFAULT_MAX_PLY}), and leaves out the moves played in fewer
+ * than --min-games games (default 1).
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class BookBuilder {
+
+	/**
+	 * The number of plies of every game counted by default
+	 */
+	public static final int DEFAULT_MAX_PLY = 20;
+
+	/**
+	 * The number of plies of every game that are counted
+	 */
+	private final int maxPly;
+
+	/**
+	 * The moves counted so far, by the hash of the position they were played from
+	 */
+	private final Map<Long, List<BookMove>> positions = new HashMap<Long, List<BookMove>>();
+
+	/**
+	 * The number of games counted and skipped so far
+	 */
+	private int numGames, skippedGames;
+
+	/**
+	 * The legal moves of the position being replayed
+	 */
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * A move played from a position, and the results of the games it was played in
+	 */
+	private static final class BookMove {
+
+		/**
+		 * The move, packed by {@link GameArchive#packMove(int, boolean)}
+		 */
+		private final int packedMove;
+
+		/**
+		 * The number of games in which the team that played the move won, drew and lost
+		 */
+		private int wins, draws, losses;
+
+		/**
+		 * Create a move that has not been counted yet
+		 *
+		 * @param packedMove - the packed move
+		 */
+		private BookMove( int packedMove ) {
+			this.packedMove = packedMove;
+		}
+
+		/**
+		 * Get the weight of the move in the book
+		 *
+		 * @return twice the wins plus the draws, at most {@link OpeningBook#MAX_WEIGHT}
+		 */
+		private int weight() {
+			return (int) Math.min( 2L * wins + draws, OpeningBook.MAX_WEIGHT );
+		}
+	}
+
+	/**
+	 * Create a builder
+	 *
+	 * @param maxPly - the number of plies of every game to count
+	 */
+	public BookBuilder( int maxPly ) {
+		this.maxPly = maxPly;
+	}
+
+	/**
+	 * Count the games of an archive
+	 *
+	 * @param archive - the path of the archive
+	 * @throws IOException if the archive cannot be read
+	 */
+	public void addArchive( Path archive ) throws IOException {
+		try ( ArchiveReader reader = new ArchiveReader( archive ) ) {
+			for ( int game = 0; game < reader.getGameCount(); game++ ) {
+				addGame( reader, game );
+			}
+		}
+	}
+
+	/**
+	 * Count the first moves of a game of an archive
+	 *
+	 * @param reader - the reader of the archive
+	 * @param game   - the index of the game
+	 */
+	private void addGame( ArchiveReader reader, int game ) {
+		int result = reader.getResult( game );
+		if ( result == GameArchive.UNFINISHED ) {
+			skippedGames++;
+			return;
+		}
+
+		// Check every move before counting any of them, so that a game with an illegal move is not half counted
+		Position position = Fen.toPosition( Fen.START );
+		int numPlies = Math.min( reader.getMoveCount( game ), maxPly );
+		int[] moves = new int[numPlies];
+		for ( int ply = 0; ply < numPlies; ply++ ) {
+			int move = findLegalMove( position, GameArchive.unpackMove( reader.getPackedMove( game, ply ) ) );
+			if ( move == -1 ) {
+				skippedGames++;
+				return;
+			}
+			moves[ply] = move;
+			position.makeMove( move );
+		}
+		for ( int ply = numPlies - 1; ply >= 0; ply-- ) {
+			position.unmakeMove( moves[ply] );
+		}
+
+		for ( int ply = 0; ply < numPlies; ply++ ) {
+			BookMove bookMove = findBookMove( position.getHash(), GameArchive.packMove( moves[ply], false ) );
+			if ( result == GameArchive.DRAW ) {
+				bookMove.draws++;
+			}
+			else if ( ( result == GameArchive.WHITE_WINS ) == ( position.getSideToMove() == Bitboards.WHITE ) ) {
+				bookMove.wins++;
+			}
+			else {
+				bookMove.losses++;
+			}
+			position.makeMove( moves[ply] );
+		}
+		numGames++;
+	}
+
+	/**
+	 * Find the legal move of a position between the same squares as a move, as an archive does not record whether a
+	 * move castles, captures en passant or is a double Pawn move
+	 *
+	 * @param position - the position
+	 * @param move     - the unpacked move
+	 * @return the encoded legal move, or -1 if the move is illegal
+	 */
+	private int findLegalMove( Position position, int move ) {
+		int numMoves = MoveGenerator.generateLegalMoves( position, legalMoves );
+		for ( int i = 0; i < numMoves; i++ ) {
+			if ( Move.from( legalMoves[i] ) == Move.from( move ) && Move.to( legalMoves[i] ) == Move.to( move )
+					&& Move.promotion( legalMoves[i] ) == Move.promotion( move ) ) {
+				return legalMoves[i];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the counts of a move played from a position, starting new counts the first time the move is seen
+	 *
+	 * @param hash       - the hash of the position
+	 * @param packedMove - the packed move
+	 * @return the counts of the move
+	 */
+	private BookMove findBookMove( long hash, int packedMove ) {
+		List<BookMove> moves = positions.get( hash );
+		if ( moves == null ) {
+			moves = new ArrayList<BookMove>( 4 );
+			positions.put( hash, moves );
+		}
+		for ( BookMove bookMove : moves ) {
+			if ( bookMove.packedMove == packedMove ) {
+				return bookMove;
+			}
+		}
+		BookMove bookMove = new BookMove( packedMove );
+		moves.add( bookMove );
+		return bookMove;
+	}
+
+	/**
+	 * Get the number of games counted so far
+	 *
+	 * @return the number of games
+	 */
+	public int getGameCount() {
+		return numGames;
+	}
+
+	/**
+	 * Get the number of games skipped so far, because they were unfinished or had an illegal move
+	 *
+	 * @return the number of skipped games
+	 */
+	public int getSkippedGames() {
+		return skippedGames;
+	}
+
+	/**
+	 * Write the book of the moves counted so far, replacing any file at the path
+	 *
+	 * @param book     - the path of the book
+	 * @param minGames - the fewest games a move must have been played in to be written
+	 * @return the number of entries written
+	 * @throws IOException if the book cannot be written
+	 */
+	public int write( Path book, int minGames ) throws IOException {
+		long[] hashes = new long[positions.size()];
+		int numPositions = 0;
+		int numEntries = 0;
+		for ( Map.Entry<Long, List<BookMove>> position : positions.entrySet() ) {
+			List<BookMove> moves = position.getValue();
+			moves.removeIf( bookMove -> bookMove.wins + bookMove.draws + bookMove.losses < minGames );
+			// The move with the highest weight comes first, and ties are broken by the move so that books are
+			// the same whatever order the games were counted in
+			moves.sort( ( a, b ) -> a.weight() != b.weight() ? b.weight() - a.weight() : a.packedMove - b.packedMove );
+			if ( !moves.isEmpty() ) {
+				hashes[numPositions++] = position.getKey();
+				numEntries += moves.size();
+			}
+		}
+		Arrays.sort( hashes, 0, numPositions );
+		if ( OpeningBook.HEADER_SIZE + (long) OpeningBook.ENTRY_SIZE * numEntries > Integer.MAX_VALUE ) {
+			throw new IOException( "The book is too large" );
+		}
+
+		try ( FileChannel channel = FileChannel.open( book, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING ) ) {
+			ByteBuffer buffer = ByteBuffer.allocate( 1 << 16 );
+			buffer.putInt( OpeningBook.MAGIC );
+			buffer.putShort( (short) OpeningBook.VERSION );
+			buffer.putShort( (short) 0 );
+			buffer.putInt( numEntries );
+			buffer.putInt( 0 );
+			for ( int i = 0; i < numPositions; i++ ) {
+				for ( BookMove bookMove : positions.get( hashes[i] ) ) {
+					if ( buffer.remaining() < OpeningBook.ENTRY_SIZE ) {
+						flush( channel, buffer );
+					}
+					buffer.putLong( hashes[i] );
+					buffer.putShort( (short) bookMove.packedMove );
+					buffer.putShort( (short) bookMove.weight() );
+					buffer.putInt( bookMove.wins );
+					buffer.putInt( bookMove.draws );
+					buffer.putInt( bookMove.losses );
+				}
+			}
+			flush( channel, buffer );
+		}
+		return numEntries;
+	}
+
+	/**
+	 * Send a buffer to a file
+	 *
+	 * @param channel - the file
+	 * @param buffer  - the buffer
+	 * @throws IOException if the buffer cannot be written
+	 */
+	private static void flush( FileChannel channel, ByteBuffer buffer ) throws IOException {
+		buffer.flip();
+		while ( buffer.hasRemaining() ) {
+			channel.write( buffer );
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Build a book from archives
+	 *
+	 * @param args - the options, the path of the book and the paths of the archives
+	 */
+	public static void main( String[] args ) {
+		int maxPly = DEFAULT_MAX_PLY;
+		int minGames = 1;
+		int i = 0;
+		try {
+			for ( ; i + 1 < args.length && args[i].startsWith( "--" ); i += 2 ) {
+				if ( args[i].equals( "--plies" ) ) {
+					maxPly = Integer.parseInt( args[i + 1] );
+				}
+				else if ( args[i].equals( "--min-games" ) ) {
+					minGames = Integer.parseInt( args[i + 1] );
+				}
+				else {
+					maxPly = 0;
+				}
+			}
+		}
+		catch ( NumberFormatException e ) {
+			maxPly = 0;
+		}
+		if ( maxPly <= 0 || minGames <= 0 || args.length - i < 2 ) {
+			System.out.println( "Usage: java chess.BookBuilder [--plies n] [--min-games n] book.bin archive.bin ..." );
+			System.exit( 2 );
+		}
+
+		BookBuilder builder = new BookBuilder( maxPly );
+		try {
+			long start = System.nanoTime();
+			for ( int archive = i + 1; archive < args.length; archive++ ) {
+				builder.addArchive( Paths.get( args[archive] ) );
+			}
+			int entries = builder.write( Paths.get( args[i] ), minGames );
+			double seconds = ( System.nanoTime() - start ) / 1e9;
+
+			System.out.printf( "Games: %d, skipped: %d, entries: %d%n", builder.getGameCount(),
+					builder.getSkippedGames(), entries );
+			System.out.printf( "Time: %.3f s%n", seconds );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot build the book: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+}
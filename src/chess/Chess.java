@@ -1,15 +1,20 @@
 package chess;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
 import java.util.Scanner;
 
-import chesspieces.ChessPiece;
-import chesspieces.King;
-import chesspieces.Pawn;
+import chesspieces.Board;
+import chesspieces.Fen;
 import chesspieces.Team;
-import chesspieces.Bishop;
-import chesspieces.Knight;
-import chesspieces.Rook;
-import chesspieces.Queen;
+import chesspieces.Move;
+import chesspieces.Position;
 
 /**
  * Main class that runs the entire chess game
@@ -21,375 +26,460 @@ import chesspieces.Queen;
 
 public class Chess {
 
-	private static ChessPiece[][] board;
+	/**
+	 * Whether the computer plays white and whether it plays black
+	 */
+	private static boolean isWhiteComputer, isBlackComputer;
 
 	/**
-	 * The move number of the current move that the user in turn is making. For example, currentMoveNumber will be 1
-	 * when white makes its first move, then currentMoveNumber will be 2 when black makes its first move, etc...
+	 * The search that finds the computer's moves
 	 */
-	private static int currentMoveNumber;
+	private static ParallelSearch search;
 
 	/**
-	 * The scanner to receive all input from both users
+	 * The largest depth and the time in milliseconds that the computer may search each move for
 	 */
-	private static Scanner in;
+	private static int searchDepth = Search.MAX_PLY - 1;
+	private static long searchTime = 2000;
 
 	/**
-	 * A flag to indicate that white is requesting a draw when black moves
+	 * Whether the board is redrawn with ANSI escape sequences, and the renderer that prints the board before every
+	 * move
 	 */
-	private static boolean isWhiteRequestingDraw;
+	private static boolean isAnsi;
+	private static BoardRenderer renderer;
 
 	/**
-	 * A flag to indicate that black is requesting a draw when white moves
+	 * The renderer of {@link #printChessboard(Board, PrintStream)} and the stream it prints to, kept until a board is
+	 * printed to another stream
 	 */
-	private static boolean isBlackRequestingDraw;
+	private static BoardRenderer streamRenderer;
+	private static PrintStream streamRendererOut;
 
 	/**
-	 * The main method to run the entire chess game
-	 * 
-	 * @param args
+	 * The move script to play in batch mode ("-" for the standard input), or null to play interactively
 	 */
-	public static void main( String[] args ) {
-		setupBoard();
-		boolean isGameOver = false;
-		in = new Scanner( System.in );
-		currentMoveNumber = 1;
-		while ( !isGameOver ) {
-			isGameOver = makeAMove( Team.WHITE );
-			if ( !isGameOver ) {
-				isGameOver = makeAMove( Team.BLACK );
-			}
-		}
+	private static String batchScript;
 
-		in.close();
-	}
+	/**
+	 * The FEN of the position that the game starts from
+	 */
+	private static String startFen = Fen.START;
+
+	/**
+	 * The path of the opening book that the computer plays from, or null to always search
+	 */
+	private static String bookFile;
+
+	/**
+	 * The opening book, and the random numbers that choose between its moves
+	 */
+	private static OpeningBook book;
+	private static final Random bookRandom = new Random();
 
 	/**
-	 * Initialize board, and add all chess pieces onto it
+	 * The directory of the tablebases that the computer plays endings from, or null to always search
 	 */
-	private static void setupBoard() {
-		board = new ChessPiece[8][8];
+	private static String tablebaseDirectory;
 
-		King whiteKing = new King( board, 7, 4, Team.WHITE );
-		board[7][4] = whiteKing;
+	/**
+	 * The tablebases
+	 */
+	private static Tablebases tablebases;
 
-		King blackKing = new King( board, 0, 4, Team.BLACK );
-		board[0][4] = blackKing;
+	/**
+	 * The directory of the Syzygy tablebases that decide games in batch mode, or null to play games out
+	 */
+	private static String syzygyDirectory;
 
-		Team[] teams = new Team[] { Team.WHITE, Team.BLACK };
-		int[] rows = new int[] { 7, 0 };
-		King[] kings = new King[] { whiteKing, blackKing };
+	/**
+	 * The Syzygy tablebases
+	 */
+	private static SyzygyTablebases syzygy;
+
+	/**
+	 * The main method to run the entire chess game. By default two users play against each other. The options are:
+	 * <ul>
+	 * <li>--computer white|black|both - let the computer play one or both teams</li>
+	 * <li>--depth [plies] - the largest depth the computer searches to</li>
+	 * <li>--time [milliseconds] - the time the computer searches each move for (default 2000)</li>
+	 * <li>--hash [megabytes] - the size of the computer's transposition table (default 64)</li>
+	 * <li>--threads [count] - the number of threads the computer searches with (default one per processor)</li>
+	 * <li>--ansi - keep the board at the top of the terminal and only redraw the tiles that changed</li>
+	 * <li>--fen [FEN] - start the game from a position instead of the starting position</li>
+	 * <li>--book [file] - let the computer play the moves of an opening book built by {@link BookBuilder} for as long
+	 * as the game is in the book</li>
+	 * <li>--tablebases [directory] - let the computer play endings held in the tablebases of a directory, written by
+	 * {@link TablebaseGenerator}, by lookup</li>
+	 * <li>--syzygy [directory] - end games in batch mode as soon as they reach an ending held in the Syzygy tablebases
+	 * of a directory, with the outcome of the tablebases</li>
+	 * <li>--batch [file] - play the moves of a script, one input per line, from a file or "-" for the standard input,
+	 * and only print how the game ended (see {@link #playBatch(Game, BufferedReader)})</li>
+	 * </ul>
+	 * 
+	 * @param args - the options
+	 */
+	public static void main( String[] args ) {
+		if ( !parseOptions( args ) ) {
+			System.out.println(
+					"Usage: java chess.Chess [--computer white|black|both] [--depth plies] [--time ms] [--hash MB] "
+							+ "[--threads count] [--ansi] [--batch file|-] [--fen FEN] [--book file] "
+							+ "[--tablebases directory] [--syzygy directory]" );
+			System.exit( 2 );
+		}
 
-		for ( int i = 0; i < 2; i++ ) {
-			// Add queens to board
-			Queen queen = new Queen( board, rows[i], 3, teams[i], kings[i] );
-			board[rows[i]][3] = queen;
+		Game game = null;
+		try {
+			game = new Game( startFen );
+		}
+		catch ( IllegalArgumentException e ) {
+			System.out.println( "Cannot start from the position: " + e.getMessage() );
+			System.exit( 2 );
+		}
 
-			// Add rooks to board
-			for ( int j = 0; j < 2; j++ ) {
-				// cols are 0 and 7
-				Rook rook = new Rook( board, rows[i], 7 * j, teams[i], kings[i] );
-				board[rows[i]][7 * j] = rook;
+		if ( bookFile != null ) {
+			try {
+				book = new OpeningBook( Paths.get( bookFile ) );
 			}
+			catch ( IOException e ) {
+				System.out.println( "Cannot open the opening book: " + e.getMessage() );
+				System.exit( 2 );
+			}
+		}
 
-			// Add knights to board
-			for ( int j = 0; j < 2; j++ ) {
-				// Ensure cols are 1 and 6
-				Knight knight = new Knight( board, rows[i], 5 * j + 1, teams[i], kings[i] );
-				board[rows[i]][5 * j + 1] = knight;
+		if ( tablebaseDirectory != null ) {
+			try {
+				tablebases = Tablebases.load( Paths.get( tablebaseDirectory ) );
 			}
+			catch ( IOException e ) {
+				System.out.println( "Cannot load the tablebases: " + e.getMessage() );
+				System.exit( 2 );
+			}
+		}
 
-			// Add bishops to board
-			for ( int j = 0; j < 2; j++ ) {
-				// Ensure cols are 2 and 5
-				Bishop bishop = new Bishop( board, rows[i], 3 * j + 2, teams[i], kings[i] );
-				board[rows[i]][3 * j + 2] = bishop;
+		if ( syzygyDirectory != null ) {
+			try {
+				syzygy = SyzygyTablebases.load( Paths.get( syzygyDirectory ), SyzygyTablebases.DEFAULT_CACHE_BYTES );
+			}
+			catch ( IOException e ) {
+				System.out.println( "Cannot load the Syzygy tablebases: " + e.getMessage() );
+				System.exit( 2 );
 			}
 		}
 
-		// Add pawns to board
-		rows = new int[] { 6, 1 };
-		for ( int i = 0; i < 2; i++ ) {
-			for ( int j = 0; j < 8; j++ ) {
-				Pawn pawn = new Pawn( board, rows[i], j, teams[i], kings[i] );
-				board[rows[i]][j] = pawn;
+		if ( batchScript != null ) {
+			try ( BufferedReader script = batchScript.equals( "-" )
+					? new BufferedReader( new InputStreamReader( System.in, StandardCharsets.UTF_8 ), 1 << 16 )
+					: Files.newBufferedReader( Paths.get( batchScript ), StandardCharsets.UTF_8 ) ) {
+				System.exit( playBatch( game, script ) );
+			}
+			catch ( IOException e ) {
+				System.out.println( "Cannot read the move script: " + e.getMessage() );
+				System.exit( 2 );
 			}
 		}
+
+		renderer = new BoardRenderer( System.out, isAnsi );
+		Scanner in = new Scanner( System.in );
+		boolean isGameOver = false;
+		while ( !isGameOver ) {
+			isGameOver = makeAMove( game, in );
+		}
+
+		in.close();
 	}
 
 	/**
-	 * Print the board
+	 * Read the command line options
+	 * 
+	 * @param args - the options
+	 * @return whether the options are valid
 	 */
-	private static void printChessboard() {
-		boolean blackSquare = false;
-
-		for ( int i = 0; i < 8; i++ ) {
-			for ( int j = 0; j < 8; j++ ) {
-				if ( board[i][j] == null ) {
-					if ( blackSquare ) {
-						System.out.print( "## " );
-					}
-					else {
-						System.out.print( "   " );
-					}
-				}
-				else {
-					System.out.print( board[i][j] + " " );
+	private static boolean parseOptions( String[] args ) {
+		int hashMegabytes = 64;
+		int threads = ParallelSearch.defaultThreads();
+		for ( int i = 0; i < args.length; i++ ) {
+			if ( args[i].equals( "--ansi" ) ) {
+				isAnsi = true;
+				continue;
+			}
+			if ( i + 1 >= args.length ) {
+				return false;
+			}
+
+			String option = args[i];
+			String value = args[++i];
+			try {
+				switch ( option ) {
+					case "--computer":
+						isWhiteComputer = value.equals( "white" ) || value.equals( "both" );
+						isBlackComputer = value.equals( "black" ) || value.equals( "both" );
+						if ( !isWhiteComputer && !isBlackComputer ) {
+							return false;
+						}
+						break;
+					case "--depth":
+						searchDepth = Math.min( Integer.parseInt( value ), Search.MAX_PLY - 1 );
+						break;
+					case "--time":
+						searchTime = Long.parseLong( value );
+						break;
+					case "--hash":
+						hashMegabytes = Integer.parseInt( value );
+						break;
+					case "--threads":
+						threads = Integer.parseInt( value );
+						break;
+					case "--batch":
+						batchScript = value;
+						break;
+					case "--fen":
+						startFen = value;
+						break;
+					case "--book":
+						bookFile = value;
+						break;
+					case "--tablebases":
+						tablebaseDirectory = value;
+						break;
+					case "--syzygy":
+						syzygyDirectory = value;
+						break;
+					default:
+						return false;
 				}
-				blackSquare = !blackSquare;
 			}
-			blackSquare = !blackSquare;
-			System.out.println( 8 - i );
+			catch ( NumberFormatException e ) {
+				return false;
+			}
 		}
-		System.out.println( " a  b  c  d  e  f  g  h\n" );
+
+		if ( searchDepth <= 0 || searchTime <= 0 || hashMegabytes <= 0 || threads <= 0 ) {
+			return false;
+		}
+		if ( isWhiteComputer || isBlackComputer ) {
+			search = new ParallelSearch( new TranspositionTable( hashMegabytes ), threads );
+			// Nothing but the end of the game is printed in batch mode
+			search.setOutput( batchScript == null ? System.out : null );
+		}
+		return true;
 	}
 
 	/**
-	 * Make one of the teams make a move
+	 * Print a board in one write, reusing the renderer of the last call if it printed to the same stream
 	 * 
-	 * @param team - the team that will be making a move
-	 * @return whether the move terminated the game
+	 * @param board - the board to print
+	 * @param out   - the stream to print the board to
 	 */
-	private static boolean makeAMove( Team team ) {
-		printChessboard();
-		Team otherTeam;
-		if ( team == Team.WHITE ) {
-			otherTeam = Team.BLACK;
-		}
-		else {
-			otherTeam = Team.WHITE;
+	public static synchronized void printChessboard( Board board, PrintStream out ) {
+		if ( out != streamRendererOut ) {
+			streamRenderer = new BoardRenderer( out, false );
+			streamRendererOut = out;
 		}
+		streamRenderer.render( board );
+	}
 
-		if ( isTeamInCheckmate( team ) ) {
+	/**
+	 * Make the team in turn make a move
+	 * 
+	 * @param game - the game being played
+	 * @param in   - the scanner to receive the input of users from
+	 * @return whether the move terminated the game
+	 */
+	private static boolean makeAMove( Game game, Scanner in ) {
+		renderer.render( game.getBoard() );
+		Team team = game.getTeamToMove();
+
+		if ( game.getEnding() == Game.Ending.CHECKMATE ) {
 			System.out.println( "Checkmate" );
-			System.out.println( otherTeam + " wins" );
+			System.out.println( game.getResult() );
+			return true;
+		}
+		else if ( game.isOver() ) {
+			// Stalemate, repetition, the fifty-move rule or insufficient material
+			System.out.println( game.getResult() + " by " + game.getEnding() );
 			return true;
 		}
-		else if ( locateKing( team ).isInCheck() ) {
+		else if ( game.isInCheck() ) {
 			System.out.println( "Check" );
 		}
 
 		while ( true ) {
 			// Prompt user for move
-			System.out.print( team + "'s move: " );
-			String input = in.nextLine();
-			String[] args = input.split( " " );
-
-			if ( args.length >= 2 ) {
-				if ( ( otherTeam == Team.BLACK && isBlackRequestingDraw )
-						|| ( otherTeam == Team.WHITE && isWhiteRequestingDraw ) ) {
-					System.out.println( "Illegal move, try again" );
-					continue;
-				}
-
-				int[] startLocation = parseLocation( args[0] );
-				int[] targetLocation = parseLocation( args[1] );
-				if ( startLocation == null || targetLocation == null ) {
-					continue;
-				}
-
-				int startRow = startLocation[0];
-				int startCol = startLocation[1];
-				int targetRow = targetLocation[0];
-				int targetCol = targetLocation[1];
-				ChessPiece targetPiece = board[startRow][startCol];
-
-				// Retrieve additonal data
-				char promotionPiece = '\0';
-				boolean requestDraw = false;
-				if ( args.length == 4 ) {
-					if ( args[2].length() != 1 ) {
-						continue;
-					}
-					if ( !( args[2].equals( "Q" ) || args[2].equals( "R" ) || args[2].equals( "B" )
-							|| args[2].equals( "N" ) ) ) {
-						continue;
-					}
-					if ( !args[3].equals( "draw?" ) ) {
-						continue;
-					}
-
-					// User provided 3rd argument as promotion piece, and 4th argument as draw request
-					promotionPiece = args[2].charAt( 0 );
-					requestDraw = true;
-				}
-				else if ( args.length == 3 ) {
-					if ( args[2].equals( "draw?" ) ) {
-						requestDraw = true;
-					}
-					else if ( args[2].length() == 1 ) {
-						if ( !( args[2].equals( "Q" ) || args[2].equals( "R" ) || args[2].equals( "B" )
-								|| args[2].equals( "N" ) ) ) {
-							continue;
-						}
-						promotionPiece = args[2].charAt( 0 );
-					}
-					else {
-						continue;
-					}
-				}
-
-				if ( targetPiece instanceof Pawn ) {
-					Pawn targetPawn = (Pawn) targetPiece;
-					if ( !Pawn.willPawnBePromoted( targetPawn, targetRow ) && promotionPiece != '\0' ) {
-						// Cannot provide promotion piece if Pawn will not be promoted
-						System.out.println( "Illegal move, try again" );
-						continue;
-					}
-
-					if ( targetPiece == null || targetPiece.getTeam() != team
-							|| !targetPiece.attemptMoveTo( targetRow, targetCol, currentMoveNumber ) ) {
-						System.out.println( "Illegal move, try again" );
-						continue;
-					}
-
-					if ( Pawn.willPawnBePromoted( targetPawn, targetRow ) ) {
-						if ( promotionPiece == '\0' ) {
-							promotionPiece = 'Q';
-						}
-
-						// Promote pawn
-						targetPawn.promote( promotionPiece, currentMoveNumber );
-					}
-				}
-				else {
-					if ( promotionPiece != '\0' ) {
-						// Cannot provide promotion piece if targetPiece is not Pawn
-						System.out.println( "Illegal move, try again" );
-						continue;
-					}
-
-					if ( targetPiece == null || targetPiece.getTeam() != team
-							|| !targetPiece.attemptMoveTo( targetRow, targetCol, currentMoveNumber ) ) {
-						System.out.println( "Illegal move, try again" );
-						continue;
-					}
-				}
-
-				if ( requestDraw ) {
-					// Request draw
-					if ( team == Team.WHITE ) {
-						isWhiteRequestingDraw = true;
-					}
-					else {
-						isBlackRequestingDraw = true;
-					}
-				}
+			String input;
+			if ( ( team == Team.WHITE && isWhiteComputer ) || ( team == Team.BLACK && isBlackComputer ) ) {
+				// The search reports its progress before the move is shown
+				input = findComputerMove( game );
+				System.out.println( team + "'s move: " + input );
+				// The progress of the search may have scrolled the board up, so draw the next frame in full
+				renderer.reset();
 			}
-			else if ( args.length == 1 ) {
-				// if resign
-				if ( args[0].equals( "resign" ) ) {
-					if ( team == Team.WHITE ) {
-						System.out.println( "Black wins" );
-						return true;
-					}
-					else if ( team == Team.BLACK ) {
-						System.out.println( "White wins" );
-						return true;
-					}
-				}
-				else if ( args[0].equals( "draw" ) ) {
-					// else its a draw, nothing gets printed
-					if ( ( otherTeam == Team.WHITE && isWhiteRequestingDraw )
-							|| ( otherTeam == Team.BLACK && isBlackRequestingDraw ) ) {
-						return true;
-					}
-					else {
-						continue;
-					}
-				}
-				else {
-					continue;
-				}
+			else {
+				System.out.print( team + "'s move: " );
+				input = in.nextLine();
 			}
 
-			break;
+			Game.Outcome outcome = game.submit( input );
+			if ( outcome == Game.Outcome.ILLEGAL ) {
+				System.out.println( "Illegal move, try again" );
+				// Enough retries scroll the board up
+				renderer.reset();
+			}
+			else if ( outcome == Game.Outcome.RESIGNED ) {
+				System.out.println( game.getResult() );
+				return true;
+			}
+			else if ( outcome == Game.Outcome.DRAWN ) {
+				// A draw is accepted without printing anything
+				return true;
+			}
+			else if ( outcome == Game.Outcome.MOVED ) {
+				break;
+			}
 		}
 
-		currentMoveNumber++;
 		System.out.println();
 		return false;
 	}
 
 	/**
-	 * Parses a row and column position from a user input of the form "[file][rank]"
+	 * Play the inputs of a move script without printing the board, as fast as the script can be read. Inputs are
+	 * validated like in {@link #makeAMove(Game, Scanner)}, and the computer plays its teams as usual. Only how the game
+	 * ended is printed, as one line:
+	 * <ul>
+	 * <li>"White wins by checkmate", "Black wins by resignation", "Draw by agreement", "Draw by stalemate", "Draw by
+	 * threefold repetition", "Draw by the fifty-move rule" or "Draw by insufficient material" - the rest of the script
+	 * is ignored</li>
+	 * <li>"White wins by tablebase adjudication" or "Draw by tablebase adjudication" - the game reached an ending held
+	 * in the Syzygy tablebases, and the rest of the script is ignored. Wins that the fifty-move rule turns into draws
+	 * are draws</li>
+	 * <li>"Illegal move on line 12: e2 e5" or "Invalid input on line 3: e9" - the game stops at the first input that
+	 * would have to be typed again</li>
+	 * <li>"Unfinished after 40 moves" - the script ended before the game</li>
+	 * </ul>
 	 * 
-	 * @param location - a String representation of a tile on the chessboard (e.g. "e4" or "g3")
-	 * @return an integer array of the form [row, column] which has the corresponding row and column indices
+	 * @param game   - the game to play
+	 * @param script - the reader of the script
+	 * @return the exit status: 0 if every input was accepted, 1 otherwise
+	 * @throws IOException if the script cannot be read
 	 */
-	private static int[] parseLocation( String location ) {
-		if ( location.length() != 2 ) {
-			return null;
+	static int playBatch( Game game, BufferedReader script ) throws IOException {
+		if ( game.isOver() ) {
+			// The game started from a position that ends it
+			System.out.println( game.getResult() + " by " + game.getEnding() );
+			return 0;
 		}
 
-		int col = fileToColumn( location.charAt( 0 ) );
-		if ( col == -1 ) {
-			return null;
-		}
-		// location.charAt( 1 ) == '1' -> location.charAt( 1 ) - 48 = 49 - 48 = 1, etc...
-		int row = rankToRow( location.charAt( 1 ) - 48 );
-		if ( row == -1 ) {
-			return null;
-		}
-		return new int[] { row, col };
-	}
+		int lineNumber = 0;
+		int numMoves = 0;
+		while ( true ) {
+			String adjudication = adjudicate( game );
+			if ( adjudication != null ) {
+				System.out.println( adjudication );
+				return 0;
+			}
 
-	/**
-	 * Converts the rank provided by the user to a row position on the board
-	 * 
-	 * @param rank - the rank provided by the user
-	 * @return the corresponding row position on the board
-	 */
-	private static int rankToRow( int rank ) {
-		if ( 8 - rank >= 0 && 8 - rank < 8 ) {
-			return 8 - rank;
-		}
-		else {
-			return -1;
+			Team team = game.getTeamToMove();
+			String input;
+			if ( ( team == Team.WHITE && isWhiteComputer ) || ( team == Team.BLACK && isBlackComputer ) ) {
+				input = findComputerMove( game );
+			}
+			else {
+				input = script.readLine();
+				lineNumber++;
+				if ( input == null ) {
+					System.out.println( "Unfinished after " + numMoves + " moves" );
+					return 0;
+				}
+			}
+
+			switch ( game.submit( input ) ) {
+				case MOVED:
+					numMoves++;
+					if ( game.isOver() ) {
+						System.out.println( game.getResult() + " by " + game.getEnding() );
+						return 0;
+					}
+					break;
+				case RESIGNED:
+				case DRAWN:
+					System.out.println( game.getResult() + " by " + game.getEnding() );
+					return 0;
+				case ILLEGAL:
+					System.out.println( "Illegal move on line " + lineNumber + ": " + input );
+					return 1;
+				default:
+					System.out.println( "Invalid input on line " + lineNumber + ": " + input );
+					return 1;
+			}
 		}
 	}
 
 	/**
-	 * Converts the file provided by the user to a column position on the board
+	 * Decide a game from the Syzygy tablebases. Their outcomes assume that the halfmove clock is 0, so once it is not,
+	 * a win only counts if the distance to zeroing fits in the moves left before the fifty-move rule; otherwise the
+	 * game goes on, and is decided by a later capture or Pawn move or by the fifty-move rule
 	 * 
-	 * @param file - the file provided by the user
-	 * @return the corresponding column position on the board
+	 * @param game - the game being played
+	 * @return how the game ended, e.g. "Black wins by tablebase adjudication", or null if the game goes on
 	 */
-	private static int fileToColumn( char file ) {
-		if ( file >= 'a' || file <= 'h' ) {
-			return (int) ( file - 'a' );
+	private static String adjudicate( Game game ) {
+		if ( syzygy == null ) {
+			return null;
 		}
-		else {
-			return -1;
+		int wdl = syzygy.probeWdl( game.getBoard() );
+		if ( wdl == SyzygyTablebases.UNKNOWN ) {
+			return null;
 		}
-	}
-
-	/**
-	 * Search the chess board for the King piece of a team
-	 * 
-	 * @param team - the team whose King to locate
-	 * @return the King piece on the board of the team
-	 */
-	private static King locateKing( Team team ) {
-		for ( int i = 0; i < 8; i++ ) {
-			for ( int j = 0; j < 8; j++ ) {
-				ChessPiece currentPiece = board[i][j];
-				if ( currentPiece instanceof King && currentPiece.getTeam() == team ) {
-					return (King) currentPiece;
+		if ( wdl == SyzygyTablebases.WIN || wdl == SyzygyTablebases.LOSS ) {
+			if ( game.getHalfmoveClock() != 0 ) {
+				int dtz = syzygy.probeDtz( game.getBoard() );
+				if ( dtz == SyzygyTablebases.UNKNOWN
+						|| Math.abs( dtz ) + game.getHalfmoveClock() > Game.FIFTY_MOVE_LIMIT ) {
+					return null;
 				}
 			}
+			Team winner = wdl == SyzygyTablebases.WIN ? game.getTeamToMove() : game.getTeamToMove().getOpponent();
+			return winner + " wins by tablebase adjudication";
 		}
-		return null;
+		return "Draw by tablebase adjudication";
 	}
 
 	/**
-	 * Determine if the team is in checkmate
+	 * Let the computer choose a move for the team in turn, written the same way a user would type it. While the game
+	 * is in the opening book or in an ending held in the tablebases, the move is looked up instead of searched
 	 * 
-	 * @param team - the team to determine if it is in checkmate
-	 * @return if the team is in checkmate
+	 * @param game - the game being played
+	 * @return the computer's input, e.g. "e2 e4" or "e7 e8 Q"
 	 */
-	private static boolean isTeamInCheckmate( Team team ) {
-		King currentKing = locateKing( team );
-		return currentKing.isInCheckmate();
+	private static String findComputerMove( Game game ) {
+		if ( game.isRequestingDraw( game.getTeamToMove().getOpponent() ) ) {
+			// A draw request must be answered before any other move
+			return "draw";
+		}
+
+		Position position = new Position( game.getBoard().getPosition() );
+		int move = -1;
+		if ( tablebases != null ) {
+			move = tablebases.findBestMove( position );
+			if ( move != -1 && batchScript == null ) {
+				System.out.println( "Tablebase move: " + game.getTeamToMove() + " "
+						+ Tablebases.describe( tablebases.probe( position ) ) );
+			}
+		}
+		if ( move == -1 && book != null ) {
+			move = book.probe( game.getBoard(), bookRandom );
+			if ( move != -1 && batchScript == null ) {
+				System.out.println( "Book move" );
+			}
+		}
+		if ( move == -1 ) {
+			move = search.findBestMove( position, searchDepth, searchTime );
+		}
+		String input = Move.squareName( Move.from( move ) ) + " " + Move.squareName( Move.to( move ) );
+		if ( Move.promotion( move ) != 0 ) {
+			input += " " + "PNBRQK".charAt( Move.promotion( move ) );
+		}
+		return input;
 	}
 }
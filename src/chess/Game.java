@@ -0,0 +1,663 @@
+package chess;
+
+import java.util.Arrays;
+
+import chesspieces.Board;
+import chesspieces.ChessPiece;
+import chesspieces.Fen;
+import chesspieces.Move;
+import chesspieces.Pawn;
+import chesspieces.Team;
+
+/**
+ * The Game class holds the state of one chess game: the board, the move number and the draw requests. Moves are
+ * submitted as the same input a user types, e.g. "e2 e4", "e7 e8 N", "e2 e4 draw?", "resign" or "draw", and are
+ * validated against the legal moves that the board computes once per position. A game starts from the starting
+ * position or from any position written in FEN, and its current position can be saved in FEN. Each game is
+ * independent, so one program can run many games at once, as long as each game is only used by one thread at a time.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Game {
+
+	/**
+	 * The outcome of submitting an input to the game
+	 */
+	public enum Outcome {
+		/**
+		 * The move was made, and it is now the other team's turn
+		 */
+		MOVED,
+
+		/**
+		 * The input was not understood; the same team must try again
+		 */
+		INVALID,
+
+		/**
+		 * The input was understood, but the move is illegal; the same team must try again. Every input is illegal once
+		 * the game is over
+		 */
+		ILLEGAL,
+
+		/**
+		 * The team in turn resigned, ending the game
+		 */
+		RESIGNED,
+
+		/**
+		 * The team in turn accepted a draw, ending the game
+		 */
+		DRAWN
+	}
+
+	/**
+	 * How a game ended
+	 */
+	public enum Ending {
+		/**
+		 * The team in turn is in check and has no legal move
+		 */
+		CHECKMATE( "checkmate" ),
+
+		/**
+		 * A team resigned
+		 */
+		RESIGNATION( "resignation" ),
+
+		/**
+		 * A team accepted the other team's draw request
+		 */
+		AGREEMENT( "agreement" ),
+
+		/**
+		 * The team in turn is not in check but has no legal move
+		 */
+		STALEMATE( "stalemate" ),
+
+		/**
+		 * The same position, with the same team in turn, castling rights and en passant square, occurred three times
+		 */
+		REPETITION( "threefold repetition" ),
+
+		/**
+		 * Each team made fifty moves without moving a Pawn or capturing
+		 */
+		FIFTY_MOVES( "the fifty-move rule" ),
+
+		/**
+		 * Neither team has the pieces left to checkmate
+		 */
+		INSUFFICIENT_MATERIAL( "insufficient material" );
+
+		/**
+		 * The ending as printed after the result, e.g. "White wins by checkmate"
+		 */
+		private final String description;
+
+		/**
+		 * Create an ending
+		 *
+		 * @param description - the ending as printed after the result
+		 */
+		private Ending( String description ) {
+			this.description = description;
+		}
+
+		/**
+		 * Get the ending as printed after the result
+		 *
+		 * @return the description of the ending, e.g. "stalemate"
+		 */
+		@Override
+		public String toString() {
+			return description;
+		}
+	}
+
+	/**
+	 * The number of words of an input that are read; any further words of a move are ignored
+	 */
+	private static final int MAX_WORDS = 4;
+
+	/**
+	 * The letters that a promotion piece is typed as, indexed by piece type index
+	 */
+	private static final String PROMOTION_LETTERS = "PNBRQ";
+
+	/**
+	 * The number of moves of both teams without a Pawn move or capture that draws the game
+	 */
+	static final int FIFTY_MOVE_LIMIT = 100;
+
+	/**
+	 * The board that the game is played on
+	 */
+	private final Board board;
+
+	/**
+	 * The move number of the current move that the user in turn is making. For example, currentMoveNumber will be 1
+	 * when white makes its first move, then currentMoveNumber will be 2 when black makes its first move, etc...
+	 */
+	private int currentMoveNumber;
+
+	/**
+	 * A flag to indicate that white is requesting a draw when black moves
+	 */
+	private boolean isWhiteRequestingDraw;
+
+	/**
+	 * A flag to indicate that black is requesting a draw when white moves
+	 */
+	private boolean isBlackRequestingDraw;
+
+	/**
+	 * The result of the game once it is over (e.g. "White wins" or "Draw"), or null while it is being played
+	 */
+	private String result;
+
+	/**
+	 * How the game ended, or null while it is being played
+	 */
+	private Ending ending;
+
+	/**
+	 * The number of moves made since the last Pawn move or capture
+	 */
+	private int halfmoveClock;
+
+	/**
+	 * The hash of every position of the game so far, from the starting position to the current one, and the number of
+	 * positions
+	 */
+	private long[] positionHashes = new long[256];
+	private int numPositions;
+
+	/**
+	 * The start and end indices of the first words of the input being submitted, reused for every input so that
+	 * submitting a move allocates nothing
+	 */
+	private final int[] wordStarts = new int[MAX_WORDS];
+	private final int[] wordEnds = new int[MAX_WORDS];
+
+	/**
+	 * Start a game from the starting position
+	 */
+	public Game() {
+		this( Fen.START );
+	}
+
+	/**
+	 * Start a game from a position, e.g. one saved with {@link #toFen()}. The positions before it are not known, so
+	 * they do not count towards a threefold repetition
+	 *
+	 * @param fen - the FEN of the position
+	 * @throws IllegalArgumentException if the FEN is malformed, or the position cannot be set up with chess pieces
+	 */
+	public Game( String fen ) {
+		// Chess pieces add themselves to the board when they are constructed
+		board = Fen.toBoard( fen );
+		currentMoveNumber = Fen.getMoveNumber( fen );
+		halfmoveClock = Fen.getHalfmoveClock( fen );
+		positionHashes[numPositions++] = board.getHash();
+		// The position may already be checkmate or a draw
+		findEnding();
+	}
+
+	/**
+	 * Write the FEN of the current position, from which the game can be started again with {@link #Game(String)}
+	 *
+	 * @return the FEN of the position, e.g. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1"
+	 */
+	public String toFen() {
+		return Fen.toFen( board.getPosition(), halfmoveClock, ( currentMoveNumber + 1 ) / 2 );
+	}
+
+	/**
+	 * Get the board that the game is played on
+	 *
+	 * @return the board
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Get the move number of the move the team in turn is making
+	 *
+	 * @return the current move number, starting from 1 for white's first move
+	 */
+	public int getCurrentMoveNumber() {
+		return currentMoveNumber;
+	}
+
+	/**
+	 * Get the team in turn. White makes the odd numbered moves and black the even numbered ones
+	 *
+	 * @return the team in turn
+	 */
+	public Team getTeamToMove() {
+		return currentMoveNumber % 2 == 1 ? Team.WHITE : Team.BLACK;
+	}
+
+	/**
+	 * Get the Zobrist hash of the current position
+	 *
+	 * @return the hash of the position
+	 */
+	public long getHash() {
+		return board.getHash();
+	}
+
+	/**
+	 * Score the position for the team in turn, as the computer player does
+	 *
+	 * @return the score in centipawns, positive if the team in turn is better
+	 */
+	public int evaluate() {
+		return board.evaluate();
+	}
+
+	/**
+	 * Determine if the team in turn is in check
+	 *
+	 * @return whether the team in turn is in check
+	 */
+	public boolean isInCheck() {
+		return board.isInCheck();
+	}
+
+	/**
+	 * Determine if the team in turn is in checkmate
+	 *
+	 * @return whether the team in turn is in checkmate
+	 */
+	public boolean isCheckmate() {
+		return board.isCheckmate();
+	}
+
+	/**
+	 * Determine if a team has requested a draw, which the other team must answer before making any other move
+	 *
+	 * @param team - the team that may have requested a draw
+	 * @return whether the team is requesting a draw
+	 */
+	public boolean isRequestingDraw( Team team ) {
+		return team == Team.WHITE ? isWhiteRequestingDraw : isBlackRequestingDraw;
+	}
+
+	/**
+	 * Get the number of moves made since the last Pawn move or capture
+	 *
+	 * @return the halfmove clock
+	 */
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	/**
+	 * Determine if the game is over, by checkmate, resignation, an accepted draw, or a draw by the rules: stalemate,
+	 * threefold repetition, the fifty-move rule or insufficient material
+	 *
+	 * @return whether the game is over
+	 */
+	public boolean isOver() {
+		return result != null;
+	}
+
+	/**
+	 * Get the result of the game
+	 *
+	 * @return "White wins", "Black wins" or "Draw", or null if the game is still being played
+	 */
+	public String getResult() {
+		return result;
+	}
+
+	/**
+	 * Get how the game ended
+	 *
+	 * @return how the game ended, or null if the game is still being played
+	 */
+	public Ending getEnding() {
+		return ending;
+	}
+
+	/**
+	 * Submit the input of the team in turn
+	 *
+	 * @param input - a move of the form "[from] [to] [promotion piece] [draw?]" where the last two parts are optional,
+	 *              "resign", or "draw" to accept a draw request
+	 * @return the outcome of the input, {@link Outcome#ILLEGAL} if the game is over
+	 */
+	public Outcome submit( String input ) {
+		if ( isOver() ) {
+			return Outcome.ILLEGAL;
+		}
+
+		Team team = getTeamToMove();
+		Team otherTeam = team.getOpponent();
+		int numWords = splitWords( input );
+
+		if ( numWords >= 2 ) {
+			if ( isRequestingDraw( otherTeam ) ) {
+				// A draw request must be answered first
+				return Outcome.ILLEGAL;
+			}
+
+			int startSquare = parseLocation( input, 0 );
+			int targetSquare = parseLocation( input, 1 );
+			if ( startSquare == -1 || targetSquare == -1 ) {
+				return Outcome.INVALID;
+			}
+
+			// Retrieve additonal data
+			char promotionPiece = '\0';
+			boolean requestDraw = false;
+			if ( numWords == 4 ) {
+				if ( !isPromotionPiece( input, 2 ) || !isWord( input, 3, "draw?" ) ) {
+					return Outcome.INVALID;
+				}
+
+				// User provided 3rd argument as promotion piece, and 4th argument as draw request
+				promotionPiece = input.charAt( wordStarts[2] );
+				requestDraw = true;
+			}
+			else if ( numWords == 3 ) {
+				if ( isWord( input, 2, "draw?" ) ) {
+					requestDraw = true;
+				}
+				else if ( isPromotionPiece( input, 2 ) ) {
+					promotionPiece = input.charAt( wordStarts[2] );
+				}
+				else {
+					return Outcome.INVALID;
+				}
+			}
+
+			return move( startSquare / 8, startSquare % 8, targetSquare / 8, targetSquare % 8, promotionPiece,
+					requestDraw );
+		}
+		else if ( numWords == 1 ) {
+			if ( isWord( input, 0, "resign" ) ) {
+				result = otherTeam + " wins";
+				ending = Ending.RESIGNATION;
+				return Outcome.RESIGNED;
+			}
+			else if ( isWord( input, 0, "draw" ) && isRequestingDraw( otherTeam ) ) {
+				result = "Draw";
+				ending = Ending.AGREEMENT;
+				return Outcome.DRAWN;
+			}
+			else {
+				return Outcome.INVALID;
+			}
+		}
+		else {
+			return Outcome.INVALID;
+		}
+	}
+
+	/**
+	 * Submit a move of the team in turn, which is validated like a typed move
+	 *
+	 * @param move - the encoded move, e.g. from {@link chesspieces.San#parse(chesspieces.Position, String, int[])}
+	 * @return {@link Outcome#MOVED}, or {@link Outcome#ILLEGAL} if the move is illegal or the game is over
+	 */
+	public Outcome submit( int move ) {
+		return submit( move, false );
+	}
+
+	/**
+	 * Submit a move of the team in turn, which is validated like a typed move, optionally
+	 * requesting a draw like "draw?" does
+	 *
+	 * @param move        - the encoded move
+	 * @param requestDraw - whether the team in turn requests a draw with the move
+	 * @return {@link Outcome#MOVED}, or {@link Outcome#ILLEGAL} if the move is illegal or the game is over
+	 */
+	public Outcome submit( int move, boolean requestDraw ) {
+		if ( isOver() ) {
+			return Outcome.ILLEGAL;
+		}
+		if ( isRequestingDraw( getTeamToMove().getOpponent() ) ) {
+			// A draw request must be answered first
+			return Outcome.ILLEGAL;
+		}
+
+		int from = Move.from( move );
+		int to = Move.to( move );
+		int promotion = Move.promotion( move );
+		char promotionPiece = promotion == Move.NONE ? '\0' : PROMOTION_LETTERS.charAt( promotion );
+		return move( from / 8, from % 8, to / 8, to % 8, promotionPiece, requestDraw );
+	}
+
+	/**
+	 * Move a chess piece of the team in turn, if the chess piece can legally make the move
+	 *
+	 * @param startRow       - the row of the chess piece to move
+	 * @param startCol       - the column of the chess piece to move
+	 * @param targetRow      - the row to move to
+	 * @param targetCol      - the column to move to
+	 * @param promotionPiece - the letter of the chess piece to promote a Pawn to, or '\0' for a Queen if the move
+	 *                       promotes
+	 * @param requestDraw    - whether the team in turn requests a draw with the move
+	 * @return {@link Outcome#MOVED} or {@link Outcome#ILLEGAL}
+	 */
+	private Outcome move( int startRow, int startCol, int targetRow, int targetCol, char promotionPiece,
+			boolean requestDraw ) {
+		Team team = getTeamToMove();
+		ChessPiece targetPiece = board.getPiece( startRow, startCol );
+		if ( targetPiece == null || targetPiece.getTeam() != team ) {
+			return Outcome.ILLEGAL;
+		}
+
+		int promotion = Move.NONE;
+		if ( targetPiece instanceof Pawn && Pawn.willPawnBePromoted( (Pawn) targetPiece, targetRow ) ) {
+			promotion = PROMOTION_LETTERS.indexOf( promotionPiece == '\0' ? 'Q' : promotionPiece );
+		}
+		else if ( promotionPiece != '\0' ) {
+			// Cannot provide promotion piece if the chess piece will not be promoted
+			return Outcome.ILLEGAL;
+		}
+
+		// The board knows every legal move of the team in turn, including castling and en passant
+		int move = board.findLegalMove( startRow * 8 + startCol, targetRow * 8 + targetCol, promotion );
+		if ( move == -1 ) {
+			return Outcome.ILLEGAL;
+		}
+		boolean isPawnMoveOrCapture = targetPiece instanceof Pawn || board.getPiece( targetRow, targetCol ) != null;
+		board.makeMove( move, currentMoveNumber );
+		halfmoveClock = isPawnMoveOrCapture ? 0 : halfmoveClock + 1;
+		if ( numPositions == positionHashes.length ) {
+			positionHashes = Arrays.copyOf( positionHashes, numPositions * 2 );
+		}
+		positionHashes[numPositions++] = board.getHash();
+
+		if ( requestDraw ) {
+			// Request draw
+			if ( team == Team.WHITE ) {
+				isWhiteRequestingDraw = true;
+			}
+			else {
+				isBlackRequestingDraw = true;
+			}
+		}
+
+		// Run with -ea to verify the board after every move
+		assert board.isConsistent() : "Chess pieces are out of sync with the board";
+
+		currentMoveNumber++;
+		if ( result == null ) {
+			findEnding();
+		}
+		return Outcome.MOVED;
+	}
+
+	/**
+	 * End the game if the position after a move ends it: checkmate, or a draw by stalemate, the fifty-move rule,
+	 * threefold repetition or insufficient material. Each test takes constant time, as the board already knows the
+	 * legal moves of the position and the repetition search stops at the last Pawn move or capture, at most
+	 * {@link #FIFTY_MOVE_LIMIT} moves back
+	 */
+	private void findEnding() {
+		if ( board.isCheckmate() ) {
+			result = getTeamToMove().getOpponent() + " wins";
+			ending = Ending.CHECKMATE;
+			return;
+		}
+
+		if ( board.isStalemate() ) {
+			ending = Ending.STALEMATE;
+		}
+		else if ( halfmoveClock >= FIFTY_MOVE_LIMIT ) {
+			ending = Ending.FIFTY_MOVES;
+		}
+		else if ( isThreefoldRepetition() ) {
+			ending = Ending.REPETITION;
+		}
+		else if ( board.getPosition().isInsufficientMaterial() ) {
+			ending = Ending.INSUFFICIENT_MATERIAL;
+		}
+		if ( ending != null ) {
+			result = "Draw";
+		}
+	}
+
+	/**
+	 * Determine if the current position occurred twice before. Only positions since the last Pawn move or capture
+	 * are compared, and only those with the same team in turn
+	 *
+	 * @return whether the current position occurred three times
+	 */
+	private boolean isThreefoldRepetition() {
+		long hash = positionHashes[numPositions - 1];
+		int repetitions = 1;
+		for ( int i = numPositions - 3; i >= numPositions - 1 - halfmoveClock && i >= 0; i -= 2 ) {
+			if ( positionHashes[i] == hash && ++repetitions == 3 ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Find the words of an input, which are separated by single spaces like the user types them. Spaces at the end of
+	 * the input are ignored, and two spaces in a row make an empty word. The bounds of the first words are stored in
+	 * wordStarts and wordEnds
+	 *
+	 * @param input - the input
+	 * @return the number of words in the input
+	 */
+	private int splitWords( String input ) {
+		int length = input.length();
+		while ( length > 0 && input.charAt( length - 1 ) == ' ' ) {
+			length--;
+		}
+		if ( length == 0 ) {
+			// An empty input is one empty word, while an input of only spaces has no words
+			wordStarts[0] = 0;
+			wordEnds[0] = 0;
+			return input.isEmpty() ? 1 : 0;
+		}
+
+		int numWords = 0;
+		int start = 0;
+		for ( int i = 0; i <= length; i++ ) {
+			if ( i == length || input.charAt( i ) == ' ' ) {
+				if ( numWords < MAX_WORDS ) {
+					wordStarts[numWords] = start;
+					wordEnds[numWords] = i;
+				}
+				numWords++;
+				start = i + 1;
+			}
+		}
+		return numWords;
+	}
+
+	/**
+	 * Determine if a word of the input being submitted is a given word
+	 *
+	 * @param input - the input
+	 * @param index - the index of the word in the input
+	 * @param word  - the word to compare with
+	 * @return whether the word of the input equals the given word
+	 */
+	private boolean isWord( String input, int index, String word ) {
+		return wordEnds[index] - wordStarts[index] == word.length()
+				&& input.regionMatches( wordStarts[index], word, 0, word.length() );
+	}
+
+	/**
+	 * Determine if a word of the input being submitted is the letter of a chess piece that a Pawn can be promoted to
+	 *
+	 * @param input - the input
+	 * @param index - the index of the word in the input
+	 * @return whether the word is "Q", "R", "B" or "N"
+	 */
+	private boolean isPromotionPiece( String input, int index ) {
+		if ( wordEnds[index] - wordStarts[index] != 1 ) {
+			return false;
+		}
+		char letter = input.charAt( wordStarts[index] );
+		return letter == 'Q' || letter == 'R' || letter == 'B' || letter == 'N';
+	}
+
+	/**
+	 * Parses a row and column position from a word of the input being submitted, of the form "[file][rank]"
+	 *
+	 * @param input - the input
+	 * @param index - the index of the word in the input, which is a String representation of a tile on the chessboard
+	 *              (e.g. "e4" or "g3")
+	 * @return the tile as row * 8 + column, or -1 if the word is not a tile
+	 */
+	private int parseLocation( String input, int index ) {
+		if ( wordEnds[index] - wordStarts[index] != 2 ) {
+			return -1;
+		}
+
+		int col = fileToColumn( input.charAt( wordStarts[index] ) );
+		if ( col == -1 ) {
+			return -1;
+		}
+		// rank '1' -> '1' - 48 = 49 - 48 = 1, etc...
+		int row = rankToRow( input.charAt( wordStarts[index] + 1 ) - 48 );
+		if ( row == -1 ) {
+			return -1;
+		}
+		return row * 8 + col;
+	}
+
+	/**
+	 * Converts the rank provided by the user to a row position on the board
+	 *
+	 * @param rank - the rank provided by the user
+	 * @return the corresponding row position on the board
+	 */
+	private static int rankToRow( int rank ) {
+		if ( 8 - rank >= 0 && 8 - rank < 8 ) {
+			return 8 - rank;
+		}
+		else {
+			return -1;
+		}
+	}
+
+	/**
+	 * Converts the file provided by the user to a column position on the board
+	 *
+	 * @param file - the file provided by the user
+	 * @return the corresponding column position on the board
+	 */
+	private static int fileToColumn( char file ) {
+		if ( file >= 'a' && file <= 'h' ) {
+			return file - 'a';
+		}
+		else {
+			return -1;
+		}
+	}
+}
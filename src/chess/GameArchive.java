@@ -0,0 +1,113 @@
+package chess;
+
+import chesspieces.Move;
+
+/**
+ * The GameArchive class describes the binary format that completed games are stored in, which is written by an
+ * {@link ArchiveWriter} and read by an {@link ArchiveReader}. All numbers are big-endian.
+ * <ul>
+ * <li>Header (24 bytes): the magic number "CHGA", the format version (2 bytes), 2 reserved bytes, the number of games
+ * (4 bytes), 4 reserved bytes, and the byte offset of the index (8 bytes)</li>
+ * <li>Games, one after another: the result (1 byte), how the game ended (1 byte), the number of moves (2 bytes), and
+ * then every move packed into 2 bytes</li>
+ * <li>Index: the byte offset of every game (8 bytes each), so any game can be found without reading the ones before
+ * it</li>
+ * </ul>
+ * A packed move holds the square moved from in bits 0-5 and the square moved to in bits 6-11, the promotion piece in
+ * bits 12-13 (Knight, Bishop, Rook or Queen) with bit 14 set if the move promotes, and bit 15 set if the team
+ * requested a draw with the move ("draw?").
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class GameArchive {
+
+	/**
+	 * The magic number at the start of every archive, "CHGA" in ASCII
+	 */
+	public static final int MAGIC = 0x43484741;
+
+	/**
+	 * The version of the format. Version 2 added the draws by the rules to the endings. Version 1 archives can still be
+	 * read, but a game that carried on past such a draw no longer replays, as the game now ends there
+	 */
+	public static final int VERSION = 2;
+
+	/**
+	 * The size of the header, in bytes
+	 */
+	public static final int HEADER_SIZE = 24;
+
+	/**
+	 * The size of the header of every game, in bytes
+	 */
+	public static final int GAME_HEADER_SIZE = 4;
+
+	/**
+	 * The most moves a game can have
+	 */
+	public static final int MAX_MOVES = 0xFFFF;
+
+	/**
+	 * The results of a game
+	 */
+	public static final int UNFINISHED = 0, WHITE_WINS = 1, BLACK_WINS = 2, DRAW = 3;
+
+	/**
+	 * How a game ended, after its last move: it did not end, by checkmate, the team in turn resigned, the team in turn
+	 * accepted a draw, or the last move drew by stalemate, threefold repetition, the fifty-move rule or insufficient
+	 * material
+	 */
+	public static final int NOT_ENDED = 0, CHECKMATE = 1, RESIGNATION = 2, DRAW_AGREED = 3, STALEMATE = 4,
+			REPETITION = 5, FIFTY_MOVES = 6, INSUFFICIENT_MATERIAL = 7;
+
+	/**
+	 * The bits of a packed move that are set if the move promotes, and if the team requested a draw
+	 */
+	private static final int PROMOTION_FLAG = 1 << 14, DRAW_FLAG = 1 << 15;
+
+	private GameArchive() {
+	}
+
+	/**
+	 * Pack a move into 16 bits
+	 *
+	 * @param move        - the encoded move
+	 * @param requestDraw - whether the team requested a draw with the move
+	 * @return the packed move
+	 */
+	public static int packMove( int move, boolean requestDraw ) {
+		int packed = Move.from( move ) | Move.to( move ) << 6;
+		if ( Move.promotion( move ) != Move.NONE ) {
+			// Knight to Queen are 1 to 4 as piece types, and 0 to 3 when packed
+			packed |= ( Move.promotion( move ) - 1 ) << 12 | PROMOTION_FLAG;
+		}
+		if ( requestDraw ) {
+			packed |= DRAW_FLAG;
+		}
+		return packed;
+	}
+
+	/**
+	 * Unpack a move. Only the squares and promotion are unpacked; the chess pieces tell apart castling, en passant
+	 * and double Pawn moves when the move is made
+	 *
+	 * @param packed - the packed move
+	 * @return the encoded move
+	 */
+	public static int unpackMove( int packed ) {
+		int promotion = ( packed & PROMOTION_FLAG ) != 0 ? ( ( packed >>> 12 ) & 3 ) + 1 : Move.NONE;
+		return Move.encode( packed & 63, ( packed >>> 6 ) & 63, promotion, Move.NORMAL );
+	}
+
+	/**
+	 * Determine if the team requested a draw with a packed move
+	 *
+	 * @param packed - the packed move
+	 * @return whether the draw flag is set
+	 */
+	public static boolean isDrawRequest( int packed ) {
+		return ( packed & DRAW_FLAG ) != 0;
+	}
+}
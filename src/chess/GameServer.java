@@ -0,0 +1,198 @@
+package chess;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The GameServer class hosts many chess games at once over TCP. Every connection gets its own {@link GameSession},
+ * which plays games with the client using a line-based protocol, and runs on its own thread of a shared pool. Sessions
+ * share nothing but the counters of the server, so games never wait for each other.
+ *
+ * Usage: java chess.GameServer [port], where the port defaults to 5000 and 0 picks any free port. The server only
+ * listens on the loopback address.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class GameServer implements AutoCloseable {
+
+	/**
+	 * The port the server listens on when none is given
+	 */
+	public static final int DEFAULT_PORT = 5000;
+
+	/**
+	 * The socket that accepts the connections of clients
+	 */
+	private final ServerSocket serverSocket;
+
+	/**
+	 * The threads that run the sessions. Sessions mostly wait on their clients, so a thread is started for every
+	 * session that cannot reuse an idle one
+	 */
+	private final ExecutorService sessionThreads;
+
+	/**
+	 * The sessions that are connected, by session number
+	 */
+	private final Map<Integer, GameSession> sessions = new ConcurrentHashMap<Integer, GameSession>();
+
+	/**
+	 * The number of the next session
+	 */
+	private final AtomicInteger nextSessionId = new AtomicInteger( 1 );
+
+	/**
+	 * The number of games that have ended
+	 */
+	private final AtomicLong gamesCompleted = new AtomicLong();
+
+	/**
+	 * Start listening for clients on the loopback address
+	 *
+	 * @param port - the port to listen on, or 0 for any free port
+	 * @throws IOException if the port cannot be listened on
+	 */
+	public GameServer( int port ) throws IOException {
+		serverSocket = new ServerSocket( port, 128, InetAddress.getLoopbackAddress() );
+		sessionThreads = Executors.newCachedThreadPool();
+	}
+
+	/**
+	 * Get the port the server listens on
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Accept clients and start a session for each, until the server is closed
+	 *
+	 * @throws IOException if accepting a client fails for any reason other than the server being closed
+	 */
+	public void serve() throws IOException {
+		while ( !serverSocket.isClosed() ) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			}
+			catch ( SocketException e ) {
+				if ( serverSocket.isClosed() ) {
+					return;
+				}
+				throw e;
+			}
+
+			// Moves are single short lines, which should not wait to be batched
+			socket.setTcpNoDelay( true );
+			GameSession session = new GameSession( this, socket, nextSessionId.getAndIncrement() );
+			sessions.put( session.getId(), session );
+			sessionThreads.execute( session );
+		}
+	}
+
+	/**
+	 * Start accepting clients on a background thread
+	 */
+	public void start() {
+		Thread acceptor = new Thread( () -> {
+			try {
+				serve();
+			}
+			catch ( IOException e ) {
+				System.err.println( "Game server stopped: " + e.getMessage() );
+			}
+		}, "game-server" );
+		acceptor.setDaemon( true );
+		acceptor.start();
+	}
+
+	/**
+	 * Get the number of sessions that are connected
+	 *
+	 * @return the number of sessions
+	 */
+	public int getActiveSessions() {
+		return sessions.size();
+	}
+
+	/**
+	 * Get the number of games that have ended, by checkmate, stalemate, threefold repetition, the fifty-move rule,
+	 * insufficient material, resignation or an accepted draw
+	 *
+	 * @return the number of games
+	 */
+	public long getGamesCompleted() {
+		return gamesCompleted.get();
+	}
+
+	/**
+	 * Record that a game has ended
+	 */
+	void gameCompleted() {
+		gamesCompleted.incrementAndGet();
+	}
+
+	/**
+	 * Forget a session whose client has disconnected
+	 *
+	 * @param session - the session
+	 */
+	void endSession( GameSession session ) {
+		sessions.remove( session.getId() );
+	}
+
+	/**
+	 * Stop accepting clients and end every session
+	 *
+	 * @throws IOException if the server socket cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		for ( GameSession session : sessions.values() ) {
+			// Sessions block reading from their clients, which only closing the connection interrupts
+			session.disconnect();
+		}
+		sessionThreads.shutdown();
+	}
+
+	/**
+	 * Run the server until it is killed
+	 *
+	 * @param args - the port to listen on (optional)
+	 */
+	public static void main( String[] args ) {
+		int port = DEFAULT_PORT;
+		if ( args.length > 0 ) {
+			try {
+				port = Integer.parseInt( args[0] );
+			}
+			catch ( NumberFormatException e ) {
+				System.out.println( "Usage: java chess.GameServer [port]" );
+				System.exit( 2 );
+			}
+		}
+
+		try ( GameServer server = new GameServer( port ) ) {
+			System.out.println( "Listening on port " + server.getPort() );
+			server.serve();
+		}
+		catch ( IOException e ) {
+			System.out.println( "Game server stopped: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+}
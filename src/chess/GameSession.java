@@ -0,0 +1,163 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The GameSession class plays games with one client of the {@link GameServer}. The client sends one command per line
+ * and the session answers each with one line:
+ * <ul>
+ * <li>"new" - start a new game, answered by "ok"</li>
+ * <li>a move, as typed in the game (e.g. "e2 e4", "e7 e8 N", "resign", "draw") - answered by "ok", "ok check",
+ * "illegal", "invalid", or "over" followed by the result when the move ends the game (e.g. "over checkmate White wins",
+ * "over Black wins" or "over Draw"). A move that draws by the rules is answered by "over" followed by "stalemate",
+ * "repetition", "fifty_moves" or "insufficient_material" and the result, e.g. "over stalemate Draw"</li>
+ * <li>"board" - answered by the board as printed in the game, which ends with an empty line</li>
+ * <li>"quit" - end the session</li>
+ * </ul>
+ * Commands that cannot be answered are answered by "error" and the reason.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class GameSession implements Runnable {
+
+	/**
+	 * The server that the session belongs to
+	 */
+	private final GameServer server;
+
+	/**
+	 * The connection to the client
+	 */
+	private final Socket socket;
+
+	/**
+	 * The number that identifies the session on the server
+	 */
+	private final int id;
+
+	/**
+	 * The game being played, or null before the first "new" command
+	 */
+	private Game game;
+
+	/**
+	 * The buffer that the "board" command prints the board into, reused for every frame of the session
+	 */
+	private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+
+	/**
+	 * The renderer that prints the board into the buffer
+	 */
+	private final BoardRenderer renderer = new BoardRenderer( new PrintStream( frame, false, StandardCharsets.UTF_8 ),
+			false );
+
+	/**
+	 * Create a session
+	 *
+	 * @param server - the server that the session belongs to
+	 * @param socket - the connection to the client
+	 * @param id     - the number that identifies the session on the server
+	 */
+	GameSession( GameServer server, Socket socket, int id ) {
+		this.server = server;
+		this.socket = socket;
+		this.id = id;
+	}
+
+	/**
+	 * Get the number that identifies the session on the server
+	 *
+	 * @return the session number
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Disconnect the client, which ends the session
+	 */
+	void disconnect() {
+		try {
+			socket.close();
+		}
+		catch ( IOException e ) {
+			// The connection is being dropped either way
+		}
+	}
+
+	/**
+	 * Answer the commands of the client until it quits or disconnects
+	 */
+	@Override
+	public void run() {
+		try ( Socket connection = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader( connection.getInputStream(), StandardCharsets.UTF_8 ) );
+				Writer out = new BufferedWriter(
+						new OutputStreamWriter( connection.getOutputStream(), StandardCharsets.UTF_8 ) ) ) {
+			String command;
+			while ( ( command = in.readLine() ) != null && !command.equals( "quit" ) ) {
+				out.write( answer( command ) );
+				out.write( '\n' );
+				out.flush();
+			}
+		}
+		catch ( IOException e ) {
+			// The client disconnected; there is no one left to tell
+		}
+		finally {
+			server.endSession( this );
+		}
+	}
+
+	/**
+	 * Answer one command of the client
+	 *
+	 * @param command - the command
+	 * @return the answer, without the final line break
+	 */
+	String answer( String command ) {
+		if ( command.equals( "new" ) ) {
+			game = new Game();
+			return "ok";
+		}
+		if ( game == null ) {
+			return "error no game, send \"new\" first";
+		}
+		if ( command.equals( "board" ) ) {
+			frame.reset();
+			renderer.render( game.getBoard() );
+			return frame.toString( StandardCharsets.UTF_8 ).stripTrailing() + "\n";
+		}
+		if ( game.isOver() ) {
+			return "error game over, send \"new\" to start another";
+		}
+
+		switch ( game.submit( command ) ) {
+			case MOVED:
+				if ( game.isOver() ) {
+					server.gameCompleted();
+					return "over " + game.getEnding().name().toLowerCase() + " " + game.getResult();
+				}
+				return game.isInCheck() ? "ok check" : "ok";
+			case ILLEGAL:
+				return "illegal";
+			case INVALID:
+				return "invalid";
+			default:
+				server.gameCompleted();
+				return "over " + game.getResult();
+		}
+	}
+}
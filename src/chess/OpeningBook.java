@@ -0,0 +1,310 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import chesspieces.Board;
+import chesspieces.Fen;
+import chesspieces.Move;
+
+/**
+ * The OpeningBook class looks up the moves played from a position in a book file written by a {@link BookBuilder}.
+ * The file is mapped into memory and binary searched in place, so a lookup allocates nothing and takes microseconds.
+ * A book can be used by many threads at once. All numbers are big-endian.
+ * <ul>
+ * <li>Header (16 bytes): the magic number "CHBK", the format version (2 bytes), 2 reserved bytes, the number of entries
+ * (4 bytes) and 4 reserved bytes</li>
+ * <li>Entries ({@link #ENTRY_SIZE} bytes each), sorted by the hash of their position and then by weight, highest
+ * first: the Zobrist hash of the position (8 bytes), the move packed by {@link GameArchive#packMove(int, boolean)} (2
+ * bytes), the weight of the move (2 bytes), and the number of games in which the team that played the move won, drew
+ * and lost (4 bytes each)</li>
+ * </ul>
+ * The weight of a move is twice its wins plus its draws, so moves that only lost are never chosen.
+ *
+ * Usage: java chess.OpeningBook book.bin [FEN]
+ * <br>
+ * Prints the book moves of a position (the starting position by default), and the lookups per second.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class OpeningBook implements Closeable {
+
+	/**
+	 * The magic number at the start of every book, "CHBK" in ASCII
+	 */
+	public static final int MAGIC = 0x4348424B;
+
+	/**
+	 * The version of the format
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size of the header and of every entry, in bytes
+	 */
+	public static final int HEADER_SIZE = 16, ENTRY_SIZE = 24;
+
+	/**
+	 * The largest weight of a move
+	 */
+	public static final int MAX_WEIGHT = 0xFFFF;
+
+	/**
+	 * The file of the book
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The contents of the file
+	 */
+	private final MappedByteBuffer book;
+
+	/**
+	 * The number of entries in the book
+	 */
+	private final int numEntries;
+
+	/**
+	 * Open a book
+	 *
+	 * @param file - the path of the book
+	 * @throws IOException if the file cannot be read, or is not a book
+	 */
+	public OpeningBook( Path file ) throws IOException {
+		channel = FileChannel.open( file, StandardOpenOption.READ );
+		try {
+			long size = channel.size();
+			if ( size > Integer.MAX_VALUE ) {
+				throw new IOException( file + " is too large to be a book" );
+			}
+			book = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+			if ( size < HEADER_SIZE || book.getInt( 0 ) != MAGIC ) {
+				throw new IOException( file + " is not an opening book" );
+			}
+			if ( book.getShort( 4 ) != VERSION ) {
+				throw new IOException( file + " has an unsupported version: " + book.getShort( 4 ) );
+			}
+
+			numEntries = book.getInt( 8 );
+			if ( numEntries < 0 || HEADER_SIZE + (long) ENTRY_SIZE * numEntries != size ) {
+				throw new IOException( file + " has a corrupt header" );
+			}
+		}
+		catch ( IOException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the number of entries in the book, one per position and move
+	 *
+	 * @return the number of entries
+	 */
+	public int getEntryCount() {
+		return numEntries;
+	}
+
+	/**
+	 * Find the first entry of a position, which has the move with the highest weight. The entries of the position
+	 * follow it for as long as {@link #getHash(int)} is the same
+	 *
+	 * @param hash - the Zobrist hash of the position
+	 * @return the index of the entry, or -1 if the position is not in the book
+	 */
+	public int findFirstEntry( long hash ) {
+		int low = 0;
+		int high = numEntries;
+		while ( low < high ) {
+			int middle = ( low + high ) >>> 1;
+			if ( getHash( middle ) < hash ) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low < numEntries && getHash( low ) == hash ? low : -1;
+	}
+
+	/**
+	 * Get the hash of the position of an entry
+	 *
+	 * @param entry - the index of the entry
+	 * @return the Zobrist hash of the position
+	 */
+	public long getHash( int entry ) {
+		return book.getLong( entryOffset( entry ) );
+	}
+
+	/**
+	 * Get the move of an entry
+	 *
+	 * @param entry - the index of the entry
+	 * @return the packed move, which {@link GameArchive#unpackMove(int)} unpacks
+	 */
+	public int getPackedMove( int entry ) {
+		return book.getShort( entryOffset( entry ) + 8 ) & 0xFFFF;
+	}
+
+	/**
+	 * Get the weight of the move of an entry, which is how often it is chosen compared to the other moves of the
+	 * position
+	 *
+	 * @param entry - the index of the entry
+	 * @return the weight, from 0 to {@link #MAX_WEIGHT}
+	 */
+	public int getWeight( int entry ) {
+		return book.getShort( entryOffset( entry ) + 10 ) & 0xFFFF;
+	}
+
+	/**
+	 * Get the number of games in which the team that played the move of an entry won
+	 *
+	 * @param entry - the index of the entry
+	 * @return the number of wins
+	 */
+	public int getWins( int entry ) {
+		return book.getInt( entryOffset( entry ) + 12 );
+	}
+
+	/**
+	 * Get the number of drawn games in which the move of an entry was played
+	 *
+	 * @param entry - the index of the entry
+	 * @return the number of draws
+	 */
+	public int getDraws( int entry ) {
+		return book.getInt( entryOffset( entry ) + 16 );
+	}
+
+	/**
+	 * Get the number of games in which the team that played the move of an entry lost
+	 *
+	 * @param entry - the index of the entry
+	 * @return the number of losses
+	 */
+	public int getLosses( int entry ) {
+		return book.getInt( entryOffset( entry ) + 20 );
+	}
+
+	/**
+	 * Choose a book move for the team to move on a board. Moves are chosen at random in proportion to their weight, or
+	 * the move with the highest weight is chosen if no random numbers are given
+	 *
+	 * @param board  - the board
+	 * @param random - the random numbers to choose with, or null to always choose the move with the highest weight
+	 * @return the encoded legal move, or -1 if the position is not in the book
+	 */
+	public int probe( Board board, Random random ) {
+		long hash = board.getHash();
+		int first = findFirstEntry( hash );
+		if ( first == -1 ) {
+			return -1;
+		}
+
+		int end = first;
+		int totalWeight = 0;
+		while ( end < numEntries && getHash( end ) == hash ) {
+			totalWeight += getWeight( end++ );
+		}
+		if ( totalWeight == 0 ) {
+			return -1;
+		}
+
+		int pick = random == null ? 0 : random.nextInt( totalWeight );
+		for ( int entry = first; entry < end; entry++ ) {
+			pick -= getWeight( entry );
+			if ( pick < 0 ) {
+				int move = GameArchive.unpackMove( getPackedMove( entry ) );
+				// The book move must be legal, in case another position has the same hash
+				return board.findLegalMove( Move.from( move ), Move.to( move ), Move.promotion( move ) );
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find where an entry starts
+	 *
+	 * @param entry - the index of the entry
+	 * @return the byte offset of the entry
+	 */
+	private int entryOffset( int entry ) {
+		if ( entry < 0 || entry >= numEntries ) {
+			throw new IndexOutOfBoundsException( "No entry " + entry + " in a book of " + numEntries );
+		}
+		return HEADER_SIZE + ENTRY_SIZE * entry;
+	}
+
+	/**
+	 * Close the file. The mapping stays valid until it is garbage collected
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Print the book moves of a position and time the lookups
+	 *
+	 * @param args - the path of the book, and optionally the FEN of the position
+	 */
+	public static void main( String[] args ) {
+		if ( args.length != 1 && args.length != 2 ) {
+			System.out.println( "Usage: java chess.OpeningBook book.bin [FEN]" );
+			System.exit( 2 );
+		}
+
+		Board board = null;
+		try {
+			board = Fen.toBoard( args.length == 2 ? args[1] : Fen.START );
+		}
+		catch ( IllegalArgumentException e ) {
+			System.out.println( "Cannot set up the position: " + e.getMessage() );
+			System.exit( 2 );
+		}
+
+		try ( OpeningBook book = new OpeningBook( Paths.get( args[0] ) ) ) {
+			System.out.println( "Entries: " + book.getEntryCount() );
+			int first = book.findFirstEntry( board.getHash() );
+			for ( int entry = first; entry != -1 && entry < book.getEntryCount()
+					&& book.getHash( entry ) == board.getHash(); entry++ ) {
+				System.out.printf( "%s weight %d (+%d =%d -%d)%n",
+						Move.toString( GameArchive.unpackMove( book.getPackedMove( entry ) ) ), book.getWeight( entry ),
+						book.getWins( entry ), book.getDraws( entry ), book.getLosses( entry ) );
+			}
+			if ( first == -1 ) {
+				System.out.println( "The position is not in the book" );
+			}
+
+			int lookups = 1000000;
+			Random random = new Random( 1 );
+			long found = 0;
+			long start = System.nanoTime();
+			for ( int i = 0; i < lookups; i++ ) {
+				if ( book.probe( board, random ) != -1 ) {
+					found++;
+				}
+			}
+			double seconds = ( System.nanoTime() - start ) / 1e9;
+			System.out.printf( "Lookups: %d, found: %d%n", lookups, found );
+			System.out.printf( "Time per lookup: %.3f us%n", seconds * 1e6 / lookups );
+			System.out.printf( "Lookups/second: %.0f%n", lookups / seconds );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot read the book: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+}
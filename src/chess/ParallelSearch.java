@@ -0,0 +1,186 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chesspieces.Position;
+
+/**
+ * The ParallelSearch class searches one position with several threads in the Lazy SMP style: every thread runs its
+ * own iterative deepening search of the same root, and the threads only share the transposition table. A thread that
+ * finishes a subtree first stores it in the table, where the other threads find it, so together they reach a greater
+ * depth than one thread alone. Half of the helper threads start one ply deeper than the main thread, so the threads
+ * spread out over different depths instead of searching in step.
+ *
+ * The main thread reports its progress and chooses the move; the helpers are stopped as soon as it finishes.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class ParallelSearch {
+
+	/**
+	 * The transposition table shared by every thread
+	 */
+	private final TranspositionTable table;
+
+	/**
+	 * The search run by the calling thread, which chooses the move
+	 */
+	private final Search mainSearch;
+
+	/**
+	 * The searches run by the helper threads
+	 */
+	private final Search[] helpers;
+
+	/**
+	 * The threads that run the helper searches, or null if there are none
+	 */
+	private final ExecutorService helperThreads;
+
+	/**
+	 * Create a parallel search
+	 *
+	 * @param table      - the transposition table to share between the threads
+	 * @param numThreads - the number of threads to search with, including the calling thread
+	 */
+	public ParallelSearch( TranspositionTable table, int numThreads ) {
+		if ( numThreads < 1 ) {
+			throw new IllegalArgumentException( "A search needs at least one thread: " + numThreads );
+		}
+
+		this.table = table;
+		mainSearch = new Search( table );
+		helpers = new Search[numThreads - 1];
+		for ( int i = 0; i < helpers.length; i++ ) {
+			helpers[i] = new Search( table );
+		}
+		mainSearch.setHelpers( helpers );
+
+		if ( helpers.length == 0 ) {
+			helperThreads = null;
+		}
+		else {
+			helperThreads = Executors.newFixedThreadPool( helpers.length, runnable -> {
+				Thread thread = new Thread( runnable, "search-helper" );
+				// Helper threads must not keep the game running after it ends
+				thread.setDaemon( true );
+				return thread;
+			} );
+		}
+	}
+
+	/**
+	 * Get the number of threads the search uses when none is given: one per available processor
+	 *
+	 * @return the number of threads
+	 */
+	public static int defaultThreads() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Set where the main thread reports the progress of the search
+	 *
+	 * @param output - the stream to report to, or null to search silently
+	 */
+	public void setOutput( PrintStream output ) {
+		mainSearch.setOutput( output );
+	}
+
+	/**
+	 * Find the best move for the team to move, searching with every thread
+	 *
+	 * @param position        - the position to search, which is not changed
+	 * @param maxDepth        - the largest depth to search to
+	 * @param timeLimitMillis - the time after which to stop searching, in milliseconds
+	 * @return the best move, or 0 if the team to move has no legal moves
+	 */
+	public int findBestMove( Position position, int maxDepth, long timeLimitMillis ) {
+		table.newSearch();
+		long deadline = System.nanoTime() + timeLimitMillis * 1000000L;
+
+		// Prepare every search before any thread starts, so that stopping a helper can never be undone by it starting
+		mainSearch.prepare( deadline, false );
+		for ( Search helper : helpers ) {
+			helper.prepare( deadline, true );
+		}
+
+		Future<?>[] helperResults = new Future<?>[helpers.length];
+		for ( int i = 0; i < helpers.length; i++ ) {
+			Search helper = helpers[i];
+			// Every thread searches its own copy of the position
+			Position helperPosition = new Position( position );
+			int firstDepth = 1 + i % 2;
+			helperResults[i] = helperThreads.submit( () -> helper.iterate( helperPosition, firstDepth, maxDepth ) );
+		}
+
+		int bestMove = mainSearch.iterate( new Position( position ), 1, maxDepth );
+
+		for ( Search helper : helpers ) {
+			helper.stop();
+		}
+		for ( Future<?> helperResult : helperResults ) {
+			try {
+				helperResult.get();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+			catch ( ExecutionException e ) {
+				throw new IllegalStateException( "A search helper failed", e.getCause() );
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Get the number of nodes searched by every thread in the last search
+	 *
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return mainSearch.getTotalNodes();
+	}
+
+	/**
+	 * Get the depth of the last completed iteration of the main thread
+	 *
+	 * @return the depth
+	 */
+	public int getCompletedDepth() {
+		return mainSearch.getCompletedDepth();
+	}
+
+	/**
+	 * Get the score of the last search, from the point of view of the team to move
+	 *
+	 * @return the score in centipawns, or {@link Search#MATE} minus the plies to mate
+	 */
+	public int getScore() {
+		return mainSearch.getScore();
+	}
+
+	/**
+	 * Get the principal variation of the last search, as found by the main thread
+	 *
+	 * @return the encoded moves
+	 */
+	public int[] getPrincipalVariation() {
+		return mainSearch.getPrincipalVariation();
+	}
+
+	/**
+	 * Stop the helper threads. The search cannot be used afterwards
+	 */
+	public void shutdown() {
+		if ( helperThreads != null ) {
+			helperThreads.shutdownNow();
+		}
+	}
+}
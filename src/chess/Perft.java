@@ -0,0 +1,374 @@
+package chess;
+
+import java.util.Arrays;
+
+import chesspieces.Board;
+import chesspieces.ChessPiece;
+import chesspieces.Fen;
+import chesspieces.King;
+import chesspieces.Move;
+import chesspieces.MoveGenerator;
+import chesspieces.Pawn;
+import chesspieces.Position;
+import chesspieces.Team;
+
+/**
+ * Perft (performance test) counts every sequence of legal moves of a given length from a position. The counts of
+ * well-known positions are published, so perft both verifies the move generator and measures its speed.
+ *
+ * Usage:
+ * <ul>
+ * <li>java chess.Perft [depth] [FEN] - count the leaf nodes at the depth, from the FEN or the starting position</li>
+ * <li>java chess.Perft divide [depth] [FEN] - also print the count below each move from the root</li>
+ * <li>java chess.Perft suite [max depth] - check the reference positions against their published counts</li>
+ * <li>java chess.Perft rules [max depth] - check that the rules of the chess pieces allow exactly the moves of the
+ * move generator in every position reached from the reference positions, and that playing those moves through the
+ * chess pieces makes the same moves</li>
+ * </ul>
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Perft {
+
+	/**
+	 * The reference positions: name, FEN, and the expected leaf node counts from depth 1 upwards
+	 */
+	private static final String[][] REFERENCE_POSITIONS = {
+			{ "Starting position", Fen.START, "20 400 8902 197281 4865609 119060324" },
+			{ "Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+					"48 2039 97862 4085603 193690690" },
+			{ "Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "14 191 2812 43238 674624 11030083" },
+			{ "Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+					"6 264 9467 422333 15833292" },
+			{ "Position 4 mirrored", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+					"6 264 9467 422333 15833292" },
+			{ "Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+					"44 1486 62379 2103487 89941194" },
+			{ "Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+					"46 2079 89890 3894594 164075551" } };
+
+	/**
+	 * The default maximum depth of the reference suite, which keeps every position under a few million nodes
+	 */
+	private static final int DEFAULT_SUITE_DEPTH = 4;
+
+	/**
+	 * The default maximum depth of the rules check, which asks every chess piece about every tile of each position
+	 */
+	private static final int DEFAULT_RULES_DEPTH = 3;
+
+	/**
+	 * The letters of the piece types that a Pawn promotes to, as taken by {@link Pawn#promote(char, int)}, indexed by
+	 * piece type index
+	 */
+	private static final String PROMOTION_LETTERS = " NBRQ";
+
+	/**
+	 * The most disagreements between the chess pieces and the move generator that are printed
+	 */
+	private static final int MAX_PRINTED_DISAGREEMENTS = 20;
+
+	/**
+	 * A move buffer for each ply, so that no buffers are created while counting
+	 */
+	private final int[][] moveBuffers;
+
+	/**
+	 * Create a perft counter
+	 *
+	 * @param maxDepth - the largest depth that will be counted
+	 */
+	public Perft( int maxDepth ) {
+		moveBuffers = new int[Math.max( maxDepth, 1 )][MoveGenerator.MAX_MOVES];
+	}
+
+	/**
+	 * Count the leaf nodes of the move tree below a position
+	 *
+	 * @param position - the position to start from, which is restored after the moves are played out
+	 * @param depth    - the number of moves to play out
+	 * @return the number of legal move sequences of that length
+	 */
+	public long count( Position position, int depth ) {
+		if ( depth == 0 ) {
+			return 1;
+		}
+
+		int[] moves = moveBuffers[depth - 1];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		if ( depth == 1 ) {
+			// Every legal move is a leaf, no need to play them
+			return numMoves;
+		}
+
+		long nodes = 0;
+		for ( int i = 0; i < numMoves; i++ ) {
+			position.makeMove( moves[i] );
+			nodes += count( position, depth - 1 );
+			position.unmakeMove( moves[i] );
+		}
+		return nodes;
+	}
+
+	/**
+	 * Print the number of leaf nodes below each move from the position, followed by the total
+	 *
+	 * @param position - the position to start from
+	 * @param depth    - the number of moves to play out, at least 1
+	 * @return the total number of leaf nodes
+	 */
+	public long divide( Position position, int depth ) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		long total = 0;
+		for ( int i = 0; i < numMoves; i++ ) {
+			position.makeMove( moves[i] );
+			long nodes = count( position, depth - 1 );
+			position.unmakeMove( moves[i] );
+			System.out.println( Move.toString( moves[i] ) + ": " + nodes );
+			total += nodes;
+		}
+		System.out.println();
+		System.out.println( "Moves: " + numMoves );
+		return total;
+	}
+
+	/**
+	 * Run perft from the command line
+	 *
+	 * @param args - see the class description
+	 */
+	public static void main( String[] args ) {
+		String mode = "count";
+		int index = 0;
+		if ( args.length > 0
+				&& ( args[0].equals( "divide" ) || args[0].equals( "suite" ) || args[0].equals( "rules" ) ) ) {
+			mode = args[0];
+			index++;
+		}
+
+		int depth = mode.equals( "suite" ) ? DEFAULT_SUITE_DEPTH : mode.equals( "rules" ) ? DEFAULT_RULES_DEPTH : 5;
+		if ( args.length > index ) {
+			try {
+				depth = Integer.parseInt( args[index] );
+				index++;
+			}
+			catch ( NumberFormatException e ) {
+				System.out.println( "Depth must be a number: " + args[index] );
+				System.exit( 2 );
+			}
+		}
+
+		if ( mode.equals( "suite" ) ) {
+			System.exit( runSuite( depth ) ? 0 : 1 );
+		}
+		if ( mode.equals( "rules" ) ) {
+			System.exit( runRulesCheck( depth ) ? 0 : 1 );
+		}
+
+		String fen = Fen.START;
+		if ( args.length > index ) {
+			fen = String.join( " ", Arrays.copyOfRange( args, index, args.length ) );
+		}
+
+		Position position;
+		try {
+			position = Fen.toPosition( fen );
+		}
+		catch ( IllegalArgumentException e ) {
+			System.out.println( e.getMessage() );
+			System.exit( 2 );
+			return;
+		}
+
+		Perft perft = new Perft( depth );
+		long start = System.nanoTime();
+		long nodes = mode.equals( "divide" ) ? perft.divide( position, depth ) : perft.count( position, depth );
+		long elapsed = System.nanoTime() - start;
+		System.out.println( "Nodes: " + nodes );
+		printSpeed( nodes, elapsed );
+	}
+
+	/**
+	 * Count every reference position up to a depth and compare against the published counts
+	 *
+	 * @param maxDepth - the largest depth to check
+	 * @return whether every count matched
+	 */
+	private static boolean runSuite( int maxDepth ) {
+		boolean passed = true;
+		long totalNodes = 0;
+		long totalElapsed = 0;
+		Perft perft = new Perft( maxDepth );
+
+		for ( String[] reference : REFERENCE_POSITIONS ) {
+			Position position = Fen.toPosition( reference[1] );
+			String[] expectedCounts = reference[2].split( " " );
+			for ( int depth = 1; depth <= Math.min( maxDepth, expectedCounts.length ); depth++ ) {
+				long expected = Long.parseLong( expectedCounts[depth - 1] );
+				long start = System.nanoTime();
+				long nodes = perft.count( position, depth );
+				long elapsed = System.nanoTime() - start;
+				totalNodes += nodes;
+				totalElapsed += elapsed;
+
+				String result = nodes == expected ? "ok" : "FAILED, expected " + expected;
+				System.out.println( reference[0] + ", depth " + depth + ": " + nodes + " " + result );
+				passed &= nodes == expected;
+			}
+		}
+
+		System.out.println();
+		System.out.println( passed ? "All counts match" : "Some counts do not match" );
+		System.out.println( "Nodes: " + totalNodes );
+		printSpeed( totalNodes, totalElapsed );
+		return passed;
+	}
+
+	/**
+	 * Check the rules of the chess pieces against the move generator in every position reached from the reference
+	 * positions, up to a depth
+	 *
+	 * @param maxDepth - the number of moves to play out from each reference position
+	 * @return whether the chess pieces and the move generator agreed everywhere
+	 */
+	private static boolean runRulesCheck( int maxDepth ) {
+		int[][] moveBuffers = new int[Math.max( maxDepth, 1 )][MoveGenerator.MAX_MOVES];
+		long[] disagreements = new long[1];
+		long totalNodes = 0;
+		long start = System.nanoTime();
+		for ( String[] reference : REFERENCE_POSITIONS ) {
+			long before = disagreements[0];
+			long nodes = checkRules( Fen.toBoard( reference[1] ), Fen.getMoveNumber( reference[1] ), maxDepth,
+					moveBuffers, disagreements );
+			totalNodes += nodes;
+			String result = disagreements[0] == before ? "ok" : "FAILED, " + ( disagreements[0] - before )
+					+ " disagreements";
+			System.out.println( reference[0] + ", " + nodes + " positions: " + result );
+		}
+
+		System.out.println();
+		System.out.println( disagreements[0] == 0 ? "The chess pieces agree with the move generator"
+				: "The chess pieces disagree with the move generator" );
+		printSpeed( totalNodes, System.nanoTime() - start );
+		return disagreements[0] == 0;
+	}
+
+	/**
+	 * Ask every chess piece of the team to move whether it can move to each of the 64 tiles, compare the answers with
+	 * the legal moves of the move generator, and then play each legal move through the chess pieces and check the
+	 * positions below it
+	 *
+	 * @param board         - the board, which is restored after the moves are played out
+	 * @param moveNumber    - the move number of the team to move, as counted by the chess pieces
+	 * @param depth         - the number of moves to play out
+	 * @param moveBuffers   - a move buffer for each ply
+	 * @param disagreements - the number of disagreements found so far, in its only element
+	 * @return the number of positions checked
+	 */
+	private static long checkRules( Board board, int moveNumber, int depth, int[][] moveBuffers,
+			long[] disagreements ) {
+		Position position = board.getPosition();
+		int[] moves = moveBuffers[depth - 1];
+		int numMoves = board.getLegalMoveCount();
+		long[] generatorTargets = new long[64];
+		for ( int i = 0; i < numMoves; i++ ) {
+			moves[i] = board.getLegalMove( i );
+			generatorTargets[Move.from( moves[i] )] |= 1L << Move.to( moves[i] );
+		}
+
+		Team team = position.getSideToMove() == 0 ? Team.WHITE : Team.BLACK;
+		for ( int from = 0; from < 64; from++ ) {
+			ChessPiece piece = board.getPiece( from / 8, from % 8 );
+			if ( piece == null || piece.getTeam() != team ) {
+				continue;
+			}
+			for ( int to = 0; to < 64; to++ ) {
+				boolean isAllowed = canMoveTo( piece, to / 8, to % 8, moveNumber );
+				if ( isAllowed != ( ( generatorTargets[from] & ( 1L << to ) ) != 0 ) ) {
+					reportDisagreement( position, ( isAllowed ? "only the chess pieces allow " : "only the move "
+							+ "generator allows " ) + Move.toString( Move.encode( from, to, Move.NONE, Move.NORMAL ) ),
+							disagreements );
+				}
+			}
+		}
+		if ( depth == 1 ) {
+			return 1;
+		}
+
+		long nodes = 1;
+		for ( int i = 0; i < numMoves; i++ ) {
+			int move = moves[i];
+			ChessPiece piece = board.getPiece( Move.from( move ) / 8, Move.from( move ) % 8 );
+			int undoSize = board.getUndoSize();
+			boolean isMoved = piece.attemptMoveTo( Move.to( move ) / 8, Move.to( move ) % 8, moveNumber );
+			if ( isMoved && Move.promotion( move ) != Move.NONE ) {
+				isMoved = ( (Pawn) piece ).promote( PROMOTION_LETTERS.charAt( Move.promotion( move ) ), moveNumber );
+			}
+			if ( !isMoved || board.getUndoSize() != undoSize + 1 || board.getLastMove() != move ) {
+				reportDisagreement( position, "the chess pieces do not play " + Move.toString( move ),
+						disagreements );
+				// Play the move of the generator instead, so that the positions below it are still checked
+				while ( board.getUndoSize() > undoSize ) {
+					board.unmakeMove();
+				}
+				board.makeMove( move, moveNumber );
+			}
+			nodes += checkRules( board, moveNumber + 1, depth - 1, moveBuffers, disagreements );
+			board.unmakeMove();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Determine whether the rules of a chess piece let it move to a tile, including castling and en passant
+	 *
+	 * @param piece      - the chess piece of the team to move
+	 * @param targetRow  - the row of the tile
+	 * @param targetCol  - the column of the tile
+	 * @param moveNumber - the move number of the team to move
+	 * @return whether the chess piece can legally move to the tile
+	 */
+	private static boolean canMoveTo( ChessPiece piece, int targetRow, int targetCol, int moveNumber ) {
+		if ( piece.canMoveTo( targetRow, targetCol, true ) ) {
+			return true;
+		}
+		if ( piece instanceof King ) {
+			King king = (King) piece;
+			return king.canCastleRightTo( targetRow, targetCol ) || king.canCastleLeftTo( targetRow, targetCol );
+		}
+		if ( piece instanceof Pawn ) {
+			Pawn pawn = (Pawn) piece;
+			return pawn.canEnPessantLeftTo( targetRow, targetCol, moveNumber )
+					|| pawn.canEnPessantRightTo( targetRow, targetCol, moveNumber );
+		}
+		return false;
+	}
+
+	/**
+	 * Count a disagreement between the chess pieces and the move generator, and print the first few
+	 *
+	 * @param position      - the position where they disagree
+	 * @param description   - what they disagree about
+	 * @param disagreements - the number of disagreements found so far, in its only element
+	 */
+	private static void reportDisagreement( Position position, String description, long[] disagreements ) {
+		if ( disagreements[0]++ < MAX_PRINTED_DISAGREEMENTS ) {
+			System.out.println( Fen.toFen( position, 0, 1 ) + ": " + description );
+		}
+	}
+
+	/**
+	 * Print the elapsed time and the number of nodes per second
+	 *
+	 * @param nodes   - the number of nodes counted
+	 * @param elapsed - the time taken, in nanoseconds
+	 */
+	private static void printSpeed( long nodes, long elapsed ) {
+		double seconds = elapsed / 1e9;
+		System.out.printf( "Time: %.3f s%n", seconds );
+		System.out.printf( "Nodes/second: %.0f%n", nodes / Math.max( seconds, 1e-9 ) );
+	}
+}
@@ -0,0 +1,198 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PgnGame class holds one game read from a PGN file by a {@link PgnReader}: its tags (e.g. "White", "Result") and
+ * its movetext, from which the moves are read in Standard Algebraic Notation
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class PgnGame {
+
+	/**
+	 * The byte offset of the first line of the game in its file
+	 */
+	private final long offset;
+
+	/**
+	 * The tags of the game, in the order they appear
+	 */
+	private final Map<String, String> tags = new LinkedHashMap<String, String>();
+
+	/**
+	 * The movetext of the game, with its lines separated by line breaks
+	 */
+	private String movetext = "";
+
+	/**
+	 * Create a game with no tags or moves yet
+	 *
+	 * @param offset - the byte offset of the first line of the game in its file
+	 */
+	PgnGame( long offset ) {
+		this.offset = offset;
+	}
+
+	/**
+	 * Get the byte offset of the first line of the game in its file, which identifies the game in reports
+	 *
+	 * @return the byte offset
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Get the value of a tag
+	 *
+	 * @param name - the name of the tag, e.g. "Event"
+	 * @return the value of the tag, or null if the game does not have the tag
+	 */
+	public String getTag( String name ) {
+		return tags.get( name );
+	}
+
+	/**
+	 * Set the value of a tag
+	 *
+	 * @param name  - the name of the tag
+	 * @param value - the value of the tag
+	 */
+	void setTag( String name, String value ) {
+		tags.put( name, value );
+	}
+
+	/**
+	 * Get the movetext of the game
+	 *
+	 * @return the movetext, as it appears in the file
+	 */
+	public String getMovetext() {
+		return movetext;
+	}
+
+	/**
+	 * Set the movetext of the game
+	 *
+	 * @param movetext - the movetext
+	 */
+	void setMovetext( String movetext ) {
+		this.movetext = movetext;
+	}
+
+	/**
+	 * Get the moves of the game in SAN, leaving out the move numbers, comments, variations, annotation glyphs ("$1")
+	 * and the result
+	 *
+	 * @return the moves, in the order they were played
+	 */
+	public List<String> getMoves() {
+		List<String> moves = new ArrayList<String>();
+		int length = movetext.length();
+		int i = 0;
+		while ( i < length ) {
+			char c = movetext.charAt( i );
+			if ( Character.isWhitespace( c ) || c == ')' ) {
+				i++;
+			}
+			else if ( c == '{' ) {
+				// Comment until the closing brace
+				int close = movetext.indexOf( '}', i );
+				i = close < 0 ? length : close + 1;
+			}
+			else if ( c == ';' ) {
+				// Comment until the end of the line
+				int lineBreak = movetext.indexOf( '\n', i );
+				i = lineBreak < 0 ? length : lineBreak + 1;
+			}
+			else if ( c == '(' ) {
+				i = skipVariation( i );
+			}
+			else {
+				int start = i;
+				while ( i < length && !Character.isWhitespace( movetext.charAt( i ) )
+						&& "{};()".indexOf( movetext.charAt( i ) ) < 0 ) {
+					i++;
+				}
+				addMove( moves, start, i );
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Skip a variation and every variation nested in it
+	 *
+	 * @param start - the index of the opening parenthesis of the variation
+	 * @return the index after the closing parenthesis
+	 */
+	private int skipVariation( int start ) {
+		int depth = 0;
+		int length = movetext.length();
+		int i = start;
+		while ( i < length ) {
+			char c = movetext.charAt( i );
+			if ( c == '{' ) {
+				// Parentheses in comments do not count
+				int close = movetext.indexOf( '}', i );
+				i = close < 0 ? length : close;
+			}
+			else if ( c == '(' ) {
+				depth++;
+			}
+			else if ( c == ')' && --depth == 0 ) {
+				return i + 1;
+			}
+			i++;
+		}
+		return length;
+	}
+
+	/**
+	 * Add a token of the movetext to the moves, unless it is a result or an annotation glyph. A move number in front
+	 * of the move ("12.e4" or "12...e5") is removed
+	 *
+	 * @param moves - the moves
+	 * @param start - the start index of the token in the movetext
+	 * @param end   - the end index of the token in the movetext
+	 */
+	private void addMove( List<String> moves, int start, int end ) {
+		String token = movetext.substring( start, end );
+		if ( token.equals( "1-0" ) || token.equals( "0-1" ) || token.equals( "1/2-1/2" ) || token.equals( "*" )
+				|| token.charAt( 0 ) == '$' ) {
+			return;
+		}
+		if ( token.startsWith( "0-0" ) ) {
+			// Castling written with zeros
+			moves.add( token );
+			return;
+		}
+
+		int i = 0;
+		while ( i < token.length() && Character.isDigit( token.charAt( i ) ) ) {
+			i++;
+		}
+		if ( i > 0 && i < token.length() && token.charAt( i ) == '.' ) {
+			while ( i < token.length() && token.charAt( i ) == '.' ) {
+				i++;
+			}
+			token = token.substring( i );
+		}
+		else if ( i == token.length() ) {
+			// A move number with its dot in the next token
+			return;
+		}
+		while ( token.startsWith( "." ) ) {
+			token = token.substring( 1 );
+		}
+		if ( !token.isEmpty() ) {
+			moves.add( token );
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import chesspieces.Fen;
+import chesspieces.MoveGenerator;
+import chesspieces.San;
+
+/**
+ * The PgnImport class replays the games of PGN files through {@link Game}. Every SAN move is matched against the
+ * legal moves of the position and then made through {@link Game#submit(int)}, so that it is validated like a typed
+ * move, against the legal moves of the move generator. Games with a move that is malformed, ambiguous or illegal
+ * are reported, and the games per second are reported at the end.
+ *
+ * Files are split into chunks that are replayed in parallel, and every chunk is streamed by a {@link PgnReader}, so
+ * memory stays constant however large the files are.
+ *
+ * Usage: java chess.PgnImport [--threads n] [--positions] file.pgn ...
+ * <br>
+ * With --positions, the final position of every game is also printed, in EPD. Games that start from a FEN tag are
+ * replayed from that position, and are skipped if the position cannot be set up.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class PgnImport {
+
+	/**
+	 * The smallest and largest chunk a file is split into, in bytes
+	 */
+	private static final long MIN_CHUNK_BYTES = 1 << 20, MAX_CHUNK_BYTES = 64 << 20;
+
+	/**
+	 * The number of chunks per thread that a file is split into at most, so that threads that finish early can take
+	 * over chunks of threads that are slower
+	 */
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	/**
+	 * Whether to print the final position of every game
+	 */
+	private final boolean isPrintingPositions;
+
+	/**
+	 * The number of games replayed, games with an illegal move, games skipped, and moves made
+	 */
+	private final LongAdder games = new LongAdder(), illegalGames = new LongAdder(), skippedGames = new LongAdder(),
+			moves = new LongAdder();
+
+	/**
+	 * Create an import
+	 *
+	 * @param isPrintingPositions - whether to print the final position of every game
+	 */
+	public PgnImport( boolean isPrintingPositions ) {
+		this.isPrintingPositions = isPrintingPositions;
+	}
+
+	/**
+	 * Replay the games of files, splitting every file into chunks that are replayed by a pool of threads
+	 *
+	 * @param files   - the PGN files
+	 * @param threads - the number of threads
+	 * @throws IOException          if a file cannot be read
+	 * @throws InterruptedException if the thread is interrupted while waiting for the chunks
+	 */
+	public void importFiles( List<Path> files, int threads ) throws IOException, InterruptedException {
+		ExecutorService chunkThreads = Executors.newFixedThreadPool( threads );
+		try {
+			List<Future<Void>> chunks = new ArrayList<Future<Void>>();
+			for ( Path file : files ) {
+				long size = Files.size( file );
+				long chunkBytes = Math.max( MIN_CHUNK_BYTES,
+						Math.min( MAX_CHUNK_BYTES, size / ( (long) threads * CHUNKS_PER_THREAD ) + 1 ) );
+				for ( long start = 0; start < size || start == 0; start += chunkBytes ) {
+					long chunkStart = start;
+					long chunkEnd = Math.min( size, start + chunkBytes );
+					chunks.add( chunkThreads.submit( () -> {
+						importChunk( file, chunkStart, chunkEnd );
+						return null;
+					} ) );
+				}
+			}
+
+			for ( Future<Void> chunk : chunks ) {
+				try {
+					chunk.get();
+				}
+				catch ( ExecutionException e ) {
+					if ( e.getCause() instanceof IOException ) {
+						throw (IOException) e.getCause();
+					}
+					throw new IllegalStateException( e.getCause() );
+				}
+			}
+		}
+		finally {
+			chunkThreads.shutdownNow();
+		}
+	}
+
+	/**
+	 * Replay the games of a chunk of a file
+	 *
+	 * @param file  - the PGN file
+	 * @param start - the byte offset where the chunk starts
+	 * @param end   - the byte offset where the chunk ends
+	 * @throws IOException if the file cannot be read
+	 */
+	private void importChunk( Path file, long start, long end ) throws IOException {
+		int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+		try ( PgnReader reader = PgnReader.open( file, start, end ) ) {
+			PgnGame pgnGame;
+			while ( ( pgnGame = reader.next() ) != null ) {
+				replay( file, pgnGame, legalMoves );
+			}
+		}
+	}
+
+	/**
+	 * Replay one game, and report it if a move is illegal
+	 *
+	 * @param file       - the PGN file the game is from
+	 * @param pgnGame    - the game
+	 * @param legalMoves - a buffer for the legal moves of each position
+	 */
+	private void replay( Path file, PgnGame pgnGame, int[] legalMoves ) {
+		Game game;
+		String fen = pgnGame.getTag( "FEN" );
+		try {
+			game = fen == null ? new Game() : new Game( fen );
+		}
+		catch ( IllegalArgumentException e ) {
+			skippedGames.increment();
+			System.out.println( file.getFileName() + "@" + pgnGame.getOffset() + ": cannot set up the position in "
+					+ describe( pgnGame ) + ": " + e.getMessage() );
+			return;
+		}
+
+		List<String> sans = pgnGame.getMoves();
+		for ( int i = 0; i < sans.size(); i++ ) {
+			int moveNumber = game.getCurrentMoveNumber();
+			int move = San.parse( game.getBoard().getPosition(), sans.get( i ), legalMoves );
+			if ( move < 0 || game.submit( move ) != Game.Outcome.MOVED ) {
+				illegalGames.increment();
+				games.increment();
+				moves.add( i );
+				System.out.println( file.getFileName() + "@" + pgnGame.getOffset() + ": illegal move "
+						+ ( moveNumber + 1 ) / 2 + ( moveNumber % 2 == 1 ? ". " : "... " ) + sans.get( i ) + " in "
+						+ describe( pgnGame ) );
+				return;
+			}
+		}
+
+		games.increment();
+		moves.add( sans.size() );
+		if ( isPrintingPositions ) {
+			String result = pgnGame.getTag( "Result" );
+			System.out.println( file.getFileName() + "@" + pgnGame.getOffset() + ": "
+					+ Fen.toEpd( game.getBoard().getPosition() ) + ( result == null ? "" : " " + result ) );
+		}
+	}
+
+	/**
+	 * Describe a game by its players and event
+	 *
+	 * @param pgnGame - the game
+	 * @return e.g. "Carlsen - Nepomniachtchi (World Championship)"
+	 */
+	private static String describe( PgnGame pgnGame ) {
+		String white = pgnGame.getTag( "White" );
+		String black = pgnGame.getTag( "Black" );
+		String event = pgnGame.getTag( "Event" );
+		return ( white == null ? "?" : white ) + " - " + ( black == null ? "?" : black )
+				+ ( event == null ? "" : " (" + event + ")" );
+	}
+
+	/**
+	 * Get the number of games replayed, including games with an illegal move
+	 *
+	 * @return the number of games
+	 */
+	public long getGames() {
+		return games.sum();
+	}
+
+	/**
+	 * Get the number of games with a move that is malformed, ambiguous or illegal
+	 *
+	 * @return the number of illegal games
+	 */
+	public long getIllegalGames() {
+		return illegalGames.sum();
+	}
+
+	/**
+	 * Get the number of games skipped because the position of their FEN tag cannot be set up
+	 *
+	 * @return the number of skipped games
+	 */
+	public long getSkippedGames() {
+		return skippedGames.sum();
+	}
+
+	/**
+	 * Get the number of legal moves made
+	 *
+	 * @return the number of moves
+	 */
+	public long getMoves() {
+		return moves.sum();
+	}
+
+	/**
+	 * Replay the games of PGN files
+	 *
+	 * @param args - the options and the files
+	 */
+	public static void main( String[] args ) {
+		int threads = ParallelSearch.defaultThreads();
+		boolean isPrintingPositions = false;
+		List<Path> files = new ArrayList<Path>();
+		try {
+			for ( int i = 0; i < args.length; i++ ) {
+				if ( args[i].equals( "--threads" ) ) {
+					threads = Integer.parseInt( args[++i] );
+				}
+				else if ( args[i].equals( "--positions" ) ) {
+					isPrintingPositions = true;
+				}
+				else {
+					files.add( Paths.get( args[i] ) );
+				}
+			}
+		}
+		catch ( RuntimeException e ) {
+			files.clear();
+		}
+		if ( files.isEmpty() || threads < 1 ) {
+			System.out.println( "Usage: java chess.PgnImport [--threads n] [--positions] file.pgn ..." );
+			System.exit( 2 );
+		}
+
+		PgnImport pgnImport = new PgnImport( isPrintingPositions );
+		long start = System.nanoTime();
+		try {
+			pgnImport.importFiles( files, threads );
+		}
+		catch ( IOException | InterruptedException e ) {
+			System.out.println( "Import stopped: " + e.getMessage() );
+			System.exit( 1 );
+		}
+		double seconds = ( System.nanoTime() - start ) / 1e9;
+
+		System.out.printf( "Games: %d, illegal: %d, skipped: %d, moves: %d%n", pgnImport.getGames(),
+				pgnImport.getIllegalGames(), pgnImport.getSkippedGames(), pgnImport.getMoves() );
+		System.out.printf( "Time: %.3f s, threads: %d%n", seconds, threads );
+		System.out.printf( "Games/second: %.0f%n", pgnImport.getGames() / seconds );
+		System.out.printf( "Moves/second: %.0f%n", pgnImport.getMoves() / seconds );
+	}
+}
@@ -0,0 +1,276 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The PgnReader class streams the games of a PGN file one at a time, so files of any size are read in constant
+ * memory. A reader can also read only a chunk of a file, so that several threads can read one file at once: the
+ * chunk starting at byte S and ending at byte E reads every game whose "[Event" tag line starts at or after S and
+ * before E, which relies on every game starting with its "[Event" tag, as the PGN standard orders the tags. Lines are
+ * read as UTF-8.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class PgnReader implements Closeable {
+
+	/**
+	 * The size of the buffer that the file is read through
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The stream that the games are read from
+	 */
+	private final InputStream in;
+
+	/**
+	 * The byte offset in the file where the chunk ends
+	 */
+	private final long end;
+
+	/**
+	 * The bytes read from the stream but not yet returned as lines
+	 */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/**
+	 * The index of the next unread byte in the buffer, and the number of bytes in the buffer
+	 */
+	private int bufferPosition, bufferLimit;
+
+	/**
+	 * The bytes of the line being read, which grows to fit the longest line
+	 */
+	private byte[] lineBytes = new byte[256];
+
+	/**
+	 * The byte offset in the file of the next line
+	 */
+	private long position;
+
+	/**
+	 * A line that was read past the end of a game, to be returned before the next line of the stream
+	 */
+	private String pendingLine;
+
+	/**
+	 * The byte offset in the file of the line last returned by {@link #nextLine()}, or of the pending line
+	 */
+	private long lineOffset;
+
+	/**
+	 * Whether the reader started in the middle of a file, and has not yet found the "[Event" tag of a game
+	 */
+	private boolean isSynchronizing;
+
+	/**
+	 * Read every game of a stream
+	 *
+	 * @param in - the stream, which the reader closes
+	 */
+	public PgnReader( InputStream in ) {
+		this( in, 0, Long.MAX_VALUE, false );
+	}
+
+	/**
+	 * Read the games of a chunk of a file from a stream
+	 *
+	 * @param in              - the stream, which the reader closes
+	 * @param position        - the byte offset in the file that the stream is positioned at
+	 * @param end             - the byte offset in the file where the chunk ends
+	 * @param isSynchronizing - whether the stream is positioned in the middle of the file
+	 */
+	private PgnReader( InputStream in, long position, long end, boolean isSynchronizing ) {
+		this.in = in;
+		this.end = end;
+		this.position = position;
+		this.isSynchronizing = isSynchronizing;
+	}
+
+	/**
+	 * Open a reader of the games of a chunk of a file
+	 *
+	 * @param file  - the PGN file
+	 * @param start - the byte offset in the file where the chunk starts
+	 * @param end   - the byte offset in the file where the chunk ends
+	 * @return the reader
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static PgnReader open( Path file, long start, long end ) throws IOException {
+		FileChannel channel = FileChannel.open( file, StandardOpenOption.READ );
+		if ( start == 0 ) {
+			return new PgnReader( Channels.newInputStream( channel ), 0, end, false );
+		}
+
+		// Start from the byte before the chunk and skip to the end of its line, so that the first line read is the
+		// first line that starts inside the chunk
+		channel.position( start - 1 );
+		PgnReader reader = new PgnReader( Channels.newInputStream( channel ), start - 1, end, true );
+		reader.readLine();
+		return reader;
+	}
+
+	/**
+	 * Read the next game
+	 *
+	 * @return the game, or null if there are no more games in the file or chunk
+	 * @throws IOException if the stream cannot be read
+	 */
+	public PgnGame next() throws IOException {
+		// Find the first line of the game
+		String line;
+		do {
+			line = nextLine();
+			if ( line == null ) {
+				return null;
+			}
+		}
+		while ( isSynchronizing ? !line.startsWith( "[Event " ) : line.isBlank() );
+
+		// A game that starts with its "[Event" tag after the end of the chunk belongs to the next chunk
+		if ( lineOffset >= end && line.startsWith( "[Event " ) ) {
+			return null;
+		}
+		isSynchronizing = false;
+
+		PgnGame game = new PgnGame( lineOffset );
+		while ( line != null && isTagLine( line ) ) {
+			readTag( game, line );
+			do {
+				line = nextLine();
+			}
+			while ( line != null && line.isBlank() );
+		}
+
+		// The movetext lasts until the tags of the next game
+		StringBuilder movetext = new StringBuilder();
+		while ( line != null && !isTagLine( line ) ) {
+			movetext.append( line ).append( '\n' );
+			line = nextLine();
+		}
+		// The line and its offset are kept for the next game
+		pendingLine = line;
+		game.setMovetext( movetext.toString() );
+		return game;
+	}
+
+	/**
+	 * Determine if a line is a tag line, rather than movetext. Movetext can contain commands in brackets, like
+	 * "[%clk 0:03:00]", but only inside comments
+	 *
+	 * @param line - the line
+	 * @return whether the line starts with "[" and the name of a tag
+	 */
+	private static boolean isTagLine( String line ) {
+		return line.length() > 1 && line.charAt( 0 ) == '[' && Character.isLetter( line.charAt( 1 ) );
+	}
+
+	/**
+	 * Read a tag line of the form [Name "Value"] into a game. Malformed tag lines are ignored
+	 *
+	 * @param game - the game
+	 * @param line - the tag line
+	 */
+	private static void readTag( PgnGame game, String line ) {
+		int nameEnd = 1;
+		while ( nameEnd < line.length() && !Character.isWhitespace( line.charAt( nameEnd ) ) ) {
+			nameEnd++;
+		}
+		int valueStart = line.indexOf( '"', nameEnd );
+		int valueEnd = line.lastIndexOf( '"' );
+		if ( valueStart < 0 || valueEnd <= valueStart ) {
+			return;
+		}
+		String value = line.substring( valueStart + 1, valueEnd ).replace( "\\\"", "\"" ).replace( "\\\\", "\\" );
+		game.setTag( line.substring( 1, nameEnd ), value );
+	}
+
+	/**
+	 * Get the next line that is not an escaped line (starting with "%"), whether pending or read from the stream
+	 *
+	 * @return the line, or null at the end of the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private String nextLine() throws IOException {
+		if ( pendingLine != null ) {
+			String line = pendingLine;
+			pendingLine = null;
+			return line;
+		}
+
+		String line;
+		do {
+			lineOffset = position;
+			line = readLine();
+		}
+		while ( line != null && line.startsWith( "%" ) );
+		return line;
+	}
+
+	/**
+	 * Read a line from the stream
+	 *
+	 * @return the line without its line break, or null at the end of the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private String readLine() throws IOException {
+		long lineStart = position;
+		int length = 0;
+		boolean hasData = false;
+		while ( true ) {
+			if ( bufferPosition == bufferLimit ) {
+				bufferLimit = in.read( buffer );
+				bufferPosition = 0;
+				if ( bufferLimit <= 0 ) {
+					bufferLimit = 0;
+					if ( !hasData ) {
+						return null;
+					}
+					break;
+				}
+			}
+
+			hasData = true;
+			byte b = buffer[bufferPosition++];
+			position++;
+			if ( b == '\n' ) {
+				break;
+			}
+			if ( length == lineBytes.length ) {
+				lineBytes = Arrays.copyOf( lineBytes, length * 2 );
+			}
+			lineBytes[length++] = b;
+		}
+
+		if ( length > 0 && lineBytes[length - 1] == '\r' ) {
+			length--;
+		}
+		int start = 0;
+		if ( lineStart == 0 && length >= 3 && lineBytes[0] == (byte) 0xEF && lineBytes[1] == (byte) 0xBB
+				&& lineBytes[2] == (byte) 0xBF ) {
+			// Byte order mark at the start of the file
+			start = 3;
+		}
+		return new String( lineBytes, start, length - start, StandardCharsets.UTF_8 );
+	}
+
+	/**
+	 * Close the stream
+	 *
+	 * @throws IOException if the stream cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,701 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import chesspieces.Evaluation;
+import chesspieces.Move;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * The Search class finds the best move of a position for the computer player. It runs a negamax alpha-beta search
+ * with iterative deepening, a quiescence search of captures at the leaves, and a transposition table. Moves are tried
+ * in the order: best move from the transposition table, captures by most valuable victim / least valuable attacker
+ * (MVV-LVA), promotions, killer moves, then quiet moves by their history score. Positions are scored by
+ * {@link Evaluation}.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Search {
+
+	/**
+	 * The deepest ply the search can reach, including quiescence search and check extensions
+	 */
+	public static final int MAX_PLY = 64;
+
+	/**
+	 * The score of checkmating on the current move; a mate in n plies scores MATE - n
+	 */
+	public static final int MATE = 30000;
+
+	/**
+	 * A score beyond any real score
+	 */
+	private static final int INFINITY = 32000;
+
+	/**
+	 * Scores of mates found within the maximum ply are above this
+	 */
+	private static final int MATE_BOUND = MATE - MAX_PLY;
+
+	/**
+	 * Move ordering scores of the different groups of moves, from first tried to last
+	 */
+	private static final int TABLE_MOVE_SCORE = 1000000, CAPTURE_SCORE = 100000, PROMOTION_SCORE = 90000,
+			FIRST_KILLER_SCORE = 80000, SECOND_KILLER_SCORE = 79000;
+
+	/**
+	 * History scores are halved once one of them reaches this, so they stay below the killer moves
+	 */
+	private static final int MAX_HISTORY = 50000;
+
+	/**
+	 * The number of nodes searched between checks of the clock
+	 */
+	private static final int CLOCK_CHECK_INTERVAL = 2048;
+
+	/**
+	 * The transposition table, which may be shared with other searches
+	 */
+	private final TranspositionTable table;
+
+	/**
+	 * A move buffer and a move ordering score buffer for each ply
+	 */
+	private final int[][] moveBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+	private final int[][] orderBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+	/**
+	 * Two quiet moves per ply that recently caused a beta cutoff
+	 */
+	private final int[][] killers = new int[MAX_PLY][2];
+
+	/**
+	 * How often each quiet move caused a beta cutoff, indexed by [encoded piece][target square]
+	 */
+	private final int[][] history = new int[12][64];
+
+	/**
+	 * The principal variation found below each ply, and its length
+	 */
+	private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+	private final int[] pvLength = new int[MAX_PLY];
+
+	/**
+	 * Where to report the progress of the search, or null to search silently
+	 */
+	private PrintStream output;
+
+	/**
+	 * The number of nodes searched by the current search
+	 */
+	private long nodes;
+
+	/**
+	 * The time, from {@link System#nanoTime()}, at which the search started and at which it must stop
+	 */
+	private long startTime, deadline;
+
+	/**
+	 * The searches helping this one, whose nodes are included in the reported node count
+	 */
+	private Search[] helpers = new Search[0];
+
+	/**
+	 * Set when the search must stop as soon as possible
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * Whether the search may stop, which it may not before finishing its first iteration
+	 */
+	private boolean canStop;
+
+	/**
+	 * Set once the search has stopped, after which every node returns at once
+	 */
+	private boolean aborted;
+
+	/**
+	 * The principal variation and score of the last completed iteration
+	 */
+	private int[] principalVariation = new int[0];
+	private int score;
+
+	/**
+	 * The depth of the last completed iteration
+	 */
+	private int completedDepth;
+
+	/**
+	 * Create a search
+	 *
+	 * @param table - the transposition table to use
+	 */
+	public Search( TranspositionTable table ) {
+		this.table = table;
+	}
+
+	/**
+	 * Set where to report the progress of the search: a line with the depth, score, nodes, nodes per second, time and
+	 * principal variation after every iteration
+	 *
+	 * @param output - the stream to report to, or null to search silently
+	 */
+	public void setOutput( PrintStream output ) {
+		this.output = output;
+	}
+
+	/**
+	 * Find the best move for the team to move
+	 *
+	 * @param position        - the position to search, which moves are made on and taken back while searching
+	 * @param maxDepth        - the largest depth to search to
+	 * @param timeLimitMillis - the time after which to stop searching, in milliseconds
+	 * @return the best move, or 0 if the team to move has no legal moves
+	 */
+	public int findBestMove( Position position, int maxDepth, long timeLimitMillis ) {
+		table.newSearch();
+		prepare( System.nanoTime() + timeLimitMillis * 1000000L, false );
+		return iterate( position, 1, maxDepth );
+	}
+
+	/**
+	 * Clear the results, killer moves and history scores of the previous search before starting a new one
+	 *
+	 * @param deadline - the time, from {@link System#nanoTime()}, at which to stop searching
+	 * @param isHelper - whether this search only helps another one by filling the transposition table, in which case
+	 *                 it may stop before finishing its first iteration
+	 */
+	void prepare( long deadline, boolean isHelper ) {
+		this.deadline = deadline;
+		startTime = System.nanoTime();
+		stopped = false;
+		canStop = isHelper;
+		aborted = false;
+		nodes = 0;
+		completedDepth = 0;
+		principalVariation = new int[0];
+		score = 0;
+		for ( int[] plyKillers : killers ) {
+			Arrays.fill( plyKillers, 0 );
+		}
+		for ( int[] pieceHistory : history ) {
+			Arrays.fill( pieceHistory, 0 );
+		}
+	}
+
+	/**
+	 * Search a position with iterative deepening until the deadline, the largest depth, a forced mate, or
+	 * {@link #stop()}. The search must have been prepared first
+	 *
+	 * @param position   - the position to search, which moves are made on and taken back while searching
+	 * @param firstDepth - the depth of the first iteration
+	 * @param maxDepth   - the largest depth to search to
+	 * @return the best move, or 0 if the team to move has no legal moves or no iteration was completed
+	 */
+	int iterate( Position position, int firstDepth, int maxDepth ) {
+		for ( int depth = firstDepth; depth <= Math.min( maxDepth, MAX_PLY - 1 ); depth++ ) {
+			int iterationScore = negamax( position, depth, -INFINITY, INFINITY, 0 );
+			if ( aborted ) {
+				break;
+			}
+
+			canStop = true;
+			completedDepth = depth;
+			score = iterationScore;
+			principalVariation = extendPrincipalVariation( position, Arrays.copyOf( pvTable[0], pvLength[0] ), depth );
+			report();
+			if ( principalVariation.length == 0 || Math.abs( score ) >= MATE_BOUND ) {
+				// No legal moves, or a forced mate has been found
+				break;
+			}
+		}
+
+		return principalVariation.length == 0 ? 0 : principalVariation[0];
+	}
+
+	/**
+	 * Stop the search as soon as possible. The best move of the last completed iteration is returned
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Get the number of nodes searched by the last search
+	 *
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Get the number of nodes searched by the last search and the searches helping it. The counts of the helpers are
+	 * read while they run, so they may be slightly behind
+	 *
+	 * @return the number of nodes
+	 */
+	public long getTotalNodes() {
+		long totalNodes = nodes;
+		for ( Search helper : helpers ) {
+			totalNodes += helper.nodes;
+		}
+		return totalNodes;
+	}
+
+	/**
+	 * Set the searches helping this one, so that their nodes are included in the reports
+	 *
+	 * @param helpers - the helping searches
+	 */
+	void setHelpers( Search[] helpers ) {
+		this.helpers = helpers;
+	}
+
+	/**
+	 * Get the depth of the last completed iteration of the last search
+	 *
+	 * @return the depth
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * Get the score of the last search, from the point of view of the team to move
+	 *
+	 * @return the score in centipawns, or {@link #MATE} minus the plies to mate
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Get the principal variation of the last search: the best move and the expected replies
+	 *
+	 * @return the encoded moves
+	 */
+	public int[] getPrincipalVariation() {
+		return principalVariation.clone();
+	}
+
+	/**
+	 * Search a position with alpha-beta pruning
+	 *
+	 * @param position - the position to search
+	 * @param depth    - the remaining depth
+	 * @param alpha    - the score the team to move is already guaranteed
+	 * @param beta     - the score the other team is already guaranteed
+	 * @param ply      - the number of moves from the root
+	 * @return the score of the position, from the point of view of the team to move
+	 */
+	private int negamax( Position position, int depth, int alpha, int beta, int ply ) {
+		pvLength[ply] = ply;
+		if ( checkStop() ) {
+			return 0;
+		}
+
+		int team = position.getSideToMove();
+		boolean inCheck = MoveGenerator.isInCheck( position, team );
+		if ( inCheck ) {
+			// Look one move further when in check, so the search does not stop in the middle of a forcing line
+			depth++;
+		}
+		if ( depth <= 0 ) {
+			return quiescence( position, alpha, beta, ply );
+		}
+
+		nodes++;
+		if ( ply >= MAX_PLY - 1 ) {
+			return Evaluation.evaluate( position );
+		}
+
+		long hash = position.getHash();
+		long entry = table.probe( hash );
+		int tableMove = 0;
+		if ( entry != 0 ) {
+			tableMove = TranspositionTable.move( entry );
+			if ( ply > 0 && TranspositionTable.depth( entry ) >= depth ) {
+				int tableScore = fromTable( TranspositionTable.score( entry ), ply );
+				int bound = TranspositionTable.bound( entry );
+				if ( bound == TranspositionTable.EXACT
+						|| ( bound == TranspositionTable.LOWER && tableScore >= beta )
+						|| ( bound == TranspositionTable.UPPER && tableScore <= alpha ) ) {
+					return tableScore;
+				}
+			}
+		}
+
+		int[] moves = moveBuffers[ply];
+		int[] order = orderBuffers[ply];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		if ( numMoves == 0 ) {
+			return inCheck ? -MATE + ply : 0;
+		}
+		orderMoves( position, moves, order, numMoves, tableMove, ply );
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = 0;
+		for ( int i = 0; i < numMoves; i++ ) {
+			int move = pickMove( moves, order, i, numMoves );
+			position.makeMove( move );
+			int moveScore = -negamax( position, depth - 1, -beta, -alpha, ply + 1 );
+			position.unmakeMove( move );
+			if ( aborted ) {
+				return 0;
+			}
+
+			if ( moveScore > bestScore ) {
+				bestScore = moveScore;
+				bestMove = move;
+				if ( moveScore > alpha ) {
+					alpha = moveScore;
+					updatePrincipalVariation( move, ply );
+					if ( alpha >= beta ) {
+						if ( isQuiet( position, move ) ) {
+							rememberCutoff( position, move, depth, ply );
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		int bound = bestScore >= beta ? TranspositionTable.LOWER
+				: bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		table.store( hash, bestMove, toTable( bestScore, ply ), depth, bound );
+		return bestScore;
+	}
+
+	/**
+	 * Search only captures and promotions until the position is quiet, so that the evaluation is not taken in the
+	 * middle of an exchange. When in check, every move is searched instead
+	 *
+	 * @param position - the position to search
+	 * @param alpha    - the score the team to move is already guaranteed
+	 * @param beta     - the score the other team is already guaranteed
+	 * @param ply      - the number of moves from the root
+	 * @return the score of the position, from the point of view of the team to move
+	 */
+	private int quiescence( Position position, int alpha, int beta, int ply ) {
+		pvLength[ply] = ply;
+		nodes++;
+		if ( checkStop() ) {
+			return 0;
+		}
+
+		boolean inCheck = MoveGenerator.isInCheck( position, position.getSideToMove() );
+		int bestScore = -INFINITY;
+		if ( !inCheck ) {
+			// The team to move may stand pat instead of capturing
+			bestScore = Evaluation.evaluate( position );
+			if ( bestScore >= beta || ply >= MAX_PLY - 1 ) {
+				return bestScore;
+			}
+			alpha = Math.max( alpha, bestScore );
+		}
+		else if ( ply >= MAX_PLY - 1 ) {
+			return Evaluation.evaluate( position );
+		}
+
+		int[] moves = moveBuffers[ply];
+		int[] order = orderBuffers[ply];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		if ( numMoves == 0 ) {
+			return inCheck ? -MATE + ply : 0;
+		}
+		if ( !inCheck ) {
+			numMoves = removeQuietMoves( position, moves, numMoves );
+		}
+		orderMoves( position, moves, order, numMoves, 0, ply );
+
+		for ( int i = 0; i < numMoves; i++ ) {
+			int move = pickMove( moves, order, i, numMoves );
+			position.makeMove( move );
+			int moveScore = -quiescence( position, -beta, -alpha, ply + 1 );
+			position.unmakeMove( move );
+			if ( aborted ) {
+				return 0;
+			}
+
+			if ( moveScore > bestScore ) {
+				bestScore = moveScore;
+				if ( moveScore > alpha ) {
+					alpha = moveScore;
+					updatePrincipalVariation( move, ply );
+					if ( alpha >= beta ) {
+						break;
+					}
+				}
+			}
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Determine if the search must stop, checking the clock every {@link #CLOCK_CHECK_INTERVAL} nodes
+	 *
+	 * @return whether the search must stop
+	 */
+	private boolean checkStop() {
+		if ( canStop && ( nodes & ( CLOCK_CHECK_INTERVAL - 1 ) ) == 0 && System.nanoTime() >= deadline ) {
+			stopped = true;
+		}
+		aborted = canStop && stopped;
+		return aborted;
+	}
+
+	/**
+	 * Give every move a move ordering score
+	 *
+	 * @param position  - the position the moves are played from
+	 * @param moves     - the moves
+	 * @param order     - the buffer to write the scores to
+	 * @param numMoves  - the number of moves
+	 * @param tableMove - the best move from the transposition table, or 0 if none
+	 * @param ply       - the number of moves from the root
+	 */
+	private void orderMoves( Position position, int[] moves, int[] order, int numMoves, int tableMove, int ply ) {
+		for ( int i = 0; i < numMoves; i++ ) {
+			int move = moves[i];
+			int from = Move.from( move );
+			int to = Move.to( move );
+			int victim = position.getPiece( to );
+			if ( move == tableMove ) {
+				order[i] = TABLE_MOVE_SCORE;
+			}
+			else if ( victim != Position.EMPTY || Move.kind( move ) == Move.EN_PASSANT ) {
+				int victimType = victim == Position.EMPTY ? Position.PAWN : victim % 6;
+				order[i] = CAPTURE_SCORE + victimType * 8 - position.getPiece( from ) % 6 + Move.promotion( move );
+			}
+			else if ( Move.promotion( move ) != 0 ) {
+				order[i] = PROMOTION_SCORE + Move.promotion( move );
+			}
+			else if ( move == killers[ply][0] ) {
+				order[i] = FIRST_KILLER_SCORE;
+			}
+			else if ( move == killers[ply][1] ) {
+				order[i] = SECOND_KILLER_SCORE;
+			}
+			else {
+				order[i] = history[position.getPiece( from )][to];
+			}
+		}
+	}
+
+	/**
+	 * Swap the move with the highest ordering score among the moves not tried yet to the front of them
+	 *
+	 * @param moves    - the moves
+	 * @param order    - the move ordering scores
+	 * @param index    - the index of the first move not tried yet
+	 * @param numMoves - the number of moves
+	 * @return the move to try next
+	 */
+	private static int pickMove( int[] moves, int[] order, int index, int numMoves ) {
+		int best = index;
+		for ( int i = index + 1; i < numMoves; i++ ) {
+			if ( order[i] > order[best] ) {
+				best = i;
+			}
+		}
+
+		int move = moves[best];
+		moves[best] = moves[index];
+		moves[index] = move;
+		int score = order[best];
+		order[best] = order[index];
+		order[index] = score;
+		return move;
+	}
+
+	/**
+	 * Remove the moves that neither capture nor promote
+	 *
+	 * @param position - the position the moves are played from
+	 * @param moves    - the moves, compacted in place
+	 * @param numMoves - the number of moves
+	 * @return the number of moves left
+	 */
+	private static int removeQuietMoves( Position position, int[] moves, int numMoves ) {
+		int numLeft = 0;
+		for ( int i = 0; i < numMoves; i++ ) {
+			if ( !isQuiet( position, moves[i] ) ) {
+				moves[numLeft++] = moves[i];
+			}
+		}
+		return numLeft;
+	}
+
+	/**
+	 * Determine if a move neither captures nor promotes
+	 *
+	 * @param position - the position the move is played from
+	 * @param move     - the move
+	 * @return whether the move is quiet
+	 */
+	private static boolean isQuiet( Position position, int move ) {
+		return position.getPiece( Move.to( move ) ) == Position.EMPTY && Move.kind( move ) != Move.EN_PASSANT
+				&& Move.promotion( move ) == 0;
+	}
+
+	/**
+	 * Remember a quiet move that caused a beta cutoff, as a killer move of the ply and in the history scores
+	 *
+	 * @param position - the position the move was played from
+	 * @param move     - the move
+	 * @param depth    - the remaining depth the move was searched at
+	 * @param ply      - the number of moves from the root
+	 */
+	private void rememberCutoff( Position position, int move, int depth, int ply ) {
+		if ( killers[ply][0] != move ) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+
+		int[] pieceHistory = history[position.getPiece( Move.from( move ) )];
+		pieceHistory[Move.to( move )] += depth * depth;
+		if ( pieceHistory[Move.to( move )] >= MAX_HISTORY ) {
+			for ( int[] otherHistory : history ) {
+				for ( int square = 0; square < 64; square++ ) {
+					otherHistory[square] /= 2;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set the principal variation of a ply to its best move followed by the principal variation of the next ply
+	 *
+	 * @param move - the best move of the ply
+	 * @param ply  - the number of moves from the root
+	 */
+	private void updatePrincipalVariation( int move, int ply ) {
+		pvTable[ply][ply] = move;
+		for ( int i = ply + 1; i < pvLength[ply + 1]; i++ ) {
+			pvTable[ply][i] = pvTable[ply + 1][i];
+		}
+		pvLength[ply] = Math.max( pvLength[ply + 1], ply + 1 );
+	}
+
+	/**
+	 * Extend a principal variation that was cut short by a transposition table hit, by following the best moves stored
+	 * in the table
+	 *
+	 * @param position  - the root position
+	 * @param variation - the principal variation from the root
+	 * @param depth     - the depth of the iteration, which the variation is not extended beyond
+	 * @return the extended principal variation
+	 */
+	private int[] extendPrincipalVariation( Position position, int[] variation, int depth ) {
+		if ( variation.length == 0 || variation.length >= depth ) {
+			return variation;
+		}
+
+		Position current = new Position( position );
+		for ( int move : variation ) {
+			current.makeMove( move );
+		}
+
+		int[] moves = moveBuffers[0];
+		int length = variation.length;
+		int[] extended = Arrays.copyOf( variation, depth );
+		while ( length < depth ) {
+			long entry = table.probe( current.getHash() );
+			int move = TranspositionTable.move( entry );
+			// The entry may belong to another position with the same slot and hash, so only follow legal moves
+			int numMoves = entry == 0 ? 0 : MoveGenerator.generateLegalMoves( current, moves );
+			boolean isLegal = false;
+			for ( int i = 0; i < numMoves && !isLegal; i++ ) {
+				isLegal = moves[i] == move;
+			}
+			if ( !isLegal ) {
+				break;
+			}
+
+			extended[length++] = move;
+			current.makeMove( move );
+		}
+		return Arrays.copyOf( extended, length );
+	}
+
+	/**
+	 * Convert a mate score relative to the root into one relative to the position, for the transposition table
+	 *
+	 * @param score - the score relative to the root
+	 * @param ply   - the number of moves from the root to the position
+	 * @return the score relative to the position
+	 */
+	private static int toTable( int score, int ply ) {
+		if ( score >= MATE_BOUND ) {
+			return score + ply;
+		}
+		if ( score <= -MATE_BOUND ) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	/**
+	 * Convert a mate score from the transposition table, relative to the position, into one relative to the root
+	 *
+	 * @param score - the score relative to the position
+	 * @param ply   - the number of moves from the root to the position
+	 * @return the score relative to the root
+	 */
+	private static int fromTable( int score, int ply ) {
+		if ( score >= MATE_BOUND ) {
+			return score - ply;
+		}
+		if ( score <= -MATE_BOUND ) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	/**
+	 * Report the result of the last completed iteration
+	 */
+	private void report() {
+		if ( output == null ) {
+			return;
+		}
+
+		long elapsedMillis = Math.max( 1, ( System.nanoTime() - startTime ) / 1000000 );
+		long totalNodes = getTotalNodes();
+		StringBuilder line = new StringBuilder();
+		line.append( "depth " ).append( completedDepth );
+		line.append( " score " ).append( formatScore( score ) );
+		line.append( " nodes " ).append( totalNodes );
+		line.append( " nps " ).append( totalNodes * 1000 / elapsedMillis );
+		line.append( " time " ).append( elapsedMillis );
+		line.append( " pv" );
+		for ( int move : principalVariation ) {
+			line.append( ' ' ).append( Move.toString( move ) );
+		}
+		output.println( line );
+	}
+
+	/**
+	 * Format a score for reporting
+	 *
+	 * @param score - the score
+	 * @return "cp" followed by the score in centipawns, or "mate" followed by the moves to mate (negative if the team
+	 *         to move is mated)
+	 */
+	static String formatScore( int score ) {
+		if ( score >= MATE_BOUND ) {
+			return "mate " + ( MATE - score + 1 ) / 2;
+		}
+		if ( score <= -MATE_BOUND ) {
+			return "mate -" + ( MATE + score ) / 2;
+		}
+		return "cp " + score;
+	}
+}
@@ -0,0 +1,984 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import chesspieces.Bitboards;
+import chesspieces.Position;
+
+/**
+ * The SyzygyTable class reads one memory-mapped Syzygy file: the win/draw/loss values (".rtbw") or the distances to
+ * zeroing the fifty-move counter (".rtbz") of every position of an ending. Positions are mapped to an index the same
+ * way the files were generated: the squares are mirrored so that the leading piece or Pawn is on the a1-d1-d4 triangle
+ * or on the queen side, and each group of identical pieces is encoded by binomial coefficients. The values are
+ * compressed by recursive pairing and a canonical Huffman code, in blocks that {@link SyzygyTablebases} decompresses
+ * whole and keeps in its cache.
+ *
+ * Squares are numbered from a1 (0) to h8 (63) within this class, as in the files, so the squares of a
+ * {@link Position} are flipped vertically first.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+final class SyzygyTable {
+
+	/**
+	 * The first four bytes of a WDL and a DTZ file, read as a little endian number
+	 */
+	private static final int WDL_MAGIC = 0x5D23E871;
+	private static final int DTZ_MAGIC = 0xA50C66D7;
+
+	/**
+	 * The flags of a table: the DTZ values are for black to move, the DTZ values are remapped, the DTZ values of wins
+	 * and losses are in plies rather than moves, the remapping is 16-bit, and every position has the same value
+	 */
+	private static final int STM = 1;
+	private static final int MAPPED = 2;
+	private static final int WIN_PLIES = 4;
+	private static final int LOSS_PLIES = 8;
+	private static final int WIDE = 16;
+	private static final int SINGLE_VALUE = 128;
+
+	/**
+	 * The value returned by {@link #probe(Position, boolean, int)} when a DTZ table only holds the positions of the
+	 * other team to move
+	 */
+	static final int CHANGE_SIDE = Integer.MIN_VALUE;
+
+	/**
+	 * The index of each Pawn square (a2 to h7) when it is the leading Pawn, highest towards the edges and the lowest
+	 * ranks
+	 */
+	private static final int[] MAP_PAWNS = new int[64];
+
+	/**
+	 * The index of each square below the a1-h8 diagonal
+	 */
+	private static final int[] MAP_B1H1H7 = new int[64];
+
+	/**
+	 * The index of each square of the a1-d1-d4 triangle, the squares of the diagonal coming last
+	 */
+	private static final int[] MAP_A1D1D4 = new int[64];
+
+	/**
+	 * The index of the 462 placements of two Kings, the first on the a1-d1-d4 triangle, indexed by [first King's
+	 * triangle index][second King's square]
+	 */
+	private static final int[][] MAP_KK = new int[10][64];
+
+	/**
+	 * The binomial coefficients: the number of ways to choose k of n squares, indexed by [k][n]
+	 */
+	private static final long[][] BINOMIAL = new long[6][64];
+
+	/**
+	 * The index of the leading Pawns when the first of them is on a square, indexed by [number of leading
+	 * Pawns][square]
+	 */
+	private static final long[][] LEAD_PAWN_INDEX = new long[6][64];
+
+	/**
+	 * The number of placements of the leading Pawns on each file from a to d, indexed by [number of leading
+	 * Pawns][file]
+	 */
+	private static final long[][] LEAD_PAWNS_SIZE = new long[6][4];
+
+	static {
+		int code = 0;
+		for ( int square = 0; square < 64; square++ ) {
+			if ( diagonalOffset( square ) < 0 ) {
+				MAP_B1H1H7[square] = code++;
+			}
+		}
+
+		code = 0;
+		for ( int square = 0; square <= 27; square++ ) {
+			if ( diagonalOffset( square ) < 0 && file( square ) <= 3 ) {
+				MAP_A1D1D4[square] = code++;
+			}
+		}
+		for ( int square = 0; square <= 27; square++ ) {
+			if ( diagonalOffset( square ) == 0 && file( square ) <= 3 ) {
+				MAP_A1D1D4[square] = code++;
+			}
+		}
+
+		// Placements with both Kings on the diagonal come last
+		code = 0;
+		int[] diagonalPlacements = new int[64 * 10];
+		int numDiagonalPlacements = 0;
+		for ( int index = 0; index < 10; index++ ) {
+			for ( int first = 0; first <= 27; first++ ) {
+				if ( MAP_A1D1D4[first] != index || ( index == 0 && first != 1 ) ) {
+					continue;
+				}
+				for ( int second = 0; second < 64; second++ ) {
+					if ( Math.abs( file( first ) - file( second ) ) <= 1
+							&& Math.abs( rank( first ) - rank( second ) ) <= 1 ) {
+						continue;
+					}
+					if ( diagonalOffset( first ) == 0 && diagonalOffset( second ) > 0 ) {
+						continue;
+					}
+					if ( diagonalOffset( first ) == 0 && diagonalOffset( second ) == 0 ) {
+						diagonalPlacements[numDiagonalPlacements++] = index * 64 + second;
+					}
+					else {
+						MAP_KK[index][second] = code++;
+					}
+				}
+			}
+		}
+		for ( int i = 0; i < numDiagonalPlacements; i++ ) {
+			MAP_KK[diagonalPlacements[i] / 64][diagonalPlacements[i] % 64] = code++;
+		}
+
+		BINOMIAL[0][0] = 1;
+		for ( int n = 1; n < 64; n++ ) {
+			for ( int k = 0; k < 6 && k <= n; k++ ) {
+				BINOMIAL[k][n] = ( k > 0 ? BINOMIAL[k - 1][n - 1] : 0 ) + ( k < n ? BINOMIAL[k][n - 1] : 0 );
+			}
+		}
+
+		int availableSquares = 47;
+		for ( int leadPawns = 1; leadPawns <= 5; leadPawns++ ) {
+			for ( int file = 0; file <= 3; file++ ) {
+				long index = 0;
+				for ( int rank = 1; rank <= 6; rank++ ) {
+					int square = rank * 8 + file;
+					if ( leadPawns == 1 ) {
+						MAP_PAWNS[square] = availableSquares--;
+						MAP_PAWNS[square ^ 7] = availableSquares--;
+					}
+					LEAD_PAWN_INDEX[leadPawns][square] = index;
+					index += BINOMIAL[leadPawns - 1][MAP_PAWNS[square]];
+				}
+				LEAD_PAWNS_SIZE[leadPawns][file] = index;
+			}
+		}
+	}
+
+	/**
+	 * The indexing and compression details of one sub-table: one team to move, and one file of the leading Pawn
+	 */
+	private static final class PairsData {
+
+		/**
+		 * The flags of the sub-table
+		 */
+		private int flags;
+
+		/**
+		 * The shortest and longest Huffman codes in bits
+		 */
+		private int minSymbolLength, maxSymbolLength;
+
+		/**
+		 * The number of blocks, the size of every block in bytes, and the number of values between entries of the
+		 * sparse index
+		 */
+		private int numBlocks;
+		private int blockSize;
+		private long span;
+
+		/**
+		 * The offsets in the file of the lowest symbol of each code length, the symbol pairs, the number of values
+		 * of each block, the sparse index into the blocks and the blocks
+		 */
+		private int lowestSymbolOffset, pairsOffset, blockLengthOffset, sparseIndexOffset, dataOffset;
+
+		/**
+		 * The number of entries of the block lengths and of the sparse index
+		 */
+		private int blockLengthSize, sparseIndexSize;
+
+		/**
+		 * The lowest code of each length, left-aligned in 64 bits, indexed by length - the shortest length
+		 */
+		private long[] base;
+
+		/**
+		 * The number of values each symbol expands to, minus one
+		 */
+		private int[] symbolLength;
+
+		/**
+		 * The pieces in the order they are encoded, as 1 to 6 for a white Pawn to King and 9 to 14 for black
+		 */
+		private final int[] pieces = new int[7];
+
+		/**
+		 * The number of pieces of each group, ended by 0, and the factor of each group in the index
+		 */
+		private final int[] groupLength = new int[8];
+		private final long[] groupIndex = new long[8];
+
+		/**
+		 * The offsets in the file of the DTZ value map of wins, losses, cursed wins and blessed losses
+		 */
+		private final int[] mapIndex = new int[4];
+	}
+
+	/**
+	 * The file, and its unique number within the cache of decompressed blocks
+	 */
+	private final Path path;
+	private final int id;
+
+	/**
+	 * Whether the table holds DTZ values rather than WDL values
+	 */
+	private final boolean isDtz;
+
+	/**
+	 * The number of pieces, whether any are Pawns, whether any team has exactly one piece of a type other than King,
+	 * and whether both teams have the same pieces
+	 */
+	private final int pieceCount;
+	private final boolean hasPawns;
+	private final boolean hasUniquePieces;
+	private final boolean isSymmetric;
+
+	/**
+	 * The number of Pawns of the leading team and of the other team
+	 */
+	private final int[] pawnCount = new int[2];
+
+	/**
+	 * The cache that blocks are decompressed into
+	 */
+	private final SyzygyTablebases.BlockCache cache;
+
+	/**
+	 * The file, mapped in little endian order for the headers and in big endian order for the compressed blocks
+	 */
+	private ByteBuffer little, big;
+
+	/**
+	 * The sub-tables, indexed by [team to move][file of the leading Pawn]
+	 */
+	private final PairsData[][] items = new PairsData[2][4];
+
+	/**
+	 * Create a table for a file, which is mapped by {@link #open()}
+	 *
+	 * @param path   - the file
+	 * @param id     - the unique number of the table within the cache
+	 * @param isDtz  - whether the file holds DTZ values
+	 * @param counts - the number of pieces of each type, indexed by [team][type] with the first team of the file name
+	 *               white
+	 * @param cache  - the cache to decompress blocks into
+	 */
+	SyzygyTable( Path path, int id, boolean isDtz, int[][] counts, SyzygyTablebases.BlockCache cache ) {
+		this.path = path;
+		this.id = id;
+		this.isDtz = isDtz;
+		this.cache = cache;
+
+		int pieces = 0;
+		boolean isUnique = false;
+		for ( int team = 0; team < 2; team++ ) {
+			for ( int type = Position.PAWN; type <= Position.KING; type++ ) {
+				pieces += counts[team][type];
+				if ( type != Position.KING && counts[team][type] == 1 ) {
+					isUnique = true;
+				}
+			}
+		}
+		pieceCount = pieces;
+		hasUniquePieces = isUnique;
+		hasPawns = counts[Bitboards.WHITE][Position.PAWN] + counts[Bitboards.BLACK][Position.PAWN] > 0;
+		isSymmetric = Arrays.equals( counts[Bitboards.WHITE], counts[Bitboards.BLACK] );
+
+		// The team with fewer Pawns leads, as that compresses better
+		int whitePawns = counts[Bitboards.WHITE][Position.PAWN];
+		int blackPawns = counts[Bitboards.BLACK][Position.PAWN];
+		boolean isWhiteLeading = blackPawns == 0 || ( whitePawns > 0 && blackPawns >= whitePawns );
+		pawnCount[0] = isWhiteLeading ? whitePawns : blackPawns;
+		pawnCount[1] = isWhiteLeading ? blackPawns : whitePawns;
+	}
+
+	/**
+	 * Map the file and read its headers
+	 *
+	 * @throws IOException if the file cannot be read or is not a table of the expected material
+	 */
+	void open() throws IOException {
+		MappedByteBuffer mapped;
+		try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+			if ( channel.size() > Integer.MAX_VALUE ) {
+				throw new IOException( path + " is too large" );
+			}
+			mapped = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+		}
+		little = mapped.duplicate().order( ByteOrder.LITTLE_ENDIAN );
+		big = mapped.duplicate().order( ByteOrder.BIG_ENDIAN );
+		try {
+			readHeaders();
+		}
+		catch ( IndexOutOfBoundsException e ) {
+			throw new IOException( path + " is truncated" );
+		}
+	}
+
+	/**
+	 * Read the headers of every sub-table
+	 *
+	 * @throws IOException if the file is not a table of the expected material
+	 */
+	private void readHeaders() throws IOException {
+		if ( little.getInt( 0 ) != ( isDtz ? DTZ_MAGIC : WDL_MAGIC ) ) {
+			throw new IOException( path + " is not a Syzygy " + ( isDtz ? "DTZ" : "WDL" ) + " table" );
+		}
+		int flags = little.get( 4 ) & 0xFF;
+		if ( ( ( flags & 2 ) != 0 ) != hasPawns || ( ( flags & 1 ) != 0 ) == isSymmetric ) {
+			throw new IOException( path + " does not match its file name" );
+		}
+
+		int offset = 5;
+		int sides = !isDtz && !isSymmetric ? 2 : 1;
+		int maxFile = hasPawns ? 3 : 0;
+		boolean isPawnsOnBothSides = hasPawns && pawnCount[1] > 0;
+		for ( int file = 0; file <= maxFile; file++ ) {
+			for ( int side = 0; side < sides; side++ ) {
+				items[side][file] = new PairsData();
+			}
+			int first = little.get( offset ) & 0xFF;
+			int second = isPawnsOnBothSides ? little.get( offset + 1 ) & 0xFF : 0xFF;
+			int[][] order = { { first & 0xF, second & 0xF }, { first >>> 4, second >>> 4 } };
+			offset += isPawnsOnBothSides ? 2 : 1;
+
+			for ( int k = 0; k < pieceCount; k++, offset++ ) {
+				int pieces = little.get( offset ) & 0xFF;
+				for ( int side = 0; side < sides; side++ ) {
+					items[side][file].pieces[k] = side == 0 ? pieces & 0xF : pieces >>> 4;
+				}
+			}
+			for ( int side = 0; side < sides; side++ ) {
+				setGroups( items[side][file], order[side], file );
+			}
+		}
+		offset += offset & 1;
+
+		for ( int file = 0; file <= maxFile; file++ ) {
+			for ( int side = 0; side < sides; side++ ) {
+				offset = setSizes( items[side][file], offset );
+			}
+		}
+
+		if ( isDtz ) {
+			offset = setDtzMap( offset, maxFile );
+		}
+
+		for ( int file = 0; file <= maxFile; file++ ) {
+			for ( int side = 0; side < sides; side++ ) {
+				items[side][file].sparseIndexOffset = offset;
+				offset += items[side][file].sparseIndexSize * 6;
+			}
+		}
+		for ( int file = 0; file <= maxFile; file++ ) {
+			for ( int side = 0; side < sides; side++ ) {
+				items[side][file].blockLengthOffset = offset;
+				offset += items[side][file].blockLengthSize * 2;
+			}
+		}
+		for ( int file = 0; file <= maxFile; file++ ) {
+			for ( int side = 0; side < sides; side++ ) {
+				// Every sub-table's blocks start on a 64-byte boundary
+				offset = ( offset + 0x3F ) & ~0x3F;
+				items[side][file].dataOffset = offset;
+				offset += items[side][file].numBlocks * items[side][file].blockSize;
+			}
+		}
+		if ( offset > little.capacity() ) {
+			throw new IOException( path + " is truncated" );
+		}
+	}
+
+	/**
+	 * Work out the groups of pieces that are encoded together and the factor of each group in the index. The first
+	 * group is the leading Pawns, or three unique pieces, or the two Kings, and every other group is the pieces of one
+	 * type and team
+	 *
+	 * @param data  - the sub-table, whose pieces are set
+	 * @param order - the place of the leading group and of the other team's Pawns in the index
+	 * @param file  - the file of the leading Pawn
+	 */
+	private void setGroups( PairsData data, int[] order, int file ) {
+		int n = 0;
+		int firstLength = hasPawns ? 0 : hasUniquePieces ? 3 : 2;
+		data.groupLength[n] = 1;
+		for ( int i = 1; i < pieceCount; i++ ) {
+			if ( --firstLength > 0 || data.pieces[i] == data.pieces[i - 1] ) {
+				data.groupLength[n]++;
+			}
+			else {
+				data.groupLength[++n] = 1;
+			}
+		}
+		data.groupLength[++n] = 0;
+
+		boolean isPawnsOnBothSides = hasPawns && pawnCount[1] > 0;
+		int next = isPawnsOnBothSides ? 2 : 1;
+		int freeSquares = 64 - data.groupLength[0] - ( isPawnsOnBothSides ? data.groupLength[1] : 0 );
+		long index = 1;
+		for ( int k = 0; next < n || k == order[0] || k == order[1]; k++ ) {
+			if ( k == order[0] ) {
+				data.groupIndex[0] = index;
+				index *= hasPawns ? LEAD_PAWNS_SIZE[data.groupLength[0]][file] : hasUniquePieces ? 31332 : 462;
+			}
+			else if ( k == order[1] ) {
+				data.groupIndex[1] = index;
+				index *= BINOMIAL[data.groupLength[1]][48 - data.groupLength[0]];
+			}
+			else {
+				data.groupIndex[next] = index;
+				index *= BINOMIAL[data.groupLength[next]][freeSquares];
+				freeSquares -= data.groupLength[next++];
+			}
+		}
+		data.groupIndex[n] = index;
+	}
+
+	/**
+	 * Read the block sizes and the Huffman code of a sub-table
+	 *
+	 * @param data   - the sub-table
+	 * @param offset - the offset of its header
+	 * @return the offset after the header
+	 */
+	private int setSizes( PairsData data, int offset ) {
+		data.flags = little.get( offset++ ) & 0xFF;
+		if ( ( data.flags & SINGLE_VALUE ) != 0 ) {
+			// The single value is stored in place of the shortest code length
+			data.minSymbolLength = little.get( offset++ ) & 0xFF;
+			return offset;
+		}
+
+		int groups = 0;
+		while ( data.groupLength[groups] != 0 ) {
+			groups++;
+		}
+		long tableSize = data.groupIndex[groups];
+
+		data.blockSize = 1 << ( little.get( offset++ ) & 0xFF );
+		data.span = 1L << ( little.get( offset++ ) & 0xFF );
+		data.sparseIndexSize = (int) ( ( tableSize + data.span - 1 ) / data.span );
+		int padding = little.get( offset++ ) & 0xFF;
+		data.numBlocks = little.getInt( offset );
+		offset += 4;
+		data.blockLengthSize = data.numBlocks + padding;
+		data.maxSymbolLength = little.get( offset++ ) & 0xFF;
+		data.minSymbolLength = little.get( offset++ ) & 0xFF;
+		data.lowestSymbolOffset = offset;
+
+		// Longer codes have lower values, so the lowest code of each length, left-aligned, decreases with the length
+		int lengths = data.maxSymbolLength - data.minSymbolLength + 1;
+		data.base = new long[lengths];
+		for ( int i = lengths - 2; i >= 0; i-- ) {
+			data.base[i] = ( data.base[i + 1] + lowestSymbol( data, i ) - lowestSymbol( data, i + 1 ) ) / 2;
+		}
+		for ( int i = 0; i < lengths; i++ ) {
+			data.base[i] <<= 64 - i - data.minSymbolLength;
+		}
+		offset += lengths * 2;
+
+		int numSymbols = little.getShort( offset ) & 0xFFFF;
+		offset += 2;
+		data.pairsOffset = offset;
+		data.symbolLength = new int[numSymbols];
+		boolean[] isVisited = new boolean[numSymbols];
+		for ( int symbol = 0; symbol < numSymbols; symbol++ ) {
+			if ( !isVisited[symbol] ) {
+				data.symbolLength[symbol] = setSymbolLength( data, symbol, isVisited );
+			}
+		}
+		return offset + numSymbols * 3 + ( numSymbols & 1 );
+	}
+
+	/**
+	 * Work out the number of values a symbol expands to, and those of the symbols it is made of
+	 *
+	 * @param data      - the sub-table
+	 * @param symbol    - the symbol
+	 * @param isVisited - which symbols are worked out already
+	 * @return the number of values of the symbol minus one
+	 */
+	private int setSymbolLength( PairsData data, int symbol, boolean[] isVisited ) {
+		isVisited[symbol] = true;
+		int right = rightSymbol( data, symbol );
+		if ( right == 0xFFF ) {
+			return 0;
+		}
+		int left = leftSymbol( data, symbol );
+		if ( !isVisited[left] ) {
+			data.symbolLength[left] = setSymbolLength( data, left, isVisited );
+		}
+		if ( !isVisited[right] ) {
+			data.symbolLength[right] = setSymbolLength( data, right, isVisited );
+		}
+		return data.symbolLength[left] + data.symbolLength[right] + 1;
+	}
+
+	/**
+	 * Read the maps from the stored DTZ values to the real ones, which are kept per outcome and file
+	 *
+	 * @param offset  - the offset of the maps
+	 * @param maxFile - the last file of the leading Pawn
+	 * @return the offset after the maps
+	 */
+	private int setDtzMap( int offset, int maxFile ) {
+		for ( int file = 0; file <= maxFile; file++ ) {
+			PairsData data = items[0][file];
+			if ( ( data.flags & MAPPED ) == 0 ) {
+				continue;
+			}
+			if ( ( data.flags & WIDE ) != 0 ) {
+				offset += offset & 1;
+				for ( int i = 0; i < 4; i++ ) {
+					data.mapIndex[i] = offset + 2;
+					offset += 2 * ( little.getShort( offset ) & 0xFFFF ) + 2;
+				}
+			}
+			else {
+				for ( int i = 0; i < 4; i++ ) {
+					data.mapIndex[i] = offset + 1;
+					offset += ( little.get( offset ) & 0xFF ) + 1;
+				}
+			}
+		}
+		return offset + ( offset & 1 );
+	}
+
+	/**
+	 * Get the number of pieces of the table
+	 *
+	 * @return the number of pieces, Kings included
+	 */
+	int getPieceCount() {
+		return pieceCount;
+	}
+
+	/**
+	 * Look up the value of a position
+	 *
+	 * @param position  - the position, with the material of the table
+	 * @param isFlipped - whether the colors are swapped, i.e. black has the stronger pieces of the file name
+	 * @param wdl       - the WDL value of the position for DTZ tables, as a {@link SyzygyTablebases} constant
+	 * @return the WDL value, the DTZ value in plies, or {@link #CHANGE_SIDE} if a DTZ table only holds the positions
+	 *         of the other team to move
+	 */
+	int probe( Position position, boolean isFlipped, int wdl ) {
+		// Only the positions of white to move are stored when both teams have the same pieces
+		boolean isSymmetricBlackToMove = isSymmetric && position.getSideToMove() == Bitboards.BLACK;
+		boolean isColorFlipped = isSymmetricBlackToMove || isFlipped;
+		int flipColor = isColorFlipped ? 8 : 0;
+		// Our squares start from a8 and the file's from a1, so the squares are flipped unless the colors are
+		int flipSquares = isColorFlipped ? 0 : 56;
+		int sideToMove = ( isColorFlipped ? 1 : 0 ) ^ position.getSideToMove();
+
+		int[] squares = new int[7];
+		int[] pieces = new int[7];
+		int size = 0;
+		int leadPawnCount = 0;
+		long leadPawns = 0;
+		int tableFile = 0;
+
+		if ( hasPawns ) {
+			// The Pawns of the team that leads come first, and the one most towards the edges and the lowest rank
+			// leads
+			int leadColor = ( items[0][0].pieces[0] ^ flipColor ) >>> 3;
+			leadPawns = position.getPieces( leadColor, Position.PAWN );
+			for ( long pawns = leadPawns; pawns != 0; pawns &= pawns - 1 ) {
+				squares[size] = Long.numberOfTrailingZeros( pawns ) ^ flipSquares;
+				pieces[size++] = items[0][0].pieces[0];
+			}
+			leadPawnCount = size;
+			int lead = 0;
+			for ( int i = 1; i < leadPawnCount; i++ ) {
+				if ( MAP_PAWNS[squares[i]] > MAP_PAWNS[squares[lead]] ) {
+					lead = i;
+				}
+			}
+			swap( squares, 0, lead );
+			tableFile = Math.min( file( squares[0] ), 7 - file( squares[0] ) );
+		}
+
+		PairsData data = items[isDtz ? 0 : sideToMove][tableFile];
+		if ( isDtz && ( data.flags & STM ) != sideToMove && ( !isSymmetric || hasPawns ) ) {
+			return CHANGE_SIDE;
+		}
+
+		for ( long rest = position.getOccupancy() ^ leadPawns; rest != 0; rest &= rest - 1 ) {
+			int square = Long.numberOfTrailingZeros( rest );
+			int piece = position.getPiece( square );
+			squares[size] = square ^ flipSquares;
+			pieces[size++] = ( ( piece / 6 ) << 3 | ( piece % 6 + 1 ) ) ^ flipColor;
+		}
+
+		// Put the pieces in the order of the table
+		for ( int i = leadPawnCount; i < size - 1; i++ ) {
+			for ( int j = i + 1; j < size; j++ ) {
+				if ( data.pieces[i] == pieces[j] ) {
+					swap( pieces, i, j );
+					swap( squares, i, j );
+					break;
+				}
+			}
+		}
+
+		// Mirror the board so that the leading piece is on the files a to d
+		if ( file( squares[0] ) > 3 ) {
+			for ( int i = 0; i < size; i++ ) {
+				squares[i] ^= 7;
+			}
+		}
+
+		long index;
+		if ( hasPawns ) {
+			index = LEAD_PAWN_INDEX[leadPawnCount][squares[0]];
+			sortByPawnIndex( squares, 1, leadPawnCount );
+			for ( int i = 1; i < leadPawnCount; i++ ) {
+				index += BINOMIAL[i][MAP_PAWNS[squares[i]]];
+			}
+		}
+		else {
+			index = encodePieces( data, squares, size );
+		}
+
+		index *= data.groupIndex[0];
+		int groupStart = data.groupLength[0];
+		boolean isRemainingPawns = hasPawns && pawnCount[1] > 0;
+		for ( int group = 1; data.groupLength[group] != 0; group++ ) {
+			int groupEnd = groupStart + data.groupLength[group];
+			Arrays.sort( squares, groupStart, groupEnd );
+			long n = 0;
+			for ( int i = groupStart; i < groupEnd; i++ ) {
+				// Skip the squares taken by the earlier groups
+				int adjust = 0;
+				for ( int j = 0; j < groupStart; j++ ) {
+					if ( squares[i] > squares[j] ) {
+						adjust++;
+					}
+				}
+				n += BINOMIAL[i - groupStart + 1][squares[i] - adjust - ( isRemainingPawns ? 8 : 0 )];
+			}
+			isRemainingPawns = false;
+			index += n * data.groupIndex[group];
+			groupStart = groupEnd;
+		}
+
+		return mapValue( data, decompress( data, tableFile, sideToMove, index ), wdl );
+	}
+
+	/**
+	 * Encode the leading group of a table without Pawns, mirroring the board so that the leading piece is on the
+	 * a1-d1-d4 triangle and the first piece off the a1-h8 diagonal is below it
+	 *
+	 * @param data    - the sub-table
+	 * @param squares - the squares of the pieces in the table's order, which are mirrored
+	 * @param size    - the number of pieces
+	 * @return the index of the leading group
+	 */
+	private long encodePieces( PairsData data, int[] squares, int size ) {
+		if ( rank( squares[0] ) > 3 ) {
+			for ( int i = 0; i < size; i++ ) {
+				squares[i] ^= 56;
+			}
+		}
+		for ( int i = 0; i < data.groupLength[0]; i++ ) {
+			if ( diagonalOffset( squares[i] ) == 0 ) {
+				continue;
+			}
+			if ( diagonalOffset( squares[i] ) > 0 ) {
+				for ( int j = i; j < size; j++ ) {
+					squares[j] = ( ( squares[j] >>> 3 ) | ( squares[j] << 3 ) ) & 63;
+				}
+			}
+			break;
+		}
+
+		if ( !hasUniquePieces ) {
+			return MAP_KK[MAP_A1D1D4[squares[0]]][squares[1]];
+		}
+		int adjust1 = squares[1] > squares[0] ? 1 : 0;
+		int adjust2 = ( squares[2] > squares[0] ? 1 : 0 ) + ( squares[2] > squares[1] ? 1 : 0 );
+		if ( diagonalOffset( squares[0] ) != 0 ) {
+			return ( MAP_A1D1D4[squares[0]] * 63L + ( squares[1] - adjust1 ) ) * 62 + squares[2] - adjust2;
+		}
+		if ( diagonalOffset( squares[1] ) != 0 ) {
+			return ( 6 * 63 + rank( squares[0] ) * 28 + MAP_B1H1H7[squares[1]] ) * 62L + squares[2] - adjust2;
+		}
+		if ( diagonalOffset( squares[2] ) != 0 ) {
+			return 6 * 63 * 62 + 4 * 28 * 62 + rank( squares[0] ) * 7 * 28 + ( rank( squares[1] ) - adjust1 ) * 28
+					+ MAP_B1H1H7[squares[2]];
+		}
+		return 6 * 63 * 62 + 4 * 28 * 62 + 4 * 7 * 28 + rank( squares[0] ) * 7 * 6
+				+ ( rank( squares[1] ) - adjust1 ) * 6 + ( rank( squares[2] ) - adjust2 );
+	}
+
+	/**
+	 * Find the value at an index of a sub-table, decompressing its block into the cache if it is not there yet
+	 *
+	 * @param data       - the sub-table
+	 * @param file       - the file of the leading Pawn
+	 * @param sideToMove - the team to move of the sub-table
+	 * @param index      - the index of the position
+	 * @return the stored value
+	 */
+	private int decompress( PairsData data, int file, int sideToMove, long index ) {
+		if ( ( data.flags & SINGLE_VALUE ) != 0 ) {
+			return data.minSymbolLength;
+		}
+
+		// The sparse index holds the block and offset of every span-th value, from which the block of the index is
+		// found by walking the block lengths
+		int k = (int) ( index / data.span );
+		int block = little.getInt( data.sparseIndexOffset + 6 * k );
+		int offset = little.getShort( data.sparseIndexOffset + 6 * k + 4 ) & 0xFFFF;
+		offset += (int) ( index % data.span - data.span / 2 );
+		while ( offset < 0 ) {
+			offset += blockLength( data, --block ) + 1;
+		}
+		while ( offset > blockLength( data, block ) ) {
+			offset -= blockLength( data, block++ ) + 1;
+		}
+
+		long key = (long) id << 35 | (long) ( sideToMove * 4 + file ) << 32 | ( block & 0xFFFFFFFFL );
+		short[] values = cache.get( key );
+		if ( values == null ) {
+			values = decompressBlock( data, block );
+			cache.put( key, values );
+		}
+		return values[offset] & 0xFFFF;
+	}
+
+	/**
+	 * Decompress every value of a block
+	 *
+	 * @param data  - the sub-table
+	 * @param block - the number of the block
+	 * @return the values
+	 */
+	private short[] decompressBlock( PairsData data, int block ) {
+		short[] values = new short[blockLength( data, block ) + 1];
+		int position = data.dataOffset + block * data.blockSize;
+		long buffer = readLong( position );
+		position += 8;
+		int bufferSize = 64;
+		int count = 0;
+		while ( true ) {
+			int length = 0;
+			while ( Long.compareUnsigned( buffer, data.base[length] ) < 0 ) {
+				length++;
+			}
+			int symbol = (int) ( ( buffer - data.base[length] ) >>> ( 64 - length - data.minSymbolLength ) );
+			symbol += lowestSymbol( data, length );
+			count = expand( data, symbol, values, count );
+			if ( count >= values.length ) {
+				return values;
+			}
+
+			length += data.minSymbolLength;
+			buffer <<= length;
+			bufferSize -= length;
+			if ( bufferSize <= 32 ) {
+				bufferSize += 32;
+				buffer |= ( readInt( position ) & 0xFFFFFFFFL ) << ( 64 - bufferSize );
+				position += 4;
+			}
+		}
+	}
+
+	/**
+	 * Write the values a symbol expands to
+	 *
+	 * @param data   - the sub-table
+	 * @param symbol - the symbol
+	 * @param values - the values of the block
+	 * @param count  - the number of values written so far
+	 * @return the number of values written after the symbol's
+	 */
+	private int expand( PairsData data, int symbol, short[] values, int count ) {
+		if ( count >= values.length ) {
+			return count;
+		}
+		if ( data.symbolLength[symbol] == 0 ) {
+			values[count] = (short) leftSymbol( data, symbol );
+			return count + 1;
+		}
+		count = expand( data, leftSymbol( data, symbol ), values, count );
+		return expand( data, rightSymbol( data, symbol ), values, count );
+	}
+
+	/**
+	 * Turn a stored value into a WDL value, or a DTZ value in plies
+	 *
+	 * @param data  - the sub-table
+	 * @param value - the stored value
+	 * @param wdl   - the WDL value of the position, for DTZ tables
+	 * @return the value
+	 */
+	private int mapValue( PairsData data, int value, int wdl ) {
+		if ( !isDtz ) {
+			return value - 2;
+		}
+
+		int flags = data.flags;
+		if ( ( flags & MAPPED ) != 0 ) {
+			// The maps are in the order win, loss, cursed win, blessed loss
+			int map = data.mapIndex[wdl == SyzygyTablebases.WIN ? 0
+					: wdl == SyzygyTablebases.LOSS ? 1 : wdl == SyzygyTablebases.CURSED_WIN ? 2 : 3];
+			value = ( flags & WIDE ) != 0 ? little.getShort( map + 2 * value ) & 0xFFFF
+					: little.get( map + value ) & 0xFF;
+		}
+		if ( ( wdl == SyzygyTablebases.WIN && ( flags & WIN_PLIES ) == 0 )
+				|| ( wdl == SyzygyTablebases.LOSS && ( flags & LOSS_PLIES ) == 0 ) || wdl == SyzygyTablebases.CURSED_WIN
+				|| wdl == SyzygyTablebases.BLESSED_LOSS ) {
+			value *= 2;
+		}
+		return value + 1;
+	}
+
+	/**
+	 * Get the number of values of a block minus one
+	 *
+	 * @param data  - the sub-table
+	 * @param block - the number of the block
+	 * @return the number of values minus one
+	 */
+	private int blockLength( PairsData data, int block ) {
+		return little.getShort( data.blockLengthOffset + 2 * block ) & 0xFFFF;
+	}
+
+	/**
+	 * Get the lowest symbol of a code length
+	 *
+	 * @param data   - the sub-table
+	 * @param length - the code length minus the shortest length
+	 * @return the symbol
+	 */
+	private int lowestSymbol( PairsData data, int length ) {
+		return little.getShort( data.lowestSymbolOffset + 2 * length ) & 0xFFFF;
+	}
+
+	/**
+	 * Get the first symbol a symbol is made of, or the value of a symbol that is not a pair
+	 *
+	 * @param data   - the sub-table
+	 * @param symbol - the symbol
+	 * @return the left symbol
+	 */
+	private int leftSymbol( PairsData data, int symbol ) {
+		int offset = data.pairsOffset + 3 * symbol;
+		return ( ( little.get( offset + 1 ) & 0xF ) << 8 ) | ( little.get( offset ) & 0xFF );
+	}
+
+	/**
+	 * Get the second symbol a symbol is made of
+	 *
+	 * @param data   - the sub-table
+	 * @param symbol - the symbol
+	 * @return the right symbol, or 0xFFF if the symbol is not a pair
+	 */
+	private int rightSymbol( PairsData data, int symbol ) {
+		int offset = data.pairsOffset + 3 * symbol;
+		return ( ( little.get( offset + 2 ) & 0xFF ) << 4 ) | ( ( little.get( offset + 1 ) & 0xFF ) >>> 4 );
+	}
+
+	/**
+	 * Read 8 big endian bytes of the compressed data, which may run past the end of the file in the last block
+	 *
+	 * @param offset - the offset
+	 * @return the bytes
+	 */
+	private long readLong( int offset ) {
+		return ( (long) readInt( offset ) << 32 ) | ( readInt( offset + 4 ) & 0xFFFFFFFFL );
+	}
+
+	/**
+	 * Read 4 big endian bytes of the compressed data, reading zeros past the end of the file
+	 *
+	 * @param offset - the offset
+	 * @return the bytes
+	 */
+	private int readInt( int offset ) {
+		if ( offset + 4 <= big.capacity() ) {
+			return big.getInt( offset );
+		}
+		int value = 0;
+		for ( int i = 0; i < 4; i++ ) {
+			value = ( value << 8 ) | ( offset + i < big.capacity() ? big.get( offset + i ) & 0xFF : 0 );
+		}
+		return value;
+	}
+
+	/**
+	 * Sort Pawn squares by their index as a leading Pawn, keeping the order of equal ones
+	 *
+	 * @param squares - the squares
+	 * @param from    - the first square to sort
+	 * @param to      - the square after the last one to sort
+	 */
+	private static void sortByPawnIndex( int[] squares, int from, int to ) {
+		for ( int i = from + 1; i < to; i++ ) {
+			int square = squares[i];
+			int j = i;
+			for ( ; j > from && MAP_PAWNS[squares[j - 1]] > MAP_PAWNS[square]; j-- ) {
+				squares[j] = squares[j - 1];
+			}
+			squares[j] = square;
+		}
+	}
+
+	/**
+	 * Swap two elements of an array
+	 *
+	 * @param array - the array
+	 * @param i     - the first index
+	 * @param j     - the second index
+	 */
+	private static void swap( int[] array, int i, int j ) {
+		int temp = array[i];
+		array[i] = array[j];
+		array[j] = temp;
+	}
+
+	/**
+	 * Get the file of a square numbered from a1
+	 *
+	 * @param square - the square
+	 * @return the file, 0 for a
+	 */
+	private static int file( int square ) {
+		return square & 7;
+	}
+
+	/**
+	 * Get the rank of a square numbered from a1
+	 *
+	 * @param square - the square
+	 * @return the rank, 0 for the first rank
+	 */
+	private static int rank( int square ) {
+		return square >>> 3;
+	}
+
+	/**
+	 * Get how far a square is above the a1-h8 diagonal
+	 *
+	 * @param square - the square numbered from a1
+	 * @return the rank minus the file: positive above the diagonal, 0 on it and negative below it
+	 */
+	private static int diagonalOffset( int square ) {
+		return rank( square ) - file( square );
+	}
+}
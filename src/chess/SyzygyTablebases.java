@@ -0,0 +1,713 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import chesspieces.Bitboards;
+import chesspieces.Board;
+import chesspieces.Fen;
+import chesspieces.Move;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * The SyzygyTablebases class probes the standard Syzygy endgame tablebases of a directory: the win/draw/loss files
+ * (".rtbw") and the distance-to-zero files (".rtbz") named after their material, e.g. "KQvKR.rtbw". Files are
+ * memory-mapped when they are first probed, and the blocks of values are decompressed whole into a small LRU cache
+ * shared by every file, so that probing the positions of a game over and over costs a lookup in the cache.
+ *
+ * Unlike {@link Tablebases}, the files take the fifty-move rule into account: a win that takes more than fifty moves
+ * without a capture or Pawn move is a "cursed win", and the matching loss a "blessed loss". The values assume that
+ * the fifty-move counter is 0. Positions with castling rights are not in the files.
+ *
+ * Usage: java chess.SyzygyTablebases directory [FEN]
+ * <br>
+ * Lists the endings of the directory, and prints the outcome and the distance to zeroing of a position.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class SyzygyTablebases {
+
+	/**
+	 * The outcomes of a position for the team to move: a loss, a loss that is a draw by the fifty-move rule, a draw, a
+	 * win that is a draw by the fifty-move rule, and a win
+	 */
+	public static final int LOSS = -2;
+	public static final int BLESSED_LOSS = -1;
+	public static final int DRAW = 0;
+	public static final int CURSED_WIN = 1;
+	public static final int WIN = 2;
+
+	/**
+	 * The value of a position that is not in the tablebases
+	 */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+
+	/**
+	 * The size of the cache of decompressed blocks by default, in bytes
+	 */
+	public static final long DEFAULT_CACHE_BYTES = 16L << 20;
+
+	/**
+	 * The results of a probe: the value is exact, a table is missing, the value is that of a capture or Pawn move, or
+	 * a DTZ table only holds the other team to move
+	 */
+	private static final int OK = 0;
+	private static final int FAIL = 1;
+	private static final int ZEROING_BEST_MOVE = 2;
+	private static final int CHANGE_SIDE = 3;
+
+	/**
+	 * The letters of the piece types in file names, indexed by piece type
+	 */
+	private static final String PIECE_LETTERS = "PNBRQK";
+
+	/**
+	 * The most pieces of a Syzygy ending, Kings included
+	 */
+	private static final int MAX_PIECES = 7;
+
+	/**
+	 * An LRU cache of decompressed blocks, limited by the size of the values it holds
+	 */
+	static final class BlockCache {
+
+		/**
+		 * The blocks, from the least recently used, by the number of their table, sub-table and block
+		 */
+		private final LinkedHashMap<Long, short[]> blocks = new LinkedHashMap<Long, short[]>( 64, 0.75f, true );
+
+		/**
+		 * The largest and the current size of the values held, in bytes
+		 */
+		private final long capacity;
+		private long size;
+
+		/**
+		 * The number of lookups that found their block and that did not
+		 */
+		private long hits, misses;
+
+		/**
+		 * Create an empty cache
+		 *
+		 * @param capacity - the largest size of the values held, in bytes
+		 */
+		private BlockCache( long capacity ) {
+			this.capacity = capacity;
+		}
+
+		/**
+		 * Look up a block, making it the most recently used
+		 *
+		 * @param key - the number of the block
+		 * @return the values of the block, or null if it is not held
+		 */
+		synchronized short[] get( long key ) {
+			short[] values = blocks.get( key );
+			if ( values == null ) {
+				misses++;
+			}
+			else {
+				hits++;
+			}
+			return values;
+		}
+
+		/**
+		 * Add a block, dropping the least recently used blocks until the values held fit
+		 *
+		 * @param key    - the number of the block
+		 * @param values - the values of the block
+		 */
+		synchronized void put( long key, short[] values ) {
+			short[] old = blocks.put( key, values );
+			size += 2L * values.length - ( old == null ? 0 : 2L * old.length );
+			Iterator<short[]> eldest = blocks.values().iterator();
+			while ( size > capacity && blocks.size() > 1 ) {
+				size -= 2L * eldest.next().length;
+				eldest.remove();
+			}
+		}
+
+		/**
+		 * Drop every block and reset the counts
+		 */
+		private synchronized void clear() {
+			blocks.clear();
+			size = 0;
+			hits = 0;
+			misses = 0;
+		}
+	}
+
+	/**
+	 * The files of one ending, which are opened when first probed
+	 */
+	private static final class Ending {
+
+		/**
+		 * The name of the ending, e.g. "KQvKR"
+		 */
+		private final String name;
+
+		/**
+		 * The material key of the ending with the first team of the name white
+		 */
+		private final long key;
+
+		/**
+		 * The WDL and DTZ tables, which are null if they are missing or cannot be read, and whether each was opened
+		 */
+		private final SyzygyTable[] tables = new SyzygyTable[2];
+		private final boolean[] isOpened = new boolean[2];
+
+		/**
+		 * Create an ending
+		 *
+		 * @param name   - the name of the ending
+		 * @param key    - the material key of the ending with the first team of the name white
+		 * @param tables - the WDL table, and the DTZ table or null if there is no DTZ file
+		 */
+		private Ending( String name, long key, SyzygyTable[] tables ) {
+			this.name = name;
+			this.key = key;
+			this.tables[0] = tables[0];
+			this.tables[1] = tables[1];
+		}
+
+		/**
+		 * Get a table of the ending, mapping its file the first time
+		 *
+		 * @param isDtz - whether to get the DTZ table rather than the WDL table
+		 * @return the table, or null if the file is missing or cannot be read
+		 */
+		private synchronized SyzygyTable getTable( boolean isDtz ) {
+			int kind = isDtz ? 1 : 0;
+			if ( !isOpened[kind] ) {
+				isOpened[kind] = true;
+				if ( tables[kind] != null ) {
+					try {
+						tables[kind].open();
+					}
+					catch ( IOException e ) {
+						System.err.println( "Cannot open the Syzygy table " + name + ": " + e.getMessage() );
+						tables[kind] = null;
+					}
+				}
+			}
+			return tables[kind];
+		}
+	}
+
+	/**
+	 * The endings by their material key, held for both teams as the stronger one
+	 */
+	private final Map<Long, Ending> endings = new HashMap<Long, Ending>();
+
+	/**
+	 * The names of the endings, in the order they were found
+	 */
+	private final List<String> names = new ArrayList<String>();
+
+	/**
+	 * The cache of decompressed blocks
+	 */
+	private final BlockCache cache;
+
+	/**
+	 * The most pieces of the endings held, Kings included
+	 */
+	private int maxPieces;
+
+	/**
+	 * The result of one probe
+	 */
+	private static final class Probe {
+
+		/**
+		 * {@link #OK}, {@link #FAIL}, {@link #ZEROING_BEST_MOVE} or {@link #CHANGE_SIDE}
+		 */
+		private int result;
+	}
+
+	/**
+	 * Create empty tablebases
+	 *
+	 * @param cacheBytes - the size of the cache of decompressed blocks, in bytes
+	 */
+	private SyzygyTablebases( long cacheBytes ) {
+		cache = new BlockCache( cacheBytes );
+	}
+
+	/**
+	 * Find the Syzygy files of a directory. Only the file names are read until a position is probed
+	 *
+	 * @param directory  - the directory
+	 * @param cacheBytes - the size of the cache of decompressed blocks, in bytes
+	 * @return the tablebases
+	 * @throws IOException if the directory cannot be read
+	 */
+	public static SyzygyTablebases load( Path directory, long cacheBytes ) throws IOException {
+		SyzygyTablebases tablebases = new SyzygyTablebases( cacheBytes );
+		List<Path> files = new ArrayList<Path>();
+		try ( DirectoryStream<Path> stream = Files.newDirectoryStream( directory, "*.rtbw" ) ) {
+			for ( Path file : stream ) {
+				files.add( file );
+			}
+		}
+		files.sort( null );
+		for ( Path file : files ) {
+			String fileName = file.getFileName().toString();
+			String name = fileName.substring( 0, fileName.length() - ".rtbw".length() );
+			int[][] counts = countsOf( name );
+			if ( counts == null ) {
+				continue;
+			}
+			Path dtzFile = file.resolveSibling( name + ".rtbz" );
+			int id = tablebases.names.size() * 2;
+			SyzygyTable dtzTable = Files.exists( dtzFile )
+					? new SyzygyTable( dtzFile, id + 1, true, counts, tablebases.cache )
+					: null;
+			SyzygyTable[] tables = { new SyzygyTable( file, id, false, counts, tablebases.cache ), dtzTable };
+			Ending ending = new Ending( name, keyOf( counts[0], counts[1] ), tables );
+			tablebases.endings.put( ending.key, ending );
+			tablebases.endings.put( keyOf( counts[1], counts[0] ), ending );
+			tablebases.names.add( name );
+			tablebases.maxPieces = Math.max( tablebases.maxPieces, tables[0].getPieceCount() );
+		}
+		return tablebases;
+	}
+
+	/**
+	 * Count the pieces of an ending's name
+	 *
+	 * @param name - the name, e.g. "KRPvKR"
+	 * @return the number of pieces of each type, indexed by [team][type] with the first team of the name white, or
+	 *         null if the name is not that of an ending
+	 */
+	static int[][] countsOf( String name ) {
+		String[] teams = name.split( "v", -1 );
+		if ( teams.length != 2 || name.length() - 1 > MAX_PIECES ) {
+			return null;
+		}
+		int[][] counts = new int[2][6];
+		for ( int team = 0; team < 2; team++ ) {
+			if ( !teams[team].startsWith( "K" ) ) {
+				return null;
+			}
+			for ( char letter : teams[team].toCharArray() ) {
+				int type = PIECE_LETTERS.indexOf( letter );
+				if ( type == -1 ) {
+					return null;
+				}
+				counts[team][type]++;
+			}
+			if ( counts[team][Position.KING] != 1 ) {
+				return null;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Get the material key of the pieces of both teams
+	 *
+	 * @param white - the number of white pieces of each type
+	 * @param black - the number of black pieces of each type
+	 * @return the key, with 4 bits per team and piece type
+	 */
+	private static long keyOf( int[] white, int[] black ) {
+		long key = 0;
+		for ( int type = Position.PAWN; type <= Position.KING; type++ ) {
+			key |= (long) white[type] << ( 4 * type ) | (long) black[type] << ( 4 * ( 6 + type ) );
+		}
+		return key;
+	}
+
+	/**
+	 * Get the material key of a position
+	 *
+	 * @param position - the position
+	 * @return the key, as by {@link #keyOf(int[], int[])}
+	 */
+	private static long keyOf( Position position ) {
+		long key = 0;
+		for ( int type = Position.PAWN; type <= Position.KING; type++ ) {
+			key |= (long) position.getPieceCount( Bitboards.WHITE, type ) << ( 4 * type )
+					| (long) position.getPieceCount( Bitboards.BLACK, type ) << ( 4 * ( 6 + type ) );
+		}
+		return key;
+	}
+
+	/**
+	 * Get the names of the endings held
+	 *
+	 * @return the names, e.g. "KQvKR", sorted
+	 */
+	public List<String> getEndings() {
+		return new ArrayList<String>( names );
+	}
+
+	/**
+	 * Get the most pieces of the endings held
+	 *
+	 * @return the number of pieces, Kings included
+	 */
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+	/**
+	 * Get the number of cache lookups that found their block since the cache was last cleared
+	 *
+	 * @return the number of hits
+	 */
+	public long getCacheHits() {
+		synchronized ( cache ) {
+			return cache.hits;
+		}
+	}
+
+	/**
+	 * Get the number of cache lookups that had to decompress their block since the cache was last cleared
+	 *
+	 * @return the number of misses
+	 */
+	public long getCacheMisses() {
+		synchronized ( cache ) {
+			return cache.misses;
+		}
+	}
+
+	/**
+	 * Drop every decompressed block from the cache
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Look up the outcome of a board
+	 *
+	 * @param board - the board
+	 * @return the outcome for the team to move, as by {@link #probeWdl(Position)}
+	 */
+	public int probeWdl( Board board ) {
+		return probeWdl( board.getPosition() );
+	}
+
+	/**
+	 * Look up the outcome of a position
+	 *
+	 * @param position - the position, which is left as it was
+	 * @return the outcome for the team to move, from {@link #LOSS} to {@link #WIN}, or {@link #UNKNOWN} if the
+	 *         position or a position after one of its captures is not in the tablebases
+	 */
+	public int probeWdl( Position position ) {
+		if ( !isHeld( position ) ) {
+			return UNKNOWN;
+		}
+		Probe probe = new Probe();
+		int wdl = search( new Position( position ), false, probe );
+		return probe.result == FAIL ? UNKNOWN : wdl;
+	}
+
+	/**
+	 * Look up the distance to zeroing of a board
+	 *
+	 * @param board - the board
+	 * @return the distance for the team to move, as by {@link #probeDtz(Position)}
+	 */
+	public int probeDtz( Board board ) {
+		return probeDtz( board.getPosition() );
+	}
+
+	/**
+	 * Look up the distance to zeroing of a position: the number of plies until the winning team captures or moves a
+	 * Pawn (or checkmates) while keeping the win, given best play
+	 *
+	 * @param position - the position, which is left as it was
+	 * @return the distance in plies, positive if the team to move wins and negative if it loses, more than 100 plies
+	 *         away from 0 for a cursed win or blessed loss, 0 for a draw, or {@link #UNKNOWN} if a table is missing
+	 */
+	public int probeDtz( Position position ) {
+		if ( !isHeld( position ) ) {
+			return UNKNOWN;
+		}
+		Probe probe = new Probe();
+		int dtz = probeDtz( new Position( position ), probe );
+		return probe.result == FAIL ? UNKNOWN : dtz;
+	}
+
+	/**
+	 * Determine if a position can be in the tablebases
+	 *
+	 * @param position - the position
+	 * @return whether it has no castling rights and few enough pieces
+	 */
+	private boolean isHeld( Position position ) {
+		return position.getCastlingRights() == 0 && Long.bitCount( position.getOccupancy() ) <= maxPieces;
+	}
+
+	/**
+	 * Work out the outcome of a position. A file may hold any value for a position with a winning capture, and a loss
+	 * for a position that a capture draws, as that compresses better, so the captures are searched and the best of
+	 * them and the stored value is the outcome
+	 *
+	 * @param position               - the position
+	 * @param isCheckingZeroingMoves - whether to search Pawn moves too, for DTZ probes
+	 * @param probe                  - the result of the probe
+	 * @return the outcome for the team to move
+	 */
+	private int search( Position position, boolean isCheckingZeroingMoves, Probe probe ) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		int bestValue = LOSS;
+		int numSearched = 0;
+		for ( int i = 0; i < numMoves; i++ ) {
+			boolean isZeroing = isCapture( position, moves[i] )
+					|| ( isCheckingZeroingMoves && isPawnMove( position, moves[i] ) );
+			if ( !isZeroing ) {
+				continue;
+			}
+			numSearched++;
+			position.makeMove( moves[i] );
+			int value = -search( position, false, probe );
+			position.unmakeMove( moves[i] );
+			if ( probe.result == FAIL ) {
+				return DRAW;
+			}
+			if ( value > bestValue ) {
+				bestValue = value;
+				if ( value >= WIN ) {
+					probe.result = ZEROING_BEST_MOVE;
+					return value;
+				}
+			}
+		}
+
+		// When every legal move was searched the stored value is not needed, and may be wrong, e.g. with en passant
+		boolean isEveryMoveSearched = numSearched > 0 && numSearched == numMoves;
+		int value;
+		if ( isEveryMoveSearched ) {
+			value = bestValue;
+		}
+		else {
+			value = probeTable( position, false, DRAW, probe );
+			if ( probe.result == FAIL ) {
+				return DRAW;
+			}
+		}
+		if ( bestValue >= value ) {
+			probe.result = bestValue > DRAW || isEveryMoveSearched ? ZEROING_BEST_MOVE : OK;
+			return bestValue;
+		}
+		probe.result = OK;
+		return value;
+	}
+
+	/**
+	 * Work out the distance to zeroing of a position. A DTZ file only holds one team to move when that compresses
+	 * better, in which case the moves are searched one ply deep
+	 *
+	 * @param position - the position
+	 * @param probe    - the result of the probe
+	 * @return the distance in plies, as by {@link #probeDtz(Position)}
+	 */
+	private int probeDtz( Position position, Probe probe ) {
+		probe.result = OK;
+		int wdl = search( position, true, probe );
+		if ( probe.result == FAIL || wdl == DRAW ) {
+			return 0;
+		}
+		if ( probe.result == ZEROING_BEST_MOVE ) {
+			return dtzBeforeZeroing( wdl );
+		}
+		int dtz = probeTable( position, true, wdl, probe );
+		if ( probe.result == FAIL ) {
+			return 0;
+		}
+		if ( probe.result != CHANGE_SIDE ) {
+			return ( dtz + ( wdl == BLESSED_LOSS || wdl == CURSED_WIN ? 100 : 0 ) ) * Integer.signum( wdl );
+		}
+
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int[] replies = new int[MoveGenerator.MAX_MOVES];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		int minDtz = 0xFFFF;
+		for ( int i = 0; i < numMoves; i++ ) {
+			boolean isZeroing = isCapture( position, moves[i] ) || isPawnMove( position, moves[i] );
+			position.makeMove( moves[i] );
+			// The distance of a zeroing move is that of the move itself, so only the outcome after it is needed
+			dtz = isZeroing ? -dtzBeforeZeroing( search( position, false, probe ) ) : -probeDtz( position, probe );
+			int side = position.getSideToMove();
+			if ( dtz == 1 && position.isAttacked( position.getKingSquare( side ), 1 - side )
+					&& MoveGenerator.generateLegalMoves( position, replies ) == 0 ) {
+				minDtz = 1;
+			}
+			if ( !isZeroing ) {
+				dtz += Integer.signum( dtz );
+			}
+			if ( dtz < minDtz && Integer.signum( dtz ) == Integer.signum( wdl ) ) {
+				minDtz = dtz;
+			}
+			position.unmakeMove( moves[i] );
+			if ( probe.result == FAIL ) {
+				return 0;
+			}
+		}
+		return minDtz == 0xFFFF ? -1 : minDtz;
+	}
+
+	/**
+	 * Look up the stored value of a position in its table
+	 *
+	 * @param position - the position
+	 * @param isDtz    - whether to look in the DTZ table rather than the WDL table
+	 * @param wdl      - the outcome of the position, for the DTZ table
+	 * @param probe    - the result of the probe, set to {@link #FAIL} if the table is missing or to
+	 *                 {@link #CHANGE_SIDE} if it does not hold the team to move
+	 * @return the value
+	 */
+	private int probeTable( Position position, boolean isDtz, int wdl, Probe probe ) {
+		if ( Long.bitCount( position.getOccupancy() ) == 2 ) {
+			// Two Kings
+			return DRAW;
+		}
+		long key = keyOf( position );
+		Ending ending = endings.get( key );
+		SyzygyTable table = ending == null ? null : ending.getTable( isDtz );
+		if ( table == null ) {
+			probe.result = FAIL;
+			return 0;
+		}
+		int value = table.probe( position, key != ending.key, wdl );
+		if ( value == SyzygyTable.CHANGE_SIDE ) {
+			probe.result = CHANGE_SIDE;
+			return 0;
+		}
+		return value;
+	}
+
+	/**
+	 * Get the distance to zeroing of a position whose best move is a capture or Pawn move
+	 *
+	 * @param wdl - the outcome of the position
+	 * @return the distance in plies
+	 */
+	private static int dtzBeforeZeroing( int wdl ) {
+		switch ( wdl ) {
+			case WIN:
+				return 1;
+			case CURSED_WIN:
+				return 101;
+			case BLESSED_LOSS:
+				return -101;
+			case LOSS:
+				return -1;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Determine if a move captures
+	 *
+	 * @param position - the position
+	 * @param move     - the encoded move
+	 * @return whether the move captures, en passant included
+	 */
+	private static boolean isCapture( Position position, int move ) {
+		return position.getPiece( Move.to( move ) ) != Position.EMPTY || Move.kind( move ) == Move.EN_PASSANT;
+	}
+
+	/**
+	 * Determine if a move moves a Pawn
+	 *
+	 * @param position - the position
+	 * @param move     - the encoded move
+	 * @return whether the moved piece is a Pawn
+	 */
+	private static boolean isPawnMove( Position position, int move ) {
+		return position.getPiece( Move.from( move ) ) % 6 == Position.PAWN;
+	}
+
+	/**
+	 * Describe an outcome
+	 *
+	 * @param wdl - the outcome for the team to move
+	 * @return e.g. "wins" or "loses, but draws by the fifty-move rule"
+	 */
+	static String describe( int wdl ) {
+		switch ( wdl ) {
+			case WIN:
+				return "wins";
+			case CURSED_WIN:
+				return "wins, but is held to a draw by the fifty-move rule";
+			case BLESSED_LOSS:
+				return "loses, but draws by the fifty-move rule";
+			case LOSS:
+				return "loses";
+			default:
+				return "draws";
+		}
+	}
+
+	/**
+	 * Look up a position in the Syzygy tablebases of a directory
+	 *
+	 * @param args - the directory, and optionally the FEN of the position
+	 */
+	public static void main( String[] args ) {
+		if ( args.length != 1 && args.length != 2 ) {
+			System.out.println( "Usage: java chess.SyzygyTablebases directory [FEN]" );
+			System.exit( 2 );
+		}
+
+		SyzygyTablebases tablebases = null;
+		try {
+			tablebases = load( Paths.get( args[0] ), DEFAULT_CACHE_BYTES );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot load the tablebases: " + e.getMessage() );
+			System.exit( 1 );
+		}
+		System.out.printf( "%d endings of up to %d pieces: %s%n", tablebases.names.size(), tablebases.maxPieces,
+				String.join( " ", tablebases.names ) );
+		if ( args.length == 1 ) {
+			return;
+		}
+
+		Position position = null;
+		try {
+			position = Fen.toPosition( args[1] );
+		}
+		catch ( IllegalArgumentException e ) {
+			System.out.println( "Cannot set up the position: " + e.getMessage() );
+			System.exit( 2 );
+		}
+		int wdl = tablebases.probeWdl( position );
+		if ( wdl == UNKNOWN ) {
+			System.out.println( "The position is not in the tablebases" );
+			return;
+		}
+		String team = position.getSideToMove() == Bitboards.WHITE ? "White" : "Black";
+		System.out.println( team + " " + describe( wdl ) );
+		int dtz = tablebases.probeDtz( position );
+		if ( dtz != UNKNOWN && dtz != 0 ) {
+			System.out.println( "Plies to zeroing: " + Math.abs( dtz ) );
+		}
+	}
+}
@@ -0,0 +1,461 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chesspieces.Position;
+
+/**
+ * The Tablebase class holds the exact outcome of every position of an ending, as generated by a
+ * {@link TablebaseGenerator}: whether the team to move wins, draws or loses, and in how many plies the game is
+ * checkmated. An ending is named by its material, the white pieces and then the black pieces, Kings first and the
+ * other pieces in the order Q, R, B, N, P: e.g. "KQK", "KBNK" or "KPKP".
+ *
+ * A position is indexed by the team to move and then the square of every piece: the white King, the black King, the
+ * other white pieces and the other black pieces, in the order of the name. Every index holds a value of a fixed number
+ * of bits: 0 for a draw, 1 for an illegal position, or 2 plus the number of plies to checkmate, which is odd if the
+ * team to move checkmates and even if it is checkmated. The values are packed one after another into 64-bit words,
+ * from the lowest bit of each word. A tablebase file is big-endian:
+ * <ul>
+ * <li>Header (24 bytes): the magic number "CHTB", the format version (2 bytes), the number of bits per value (1 byte),
+ * the number of pieces (1 byte), the name of the material in ASCII padded with zeros (8 bytes), the number of values (4
+ * bytes) and 4 reserved bytes</li>
+ * <li>The packed values, followed by an extra word so that a value can always be read from two words</li>
+ * </ul>
+ * Files are mapped into memory and read in place, so probing allocates nothing.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Tablebase {
+
+	/**
+	 * The magic number at the start of every tablebase file, "CHTB" in ASCII
+	 */
+	public static final int MAGIC = 0x43485442;
+
+	/**
+	 * The version of the format
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size of the header, in bytes
+	 */
+	public static final int HEADER_SIZE = 24;
+
+	/**
+	 * The most pieces of an ending, Kings included
+	 */
+	public static final int MAX_PIECES = 4;
+
+	/**
+	 * The values of a draw and of an illegal position; other values are 2 plus the plies to checkmate
+	 */
+	static final int DRAW = 0, ILLEGAL = 1;
+
+	/**
+	 * The letters of the piece types, by piece type index, and the order of the pieces in a name
+	 */
+	private static final String PIECE_LETTERS = "PNBRQK", NAME_ORDER = "KQRBNP";
+
+	/**
+	 * The name of the material
+	 */
+	private final String material;
+
+	/**
+	 * The team index and piece type index of every piece, in the order of the index
+	 */
+	private final int[] pieceTeams, pieceTypes;
+
+	/**
+	 * The key of the material, and the key of the material with the colors swapped
+	 */
+	private final long key, flippedKey;
+
+	/**
+	 * The number of bits of every value
+	 */
+	private final int bits;
+
+	/**
+	 * The packed values, from byte {@link #HEADER_SIZE}
+	 */
+	private final ByteBuffer data;
+
+	/**
+	 * Create a tablebase
+	 *
+	 * @param material - the name of the material
+	 * @param bits     - the number of bits of every value
+	 * @param data     - the header and the packed values
+	 */
+	private Tablebase( String material, int bits, ByteBuffer data ) {
+		this.material = material;
+		this.bits = bits;
+		this.data = data;
+		pieceTeams = pieceTeamsOf( material );
+		pieceTypes = pieceTypesOf( material );
+		key = keyOf( countsOf( material ), false );
+		flippedKey = keyOf( countsOf( material ), true );
+	}
+
+	/**
+	 * Pack the values of a tablebase
+	 *
+	 * @param material - the name of the material
+	 * @param values   - the value of every index
+	 * @return the tablebase
+	 */
+	static Tablebase pack( String material, byte[] values ) {
+		int maxValue = 1;
+		for ( byte value : values ) {
+			maxValue = Math.max( maxValue, value & 0xFF );
+		}
+		int bits = 32 - Integer.numberOfLeadingZeros( maxValue );
+
+		long[] words = new long[(int) ( ( (long) values.length * bits + 63 ) / 64 ) + 1];
+		for ( int index = 0; index < values.length; index++ ) {
+			long bit = (long) index * bits;
+			int word = (int) ( bit >>> 6 );
+			int shift = (int) ( bit & 63 );
+			long value = values[index] & 0xFF;
+			words[word] |= value << shift;
+			if ( shift + bits > 64 ) {
+				words[word + 1] |= value >>> ( 64 - shift );
+			}
+		}
+
+		ByteBuffer data = ByteBuffer.allocate( HEADER_SIZE + 8 * words.length );
+		data.putInt( MAGIC );
+		data.putShort( (short) VERSION );
+		data.put( (byte) bits );
+		data.put( (byte) material.length() );
+		byte[] name = material.getBytes( StandardCharsets.US_ASCII );
+		data.put( name );
+		data.put( new byte[8 - name.length] );
+		data.putInt( values.length );
+		data.putInt( 0 );
+		for ( long word : words ) {
+			data.putLong( word );
+		}
+		return new Tablebase( material, bits, data );
+	}
+
+	/**
+	 * Open a tablebase file
+	 *
+	 * @param file - the path of the file
+	 * @return the tablebase
+	 * @throws IOException if the file cannot be read, or is not a tablebase
+	 */
+	public static Tablebase open( Path file ) throws IOException {
+		try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+			long size = channel.size();
+			if ( size > Integer.MAX_VALUE ) {
+				throw new IOException( file + " is too large to be a tablebase" );
+			}
+			ByteBuffer data = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+			if ( size < HEADER_SIZE || data.getInt( 0 ) != MAGIC ) {
+				throw new IOException( file + " is not a tablebase" );
+			}
+			if ( data.getShort( 4 ) != VERSION ) {
+				throw new IOException( file + " has an unsupported version: " + data.getShort( 4 ) );
+			}
+
+			int bits = data.get( 6 );
+			int numPieces = data.get( 7 );
+			if ( numPieces < 2 || numPieces > MAX_PIECES ) {
+				throw new IOException( file + " has a corrupt header" );
+			}
+			byte[] name = new byte[numPieces];
+			data.get( 8, name );
+			String material = new String( name, StandardCharsets.US_ASCII );
+			if ( !isValidMaterial( material ) || bits < 1 || bits > 8 || data.getInt( 16 ) != entryCount( numPieces )
+					|| size < HEADER_SIZE + 8 * ( ( (long) entryCount( numPieces ) * bits + 63 ) / 64 + 1 ) ) {
+				throw new IOException( file + " has a corrupt header" );
+			}
+			// The mapping stays valid after the file is closed
+			return new Tablebase( material, bits, data );
+		}
+	}
+
+	/**
+	 * Write the tablebase to a file, replacing any file at the path
+	 *
+	 * @param file - the path of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save( Path file ) throws IOException {
+		try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING ) ) {
+			ByteBuffer contents = data.duplicate();
+			contents.clear();
+			while ( contents.hasRemaining() ) {
+				channel.write( contents );
+			}
+		}
+	}
+
+	/**
+	 * Get the name of the material of the ending
+	 *
+	 * @return the name, e.g. "KBNK"
+	 */
+	public String getMaterial() {
+		return material;
+	}
+
+	/**
+	 * Get the number of values of the tablebase, one per index
+	 *
+	 * @return the number of values
+	 */
+	public int getEntryCount() {
+		return entryCount( pieceTypes.length );
+	}
+
+	/**
+	 * Get the number of bits of every value
+	 *
+	 * @return the number of bits
+	 */
+	public int getBitsPerEntry() {
+		return bits;
+	}
+
+	/**
+	 * Get the size of the tablebase file
+	 *
+	 * @return the size in bytes
+	 */
+	public int getSize() {
+		return data.capacity();
+	}
+
+	/**
+	 * Get the value at an index
+	 *
+	 * @param index - the index of the position
+	 * @return the value: {@link #DRAW}, {@link #ILLEGAL} or 2 plus the plies to checkmate
+	 */
+	int getValue( int index ) {
+		long bit = (long) index * bits;
+		int offset = HEADER_SIZE + (int) ( bit >>> 6 ) * 8;
+		int shift = (int) ( bit & 63 );
+		long value = data.getLong( offset ) >>> shift;
+		if ( shift + bits > 64 ) {
+			value |= data.getLong( offset + 8 ) << ( 64 - shift );
+		}
+		return (int) value & ( ( 1 << bits ) - 1 );
+	}
+
+	/**
+	 * Determine whether a position has the material of the ending, either as it is or with the colors swapped
+	 *
+	 * @param position - the position
+	 * @return 1 if it has the material, -1 if it has the material with the colors swapped, or 0 otherwise
+	 */
+	int matches( Position position ) {
+		long positionKey = keyOf( position );
+		return positionKey == key ? 1 : positionKey == flippedKey ? -1 : 0;
+	}
+
+	/**
+	 * Get the value of a position with the material of the ending
+	 *
+	 * @param position  - the position
+	 * @param isFlipped - whether the position has the material with the colors swapped, so that it is looked up
+	 *                  upside down with the colors swapped
+	 * @return the value: {@link #DRAW}, {@link #ILLEGAL} or 2 plus the plies to checkmate
+	 */
+	int getValue( Position position, boolean isFlipped ) {
+		int index = isFlipped ? 1 - position.getSideToMove() : position.getSideToMove();
+		for ( int piece = 0; piece < pieceTypes.length; piece++ ) {
+			int team = isFlipped ? 1 - pieceTeams[piece] : pieceTeams[piece];
+			long pieces = position.getPieces( team, pieceTypes[piece] );
+			// Pieces of the same type are indexed in the order of their squares
+			for ( int other = 0; other < piece; other++ ) {
+				if ( pieceTeams[other] == pieceTeams[piece] && pieceTypes[other] == pieceTypes[piece] ) {
+					pieces &= pieces - 1;
+				}
+			}
+			int square = Long.numberOfTrailingZeros( pieces );
+			index = index * 64 + ( isFlipped ? square ^ 56 : square );
+		}
+		return getValue( index );
+	}
+
+	/**
+	 * Get the team index of a piece of the index
+	 *
+	 * @param piece - the place of the piece in the index
+	 * @return the team index
+	 */
+	int getPieceTeam( int piece ) {
+		return pieceTeams[piece];
+	}
+
+	/**
+	 * Get the piece type index of a piece of the index
+	 *
+	 * @param piece - the place of the piece in the index
+	 * @return the piece type index
+	 */
+	int getPieceType( int piece ) {
+		return pieceTypes[piece];
+	}
+
+	/**
+	 * Get the team index of every piece of a material, in the order of the index: the Kings, then the other white
+	 * pieces and the other black pieces
+	 *
+	 * @param material - the name of the material
+	 * @return the team indices
+	 */
+	static int[] pieceTeamsOf( String material ) {
+		int[] teams = new int[material.length()];
+		int blackKing = material.indexOf( 'K', 1 );
+		teams[1] = 1;
+		for ( int c = blackKing + 1; c < material.length(); c++ ) {
+			teams[c] = 1;
+		}
+		return teams;
+	}
+
+	/**
+	 * Get the piece type index of every piece of a material, in the order of the index
+	 *
+	 * @param material - the name of the material
+	 * @return the piece type indices
+	 */
+	static int[] pieceTypesOf( String material ) {
+		int[] types = new int[material.length()];
+		int blackKing = material.indexOf( 'K', 1 );
+		types[0] = Position.KING;
+		types[1] = Position.KING;
+		for ( int c = 1, i = 2; c < material.length(); c++ ) {
+			if ( c != blackKing ) {
+				types[i++] = PIECE_LETTERS.indexOf( material.charAt( c ) );
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Count the pieces of a material
+	 *
+	 * @param material - the name of the material
+	 * @return the number of pieces of each team and piece type, indexed by team * 6 + type
+	 */
+	static int[] countsOf( String material ) {
+		int[] counts = new int[12];
+		int[] teams = pieceTeamsOf( material );
+		int[] types = pieceTypesOf( material );
+		for ( int i = 0; i < material.length(); i++ ) {
+			counts[teams[i] * 6 + types[i]]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Get the name of a material with the colors swapped
+	 *
+	 * @param material - the name of the material
+	 * @return the name, e.g. "KKQ" for "KQK"
+	 */
+	static String flip( String material ) {
+		int blackKing = material.indexOf( 'K', 1 );
+		return material.substring( blackKing ) + material.substring( 0, blackKing );
+	}
+
+	/**
+	 * Get the number of values of an ending
+	 *
+	 * @param numPieces - the number of pieces, Kings included
+	 * @return 2 teams to move times 64 squares for every piece
+	 */
+	static int entryCount( int numPieces ) {
+		return 2 << ( 6 * numPieces );
+	}
+
+	/**
+	 * Determine whether the name of a material is valid: two Kings and at most {@link #MAX_PIECES} pieces in all, in
+	 * the order of a name
+	 *
+	 * @param material - the name of the material
+	 * @return whether the name is valid
+	 */
+	public static boolean isValidMaterial( String material ) {
+		if ( material.length() > MAX_PIECES || !material.matches( "K[QRBNP]*K[QRBNP]*" ) ) {
+			return false;
+		}
+		for ( int i = 2; i < material.length(); i++ ) {
+			char previous = material.charAt( i - 1 );
+			if ( previous != 'K' && material.charAt( i ) != 'K'
+					&& NAME_ORDER.indexOf( previous ) > NAME_ORDER.indexOf( material.charAt( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the name of the material of piece counts
+	 *
+	 * @param counts - the number of pieces of each team and piece type, indexed by team * 6 + type
+	 * @return the name of the material, e.g. "KQK"
+	 */
+	static String materialOf( int[] counts ) {
+		StringBuilder name = new StringBuilder();
+		for ( int team = 0; team < 2; team++ ) {
+			name.append( 'K' );
+			for ( int i = 1; i < NAME_ORDER.length(); i++ ) {
+				int type = PIECE_LETTERS.indexOf( NAME_ORDER.charAt( i ) );
+				for ( int j = 0; j < counts[team * 6 + type]; j++ ) {
+					name.append( NAME_ORDER.charAt( i ) );
+				}
+			}
+		}
+		return name.toString();
+	}
+
+	/**
+	 * Get the key of piece counts, which is the same for every position with the same material
+	 *
+	 * @param counts    - the number of pieces of each team and piece type, indexed by team * 6 + type
+	 * @param isFlipped - whether to swap the colors
+	 * @return the key
+	 */
+	private static long keyOf( int[] counts, boolean isFlipped ) {
+		long key = 0;
+		for ( int team = 0; team < 2; team++ ) {
+			for ( int type = Position.PAWN; type < Position.KING; type++ ) {
+				key = key << 4 | counts[( isFlipped ? 1 - team : team ) * 6 + type];
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * Get the key of the material of a position
+	 *
+	 * @param position - the position
+	 * @return the key
+	 */
+	private static long keyOf( Position position ) {
+		long key = 0;
+		for ( int team = 0; team < 2; team++ ) {
+			for ( int type = Position.PAWN; type < Position.KING; type++ ) {
+				key = key << 4 | Math.min( position.getPieceCount( team, type ), 15 );
+			}
+		}
+		return key;
+	}
+}
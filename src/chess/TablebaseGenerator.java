@@ -0,0 +1,639 @@
+package chess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chesspieces.Bitboards;
+import chesspieces.Move;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * The TablebaseGenerator class generates the {@link Tablebase} of an ending by retrograde analysis over the rules of
+ * the chess pieces. Every position of the ending is first set up once: illegal positions, checkmates and stalemates
+ * are marked, and the moves that leave the ending by a capture or a promotion are looked up in the tablebases of the
+ * smaller endings, which are generated first. Then, one ply at a time, the positions decided at the last ply are taken
+ * back to the positions they can be reached from. A position that can reach a position lost for the opponent is won,
+ * and a position that only reaches positions won by the opponent is lost, one ply further from checkmate. What is
+ * still undecided when nothing changes any more is a draw.
+ *
+ * Every pass splits the positions into chunks that are worked on by a pool of threads. Like the tablebases
+ * themselves, the generation leaves out en passant captures.
+ *
+ * Usage: java chess.TablebaseGenerator [--threads n] [--dir directory] material ...
+ * <br>
+ * Generates the tablebases of the materials (KQK, KRK, KPK and KBNK by default) and of the endings they lead to, writes
+ * them to the directory (the current directory by default) as "[material].tb", and prints the generation time of
+ * every tablebase.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class TablebaseGenerator {
+
+	/**
+	 * The materials generated by default
+	 */
+	private static final String[] DEFAULT_MATERIALS = { "KQK", "KRK", "KPK", "KBNK" };
+
+	/**
+	 * The number of chunks per thread that every pass is split into, so that threads that finish early can take over
+	 * chunks of threads that are slower
+	 */
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	/**
+	 * The most plies to checkmate that a value can hold
+	 */
+	private static final int MAX_PLIES = 253;
+
+	/**
+	 * The ply of an exit that never lets a position be lost, because it leads to a draw
+	 */
+	private static final int DRAWING_EXIT = 255;
+
+	/**
+	 * The rows that Pawns cannot stand on
+	 */
+	private static final long END_ROWS = 0xFF000000000000FFL;
+
+	/**
+	 * The tablebases of the endings generated so far, which the exits of later endings are looked up in
+	 */
+	private final Tablebases tables;
+
+	/**
+	 * The number of threads to generate with
+	 */
+	private final int threads;
+
+	/**
+	 * The stream that the generation time of every tablebase is printed to, or null
+	 */
+	private PrintStream output;
+
+	/**
+	 * The team index and piece type index of every piece of the ending being generated, in the order of the index
+	 */
+	private int[] pieceTeams, pieceTypes;
+
+	/**
+	 * The value of every position of the ending being generated: {@link Tablebase#DRAW} while undecided,
+	 * {@link Tablebase#ILLEGAL}, or 2 plus the plies to checkmate
+	 */
+	private byte[] values;
+
+	/**
+	 * For every position, the ply at which its best exit wins (the plies to checkmate after the exit plus one), or 0
+	 * if no exit wins
+	 */
+	private byte[] exitWins;
+
+	/**
+	 * For every position, the ply at which all of its exits have been lost, or {@link #DRAWING_EXIT} if an exit draws
+	 */
+	private byte[] exitLosses;
+
+	/**
+	 * Whether a position can reach a position decided at the last ply, and must be checked again
+	 */
+	private byte[] marks;
+
+	/**
+	 * The ply being decided
+	 */
+	private int ply;
+
+	/**
+	 * Sets up positions of the ending being generated for one thread
+	 */
+	private final class Worker {
+
+		/**
+		 * The position set up
+		 */
+		private final Position position = new Position();
+
+		/**
+		 * The square of every piece of the position set up
+		 */
+		private final int[] squares = new int[pieceTypes.length];
+
+		/**
+		 * Whether the pieces of the last position are still on the board
+		 */
+		private boolean isSetUp;
+
+		/**
+		 * The legal moves of the position set up
+		 */
+		private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+		/**
+		 * Read the squares of a position from its index, and set it up if no two pieces share a square and no Pawn
+		 * stands on the first or last row
+		 *
+		 * @param index - the index of the position
+		 * @return whether the position was set up
+		 */
+		private boolean setUp( int index ) {
+			if ( isSetUp ) {
+				for ( int square : squares ) {
+					position.remove( square );
+				}
+				isSetUp = false;
+			}
+
+			long occupancy = 0;
+			for ( int piece = squares.length - 1, rest = index; piece >= 0; piece--, rest >>>= 6 ) {
+				squares[piece] = rest & 63;
+				long tile = 1L << squares[piece];
+				if ( ( occupancy & tile ) != 0 || ( pieceTypes[piece] == Position.PAWN && ( tile & END_ROWS ) != 0 ) ) {
+					return false;
+				}
+				occupancy |= tile;
+			}
+			for ( int piece = 0; piece < squares.length; piece++ ) {
+				position.put( pieceTeams[piece], pieceTypes[piece], squares[piece] );
+			}
+			position.setSideToMove( index >>> ( 6 * squares.length ) );
+			isSetUp = true;
+			return true;
+		}
+
+		/**
+		 * Get the index of the position after a move that stays in the ending
+		 *
+		 * @param index - the index of the position set up
+		 * @param move  - the move, which neither captures nor promotes
+		 * @return the index of the position after the move
+		 */
+		private int indexAfter( int index, int move ) {
+			int from = Move.from( move );
+			int piece = 0;
+			while ( squares[piece] != from ) {
+				piece++;
+			}
+			int shift = 6 * ( squares.length - 1 - piece );
+			// The team to move is the highest bit of the index
+			return ( index ^ 1 << ( 6 * squares.length ) ) + ( ( Move.to( move ) - from ) << shift );
+		}
+	}
+
+	/**
+	 * Create a generator
+	 *
+	 * @param tables  - the tablebases to add the generated tablebases to, and to look up exits in
+	 * @param threads - the number of threads to generate with
+	 */
+	public TablebaseGenerator( Tablebases tables, int threads ) {
+		this.tables = tables;
+		this.threads = threads;
+	}
+
+	/**
+	 * Print the generation time of every tablebase
+	 *
+	 * @param output - the stream to print to, or null to print nothing
+	 */
+	public void setOutput( PrintStream output ) {
+		this.output = output;
+	}
+
+	/**
+	 * Generate the tablebase of a material, first generating the tablebases of the endings it leads to that are not
+	 * held yet, and add them all to the tablebases
+	 *
+	 * @param material - the name of the material, e.g. "KBNK"
+	 * @return the tablebase
+	 * @throws InterruptedException if the thread is interrupted while waiting for the pool of threads
+	 */
+	public Tablebase generate( String material ) throws InterruptedException {
+		if ( !Tablebase.isValidMaterial( material ) ) {
+			throw new IllegalArgumentException( "Not a material of at most " + Tablebase.MAX_PIECES + " pieces: "
+					+ material );
+		}
+
+		for ( String exit : exitMaterials( material ) ) {
+			if ( tables.get( exit ) == null && tables.get( Tablebase.flip( exit ) ) == null ) {
+				// Generate the side with more pieces as white
+				int blackKing = exit.indexOf( 'K', 1 );
+				generate( blackKing * 2 >= exit.length() ? exit : Tablebase.flip( exit ) );
+			}
+		}
+
+		long start = System.nanoTime();
+		pieceTeams = Tablebase.pieceTeamsOf( material );
+		pieceTypes = Tablebase.pieceTypesOf( material );
+		int size = Tablebase.entryCount( material.length() );
+		values = new byte[size];
+		exitWins = new byte[size];
+		exitLosses = new byte[size];
+		marks = new byte[size];
+
+		ExecutorService pool = Executors.newFixedThreadPool( threads );
+		try {
+			ply = 0;
+			int lastExit = runPasses( pool, ( worker, from, to ) -> setUpPositions( worker, from, to ) );
+			int decided = 1;
+			while ( decided > 0 || ply < lastExit ) {
+				ply++;
+				if ( ply > MAX_PLIES ) {
+					throw new IllegalStateException(
+							material + " has a checkmate further than " + MAX_PLIES + " plies" );
+				}
+				runPasses( pool, ( worker, from, to ) -> markPredecessors( worker, from, to ) );
+				decided = runPasses( pool, ( worker, from, to ) -> decidePositions( worker, from, to ) );
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		Tablebase table = Tablebase.pack( material, values );
+		tables.add( table );
+		if ( output != null ) {
+			double seconds = ( System.nanoTime() - start ) / 1e9;
+			int legal = 0;
+			int longest = 0;
+			for ( byte value : values ) {
+				if ( value != Tablebase.ILLEGAL ) {
+					legal++;
+					longest = Math.max( longest, ( value & 0xFF ) - 2 );
+				}
+			}
+			output.printf( "%s: %d positions, longest checkmate %d plies, %d bytes, %.3f s, %.0f positions/second%n",
+					material, legal, longest, table.getSize(), seconds, legal / seconds );
+		}
+		values = null;
+		exitWins = null;
+		exitLosses = null;
+		marks = null;
+		return table;
+	}
+
+	/**
+	 * A pass over a range of positions
+	 */
+	private interface Pass {
+
+		/**
+		 * Work on a range of positions
+		 *
+		 * @param worker - the worker of the thread
+		 * @param from   - the index of the first position
+		 * @param to     - the index after the last position
+		 * @return a number, of which the largest over the ranges is kept
+		 */
+		int run( Worker worker, int from, int to );
+	}
+
+	/**
+	 * Run a pass over every position, split into chunks that are worked on by a pool of threads
+	 *
+	 * @param pool - the pool of threads
+	 * @param pass - the pass
+	 * @return the largest number returned by the chunks
+	 * @throws InterruptedException if the thread is interrupted while waiting for the chunks
+	 */
+	private int runPasses( ExecutorService pool, Pass pass ) throws InterruptedException {
+		int numChunks = threads * CHUNKS_PER_THREAD;
+		int chunkSize = ( values.length + numChunks - 1 ) / numChunks;
+		List<Future<Integer>> chunks = new ArrayList<Future<Integer>>();
+		for ( int start = 0; start < values.length; start += chunkSize ) {
+			int from = start;
+			int to = Math.min( values.length, start + chunkSize );
+			chunks.add( pool.submit( () -> pass.run( new Worker(), from, to ) ) );
+		}
+
+		int max = 0;
+		for ( Future<Integer> chunk : chunks ) {
+			try {
+				max = Math.max( max, chunk.get() );
+			}
+			catch ( ExecutionException e ) {
+				throw new IllegalStateException( e.getCause() );
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Set up positions for the first time: mark the illegal positions, checkmates and stalemates, and look up where
+	 * their exits lead
+	 *
+	 * @param worker - the worker of the thread
+	 * @param from   - the index of the first position
+	 * @param to     - the index after the last position
+	 * @return the latest ply at which an exit decides a position
+	 */
+	private int setUpPositions( Worker worker, int from, int to ) {
+		Position position = worker.position;
+		int lastExit = 0;
+		for ( int index = from; index < to; index++ ) {
+			if ( !worker.setUp( index ) || MoveGenerator.isInCheck( position, 1 - position.getSideToMove() ) ) {
+				values[index] = Tablebase.ILLEGAL;
+				continue;
+			}
+
+			int numMoves = MoveGenerator.generateLegalMoves( position, worker.moves );
+			if ( numMoves == 0 ) {
+				if ( MoveGenerator.isInCheck( position, position.getSideToMove() ) ) {
+					values[index] = 2;
+				}
+				continue;
+			}
+			if ( position.isInsufficientMaterial() ) {
+				exitLosses[index] = (byte) DRAWING_EXIT;
+				continue;
+			}
+
+			int exitWin = 0;
+			int exitLoss = 0;
+			for ( int i = 0; i < numMoves; i++ ) {
+				int move = worker.moves[i];
+				if ( position.getPiece( Move.to( move ) ) == Position.EMPTY && Move.promotion( move ) == Move.NONE ) {
+					continue;
+				}
+				position.makeMove( move );
+				int value = tables.getValue( position );
+				position.unmakeMove( move );
+				if ( value == -1 ) {
+					throw new IllegalStateException( "No tablebase for a capture or promotion" );
+				}
+
+				if ( value == Tablebase.DRAW ) {
+					exitLoss = DRAWING_EXIT;
+				}
+				else if ( ( value - 2 ) % 2 == 0 ) {
+					// The opponent is checkmated after the exit
+					exitWin = exitWin == 0 ? value - 1 : Math.min( exitWin, value - 1 );
+				}
+				else if ( exitLoss != DRAWING_EXIT ) {
+					exitLoss = Math.max( exitLoss, value - 1 );
+				}
+			}
+			exitWins[index] = (byte) exitWin;
+			exitLosses[index] = (byte) exitLoss;
+			lastExit = Math.max( lastExit, Math.max( exitWin, exitLoss == DRAWING_EXIT ? 0 : exitLoss ) );
+		}
+		return lastExit;
+	}
+
+	/**
+	 * Take back the moves to the positions decided at the last ply, and mark the positions they were made from
+	 *
+	 * @param worker - the worker of the thread, which is not used
+	 * @param from   - the index of the first position
+	 * @param to     - the index after the last position
+	 * @return 0
+	 */
+	private int markPredecessors( Worker worker, int from, int to ) {
+		int numPieces = pieceTypes.length;
+		int[] squares = new int[numPieces];
+		for ( int index = from; index < to; index++ ) {
+			if ( ( values[index] & 0xFF ) != ply + 1 ) {
+				continue;
+			}
+
+			long occupancy = 0;
+			for ( int piece = numPieces - 1, rest = index; piece >= 0; piece--, rest >>>= 6 ) {
+				squares[piece] = rest & 63;
+				occupancy |= 1L << squares[piece];
+			}
+			// The team that moved last is the team not to move
+			int team = 1 - ( index >>> ( 6 * numPieces ) );
+			int previous = index ^ 1 << ( 6 * numPieces );
+			for ( int piece = 0; piece < numPieces; piece++ ) {
+				if ( pieceTeams[piece] != team ) {
+					continue;
+				}
+				int square = squares[piece];
+				int shift = 6 * ( numPieces - 1 - piece );
+				for ( long origins = origins( pieceTypes[piece], team, square, occupancy ); origins != 0;
+						origins &= origins - 1 ) {
+					marks[previous + ( ( Long.numberOfTrailingZeros( origins ) - square ) << shift )] = 1;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Get the empty tiles that a piece could have moved from to its square, without capturing or promoting
+	 *
+	 * @param type      - the piece type index
+	 * @param team      - the team index
+	 * @param square    - the square of the piece
+	 * @param occupancy - the bitboard of occupied tiles
+	 * @return the bitboard of tiles
+	 */
+	private static long origins( int type, int team, int square, long occupancy ) {
+		switch ( type ) {
+			case Position.PAWN:
+				// Pawns move back towards their first row, one tile or two from their fourth row
+				int behind = team == Bitboards.WHITE ? 8 : -8;
+				long origins = 0;
+				if ( ( 1L << ( square + behind ) & occupancy ) == 0 ) {
+					origins = ( 1L << ( square + behind ) ) & ~END_ROWS;
+					if ( Bitboards.row( square ) == ( team == Bitboards.WHITE ? 4 : 3 ) ) {
+						origins |= 1L << ( square + 2 * behind );
+					}
+				}
+				return origins & ~occupancy;
+			case Position.KNIGHT:
+				return Bitboards.KNIGHT_ATTACKS[square] & ~occupancy;
+			case Position.BISHOP:
+				return Bitboards.bishopAttacks( square, occupancy ) & ~occupancy;
+			case Position.ROOK:
+				return Bitboards.rookAttacks( square, occupancy ) & ~occupancy;
+			case Position.QUEEN:
+				return Bitboards.queenAttacks( square, occupancy ) & ~occupancy;
+			default:
+				return Bitboards.KING_ATTACKS[square] & ~occupancy;
+		}
+	}
+
+	/**
+	 * Check the undecided positions that were marked or that an exit decides at this ply, and decide those that are
+	 * won or lost at this ply
+	 *
+	 * @param worker - the worker of the thread
+	 * @param from   - the index of the first position
+	 * @param to     - the index after the last position
+	 * @return the number of positions decided
+	 */
+	private int decidePositions( Worker worker, int from, int to ) {
+		Position position = worker.position;
+		int decided = 0;
+		for ( int index = from; index < to; index++ ) {
+			boolean isMarked = marks[index] != 0;
+			marks[index] = 0;
+			int exitWin = exitWins[index] & 0xFF;
+			int exitLoss = exitLosses[index] & 0xFF;
+			if ( values[index] != Tablebase.DRAW || !isMarked && exitWin != ply && exitLoss != ply ) {
+				continue;
+			}
+
+			worker.setUp( index );
+			int numMoves = MoveGenerator.generateLegalMoves( position, worker.moves );
+			// Positions decided at this ply are still undecided here, so that every thread sees the same. A position
+			// with a winning exit is never lost
+			boolean isLost = numMoves > 0 && exitWin == 0 && exitLoss <= ply;
+			boolean isWon = exitWin != 0 && exitWin <= ply;
+			for ( int i = 0; i < numMoves && !isWon; i++ ) {
+				int move = worker.moves[i];
+				if ( position.getPiece( Move.to( move ) ) != Position.EMPTY || Move.promotion( move ) != Move.NONE ) {
+					continue;
+				}
+				int value = values[worker.indexAfter( index, move )] & 0xFF;
+				if ( value < 2 || value - 2 >= ply ) {
+					isLost = false;
+				}
+				else if ( ( value - 2 ) % 2 == 0 ) {
+					isWon = true;
+				}
+			}
+
+			if ( isWon || isLost ) {
+				values[index] = (byte) ( ply + 2 );
+				decided++;
+			}
+		}
+		return decided;
+	}
+
+	/**
+	 * Get the materials that the captures and promotions of a material lead to, leaving out those with which neither
+	 * team can ever checkmate
+	 *
+	 * @param material - the name of the material
+	 * @return the names of the materials
+	 */
+	private static List<String> exitMaterials( String material ) {
+		List<String> exits = new ArrayList<String>();
+		int[] counts = Tablebase.countsOf( material );
+		for ( int team = 0; team < 2; team++ ) {
+			int other = 1 - team;
+			for ( int captured = Position.PAWN; captured < Position.KING; captured++ ) {
+				if ( counts[other * 6 + captured] > 0 ) {
+					counts[other * 6 + captured]--;
+					addExit( exits, counts );
+					counts[other * 6 + captured]++;
+				}
+			}
+			if ( counts[team * 6 + Position.PAWN] == 0 ) {
+				continue;
+			}
+
+			counts[team * 6 + Position.PAWN]--;
+			for ( int promotion = Position.KNIGHT; promotion <= Position.QUEEN; promotion++ ) {
+				counts[team * 6 + promotion]++;
+				addExit( exits, counts );
+				for ( int captured = Position.KNIGHT; captured < Position.KING; captured++ ) {
+					// A Pawn promotes by capturing a piece on the last row
+					if ( counts[other * 6 + captured] > 0 ) {
+						counts[other * 6 + captured]--;
+						addExit( exits, counts );
+						counts[other * 6 + captured]++;
+					}
+				}
+				counts[team * 6 + promotion]--;
+			}
+			counts[team * 6 + Position.PAWN]++;
+		}
+		return exits;
+	}
+
+	/**
+	 * Add a material to the list of exits, unless it is already there or neither team can ever checkmate with it
+	 *
+	 * @param exits  - the names of the materials
+	 * @param counts - the number of pieces of each team and piece type, indexed by team * 6 + type
+	 */
+	private static void addExit( List<String> exits, int[] counts ) {
+		int minorPieces = 0;
+		boolean isCheckmatePossible = false;
+		for ( int team = 0; team < 2; team++ ) {
+			minorPieces += counts[team * 6 + Position.KNIGHT] + counts[team * 6 + Position.BISHOP];
+			isCheckmatePossible |= counts[team * 6 + Position.PAWN] + counts[team * 6 + Position.ROOK]
+					+ counts[team * 6 + Position.QUEEN] > 0;
+		}
+		String exit = Tablebase.materialOf( counts );
+		if ( ( isCheckmatePossible || minorPieces > 1 ) && !exits.contains( exit ) ) {
+			exits.add( exit );
+		}
+	}
+
+	/**
+	 * Generate tablebases and write them to a directory
+	 *
+	 * @param args - the options and the names of the materials
+	 */
+	public static void main( String[] args ) {
+		int threads = ParallelSearch.defaultThreads();
+		Path directory = Paths.get( "." );
+		List<String> materials = new ArrayList<String>();
+		try {
+			for ( int i = 0; i < args.length; i++ ) {
+				if ( args[i].equals( "--threads" ) && i + 1 < args.length ) {
+					threads = Integer.parseInt( args[++i] );
+				}
+				else if ( args[i].equals( "--dir" ) && i + 1 < args.length ) {
+					directory = Paths.get( args[++i] );
+				}
+				else if ( Tablebase.isValidMaterial( args[i] ) ) {
+					materials.add( args[i] );
+				}
+				else {
+					threads = 0;
+				}
+			}
+		}
+		catch ( NumberFormatException e ) {
+			threads = 0;
+		}
+		if ( threads <= 0 ) {
+			System.out.println( "Usage: java chess.TablebaseGenerator [--threads n] [--dir directory] material ..." );
+			System.out.println( "Materials have two Kings and at most " + Tablebase.MAX_PIECES
+					+ " pieces, e.g. KQK, KRK, KPK or KBNK" );
+			System.exit( 2 );
+		}
+		if ( materials.isEmpty() ) {
+			materials.addAll( List.of( DEFAULT_MATERIALS ) );
+		}
+
+		Tablebases tables = new Tablebases();
+		TablebaseGenerator generator = new TablebaseGenerator( tables, threads );
+		generator.setOutput( System.out );
+		try {
+			Files.createDirectories( directory );
+			long start = System.nanoTime();
+			for ( String material : materials ) {
+				generator.generate( material );
+			}
+			System.out.printf( "Threads: %d, time: %.3f s%n", threads, ( System.nanoTime() - start ) / 1e9 );
+
+			for ( String material : tables.getMaterials() ) {
+				tables.get( material ).save( directory.resolve( material + ".tb" ) );
+			}
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot write the tablebases: " + e.getMessage() );
+			System.exit( 1 );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import chesspieces.Bitboards;
+import chesspieces.Fen;
+import chesspieces.Move;
+import chesspieces.MoveGenerator;
+import chesspieces.Position;
+
+/**
+ * The Tablebases class looks up positions in the {@link Tablebase} of their ending, so that the outcome of a position
+ * and the distance to checkmate are known without a search. A position is looked up with the colors swapped if only
+ * the other way round is held, e.g. a position of a black King and Queen against a white King in "KQK". Positions with
+ * castling rights or en passant captures are not in the tablebases, and the fifty-move rule is not taken into account.
+ *
+ * Usage:
+ * <ul>
+ * <li>java chess.Tablebases directory [FEN] - load every tablebase file of the directory ("*.tb"), and print the
+ * outcome and best move of a position and the lookups per second</li>
+ * <li>java chess.Tablebases directory check - check the reference positions of the endings held against their known
+ * outcomes</li>
+ * </ul>
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Tablebases {
+
+	/**
+	 * The score of a position that is not in the tablebases
+	 */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+
+	/**
+	 * The reference positions: name, FEN, and the known outcome for the team to move as given by
+	 * {@link #describe(int)}
+	 */
+	private static final String[][] REFERENCE_POSITIONS = {
+			{ "KQK mate in one", "k7/8/1K6/8/8/8/7Q/8 w - - 0 1", "checkmates in 1 move" },
+			{ "KPK rook Pawn", "k7/8/K7/P7/8/8/8/8 w - - 0 1", "draws" },
+			// Every move but the promotion loses, which must not make the position lost
+			{ "KPKP promotion", "K1k5/5P2/8/8/8/8/p7/8 w - - 0 1", "checkmates in 12 moves" },
+			{ "KPKP promotion, colors swapped", "8/P7/8/8/8/8/5p2/k1K5 b - - 0 1", "checkmates in 12 moves" } };
+
+	/**
+	 * The tablebases held
+	 */
+	private final List<Tablebase> tables = new ArrayList<Tablebase>();
+
+	/**
+	 * The most pieces of the endings held, Kings included
+	 */
+	private int maxPieces;
+
+	/**
+	 * Load every tablebase file of a directory
+	 *
+	 * @param directory - the directory
+	 * @return the tablebases
+	 * @throws IOException if the directory or a file cannot be read, or a file is not a tablebase
+	 */
+	public static Tablebases load( Path directory ) throws IOException {
+		Tablebases tablebases = new Tablebases();
+		try ( DirectoryStream<Path> files = Files.newDirectoryStream( directory, "*.tb" ) ) {
+			for ( Path file : files ) {
+				tablebases.add( Tablebase.open( file ) );
+			}
+		}
+		return tablebases;
+	}
+
+	/**
+	 * Add a tablebase, replacing any tablebase of the same material
+	 *
+	 * @param table - the tablebase
+	 */
+	public void add( Tablebase table ) {
+		tables.removeIf( other -> other.getMaterial().equals( table.getMaterial() ) );
+		tables.add( table );
+		maxPieces = Math.max( maxPieces, table.getMaterial().length() );
+	}
+
+	/**
+	 * Get the tablebase of a material
+	 *
+	 * @param material - the name of the material, e.g. "KQK"
+	 * @return the tablebase, or null if it is not held
+	 */
+	public Tablebase get( String material ) {
+		for ( Tablebase table : tables ) {
+			if ( table.getMaterial().equals( material ) ) {
+				return table;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the names of the materials of the tablebases held
+	 *
+	 * @return the names, in the order the tablebases were added
+	 */
+	public List<String> getMaterials() {
+		List<String> materials = new ArrayList<String>();
+		for ( Tablebase table : tables ) {
+			materials.add( table.getMaterial() );
+		}
+		return materials;
+	}
+
+	/**
+	 * Get the number of tablebases held
+	 *
+	 * @return the number of tablebases
+	 */
+	public int getTableCount() {
+		return tables.size();
+	}
+
+	/**
+	 * Look up the value of a position
+	 *
+	 * @param position - the position
+	 * @return the value as stored by {@link Tablebase}, {@link Tablebase#DRAW} if neither team can checkmate, or -1 if
+	 *         the position is not in the tablebases
+	 */
+	int getValue( Position position ) {
+		if ( position.getCastlingRights() != 0 || position.getEnPassantSquare() != -1 ) {
+			return -1;
+		}
+		if ( position.isInsufficientMaterial() ) {
+			return Tablebase.DRAW;
+		}
+		if ( Long.bitCount( position.getOccupancy() ) > maxPieces ) {
+			return -1;
+		}
+		for ( Tablebase table : tables ) {
+			int match = table.matches( position );
+			if ( match != 0 ) {
+				return table.getValue( position, match < 0 );
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Look up the score of a position for the team to move, which is exact: 0 for a draw, or a mate score as reported
+	 * by {@link Search}, e.g. {@link Search#MATE} - 3 if the team to move checkmates in 3 plies and
+	 * -{@link Search#MATE} if it is checkmated
+	 *
+	 * @param position - the position
+	 * @return the score, or {@link #UNKNOWN} if the position is not in the tablebases
+	 */
+	public int probe( Position position ) {
+		int value = getValue( position );
+		if ( value == -1 || value == Tablebase.ILLEGAL ) {
+			return UNKNOWN;
+		}
+		if ( value == Tablebase.DRAW ) {
+			return 0;
+		}
+		int plies = value - 2;
+		return plies % 2 == 1 ? Search.MATE - plies : -( Search.MATE - plies );
+	}
+
+	/**
+	 * Find the best move of a position from the tablebases: the fastest checkmate when winning, and the longest defence
+	 * when losing
+	 *
+	 * @param position - the position, which is left as it was
+	 * @return the encoded move, or -1 if the position or a position after one of its moves is not in the tablebases
+	 */
+	public int findBestMove( Position position ) {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int numMoves = MoveGenerator.generateLegalMoves( position, moves );
+		int bestMove = -1;
+		int bestScore = -Search.MATE - 1;
+		for ( int i = 0; i < numMoves; i++ ) {
+			position.makeMove( moves[i] );
+			int score = probe( position );
+			position.unmakeMove( moves[i] );
+			if ( score == UNKNOWN ) {
+				return -1;
+			}
+			if ( -score > bestScore ) {
+				bestScore = -score;
+				bestMove = moves[i];
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Describe a score looked up in the tablebases
+	 *
+	 * @param score - the score of the team to move
+	 * @return e.g. "checkmates in 5 moves", "is checkmated in 3 moves" or "draws"
+	 */
+	static String describe( int score ) {
+		if ( score == 0 ) {
+			return "draws";
+		}
+		int moves = ( Search.MATE - Math.abs( score ) + 1 ) / 2;
+		return ( score > 0 ? "checkmates in " : "is checkmated in " ) + moves + ( moves == 1 ? " move" : " moves" );
+	}
+
+	/**
+	 * Look up every reference position whose ending is held and compare against its known outcome
+	 *
+	 * @return whether every outcome matched
+	 */
+	private boolean runCheck() {
+		boolean passed = true;
+		for ( String[] reference : REFERENCE_POSITIONS ) {
+			int score = probe( Fen.toPosition( reference[1] ) );
+			if ( score == UNKNOWN ) {
+				System.out.println( reference[0] + ": not held, skipped" );
+				continue;
+			}
+			String outcome = describe( score );
+			String result = outcome.equals( reference[2] ) ? "ok" : "FAILED, expected " + reference[2];
+			System.out.println( reference[0] + ": " + outcome + " " + result );
+			passed &= outcome.equals( reference[2] );
+		}
+
+		System.out.println();
+		System.out.println( passed ? "All outcomes match" : "Some outcomes do not match" );
+		return passed;
+	}
+
+	/**
+	 * Look up a position in the tablebases of a directory
+	 *
+	 * @param args - the directory, and optionally the FEN of the position or "check"
+	 */
+	public static void main( String[] args ) {
+		if ( args.length != 1 && args.length != 2 ) {
+			System.out.println( "Usage: java chess.Tablebases directory [FEN | check]" );
+			System.exit( 2 );
+		}
+
+		Tablebases tablebases = null;
+		try {
+			tablebases = load( Paths.get( args[0] ) );
+		}
+		catch ( IOException e ) {
+			System.out.println( "Cannot load the tablebases: " + e.getMessage() );
+			System.exit( 1 );
+		}
+		for ( Tablebase table : tablebases.tables ) {
+			System.out.printf( "%s: %d bytes, %d bits per position%n", table.getMaterial(), table.getSize(),
+					table.getBitsPerEntry() );
+		}
+		if ( args.length == 1 ) {
+			return;
+		}
+		if ( args[1].equals( "check" ) ) {
+			System.exit( tablebases.runCheck() ? 0 : 1 );
+		}
+
+		Position position = null;
+		try {
+			position = Fen.toPosition( args[1] );
+		}
+		catch ( IllegalArgumentException e ) {
+			System.out.println( "Cannot set up the position: " + e.getMessage() );
+			System.exit( 2 );
+		}
+		int score = tablebases.probe( position );
+		if ( score == UNKNOWN ) {
+			System.out.println( "The position is not in the tablebases" );
+			return;
+		}
+		String team = position.getSideToMove() == Bitboards.WHITE ? "White" : "Black";
+		System.out.println( team + " " + describe( score ) );
+		int move = tablebases.findBestMove( position );
+		if ( move != -1 ) {
+			System.out.println( "Best move: " + Move.toString( move ) );
+		}
+
+		int lookups = 1000000;
+		long found = 0;
+		long start = System.nanoTime();
+		for ( int i = 0; i < lookups; i++ ) {
+			if ( tablebases.probe( position ) != UNKNOWN ) {
+				found++;
+			}
+		}
+		double seconds = ( System.nanoTime() - start ) / 1e9;
+		System.out.printf( "Lookups: %d, found: %d%n", lookups, found );
+		System.out.printf( "Time per lookup: %.3f us%n", seconds * 1e6 / lookups );
+		System.out.printf( "Lookups/second: %.0f%n", lookups / seconds );
+	}
+}
@@ -0,0 +1,177 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class remembers the results of searching positions, keyed by their Zobrist hash, so that a
+ * position reached again through a different move order does not have to be searched again.
+ *
+ * The table is a fixed number of slots, each made of two longs: the packed entry and the hash XOR the entry. Slots are
+ * read and written without locks, so several search threads can share one table. A reader that sees a half-written
+ * slot finds that the two longs no longer XOR to its hash, and treats the slot as empty.
+ *
+ * An entry packs the best move (bits 0-16), the score (bits 17-32), the depth (bits 33-40), the bound (bits 41-42)
+ * and the generation of the search that stored it (bits 43-50).
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class TranspositionTable {
+
+	/**
+	 * Bound of an entry whose score is exact
+	 */
+	public static final int EXACT = 1;
+
+	/**
+	 * Bound of an entry whose score is at most the true score (the search failed high)
+	 */
+	public static final int LOWER = 2;
+
+	/**
+	 * Bound of an entry whose score is at least the true score (the search failed low)
+	 */
+	public static final int UPPER = 3;
+
+	/**
+	 * The hash XOR the entry of each slot
+	 */
+	private final long[] keys;
+
+	/**
+	 * The packed entry of each slot
+	 */
+	private final long[] entries;
+
+	/**
+	 * The mask that turns a hash into a slot index
+	 */
+	private final int mask;
+
+	/**
+	 * The generation of the current search, so that entries left from earlier searches are replaced first
+	 */
+	private volatile int generation;
+
+	/**
+	 * Create a transposition table
+	 *
+	 * @param megabytes - the memory to use, rounded down to a power of two number of slots
+	 */
+	public TranspositionTable( int megabytes ) {
+		long slots = Math.max( 1L, ( (long) megabytes << 20 ) / 16 );
+		int size = Integer.highestOneBit( (int) Math.min( slots, 1 << 30 ) );
+		keys = new long[size];
+		entries = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Start a new search, so that entries of earlier searches may be replaced by shallower ones
+	 */
+	public void newSearch() {
+		generation = ( generation + 1 ) & 0xFF;
+	}
+
+	/**
+	 * Remove every entry
+	 */
+	public void clear() {
+		Arrays.fill( keys, 0 );
+		Arrays.fill( entries, 0 );
+	}
+
+	/**
+	 * Look up the entry of a position
+	 *
+	 * @param hash - the Zobrist hash of the position
+	 * @return the packed entry, or 0 if the position is not in the table
+	 */
+	public long probe( long hash ) {
+		int index = (int) hash & mask;
+		long entry = entries[index];
+		if ( ( keys[index] ^ entry ) != hash ) {
+			return 0;
+		}
+		return entry;
+	}
+
+	/**
+	 * Store the result of searching a position. An existing entry of a different position is only replaced if it is
+	 * from an earlier search or was searched no deeper; an entry of the same position is always replaced
+	 *
+	 * @param hash  - the Zobrist hash of the position
+	 * @param move  - the best move found, or 0 if none
+	 * @param score - the score, within a short
+	 * @param depth - the depth searched
+	 * @param bound - {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+	 */
+	public void store( long hash, int move, int score, int depth, int bound ) {
+		int index = (int) hash & mask;
+		long oldEntry = entries[index];
+		boolean samePosition = ( keys[index] ^ oldEntry ) == hash;
+		if ( !samePosition && oldEntry != 0 && generation( oldEntry ) == generation && depth < depth( oldEntry ) ) {
+			return;
+		}
+		if ( samePosition && move == 0 ) {
+			// Keep the best move of a previous search of this position
+			move = move( oldEntry );
+		}
+
+		long entry = ( move & 0x1FFFFL ) | ( (long) ( score + 32768 ) << 17 ) | ( (long) depth << 33 )
+				| ( (long) bound << 41 ) | ( (long) generation << 43 );
+		entries[index] = entry;
+		keys[index] = hash ^ entry;
+	}
+
+	/**
+	 * Get the best move of an entry
+	 *
+	 * @param entry - the packed entry
+	 * @return the encoded move, or 0 if none
+	 */
+	public static int move( long entry ) {
+		return (int) ( entry & 0x1FFFF );
+	}
+
+	/**
+	 * Get the score of an entry
+	 *
+	 * @param entry - the packed entry
+	 * @return the score
+	 */
+	public static int score( long entry ) {
+		return (int) ( ( entry >>> 17 ) & 0xFFFF ) - 32768;
+	}
+
+	/**
+	 * Get the depth of an entry
+	 *
+	 * @param entry - the packed entry
+	 * @return the depth searched
+	 */
+	public static int depth( long entry ) {
+		return (int) ( ( entry >>> 33 ) & 0xFF );
+	}
+
+	/**
+	 * Get the bound of an entry
+	 *
+	 * @param entry - the packed entry
+	 * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+	 */
+	public static int bound( long entry ) {
+		return (int) ( ( entry >>> 41 ) & 0x3 );
+	}
+
+	/**
+	 * Get the generation of the search that stored an entry
+	 *
+	 * @param entry - the packed entry
+	 * @return the generation
+	 */
+	private static int generation( long entry ) {
+		return (int) ( ( entry >>> 43 ) & 0xFF );
+	}
+}
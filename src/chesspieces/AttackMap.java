@@ -0,0 +1,148 @@
+package chesspieces;
+
+/**
+ * The AttackMap class keeps track of the tiles that each team attacks. It stores the attack set of the piece on every
+ * square, and after each change to the board only recomputes the attack sets of the pieces that were moved and of the
+ * sliding pieces whose lines pass through a changed tile.
+ *
+ * Sliding pieces attack through the enemy King, so a tile behind the King on the line of the attacker is still
+ * attacked. This means a King can be checked for moving onto any tile with a single lookup.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class AttackMap {
+
+	/**
+	 * The position whose attacks are tracked
+	 */
+	private final Position position;
+
+	/**
+	 * The tiles attacked by the piece on each square, or 0 for empty squares
+	 */
+	private final long[] pieceAttacks;
+
+	/**
+	 * The tiles attacked by each team
+	 */
+	private final long[] teamAttacks;
+
+	/**
+	 * Create the attack map of a position
+	 *
+	 * @param position - the position whose attacks will be tracked
+	 */
+	public AttackMap( Position position ) {
+		this.position = position;
+		pieceAttacks = new long[64];
+		teamAttacks = new long[2];
+		update( -1L );
+	}
+
+	/**
+	 * Update the attack sets after the pieces on some tiles of the position have changed
+	 *
+	 * @param changedTiles - the bitboard of tiles that had a piece added or removed
+	 */
+	public void update( long changedTiles ) {
+		// Every sliding piece whose attack set contains a changed tile may now be blocked or unblocked
+		long sliders = 0L;
+		for ( int team = 0; team < 2; team++ ) {
+			sliders |= position.getPieces( team, Position.BISHOP ) | position.getPieces( team, Position.ROOK )
+					| position.getPieces( team, Position.QUEEN );
+		}
+		long staleTiles = changedTiles;
+		for ( long remaining = sliders & ~changedTiles; remaining != 0; remaining &= remaining - 1 ) {
+			int square = Long.numberOfTrailingZeros( remaining );
+			if ( ( pieceAttacks[square] & changedTiles ) != 0 ) {
+				staleTiles |= 1L << square;
+			}
+		}
+
+		for ( long remaining = staleTiles; remaining != 0; remaining &= remaining - 1 ) {
+			int square = Long.numberOfTrailingZeros( remaining );
+			pieceAttacks[square] = computeAttacks( square );
+		}
+
+		for ( int team = 0; team < 2; team++ ) {
+			long attacks = 0L;
+			for ( long remaining = position.getOccupancy( team ); remaining != 0; remaining &= remaining - 1 ) {
+				attacks |= pieceAttacks[Long.numberOfTrailingZeros( remaining )];
+			}
+			teamAttacks[team] = attacks;
+		}
+	}
+
+	/**
+	 * Compute the attack set of the piece on a square from scratch
+	 *
+	 * @param square - the square of the piece
+	 * @return the tiles attacked by the piece, or 0 if the square is empty
+	 */
+	private long computeAttacks( int square ) {
+		int piece = position.getPiece( square );
+		if ( piece == Position.EMPTY ) {
+			return 0L;
+		}
+
+		int team = piece / 6;
+		// Sliding pieces see through the enemy King
+		long occupancy = position.getOccupancy() & ~position.getPieces( 1 - team, Position.KING );
+		switch ( piece % 6 ) {
+			case Position.PAWN:
+				return Bitboards.PAWN_ATTACKS[team][square];
+			case Position.KNIGHT:
+				return Bitboards.KNIGHT_ATTACKS[square];
+			case Position.BISHOP:
+				return Bitboards.bishopAttacks( square, occupancy );
+			case Position.ROOK:
+				return Bitboards.rookAttacks( square, occupancy );
+			case Position.QUEEN:
+				return Bitboards.queenAttacks( square, occupancy );
+			default:
+				return Bitboards.KING_ATTACKS[square];
+		}
+	}
+
+	/**
+	 * Determine if a team attacks a square
+	 *
+	 * @param square - the square
+	 * @param team   - the index of the attacking team
+	 * @return whether the team attacks the square
+	 */
+	public boolean isAttacked( int square, int team ) {
+		return ( teamAttacks[team] & ( 1L << square ) ) != 0;
+	}
+
+	/**
+	 * Get all tiles attacked by a team
+	 *
+	 * @param team - the index of the attacking team
+	 * @return the bitboard of tiles attacked by the team
+	 */
+	public long getAttacks( int team ) {
+		return teamAttacks[team];
+	}
+
+	/**
+	 * Get the pieces of a team that attack a square
+	 *
+	 * @param square - the attacked square
+	 * @param team   - the index of the attacking team
+	 * @return the bitboard of the squares of the attacking pieces
+	 */
+	public long attackersOf( int square, int team ) {
+		long attackers = 0L;
+		long tile = 1L << square;
+		for ( long remaining = position.getOccupancy( team ); remaining != 0; remaining &= remaining - 1 ) {
+			int attackerSquare = Long.numberOfTrailingZeros( remaining );
+			if ( ( pieceAttacks[attackerSquare] & tile ) != 0 ) {
+				attackers |= 1L << attackerSquare;
+			}
+		}
+		return attackers;
+	}
+}
@@ -18,7 +18,7 @@ public class Bishop extends ChessPiece {
 	 * @param selfKing - King instance of the same team
 	 * 
 	 */
-	public Bishop( ChessPiece[][] board, int row, int col, Team team, King selfKing ) {
+	public Bishop( Board board, int row, int col, Team team, King selfKing ) {
 		super( board, row, col, team, selfKing );
 	}
 	
@@ -33,10 +33,7 @@ public class Bishop extends ChessPiece {
 	@Override
 	public boolean attemptMoveTo( int targetRow, int targetCol, int currentMoveNumber ) {
 		if ( canMoveTo( targetRow, targetCol, true ) ) {
-			setLocation( targetRow, targetCol );
-			
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
+			moveTo( targetRow, targetCol, Move.NORMAL, currentMoveNumber );
 			return true;
 		}
 		else {
@@ -59,62 +56,28 @@ public class Bishop extends ChessPiece {
 			return false;
 		}
 
-		int rowChange = targetRow - getRow();
-		int colChange = targetCol - getCol();
-		if ( rowChange == 0 && colChange == 0 ) {
-			// Destination and target location are the same
+		Position position = getBoard().getPosition();
+		int square = Bitboards.square( getRow(), getCol() );
+		// Tiles along the Bishop's diagonals, up to and including the first piece in each direction, excluding tiles
+		// occupied by a piece of the same team
+		long targets = Bitboards.bishopAttacks( square, position.getOccupancy() )
+				& ~position.getOccupancy( Bitboards.index( getTeam() ) );
+		if ( ( targets & Bitboards.bit( targetRow, targetCol ) ) == 0 ) {
 			return false;
 		}
+		return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
+	}
 
-		if ( Math.abs( rowChange ) == Math.abs( colChange ) ) {
-			ChessPiece targetPiece = getBoard()[targetRow][targetCol];
-			// Cannot move onto a piece of the same team, and cannot move onto a position that will put it in check
-			if ( targetPiece != null && targetPiece.getTeam() == getTeam() ) {
-				return false;
-			}
-
-			int currentRow = getRow();
-			int currentCol = getCol();
-			// Advance one space towards target location
-			if ( currentRow < targetRow ) {
-				currentRow++;
-			}
-			else if ( currentRow > targetRow ) {
-				currentRow--;
-			}
-			if ( currentCol < targetCol ) {
-				currentCol++;
-			}
-			else if ( currentCol > targetCol ) {
-				currentCol--;
-			}
-			
-			// Check each tile along the Bishop's path to target destination
-			while ( currentRow != targetRow || currentCol != targetCol ) {
-				if ( getBoard()[currentRow][currentCol] != null && getBoard()[currentRow][currentCol] != this ) {
-					// Path to target destination is obstructed by friendly or enemy piece
-					return false;
-				}
-
-				// Advance towards target location
-				if ( currentRow < targetRow ) {
-					currentRow++;
-				}
-				else if ( currentRow > targetRow ) {
-					currentRow--;
-				}
-				if ( currentCol < targetCol ) {
-					currentCol++;
-				}
-				else if ( currentCol > targetCol ) {
-					currentCol--;
-				}
-			}
-			return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
-		}
-		return false;
+	/**
+	 * Get the type of the chess piece
+	 * 
+	 * @return {@link PieceType#BISHOP}
+	 */
+	@Override
+	public PieceType getType() {
+		return PieceType.BISHOP;
 	}
-	
+
 	/**
 	 * Returns a String representation of Bishop along with its team
 	 * @return a String representation of Bishop along with its team
@@ -0,0 +1,377 @@
+package chesspieces;
+
+/**
+ * The Bitboards class holds the precomputed attack tables and helper methods used to work with bitboards. A bitboard
+ * is a 64-bit long where bit (row * 8 + col) represents the tile [row, col] of the chessboard, using the same row and
+ * column indices as the rest of the game (row 0 is rank 8, column 0 is file a).
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class Bitboards {
+
+	/**
+	 * Index of the white team in arrays indexed by team
+	 */
+	public static final int WHITE = 0;
+
+	/**
+	 * Index of the black team in arrays indexed by team
+	 */
+	public static final int BLACK = 1;
+
+	/**
+	 * The squares that a Knight on each square attacks
+	 */
+	public static final long[] KNIGHT_ATTACKS = new long[64];
+
+	/**
+	 * The squares that a King on each square attacks
+	 */
+	public static final long[] KING_ATTACKS = new long[64];
+
+	/**
+	 * The squares that a Pawn of each team on each square attacks, indexed by [team][square]
+	 */
+	public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+	/**
+	 * The white tiles of the board, starting with a8 in the top left corner
+	 */
+	public static final long WHITE_TILES = 0xAA55AA55AA55AA55L;
+
+	/**
+	 * The tiles strictly between two squares on the same rank, file or diagonal, or 0 if the squares are not aligned,
+	 * indexed by [square][square]
+	 */
+	public static final long[][] BETWEEN = new long[64][64];
+
+	/**
+	 * The whole rank, file or diagonal through two squares (from edge to edge of the board), or 0 if the squares are
+	 * not aligned, indexed by [square][square]
+	 */
+	public static final long[][] LINE = new long[64][64];
+
+	/**
+	 * The magic multipliers of the Rook attack tables, indexed by square. Each maps every occupancy of the square's
+	 * mask to an index without two occupancies with different attacks colliding. They were found by a random search
+	 * over sparse numbers for this square numbering, with row 0 as rank 8
+	 */
+	private static final long[] ROOK_MAGICS = {
+			0x0080136080004000L, 0x00C0100040002000L, 0x0300104088A00300L, 0x0880080004801000L,
+			0x1200100804200200L, 0x2200080102001004L, 0x2080308002004100L, 0x0200051484002042L,
+			0x4808800887604000L, 0x10014000E01000C4L, 0x0053001300200140L, 0x1001808018001000L,
+			0x0022001006000820L, 0x0022000200108804L, 0x0001000100040200L, 0x0002000041008204L,
+			0x100C208000401080L, 0x4010004040002010L, 0x5030018020008011L, 0x0080090010002100L,
+			0x8010050008010090L, 0x0202010100080400L, 0x010124000F029018L, 0x0000020000841061L,
+			0x000080228002C002L, 0x0180400080200080L, 0x0E04401100200101L, 0x00A0080480100080L,
+			0x0028008280040008L, 0x0200020080040080L, 0x1101000100020004L, 0x2003004200040081L,
+			0x8040004028800087L, 0x0508401004402000L, 0x0410001880802000L, 0x0110004400400800L,
+			0x8014000800808004L, 0x0005020080800400L, 0x0C20900204000188L, 0x0401204402000881L,
+			0x0C80004100810022L, 0x1900402010004001L, 0x0C10080024002000L, 0x0000201001030009L,
+			0x0A20040008008080L, 0x0442000810020004L, 0x83D2100881040042L, 0x0C10158069020004L,
+			0x0100800100204100L, 0x0282200040100640L, 0x0090422001001900L, 0x8010002100091500L,
+			0x4040040008008280L, 0x4001001400080300L, 0x3040020128108400L, 0x2008040C80510200L,
+			0x820902E0D4800041L, 0x9420190040008021L, 0x010413082000C101L, 0x0004100005002109L,
+			0x1112000820100402L, 0x0441000208040001L, 0x0482009002410804L, 0x0002041240248102L };
+
+	/**
+	 * The magic multipliers of the Bishop attack tables, indexed by square
+	 */
+	private static final long[] BISHOP_MAGICS = {
+			0x20E0040D22043200L, 0x0404100A08430000L, 0x0021020082012010L, 0x0102408100000800L,
+			0x8042121040008000L, 0x0060821040400D0AL, 0x4006580808188001L, 0x08A0D20610024815L,
+			0x0424400501022200L, 0x88411002A8010022L, 0xA100100102102420L, 0x9000292042000228L,
+			0x8021420210204205L, 0x0000011002104040L, 0x0000008804422200L, 0x00288200A6211000L,
+			0x0020A11020020090L, 0x0210A12004008080L, 0x0011001000520142L, 0x000800C40C10B022L,
+			0x008200240121000CL, 0x0400804808240200L, 0x1048842908D01002L, 0x9001100021081210L,
+			0x0C119000C8200100L, 0x08100800120A9C00L, 0x0004010010010020L, 0x0004040040410200L,
+			0x0020840280802000L, 0x0500820000221000L, 0x0402120400481A24L, 0x0020A02000820800L,
+			0x0021080814612040L, 0x014C044300200200L, 0x8200108800100050L, 0x20A0420280480080L,
+			0x00140840101C0100L, 0x0620042100002080L, 0x01020200400C0410L, 0x0088004043010108L,
+			0x2048013012000812L, 0x1000520220015020L, 0x1002218020801000L, 0x4002120202030423L,
+			0x200002020A012400L, 0x184010130240020AL, 0x0004010802040112L, 0x0C10040048801040L,
+			0x0000540220910081L, 0x0C82004218840000L, 0x00000C4200908000L, 0x2000020042020000L,
+			0x1001010460820000L, 0x4040400801810016L, 0xC008020808012200L, 0x2A42104200850200L,
+			0x0208210110012001L, 0xC000002101101080L, 0x0002028202016402L, 0x0200200231040900L,
+			0x0080000310020210L, 0x4704044184040C22L, 0x2020420408008100L, 0x0208812800850203L };
+
+	/**
+	 * The tiles whose occupancy can block a Rook on each square: its rank and file, without the square itself and
+	 * without the tiles at the edge of the board, as a piece there blocks nothing behind it
+	 */
+	private static final long[] ROOK_MASKS = new long[64];
+
+	/**
+	 * The tiles whose occupancy can block a Bishop on each square, without the tiles at the edge of the board
+	 */
+	private static final long[] BISHOP_MASKS = new long[64];
+
+	/**
+	 * The right shift of the product of the masked occupancy and the magic of each square, which is 64 minus the
+	 * number of tiles of the mask
+	 */
+	private static final int[] ROOK_SHIFTS = new int[64], BISHOP_SHIFTS = new int[64];
+
+	/**
+	 * The index of the first entry of each square in the attack tables
+	 */
+	private static final int[] ROOK_OFFSETS = new int[64], BISHOP_OFFSETS = new int[64];
+
+	/**
+	 * The Rook attacks of every square and every occupancy of its mask, one block of 2^(mask tiles) entries per
+	 * square (102400 entries in all)
+	 */
+	private static final long[] ROOK_TABLE;
+
+	/**
+	 * The Bishop attacks of every square and every occupancy of its mask (5248 entries in all)
+	 */
+	private static final long[] BISHOP_TABLE;
+
+	/**
+	 * The tiles of rows 0 and 7 and of columns 0 and 7
+	 */
+	private static final long ROW_EDGES = 0xFF000000000000FFL, COL_EDGES = 0x8181818181818181L;
+
+	static {
+		int[][] knightSteps = { { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 } };
+		int[][] kingSteps = { { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 } };
+
+		for ( int square = 0; square < 64; square++ ) {
+			int row = row( square );
+			int col = col( square );
+
+			for ( int[] step : knightSteps ) {
+				KNIGHT_ATTACKS[square] |= bitIfOnBoard( row + step[0], col + step[1] );
+			}
+			for ( int[] step : kingSteps ) {
+				KING_ATTACKS[square] |= bitIfOnBoard( row + step[0], col + step[1] );
+			}
+
+			// White pawns move towards row 0, black pawns move towards row 7
+			PAWN_ATTACKS[WHITE][square] = bitIfOnBoard( row - 1, col - 1 ) | bitIfOnBoard( row - 1, col + 1 );
+			PAWN_ATTACKS[BLACK][square] = bitIfOnBoard( row + 1, col - 1 ) | bitIfOnBoard( row + 1, col + 1 );
+
+			for ( int[] step : kingSteps ) {
+				// The line through the square in this direction, from edge to edge
+				long line = ( 1L << square ) | slide( square, 0L, step[0], step[1] )
+						| slide( square, 0L, -step[0], -step[1] );
+				long between = 0L;
+				int targetRow = row + step[0];
+				int targetCol = col + step[1];
+				while ( targetRow >= 0 && targetRow < 8 && targetCol >= 0 && targetCol < 8 ) {
+					int target = square( targetRow, targetCol );
+					BETWEEN[square][target] = between;
+					LINE[square][target] = line;
+					between |= 1L << target;
+					targetRow += step[0];
+					targetCol += step[1];
+				}
+			}
+		}
+
+		int rookSize = 0;
+		int bishopSize = 0;
+		for ( int square = 0; square < 64; square++ ) {
+			ROOK_MASKS[square] = ( ( slide( square, 0L, -1, 0 ) | slide( square, 0L, 1, 0 ) ) & ~ROW_EDGES )
+					| ( ( slide( square, 0L, 0, -1 ) | slide( square, 0L, 0, 1 ) ) & ~COL_EDGES );
+			BISHOP_MASKS[square] = slidingAttacks( square, 0L, false ) & ~( ROW_EDGES | COL_EDGES );
+			ROOK_SHIFTS[square] = 64 - Long.bitCount( ROOK_MASKS[square] );
+			BISHOP_SHIFTS[square] = 64 - Long.bitCount( BISHOP_MASKS[square] );
+			ROOK_OFFSETS[square] = rookSize;
+			BISHOP_OFFSETS[square] = bishopSize;
+			rookSize += 1 << ( 64 - ROOK_SHIFTS[square] );
+			bishopSize += 1 << ( 64 - BISHOP_SHIFTS[square] );
+		}
+		ROOK_TABLE = new long[rookSize];
+		BISHOP_TABLE = new long[bishopSize];
+		for ( int square = 0; square < 64; square++ ) {
+			fillAttacks( ROOK_TABLE, ROOK_OFFSETS[square], square, ROOK_MASKS[square], ROOK_MAGICS[square],
+					ROOK_SHIFTS[square], true );
+			fillAttacks( BISHOP_TABLE, BISHOP_OFFSETS[square], square, BISHOP_MASKS[square], BISHOP_MAGICS[square],
+					BISHOP_SHIFTS[square], false );
+		}
+	}
+
+	private Bitboards() {
+	}
+
+	/**
+	 * Get the square index of [row, col]
+	 *
+	 * @param row - the row of the tile
+	 * @param col - the column of the tile
+	 * @return the square index of the tile, between 0 and 63
+	 */
+	public static int square( int row, int col ) {
+		return row * 8 + col;
+	}
+
+	/**
+	 * Get the row of a square index
+	 *
+	 * @param square - the square index
+	 * @return the row of the square
+	 */
+	public static int row( int square ) {
+		return square >>> 3;
+	}
+
+	/**
+	 * Get the column of a square index
+	 *
+	 * @param square - the square index
+	 * @return the column of the square
+	 */
+	public static int col( int square ) {
+		return square & 7;
+	}
+
+	/**
+	 * Get the bitboard with only the tile [row, col] set
+	 *
+	 * @param row - the row of the tile
+	 * @param col - the column of the tile
+	 * @return the bitboard with only [row, col] set
+	 */
+	public static long bit( int row, int col ) {
+		return 1L << square( row, col );
+	}
+
+	/**
+	 * Get the bitboard with only the tile [row, col] set, or an empty bitboard if the tile is out of bounds
+	 *
+	 * @param row - the row of the tile
+	 * @param col - the column of the tile
+	 * @return the bitboard with only [row, col] set, or 0 if [row, col] is not on the board
+	 */
+	private static long bitIfOnBoard( int row, int col ) {
+		if ( row < 0 || row >= 8 || col < 0 || col >= 8 ) {
+			return 0L;
+		}
+		return bit( row, col );
+	}
+
+	/**
+	 * Get the index of the team in arrays indexed by team
+	 *
+	 * @param team - the team
+	 * @return {@link #WHITE} or {@link #BLACK}
+	 */
+	public static int index( Team team ) {
+		return team == Team.WHITE ? WHITE : BLACK;
+	}
+
+	/**
+	 * Get the squares a Rook on the square attacks, stopping at (and including) the first occupied tile in each
+	 * direction
+	 *
+	 * @param square    - the square of the Rook
+	 * @param occupancy - the bitboard of all occupied tiles
+	 * @return the bitboard of squares attacked by the Rook
+	 */
+	public static long rookAttacks( int square, long occupancy ) {
+		return ROOK_TABLE[ROOK_OFFSETS[square] + (int) ( ( ( occupancy & ROOK_MASKS[square] )
+				* ROOK_MAGICS[square] ) >>> ROOK_SHIFTS[square] )];
+	}
+
+	/**
+	 * Get the squares a Bishop on the square attacks, stopping at (and including) the first occupied tile in each
+	 * direction
+	 *
+	 * @param square    - the square of the Bishop
+	 * @param occupancy - the bitboard of all occupied tiles
+	 * @return the bitboard of squares attacked by the Bishop
+	 */
+	public static long bishopAttacks( int square, long occupancy ) {
+		return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) ( ( ( occupancy & BISHOP_MASKS[square] )
+				* BISHOP_MAGICS[square] ) >>> BISHOP_SHIFTS[square] )];
+	}
+
+	/**
+	 * Get the squares a Queen on the square attacks, stopping at (and including) the first occupied tile in each
+	 * direction
+	 *
+	 * @param square    - the square of the Queen
+	 * @param occupancy - the bitboard of all occupied tiles
+	 * @return the bitboard of squares attacked by the Queen
+	 */
+	public static long queenAttacks( int square, long occupancy ) {
+		return rookAttacks( square, occupancy ) | bishopAttacks( square, occupancy );
+	}
+
+	/**
+	 * Get the number of entries of the Rook and Bishop attack tables
+	 *
+	 * @return the number of longs in the attack tables
+	 */
+	public static int getAttackTableSize() {
+		return ROOK_TABLE.length + BISHOP_TABLE.length;
+	}
+
+	/**
+	 * Fill the block of a square in an attack table with the attacks of every occupancy of the square's mask, walking
+	 * through the subsets of the mask with the carry-rippler trick
+	 *
+	 * @param table  - the attack table
+	 * @param offset - the index of the square's first entry
+	 * @param square - the square
+	 * @param mask   - the tiles whose occupancy can block the piece
+	 * @param magic  - the magic multiplier of the square
+	 * @param shift  - the right shift of the product
+	 * @param isRook - whether the table is of a Rook rather than a Bishop
+	 */
+	private static void fillAttacks( long[] table, int offset, int square, long mask, long magic, int shift,
+			boolean isRook ) {
+		long subset = 0L;
+		do {
+			table[offset + (int) ( ( subset * magic ) >>> shift )] = slidingAttacks( square, subset, isRook );
+			subset = ( subset - mask ) & mask;
+		} while ( subset != 0 );
+	}
+
+	/**
+	 * Get the squares a Rook or Bishop on the square attacks by walking along its lines, which is how the attack tables
+	 * are filled
+	 *
+	 * @param square    - the square of the piece
+	 * @param occupancy - the bitboard of all occupied tiles
+	 * @param isRook    - whether the piece moves like a Rook rather than a Bishop
+	 * @return the bitboard of squares attacked by the piece
+	 */
+	private static long slidingAttacks( int square, long occupancy, boolean isRook ) {
+		if ( isRook ) {
+			return slide( square, occupancy, -1, 0 ) | slide( square, occupancy, 1, 0 )
+					| slide( square, occupancy, 0, -1 ) | slide( square, occupancy, 0, 1 );
+		}
+		return slide( square, occupancy, -1, -1 ) | slide( square, occupancy, -1, 1 )
+				| slide( square, occupancy, 1, -1 ) | slide( square, occupancy, 1, 1 );
+	}
+
+	/**
+	 * Walk from the square in one direction until the edge of the board or an occupied tile is reached
+	 *
+	 * @param square    - the starting square
+	 * @param occupancy - the bitboard of all occupied tiles
+	 * @param rowStep   - the row change of each step
+	 * @param colStep   - the column change of each step
+	 * @return the bitboard of the tiles walked over, including the blocking tile
+	 */
+	private static long slide( int square, long occupancy, int rowStep, int colStep ) {
+		long attacks = 0L;
+		int row = row( square ) + rowStep;
+		int col = col( square ) + colStep;
+		while ( row >= 0 && row < 8 && col >= 0 && col < 8 ) {
+			long tile = bit( row, col );
+			attacks |= tile;
+			if ( ( occupancy & tile ) != 0 ) {
+				break;
+			}
+			row += rowStep;
+			col += colStep;
+		}
+		return attacks;
+	}
+}
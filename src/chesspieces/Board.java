@@ -0,0 +1,645 @@
+package chesspieces;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Board class is the chessboard that the chess pieces reside in. It keeps the grid of ChessPiece objects used by
+ * the game, and mirrors every change to it in a bitboard {@link Position} that the pieces query when validating moves.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Board {
+
+	/**
+	 * The number of moves that can be undone before the undo stack has to grow
+	 */
+	private static final int INITIAL_UNDO_CAPACITY = 256;
+
+	/**
+	 * The most chess pieces of one team and type that can be on the board, which is at most the 16 pieces of a team
+	 */
+	private static final int MAX_PIECES_PER_TYPE = 16;
+
+	/**
+	 * The chess pieces on the board, indexed by [row][col]
+	 */
+	private final ChessPiece[][] squares;
+
+	/**
+	 * The bitboard representation of the pieces on the board
+	 */
+	private final Position position;
+
+	/**
+	 * The tiles attacked by each team, updated after every change to the board
+	 */
+	private final AttackMap attackMap;
+
+	/**
+	 * The chess pieces on the board of each team and type, indexed by [team * 6 + type][i] like the encoded pieces of
+	 * a {@link Position}, and the number of pieces in each list. Updated whenever a piece is put on or removed from the
+	 * board, so a team's King and pieces are found without searching the grid
+	 */
+	private final ChessPiece[][] pieceLists = new ChessPiece[12][MAX_PIECES_PER_TYPE];
+	private final int[] pieceListSizes = new int[12];
+
+	/**
+	 * The undo stack: for each move made with {@link #makeMove(int, int)}, the encoded move, the chess piece that
+	 * moved, the captured chess piece (or null), the move counters of the moving piece and of the castling Rook before
+	 * the move, and the castling rights and en passant square before the move
+	 */
+	private int[] undoMoves = new int[INITIAL_UNDO_CAPACITY];
+	private ChessPiece[] undoMovers = new ChessPiece[INITIAL_UNDO_CAPACITY];
+	private ChessPiece[] undoCaptured = new ChessPiece[INITIAL_UNDO_CAPACITY];
+	private int[] undoLastMoveNumbers = new int[INITIAL_UNDO_CAPACITY];
+	private int[] undoRookLastMoveNumbers = new int[INITIAL_UNDO_CAPACITY];
+	private int[] undoCastlingRights = new int[INITIAL_UNDO_CAPACITY];
+	private int[] undoEnPassantSquares = new int[INITIAL_UNDO_CAPACITY];
+
+	/**
+	 * The number of moves on the undo stack
+	 */
+	private int undoSize;
+
+	/**
+	 * The legal moves of the team to move, and whether that team is in check, computed once per position and kept
+	 * until the position changes
+	 */
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+	private int numLegalMoves;
+	private boolean isTeamToMoveInCheck;
+
+	/**
+	 * Whether the legal moves are up to date, and the hash of the position they were computed for. The board clears the
+	 * flag whenever it changes the position, and the hash catches changes made to the position directly
+	 */
+	private boolean isLegalMovesCached;
+	private long legalMovesHash;
+
+	/**
+	 * Create an empty chessboard
+	 */
+	public Board() {
+		squares = new ChessPiece[8][8];
+		position = new Position();
+		attackMap = new AttackMap( position );
+	}
+
+	/**
+	 * Get the chess piece at [row, col]
+	 *
+	 * @param row - the row of the tile
+	 * @param col - the column of the tile
+	 * @return the chess piece at [row, col], or null if the tile is empty
+	 */
+	public ChessPiece getPiece( int row, int col ) {
+		return squares[row][col];
+	}
+
+	/**
+	 * Get the King of a team
+	 *
+	 * @param team - the team
+	 * @return the King of the team, or null if it is not on the board
+	 */
+	public King getKing( Team team ) {
+		int list = Bitboards.index( team ) * 6 + Position.KING;
+		return pieceListSizes[list] == 0 ? null : (King) pieceLists[list][0];
+	}
+
+	/**
+	 * Get the number of chess pieces of a team and type on the board
+	 *
+	 * @param team - the team
+	 * @param type - the type of chess piece
+	 * @return the number of such pieces
+	 */
+	public int getPieceCount( Team team, PieceType type ) {
+		return pieceListSizes[Bitboards.index( team ) * 6 + type.ordinal()];
+	}
+
+	/**
+	 * Get a chess piece of a team and type on the board. The order of the pieces changes as pieces are captured and
+	 * put back
+	 *
+	 * @param team  - the team
+	 * @param type  - the type of chess piece
+	 * @param index - the index of the piece, from 0 to {@link #getPieceCount(Team, PieceType)} - 1
+	 * @return the chess piece
+	 */
+	public ChessPiece getPiece( Team team, PieceType type, int index ) {
+		int list = Bitboards.index( team ) * 6 + type.ordinal();
+		if ( index < 0 || index >= pieceListSizes[list] ) {
+			throw new IndexOutOfBoundsException( "No piece " + index + " of " + pieceListSizes[list] );
+		}
+		return pieceLists[list][index];
+	}
+
+	/**
+	 * Get the bitboard representation of the board
+	 *
+	 * @return the bitboard representation of the board
+	 */
+	public Position getPosition() {
+		return position;
+	}
+
+	/**
+	 * Get the Zobrist hash of the board, which identifies the pieces on it, the team to move, the castling rights and
+	 * the en passant square
+	 *
+	 * @return the hash of the board
+	 */
+	public long getHash() {
+		return position.getHash();
+	}
+
+	/**
+	 * Score the board for the team to move with {@link Evaluation}. The material and square bonuses are kept up to date
+	 * as chess pieces move, capture and promote, so only mobility and King safety are worked out
+	 *
+	 * @return the score in centipawns, positive if the team to move is better
+	 */
+	public int evaluate() {
+		return Evaluation.evaluate( position );
+	}
+
+	/**
+	 * Get the tiles attacked by each team
+	 *
+	 * @return the attack map of the board
+	 */
+	public AttackMap getAttackMap() {
+		return attackMap;
+	}
+
+	/**
+	 * Get the chess pieces of a team that attack [row, col]
+	 *
+	 * @param row  - the row of the tile
+	 * @param col  - the column of the tile
+	 * @param team - the attacking team
+	 * @return the chess pieces of the team attacking [row, col]
+	 */
+	public List<ChessPiece> getAttackers( int row, int col, Team team ) {
+		List<ChessPiece> attackers = new ArrayList<ChessPiece>();
+		long attackerSquares = attackMap.attackersOf( Bitboards.square( row, col ), Bitboards.index( team ) );
+		for ( ; attackerSquares != 0; attackerSquares &= attackerSquares - 1 ) {
+			int square = Long.numberOfTrailingZeros( attackerSquares );
+			attackers.add( squares[Bitboards.row( square )][Bitboards.col( square )] );
+		}
+		return attackers;
+	}
+
+	/**
+	 * Put a chess piece at [row, col], capturing any piece already there. The piece must not already be somewhere
+	 * else on the board.
+	 *
+	 * @param piece - the chess piece to put on the board
+	 * @param row   - the row of the tile
+	 * @param col   - the column of the tile
+	 */
+	public void occupy( ChessPiece piece, int row, int col ) {
+		ChessPiece capturedPiece = squares[row][col];
+		if ( capturedPiece != null ) {
+			capturedPiece.updateCoordinates( -1, -1 );
+			removeFromPieceList( capturedPiece );
+		}
+		addToPieceList( piece );
+
+		int square = Bitboards.square( row, col );
+		position.remove( square );
+		position.put( Bitboards.index( piece.getTeam() ), piece.getType().ordinal(), square );
+		squares[row][col] = piece;
+		piece.updateCoordinates( row, col );
+		attackMap.update( 1L << square );
+		isLegalMovesCached = false;
+	}
+
+	/**
+	 * Remove the chess piece at [row, col], if any
+	 *
+	 * @param row - the row of the tile
+	 * @param col - the column of the tile
+	 */
+	public void vacate( int row, int col ) {
+		ChessPiece removedPiece = squares[row][col];
+		if ( removedPiece != null ) {
+			removedPiece.updateCoordinates( -1, -1 );
+			removeFromPieceList( removedPiece );
+		}
+
+		int square = Bitboards.square( row, col );
+		position.remove( square );
+		squares[row][col] = null;
+		attackMap.update( 1L << square );
+		isLegalMovesCached = false;
+	}
+
+	/**
+	 * Add a chess piece to the end of the list of its team and type
+	 *
+	 * @param piece - the chess piece, which must not be on the board
+	 */
+	private void addToPieceList( ChessPiece piece ) {
+		int list = Bitboards.index( piece.getTeam() ) * 6 + piece.getType().ordinal();
+		piece.pieceListIndex = pieceListSizes[list];
+		pieceLists[list][pieceListSizes[list]++] = piece;
+	}
+
+	/**
+	 * Remove a chess piece from the list of its team and type, moving the last piece of the list into its place
+	 *
+	 * @param piece - the chess piece, which must be on the board
+	 */
+	private void removeFromPieceList( ChessPiece piece ) {
+		int list = Bitboards.index( piece.getTeam() ) * 6 + piece.getType().ordinal();
+		ChessPiece last = pieceLists[list][--pieceListSizes[list]];
+		pieceLists[list][piece.pieceListIndex] = last;
+		last.pieceListIndex = piece.pieceListIndex;
+		pieceLists[list][pieceListSizes[list]] = null;
+	}
+
+	/**
+	 * Make a move in the game: move the chess piece, capture, move the Rook when castling, promote, update the move
+	 * counters of the pieces that moved, and update the castling rights, en passant square and team to move. The move
+	 * can be taken back with {@link #unmakeMove()}. Nothing is allocated, except the first time a Pawn promotes to a
+	 * type of piece, or when more moves are made than the undo stack has room for. Precondition: the move is legal
+	 *
+	 * @param move              - the encoded move
+	 * @param currentMoveNumber - move number of the current move in the game
+	 */
+	public void makeMove( int move, int currentMoveNumber ) {
+		int from = Move.from( move );
+		int to = Move.to( move );
+		int fromRow = Bitboards.row( from );
+		int fromCol = Bitboards.col( from );
+		int toRow = Bitboards.row( to );
+		int toCol = Bitboards.col( to );
+		ChessPiece mover = squares[fromRow][fromCol];
+		ChessPiece captured = squares[toRow][toCol];
+		if ( Move.kind( move ) == Move.EN_PASSANT ) {
+			// The captured Pawn is beside the moving Pawn
+			captured = squares[fromRow][toCol];
+		}
+
+		if ( undoSize == undoMoves.length ) {
+			growUndoStack();
+		}
+		undoMoves[undoSize] = move;
+		undoMovers[undoSize] = mover;
+		undoCaptured[undoSize] = captured;
+		undoLastMoveNumbers[undoSize] = mover.getLastMoveNumber();
+		undoCastlingRights[undoSize] = position.getCastlingRights();
+		undoEnPassantSquares[undoSize] = position.getEnPassantSquare();
+
+		if ( Move.kind( move ) == Move.EN_PASSANT ) {
+			vacate( fromRow, toCol );
+		}
+		else if ( Move.kind( move ) == Move.CASTLE ) {
+			// The Rook moves from its corner to the other side of the King
+			ChessPiece rook = squares[fromRow][toCol == 6 ? 7 : 0];
+			undoRookLastMoveNumbers[undoSize] = rook.getLastMoveNumber();
+			vacate( fromRow, toCol == 6 ? 7 : 0 );
+			occupy( rook, fromRow, toCol == 6 ? 5 : 3 );
+			rook.incrementNumMoves();
+			rook.setLastMoveNumber( currentMoveNumber );
+		}
+		undoSize++;
+
+		vacate( fromRow, fromCol );
+		occupy( mover, toRow, toCol );
+		mover.incrementNumMoves();
+		mover.setLastMoveNumber( currentMoveNumber );
+		if ( Move.promotion( move ) != Move.NONE ) {
+			( (Pawn) mover ).placePromotionPiece( Move.promotion( move ) );
+		}
+
+		completeMove( mover, fromRow, fromCol );
+	}
+
+	/**
+	 * Take back the last move made with {@link #makeMove(int, int)}, restoring the captured chess piece, the move
+	 * counters, the castling rights, the en passant square and the team to move
+	 */
+	public void unmakeMove() {
+		undoSize--;
+		int move = undoMoves[undoSize];
+		ChessPiece mover = undoMovers[undoSize];
+		ChessPiece captured = undoCaptured[undoSize];
+		int fromRow = Bitboards.row( Move.from( move ) );
+		int fromCol = Bitboards.col( Move.from( move ) );
+		int toRow = Bitboards.row( Move.to( move ) );
+		int toCol = Bitboards.col( Move.to( move ) );
+		// Release the references, so that captured pieces are not kept alive by the stack
+		undoMovers[undoSize] = null;
+		undoCaptured[undoSize] = null;
+
+		// Removing the piece on the target tile also removes the piece a Pawn promoted to
+		vacate( toRow, toCol );
+		occupy( mover, fromRow, fromCol );
+		mover.setNumMoves( mover.getNumMoves() - 1 );
+		mover.setLastMoveNumber( undoLastMoveNumbers[undoSize] );
+
+		if ( Move.kind( move ) == Move.EN_PASSANT ) {
+			occupy( captured, fromRow, toCol );
+		}
+		else if ( captured != null ) {
+			occupy( captured, toRow, toCol );
+		}
+
+		if ( Move.kind( move ) == Move.CASTLE ) {
+			ChessPiece rook = squares[fromRow][toCol == 6 ? 5 : 3];
+			vacate( fromRow, toCol == 6 ? 5 : 3 );
+			occupy( rook, fromRow, toCol == 6 ? 7 : 0 );
+			rook.setNumMoves( rook.getNumMoves() - 1 );
+			rook.setLastMoveNumber( undoRookLastMoveNumbers[undoSize] );
+		}
+
+		position.setCastlingRights( undoCastlingRights[undoSize] );
+		position.setEnPassantSquare( undoEnPassantSquares[undoSize] );
+		position.setSideToMove( Bitboards.index( mover.getTeam() ) );
+		isLegalMovesCached = false;
+	}
+
+	/**
+	 * Promote the Pawn that made the last move, as if the promotion had been part of that move, so that
+	 * {@link #unmakeMove()} also takes back the promotion
+	 *
+	 * @param pawn - the Pawn that made the last move, which must be on its last row
+	 * @param type - the type of piece to promote to, e.g. {@link Position#QUEEN}
+	 */
+	void promoteLastMove( Pawn pawn, int type ) {
+		if ( undoSize > 0 && undoMovers[undoSize - 1] == pawn ) {
+			int move = undoMoves[undoSize - 1];
+			undoMoves[undoSize - 1] = Move.encode( Move.from( move ), Move.to( move ), type, Move.kind( move ) );
+		}
+		pawn.placePromotionPiece( type );
+	}
+
+	/**
+	 * Get the last move made with {@link #makeMove(int, int)} that has not been taken back, including its promotion
+	 *
+	 * @return the encoded move, or -1 if there is no such move
+	 */
+	public int getLastMove() {
+		return undoSize > 0 ? undoMoves[undoSize - 1] : -1;
+	}
+
+	/**
+	 * Get the number of moves that can be taken back with {@link #unmakeMove()}
+	 *
+	 * @return the number of moves on the undo stack
+	 */
+	public int getUndoSize() {
+		return undoSize;
+	}
+
+	/**
+	 * Double the room of the undo stack
+	 */
+	private void growUndoStack() {
+		int capacity = undoMoves.length * 2;
+		undoMoves = Arrays.copyOf( undoMoves, capacity );
+		undoMovers = Arrays.copyOf( undoMovers, capacity );
+		undoCaptured = Arrays.copyOf( undoCaptured, capacity );
+		undoLastMoveNumbers = Arrays.copyOf( undoLastMoveNumbers, capacity );
+		undoRookLastMoveNumbers = Arrays.copyOf( undoRookLastMoveNumbers, capacity );
+		undoCastlingRights = Arrays.copyOf( undoCastlingRights, capacity );
+		undoEnPassantSquares = Arrays.copyOf( undoEnPassantSquares, capacity );
+	}
+
+	/**
+	 * Get the number of legal moves of the team to move
+	 *
+	 * @return the number of legal moves
+	 */
+	public int getLegalMoveCount() {
+		updateLegalMoves();
+		return numLegalMoves;
+	}
+
+	/**
+	 * Get a legal move of the team to move
+	 *
+	 * @param index - the index of the move, from 0 to {@link #getLegalMoveCount()} - 1
+	 * @return the encoded move
+	 */
+	public int getLegalMove( int index ) {
+		updateLegalMoves();
+		return legalMoves[index];
+	}
+
+	/**
+	 * Find the legal move of the team to move between two tiles
+	 *
+	 * @param from      - the square moved from
+	 * @param to        - the square moved to
+	 * @param promotion - the piece type a Pawn promotes to with the move, or {@link Move#NONE}
+	 * @return the encoded move, including whether it castles or captures en passant, or -1 if the move is illegal
+	 */
+	public int findLegalMove( int from, int to, int promotion ) {
+		updateLegalMoves();
+		for ( int i = 0; i < numLegalMoves; i++ ) {
+			int move = legalMoves[i];
+			if ( Move.from( move ) == from && Move.to( move ) == to && Move.promotion( move ) == promotion ) {
+				return move;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Determine if the team to move is in check
+	 *
+	 * @return whether the King of the team to move is attacked
+	 */
+	public boolean isInCheck() {
+		updateLegalMoves();
+		return isTeamToMoveInCheck;
+	}
+
+	/**
+	 * Determine if the team to move is in checkmate
+	 *
+	 * @return whether the team to move is in check and has no legal move
+	 */
+	public boolean isCheckmate() {
+		updateLegalMoves();
+		return isTeamToMoveInCheck && numLegalMoves == 0;
+	}
+
+	/**
+	 * Determine if the team to move is in stalemate
+	 *
+	 * @return whether the team to move is not in check but has no legal move
+	 */
+	public boolean isStalemate() {
+		updateLegalMoves();
+		return !isTeamToMoveInCheck && numLegalMoves == 0;
+	}
+
+	/**
+	 * Compute the legal moves of the team to move, unless they are already known for the current position
+	 */
+	private void updateLegalMoves() {
+		if ( isLegalMovesCached && legalMovesHash == position.getHash() ) {
+			return;
+		}
+		numLegalMoves = MoveGenerator.generateLegalMoves( position, legalMoves );
+		isTeamToMoveInCheck = MoveGenerator.isInCheck( position, position.getSideToMove() );
+		legalMovesHash = position.getHash();
+		isLegalMovesCached = true;
+	}
+
+	/**
+	 * Update the castling rights, en passant square and team to move after a chess piece has finished a move in the
+	 * game
+	 *
+	 * @param piece       - the chess piece that moved (the King when castling)
+	 * @param previousRow - the row the chess piece moved from
+	 * @param previousCol - the column the chess piece moved from
+	 */
+	public void completeMove( ChessPiece piece, int previousRow, int previousCol ) {
+		int team = Bitboards.index( piece.getTeam() );
+		int enPassantSquare = -1;
+		if ( piece instanceof Pawn && Math.abs( piece.getRow() - previousRow ) == 2 ) {
+			// Only record the skipped tile if an enemy Pawn is next to the Pawn to capture it
+			int skippedSquare = Bitboards.square( ( piece.getRow() + previousRow ) / 2, previousCol );
+			long enemyPawns = position.getPieces( 1 - team, Position.PAWN );
+			if ( ( Bitboards.PAWN_ATTACKS[team][skippedSquare] & enemyPawns ) != 0 ) {
+				enPassantSquare = skippedSquare;
+			}
+		}
+
+		position.setEnPassantSquare( enPassantSquare );
+		position.setCastlingRights( findCastlingRights() );
+		position.setSideToMove( 1 - team );
+		isLegalMovesCached = false;
+	}
+
+	/**
+	 * Reset the castling rights from the chess pieces on the board, clear the en passant square, and set the team to
+	 * move. Called after the pieces have been set up
+	 *
+	 * @param sideToMove - the team to move
+	 */
+	public void resetState( Team sideToMove ) {
+		resetState( sideToMove, -1 );
+	}
+
+	/**
+	 * Reset the castling rights from the chess pieces on the board, and set the en passant square and the team to
+	 * move. Called after the pieces have been set up
+	 *
+	 * @param sideToMove      - the team to move
+	 * @param enPassantSquare - the square that a Pawn of the team to move can capture onto en passant, or -1 if there
+	 *                        is none
+	 */
+	public void resetState( Team sideToMove, int enPassantSquare ) {
+		position.setEnPassantSquare( enPassantSquare );
+		position.setCastlingRights( findCastlingRights() );
+		position.setSideToMove( Bitboards.index( sideToMove ) );
+		isLegalMovesCached = false;
+	}
+
+	/**
+	 * Find the castling rights that are still available: a King and Rook that have not moved must still be on their
+	 * starting tiles
+	 *
+	 * @return the castling rights, as used by {@link Position#getCastlingRights()}
+	 */
+	private int findCastlingRights() {
+		int castlingRights = 0;
+		if ( hasNotMoved( 7, 4, Team.WHITE, PieceType.KING ) ) {
+			if ( hasNotMoved( 7, 7, Team.WHITE, PieceType.ROOK ) ) {
+				castlingRights |= Position.WHITE_KINGSIDE;
+			}
+			if ( hasNotMoved( 7, 0, Team.WHITE, PieceType.ROOK ) ) {
+				castlingRights |= Position.WHITE_QUEENSIDE;
+			}
+		}
+		if ( hasNotMoved( 0, 4, Team.BLACK, PieceType.KING ) ) {
+			if ( hasNotMoved( 0, 7, Team.BLACK, PieceType.ROOK ) ) {
+				castlingRights |= Position.BLACK_KINGSIDE;
+			}
+			if ( hasNotMoved( 0, 0, Team.BLACK, PieceType.ROOK ) ) {
+				castlingRights |= Position.BLACK_QUEENSIDE;
+			}
+		}
+		return castlingRights;
+	}
+
+	/**
+	 * Determine if [row, col] holds a chess piece of the given team and type that has never moved
+	 *
+	 * @param row  - the row of the tile
+	 * @param col  - the column of the tile
+	 * @param team - the team of the chess piece
+	 * @param type - the type of the chess piece
+	 * @return whether such an unmoved chess piece is on the tile
+	 */
+	private boolean hasNotMoved( int row, int col, Team team, PieceType type ) {
+		ChessPiece piece = squares[row][col];
+		return piece != null && piece.getTeam() == team && piece.getType() == type && piece.getNumMoves() == 0;
+	}
+
+	/**
+	 * Verify that the coordinates cached by every chess piece match the tile it is on, that the bitboard
+	 * representation and the piece lists match the grid of chess pieces, and that the attack map, hash and evaluation
+	 * terms match the pieces on the board. Intended for debugging, e.g. assert board.isConsistent()
+	 *
+	 * @return whether the board is consistent
+	 */
+	public boolean isConsistent() {
+		for ( int row = 0; row < 8; row++ ) {
+			for ( int col = 0; col < 8; col++ ) {
+				ChessPiece piece = squares[row][col];
+				int encodedPiece = position.getPiece( Bitboards.square( row, col ) );
+				if ( piece == null ) {
+					if ( encodedPiece != Position.EMPTY ) {
+						return false;
+					}
+					continue;
+				}
+
+				if ( piece.getRow() != row || piece.getCol() != col ) {
+					return false;
+				}
+				if ( encodedPiece != Bitboards.index( piece.getTeam() ) * 6 + piece.getType().ordinal() ) {
+					return false;
+				}
+				if ( pieceLists[encodedPiece][piece.pieceListIndex] != piece ) {
+					return false;
+				}
+			}
+		}
+
+		for ( int list = 0; list < 12; list++ ) {
+			if ( pieceListSizes[list] != Long.bitCount( position.getPieces( list / 6, list % 6 ) ) ) {
+				return false;
+			}
+		}
+
+		if ( position.getHash() != Zobrist.hash( position ) ) {
+			return false;
+		}
+		if ( position.getMidgameScore() != Evaluation.midgameScore( position )
+				|| position.getEndgameScore() != Evaluation.endgameScore( position )
+				|| position.getPhase() != Evaluation.phase( position ) ) {
+			return false;
+		}
+
+		AttackMap freshAttackMap = new AttackMap( position );
+		for ( int team = 0; team < 2; team++ ) {
+			if ( freshAttackMap.getAttacks( team ) != attackMap.getAttacks( team ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -22,7 +22,17 @@ public abstract class ChessPiece {
 	/**
 	 * The chessboard that the piece will reside in
 	 */
-	private ChessPiece[][] board;
+	private Board board;
+
+	/**
+	 * The row position of the piece on the board, or -1 if the piece is not on the board
+	 */
+	private int row;
+
+	/**
+	 * The column position of the piece on the board, or -1 if the piece is not on the board
+	 */
+	private int col;
 
 	/**
 	 * The number of moves that this piece has already made 
@@ -34,6 +44,11 @@ public abstract class ChessPiece {
 	 */
 	private int lastMoveNumber;
 
+	/**
+	 * The index of the chess piece in its board's list of pieces of its team and type, kept by the board
+	 */
+	int pieceListIndex;
+
 	/**
 	 * Create a generic chess piece
 	 * 
@@ -43,10 +58,12 @@ public abstract class ChessPiece {
 	 * @param team     - the team of this chess piece (white or black)
 	 * @param selfKing - the King of this chess piece's team (null for the King itself)
 	 */
-	public ChessPiece( ChessPiece[][] board, int row, int col, Team team, King selfKing ) {
+	public ChessPiece( Board board, int row, int col, Team team, King selfKing ) {
 		this.board = board;
 		this.team = team;
 		this.selfKing = selfKing;
+		this.row = -1;
+		this.col = -1;
 
 		setLocation( row, col );
 		numMoves = 0;
@@ -74,28 +91,38 @@ public abstract class ChessPiece {
 	public abstract boolean canMoveTo( int targetRow, int targetCol, boolean checkPutSelfKingInCheck );
 
 	/**
-	 * Determine if moving to this location will put selfKing in check. Precondition: this piece can legally move to
-	 * this location otherwise
+	 * Get the type of the chess piece
+	 * 
+	 * @return the type of the chess piece
+	 */
+	public abstract PieceType getType();
+
+	/**
+	 * Determine if moving to this location will put selfKing in check. The board is only read, never changed.
+	 * Precondition: this piece can legally move to this location otherwise
 	 * 
 	 * @param targetRow - the row that the piece will go to
 	 * @param targetCol - the column that the piece will go to
 	 * @return if selfKing will be put in check after this piece moves to [targetRow, targetCol]
 	 */
 	public boolean willPutSelfKingInCheckAt( int targetRow, int targetCol ) {
-		ChessPiece previousChessPiece = getBoard()[targetRow][targetCol];
-		int previousRow = getRow();
-		int previousCol = getCol();
-
-		// Move self to specified location
-		setLocation( targetRow, targetCol );
-
-		boolean isSelfKingInCheck = selfKing.isInCheck();
-
-		// Restore self to original position
-		setLocation( previousRow, previousCol );
-		getBoard()[targetRow][targetCol] = previousChessPiece;
+		return willPutSelfKingInCheckAt( targetRow, targetCol, targetRow, targetCol );
+	}
 
-		return isSelfKingInCheck;
+	/**
+	 * Determine if moving to this location and capturing the piece at [capturedRow, capturedCol] will put selfKing in
+	 * check. The board is only read, never changed. Precondition: this piece can legally move to this location
+	 * otherwise
+	 * 
+	 * @param targetRow   - the row that the piece will go to
+	 * @param targetCol   - the column that the piece will go to
+	 * @param capturedRow - the row of the piece that will be captured, which differs from targetRow for en passant
+	 * @param capturedCol - the column of the piece that will be captured
+	 * @return if selfKing will be put in check after this piece moves to [targetRow, targetCol]
+	 */
+	public boolean willPutSelfKingInCheckAt( int targetRow, int targetCol, int capturedRow, int capturedCol ) {
+		return getBoard().getPosition().leavesKingInCheck( Bitboards.square( getRow(), getCol() ),
+				Bitboards.square( targetRow, targetCol ), Bitboards.square( capturedRow, capturedCol ) );
 	}
 
 	/**
@@ -103,40 +130,38 @@ public abstract class ChessPiece {
 	 * 
 	 * @return the board that the chess piece is/was in
 	 */
-	public ChessPiece[][] getBoard() {
+	public Board getBoard() {
 		return board;
 	}
 
 	/**
-	 * Search the board for the chess piece, and return its column position on the board
+	 * Get the column position of the chess piece on the board
 	 * 
 	 * @return the column position of the chess piece on the chessboard, or -1 if the piece is no longer on the board
 	 */
 	public int getCol() {
-		for ( int i = 0; i < 8; i++ ) {
-			for ( int j = 0; j < 8; j++ ) {
-				if ( getBoard()[i][j] == this ) {
-					return j;
-				}
-			}
-		}
-		return -1;
+		return col;
 	}
 
 	/**
-	 * Search the board for the chess piece, and return its row position on the chessboard
+	 * Get the row position of the chess piece on the board
 	 * 
 	 * @return the row position of the chess piece on the chessboard, or -1 if the piece is no longer on the board
 	 */
 	public int getRow() {
-		for ( int i = 0; i < 8; i++ ) {
-			for ( int j = 0; j < 8; j++ ) {
-				if ( getBoard()[i][j] == this ) {
-					return i;
-				}
-			}
-		}
-		return -1;
+		return row;
+	}
+
+	/**
+	 * Record the location of the chess piece. Only the board should call this, whenever it adds the piece to or
+	 * removes the piece from a tile
+	 * 
+	 * @param row - the row position of the piece, or -1 if the piece was removed from the board
+	 * @param col - the column position of the piece, or -1 if the piece was removed from the board
+	 */
+	void updateCoordinates( int row, int col ) {
+		this.row = row;
+		this.col = col;
 	}
 
 	/**
@@ -152,9 +177,25 @@ public abstract class ChessPiece {
 
 		// Vacate current position
 		if ( currentRow >= 0 && currentCol >= 0 ) {
-			getBoard()[currentRow][currentCol] = null;
+			getBoard().vacate( currentRow, currentCol );
 		}
-		getBoard()[row][col] = this;
+		getBoard().occupy( this, row, col );
+	}
+
+	/**
+	 * Make a move in the game with the chess piece, which the board can take back with {@link Board#unmakeMove()}.
+	 * Precondition: the chess piece can legally move to this location
+	 * 
+	 * @param targetRow         - the row of the location to move to
+	 * @param targetCol         - the column of the location to move to
+	 * @param kind              - the kind of move, one of {@link Move#NORMAL}, {@link Move#DOUBLE_PUSH},
+	 *                          {@link Move#EN_PASSANT} or {@link Move#CASTLE}
+	 * @param currentMoveNumber - move number of the current move in the game
+	 */
+	protected void moveTo( int targetRow, int targetCol, int kind, int currentMoveNumber ) {
+		int move = Move.encode( Bitboards.square( getRow(), getCol() ), Bitboards.square( targetRow, targetCol ),
+				Move.NONE, kind );
+		getBoard().makeMove( move, currentMoveNumber );
 	}
 
 	/**
@@ -188,6 +229,15 @@ public abstract class ChessPiece {
 		numMoves++;
 	}
 
+	/**
+	 * Set the total number of moves the piece has made. Only the board should call this, when it takes back a move
+	 * 
+	 * @param numMoves - the number of moves that the piece has made
+	 */
+	void setNumMoves( int numMoves ) {
+		this.numMoves = numMoves;
+	}
+
 	/**
 	 * Retrieve the most recent move number of the piece
 	 * @return most recent move number of the piece
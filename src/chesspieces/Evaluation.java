@@ -0,0 +1,290 @@
+package chesspieces;
+
+/**
+ * The Evaluation class scores positions for the computer player, in centipawns. The score is made of:
+ * <ul>
+ * <li>material and piece-square bonuses, with one set of values for the middlegame and one for the endgame. A
+ * {@link Position} keeps both sums up to date as pieces are put on and removed from squares, so they are never
+ * recomputed by a scan of the board</li>
+ * <li>mobility: the tiles that each Knight, Bishop, Rook and Queen attacks that are not occupied by its own team</li>
+ * <li>King safety: a penalty for enemy pieces attacking the tiles around the King, and a bonus for the Pawns sheltering
+ * it, counted in the middlegame only</li>
+ * </ul>
+ * The middlegame and endgame scores are blended by the game phase, which falls from {@link #MAX_PHASE} with all pieces
+ * on the board to 0 with only Kings and Pawns left.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class Evaluation {
+
+	/**
+	 * The game phase with all pieces but the Pawns on the board
+	 */
+	public static final int MAX_PHASE = 24;
+
+	/**
+	 * The game phase of each piece type; the phase of a position is the sum over its pieces
+	 */
+	static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+
+	/**
+	 * The value of each piece type in the middlegame and the endgame
+	 */
+	private static final int[] MIDGAME_PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+	private static final int[] ENDGAME_PIECE_VALUES = { 130, 300, 320, 520, 940, 0 };
+
+	/**
+	 * The bonuses of each piece type on each square, from white's point of view (square 0 is a8). Black's bonuses are
+	 * found by flipping the square vertically
+	 */
+	private static final int[] PAWN_MIDGAME = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			10, 10, 20, 30, 30, 20, 10, 10,
+			5, 5, 10, 25, 25, 10, 5, 5,
+			0, 0, 0, 20, 20, 0, 0, 0,
+			5, -5, -10, 0, 0, -10, -5, 5,
+			5, 10, 10, -20, -20, 10, 10, 5,
+			0, 0, 0, 0, 0, 0, 0, 0 };
+	private static final int[] PAWN_ENDGAME = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			80, 80, 80, 80, 80, 80, 80, 80,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			30, 30, 30, 30, 30, 30, 30, 30,
+			15, 15, 15, 15, 15, 15, 15, 15,
+			5, 5, 5, 5, 5, 5, 5, 5,
+			0, 0, 0, 0, 0, 0, 0, 0,
+			0, 0, 0, 0, 0, 0, 0, 0 };
+	private static final int[] KNIGHT = {
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20, 0, 0, 0, 0, -20, -40,
+			-30, 0, 10, 15, 15, 10, 0, -30,
+			-30, 5, 15, 20, 20, 15, 5, -30,
+			-30, 0, 15, 20, 20, 15, 0, -30,
+			-30, 5, 10, 15, 15, 10, 5, -30,
+			-40, -20, 0, 5, 5, 0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50 };
+	private static final int[] BISHOP = {
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10, 0, 0, 0, 0, 0, 0, -10,
+			-10, 0, 5, 10, 10, 5, 0, -10,
+			-10, 5, 5, 10, 10, 5, 5, -10,
+			-10, 0, 10, 10, 10, 10, 0, -10,
+			-10, 10, 10, 10, 10, 10, 10, -10,
+			-10, 5, 0, 0, 0, 0, 5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20 };
+	private static final int[] ROOK_MIDGAME = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			5, 10, 10, 10, 10, 10, 10, 5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			0, 0, 0, 5, 5, 0, 0, 0 };
+	private static final int[] ROOK_ENDGAME = new int[64];
+	private static final int[] QUEEN = {
+			-20, -10, -10, -5, -5, -10, -10, -20,
+			-10, 0, 0, 0, 0, 0, 0, -10,
+			-10, 0, 5, 5, 5, 5, 0, -10,
+			-5, 0, 5, 5, 5, 5, 0, -5,
+			0, 0, 5, 5, 5, 5, 0, -5,
+			-10, 5, 5, 5, 5, 5, 0, -10,
+			-10, 0, 5, 0, 0, 0, 0, -10,
+			-20, -10, -10, -5, -5, -10, -10, -20 };
+	private static final int[] KING_MIDGAME = {
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			20, 20, 0, 0, 0, 0, 20, 20,
+			20, 30, 10, 0, 0, 10, 30, 20 };
+	private static final int[] KING_ENDGAME = {
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10, 0, 0, -10, -20, -30,
+			-30, -10, 20, 30, 30, 20, -10, -30,
+			-30, -10, 30, 40, 40, 30, -10, -30,
+			-30, -10, 30, 40, 40, 30, -10, -30,
+			-30, -10, 20, 30, 30, 20, -10, -30,
+			-30, -30, 0, 0, 0, 0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50 };
+
+	/**
+	 * The piece-square tables of each piece type, indexed by piece type index
+	 */
+	private static final int[][] MIDGAME_TABLES = { PAWN_MIDGAME, KNIGHT, BISHOP, ROOK_MIDGAME, QUEEN, KING_MIDGAME };
+	private static final int[][] ENDGAME_TABLES = { PAWN_ENDGAME, KNIGHT, BISHOP, ROOK_ENDGAME, QUEEN, KING_ENDGAME };
+
+	/**
+	 * The value plus the square bonus of every piece on every square, as added to the score from white's point of view
+	 * (negative for black pieces), indexed by [team * 6 + type][square]
+	 */
+	static final int[][] MIDGAME_VALUES = new int[12][64];
+	static final int[][] ENDGAME_VALUES = new int[12][64];
+
+	/**
+	 * The bonus for each tile attacked by a piece of each type, in the middlegame and the endgame
+	 */
+	private static final int[] MIDGAME_MOBILITY = { 0, 4, 5, 2, 1, 0 };
+	private static final int[] ENDGAME_MOBILITY = { 0, 4, 5, 4, 2, 0 };
+
+	/**
+	 * How much an attack on a tile next to the enemy King counts for each piece type. The King safety penalty grows
+	 * with the square of the sum, up to {@link #MAX_KING_DANGER}
+	 */
+	private static final int[] KING_ATTACK_WEIGHTS = { 0, 2, 2, 3, 5, 0 };
+	private static final int MAX_KING_DANGER = 500;
+
+	/**
+	 * The bonus for each Pawn on the three tiles in front of its King, and on the three tiles in front of those
+	 */
+	private static final int CLOSE_SHIELD_BONUS = 10, FAR_SHIELD_BONUS = 5;
+
+	static {
+		for ( int type = Position.PAWN; type <= Position.KING; type++ ) {
+			for ( int square = 0; square < 64; square++ ) {
+				MIDGAME_VALUES[type][square] = MIDGAME_PIECE_VALUES[type] + MIDGAME_TABLES[type][square];
+				ENDGAME_VALUES[type][square] = ENDGAME_PIECE_VALUES[type] + ENDGAME_TABLES[type][square];
+				// Flip the square vertically to look it up from black's point of view
+				MIDGAME_VALUES[6 + type][square] = -MIDGAME_PIECE_VALUES[type] - MIDGAME_TABLES[type][square ^ 56];
+				ENDGAME_VALUES[6 + type][square] = -ENDGAME_PIECE_VALUES[type] - ENDGAME_TABLES[type][square ^ 56];
+			}
+		}
+	}
+
+	private Evaluation() {
+	}
+
+	/**
+	 * Score a position for the team to move
+	 *
+	 * @param position - the position
+	 * @return the score in centipawns, positive if the team to move is better
+	 */
+	public static int evaluate( Position position ) {
+		int midgame = position.getMidgameScore();
+		int endgame = position.getEndgameScore();
+		long occupancy = position.getOccupancy();
+		for ( int team = 0; team < 2; team++ ) {
+			int sign = team == Bitboards.WHITE ? 1 : -1;
+			long own = position.getOccupancy( team );
+			int enemyKingSquare = position.getKingSquare( 1 - team );
+			long kingZone = Bitboards.KING_ATTACKS[enemyKingSquare] | 1L << enemyKingSquare;
+			int kingDanger = 0;
+			for ( int type = Position.KNIGHT; type <= Position.QUEEN; type++ ) {
+				for ( long pieces = position.getPieces( team, type ); pieces != 0; pieces &= pieces - 1 ) {
+					long attacks = attacks( type, Long.numberOfTrailingZeros( pieces ), occupancy );
+					int mobility = Long.bitCount( attacks & ~own );
+					midgame += sign * MIDGAME_MOBILITY[type] * mobility;
+					endgame += sign * ENDGAME_MOBILITY[type] * mobility;
+					kingDanger += KING_ATTACK_WEIGHTS[type] * Long.bitCount( attacks & kingZone );
+				}
+			}
+			midgame += sign * Math.min( kingDanger * kingDanger / 4, MAX_KING_DANGER );
+			midgame += sign * pawnShield( position, team );
+		}
+
+		int phase = Math.min( position.getPhase(), MAX_PHASE );
+		int score = ( midgame * phase + endgame * ( MAX_PHASE - phase ) ) / MAX_PHASE;
+		return position.getSideToMove() == Bitboards.WHITE ? score : -score;
+	}
+
+	/**
+	 * Get the tiles attacked by a Knight, Bishop, Rook or Queen
+	 *
+	 * @param type      - the piece type index
+	 * @param square    - the square of the piece
+	 * @param occupancy - the bitboard of occupied tiles
+	 * @return the bitboard of attacked tiles
+	 */
+	private static long attacks( int type, int square, long occupancy ) {
+		switch ( type ) {
+			case Position.KNIGHT:
+				return Bitboards.KNIGHT_ATTACKS[square];
+			case Position.BISHOP:
+				return Bitboards.bishopAttacks( square, occupancy );
+			case Position.ROOK:
+				return Bitboards.rookAttacks( square, occupancy );
+			default:
+				return Bitboards.queenAttacks( square, occupancy );
+		}
+	}
+
+	/**
+	 * Get the bonus of a team for the Pawns in front of its King
+	 *
+	 * @param position - the position
+	 * @param team     - the team index
+	 * @return the bonus of the Pawn shield
+	 */
+	private static int pawnShield( Position position, int team ) {
+		int kingSquare = position.getKingSquare( team );
+		long pawns = position.getPieces( team, Position.PAWN );
+		// The King's tile and its neighbors on the same row, moved one row forward (towards row 0 for white)
+		long row = ( Bitboards.KING_ATTACKS[kingSquare] | 1L << kingSquare ) & 0xFFL << ( kingSquare & 56 );
+		long close = team == Bitboards.WHITE ? row >>> 8 : row << 8;
+		long far = team == Bitboards.WHITE ? close >>> 8 : close << 8;
+		return CLOSE_SHIELD_BONUS * Long.bitCount( pawns & close ) + FAR_SHIELD_BONUS * Long.bitCount( pawns & far );
+	}
+
+	/**
+	 * Add up the middlegame material and square bonuses of a position from scratch, as {@link Position} keeps them
+	 * incrementally
+	 *
+	 * @param position - the position
+	 * @return the middlegame score from white's point of view
+	 */
+	public static int midgameScore( Position position ) {
+		return sum( position, MIDGAME_VALUES );
+	}
+
+	/**
+	 * Add up the endgame material and square bonuses of a position from scratch, as {@link Position} keeps them
+	 * incrementally
+	 *
+	 * @param position - the position
+	 * @return the endgame score from white's point of view
+	 */
+	public static int endgameScore( Position position ) {
+		return sum( position, ENDGAME_VALUES );
+	}
+
+	/**
+	 * Add up the game phase of a position from scratch, as {@link Position} keeps it incrementally
+	 *
+	 * @param position - the position
+	 * @return the game phase, which may exceed {@link #MAX_PHASE} after promotions
+	 */
+	public static int phase( Position position ) {
+		int phase = 0;
+		for ( int square = 0; square < 64; square++ ) {
+			int piece = position.getPiece( square );
+			if ( piece != Position.EMPTY ) {
+				phase += PHASE_WEIGHTS[piece % 6];
+			}
+		}
+		return phase;
+	}
+
+	/**
+	 * Add up the values of every piece on its square
+	 *
+	 * @param position - the position
+	 * @param values   - the values, indexed by [team * 6 + type][square]
+	 * @return the sum of the values
+	 */
+	private static int sum( Position position, int[][] values ) {
+		int score = 0;
+		for ( int square = 0; square < 64; square++ ) {
+			int piece = position.getPiece( square );
+			if ( piece != Position.EMPTY ) {
+				score += values[piece][square];
+			}
+		}
+		return score;
+	}
+}
@@ -0,0 +1,368 @@
+package chesspieces;
+
+/**
+ * The Fen class reads positions written in Forsyth-Edwards Notation (FEN), e.g. the starting position
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", into a bitboard {@link Position} or a {@link Board} of
+ * chess pieces, and writes them with or without the move counters, the latter as in Extended Position Description
+ * (EPD)
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class Fen {
+
+	/**
+	 * The FEN of the starting position of a chess game
+	 */
+	public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/**
+	 * The letters of the piece types in FEN, indexed by piece type index
+	 */
+	private static final String PIECE_LETTERS = "pnbrqk";
+
+	/**
+	 * The first and last rows of the board, where no Pawn can be
+	 */
+	private static final long END_ROWS = 0xFF000000000000FFL;
+
+	private Fen() {
+	}
+
+	/**
+	 * Create the position described by a FEN string. The halfmove clock and fullmove number are optional
+	 *
+	 * @param fen - the FEN string
+	 * @return the position
+	 * @throws IllegalArgumentException if the FEN string is malformed
+	 */
+	public static Position toPosition( String fen ) {
+		String[] fields = fen.trim().split( "\\s+" );
+		if ( fields.length < 4 ) {
+			throw new IllegalArgumentException( "FEN needs at least 4 fields: " + fen );
+		}
+
+		Position position = new Position();
+		String[] rows = fields[0].split( "/" );
+		if ( rows.length != 8 ) {
+			throw new IllegalArgumentException( "FEN needs 8 rows: " + fen );
+		}
+		for ( int row = 0; row < 8; row++ ) {
+			int col = 0;
+			for ( char c : rows[row].toCharArray() ) {
+				if ( c >= '1' && c <= '8' ) {
+					col += c - '0';
+					continue;
+				}
+
+				int type = PIECE_LETTERS.indexOf( Character.toLowerCase( c ) );
+				if ( type < 0 || col >= 8 ) {
+					throw new IllegalArgumentException( "Bad row \"" + rows[row] + "\" in FEN: " + fen );
+				}
+				int team = Character.isUpperCase( c ) ? Bitboards.WHITE : Bitboards.BLACK;
+				position.put( team, type, Bitboards.square( row, col ) );
+				col++;
+			}
+			if ( col != 8 ) {
+				throw new IllegalArgumentException( "Bad row \"" + rows[row] + "\" in FEN: " + fen );
+			}
+		}
+
+		if ( fields[1].equals( "w" ) ) {
+			position.setSideToMove( Bitboards.WHITE );
+		}
+		else if ( fields[1].equals( "b" ) ) {
+			position.setSideToMove( Bitboards.BLACK );
+		}
+		else {
+			throw new IllegalArgumentException( "Bad team to move in FEN: " + fen );
+		}
+
+		int castlingRights = 0;
+		if ( !fields[2].equals( "-" ) ) {
+			for ( char c : fields[2].toCharArray() ) {
+				int right = "KQkq".indexOf( c );
+				if ( right < 0 ) {
+					throw new IllegalArgumentException( "Bad castling rights in FEN: " + fen );
+				}
+				castlingRights |= 1 << right;
+			}
+		}
+		position.setCastlingRights( castlingRights );
+
+		int enPassantSquare = -1;
+		if ( !fields[3].equals( "-" ) ) {
+			enPassantSquare = parseSquare( fields[3] );
+			if ( enPassantSquare < 0 ) {
+				throw new IllegalArgumentException( "Bad en passant square in FEN: " + fen );
+			}
+
+			// The square was just passed over by an enemy Pawn's first move: it is empty, on the row behind that
+			// Pawn, and the Pawn stands in front of it
+			int team = position.getSideToMove();
+			int forward = team == Bitboards.WHITE ? 8 : -8;
+			int pawnSquare = enPassantSquare + forward;
+			if ( Bitboards.row( enPassantSquare ) != ( team == Bitboards.WHITE ? 2 : 5 )
+					|| position.getPiece( enPassantSquare ) != Position.EMPTY
+					|| position.getPiece( pawnSquare ) != ( 1 - team ) * 6 + Position.PAWN ) {
+				throw new IllegalArgumentException( "Bad en passant square in FEN: " + fen );
+			}
+
+			// Only keep the en passant square if a Pawn of the team to move can capture onto it
+			long pawns = position.getPieces( team, Position.PAWN );
+			if ( ( Bitboards.PAWN_ATTACKS[1 - team][enPassantSquare] & pawns ) == 0 ) {
+				enPassantSquare = -1;
+			}
+		}
+		position.setEnPassantSquare( enPassantSquare );
+
+		if ( position.getKingSquare( Bitboards.WHITE ) < 0 || position.getKingSquare( Bitboards.BLACK ) < 0 ) {
+			throw new IllegalArgumentException( "FEN needs a King for each team: " + fen );
+		}
+		return position;
+	}
+
+	/**
+	 * Set up a board with the chess pieces of a FEN position. The chess pieces are given the move counters that the
+	 * rules of the pieces expect: Kings and Rooks that have lost their castling rights, and Pawns off their starting
+	 * row, have moved, and the Pawn that can be captured en passant moved on the move before
+	 * {@link #getMoveNumber(String)}. Castling rights whose King or Rook is not on its starting tile are dropped
+	 *
+	 * @param fen - the FEN string
+	 * @return the board
+	 * @throws IllegalArgumentException if the FEN string is malformed, or the position cannot be set up with chess
+	 *                                  pieces
+	 */
+	public static Board toBoard( String fen ) {
+		Position position = toPosition( fen );
+		int moveNumber = getMoveNumber( fen );
+		for ( int team = 0; team < 2; team++ ) {
+			if ( position.getPieceCount( team, Position.KING ) != 1 ) {
+				throw new IllegalArgumentException( "FEN needs one King for each team: " + fen );
+			}
+			if ( Long.bitCount( position.getOccupancy( team ) ) > 16 ) {
+				throw new IllegalArgumentException( "FEN has more than 16 pieces for a team: " + fen );
+			}
+			if ( ( position.getPieces( team, Position.PAWN ) & END_ROWS ) != 0 ) {
+				throw new IllegalArgumentException( "FEN has a Pawn on the first or last row: " + fen );
+			}
+		}
+		if ( MoveGenerator.isInCheck( position, 1 - position.getSideToMove() ) ) {
+			throw new IllegalArgumentException( "FEN has the team not to move in check: " + fen );
+		}
+
+		Board board = new Board();
+		Team[] teams = { Team.WHITE, Team.BLACK };
+
+		// Kings go first, as every other chess piece needs the King of its team
+		King[] kings = new King[2];
+		for ( int team = 0; team < 2; team++ ) {
+			int square = position.getKingSquare( team );
+			kings[team] = new King( board, Bitboards.row( square ), Bitboards.col( square ), teams[team] );
+		}
+
+		for ( int square = 0; square < 64; square++ ) {
+			int piece = position.getPiece( square );
+			if ( piece == Position.EMPTY || piece % 6 == Position.KING ) {
+				continue;
+			}
+
+			int row = Bitboards.row( square );
+			int col = Bitboards.col( square );
+			int team = piece / 6;
+			switch ( piece % 6 ) {
+				case Position.PAWN:
+					Pawn pawn = new Pawn( board, row, col, teams[team], kings[team] );
+					if ( row != ( team == Bitboards.WHITE ? 6 : 1 ) ) {
+						pawn.incrementNumMoves();
+					}
+					break;
+				case Position.KNIGHT:
+					new Knight( board, row, col, teams[team], kings[team] );
+					break;
+				case Position.BISHOP:
+					new Bishop( board, row, col, teams[team], kings[team] );
+					break;
+				case Position.ROOK:
+					new Rook( board, row, col, teams[team], kings[team] );
+					break;
+				default:
+					new Queen( board, row, col, teams[team], kings[team] );
+					break;
+			}
+		}
+
+		// Castling rights are kept by the King and Rooks never having moved
+		int castlingRights = position.getCastlingRights();
+		int[] kingsideRights = { Position.WHITE_KINGSIDE, Position.BLACK_KINGSIDE };
+		int[] queensideRights = { Position.WHITE_QUEENSIDE, Position.BLACK_QUEENSIDE };
+		for ( int team = 0; team < 2; team++ ) {
+			int homeRow = team == Bitboards.WHITE ? 7 : 0;
+			markMovedUnlessCastling( board.getPiece( homeRow, 7 ), castlingRights & kingsideRights[team] );
+			markMovedUnlessCastling( board.getPiece( homeRow, 0 ), castlingRights & queensideRights[team] );
+		}
+
+		int enPassantSquare = position.getEnPassantSquare();
+		if ( enPassantSquare >= 0 ) {
+			// The Pawn that can be captured is in front of the en passant square, and just made its first move
+			int pawnRow = Bitboards.row( enPassantSquare ) + ( position.getSideToMove() == Bitboards.WHITE ? 1 : -1 );
+			ChessPiece pawn = board.getPiece( pawnRow, Bitboards.col( enPassantSquare ) );
+			if ( !( pawn instanceof Pawn ) || pawn.getTeam() != teams[1 - position.getSideToMove()] ) {
+				throw new IllegalArgumentException( "FEN has no Pawn to capture en passant: " + fen );
+			}
+			pawn.setLastMoveNumber( moveNumber - 1 );
+		}
+		board.resetState( teams[position.getSideToMove()], enPassantSquare );
+
+		// The board keeps a castling right only for an unmoved Rook on its corner, so a King has moved unless it is on
+		// its starting tile and one of its rights is left
+		castlingRights = board.getPosition().getCastlingRights();
+		for ( int team = 0; team < 2; team++ ) {
+			int homeRow = team == Bitboards.WHITE ? 7 : 0;
+			if ( position.getKingSquare( team ) != Bitboards.square( homeRow, 4 )
+					|| ( castlingRights & ( kingsideRights[team] | queensideRights[team] ) ) == 0 ) {
+				kings[team].incrementNumMoves();
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Mark a corner Rook as moved if it has lost its castling right
+	 *
+	 * @param piece - the chess piece on the corner
+	 * @param right - the castling right, or 0 if it has been lost
+	 */
+	private static void markMovedUnlessCastling( ChessPiece piece, int right ) {
+		if ( piece instanceof Rook && right == 0 ) {
+			piece.incrementNumMoves();
+		}
+	}
+
+	/**
+	 * Get the halfmove clock of a FEN string: the number of moves since the last Pawn move or capture
+	 *
+	 * @param fen - the FEN string
+	 * @return the halfmove clock, or 0 if the FEN string has no move counters
+	 * @throws IllegalArgumentException if the halfmove clock is malformed
+	 */
+	public static int getHalfmoveClock( String fen ) {
+		String[] fields = fen.trim().split( "\\s+" );
+		return fields.length < 5 ? 0 : parseCounter( fields[4], 0, fen );
+	}
+
+	/**
+	 * Get the move number of the game, as counted by the chess pieces, of the team to move in a FEN string: 1 for
+	 * white's first move, 2 for black's first move, 3 for white's second move, etc...
+	 *
+	 * @param fen - the FEN string
+	 * @return the move number, from the fullmove number (1 if the FEN string has no move counters) and the team to
+	 *         move
+	 * @throws IllegalArgumentException if the fullmove number is malformed
+	 */
+	public static int getMoveNumber( String fen ) {
+		String[] fields = fen.trim().split( "\\s+" );
+		int fullmoveNumber = fields.length < 6 ? 1 : parseCounter( fields[5], 1, fen );
+		return fields.length > 1 && fields[1].equals( "b" ) ? 2 * fullmoveNumber : 2 * fullmoveNumber - 1;
+	}
+
+	/**
+	 * Parse a move counter of a FEN string
+	 *
+	 * @param counter - the counter
+	 * @param minimum - the smallest valid value of the counter
+	 * @param fen     - the FEN string, for the error message
+	 * @return the value of the counter
+	 * @throws IllegalArgumentException if the counter is not a number, or is below the minimum
+	 */
+	private static int parseCounter( String counter, int minimum, String fen ) {
+		try {
+			int value = Integer.parseInt( counter );
+			if ( value >= minimum ) {
+				return value;
+			}
+		}
+		catch ( NumberFormatException e ) {
+			// Reported below
+		}
+		throw new IllegalArgumentException( "Bad move counter \"" + counter + "\" in FEN: " + fen );
+	}
+
+	/**
+	 * Write the FEN of a position, with its move counters
+	 *
+	 * @param position       - the position
+	 * @param halfmoveClock  - the number of moves since the last Pawn move or capture
+	 * @param fullmoveNumber - the number of the full move, starting at 1 and incremented after black moves
+	 * @return the FEN string, e.g. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1"
+	 */
+	public static String toFen( Position position, int halfmoveClock, int fullmoveNumber ) {
+		return toEpd( position ) + " " + halfmoveClock + " " + fullmoveNumber;
+	}
+
+	/**
+	 * Write the first four fields of the FEN of a position: the pieces, the team to move, the castling rights and the
+	 * en passant square. The en passant square is only written if a Pawn can capture onto it
+	 *
+	 * @param position - the position
+	 * @return the position in EPD, e.g. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq -"
+	 */
+	public static String toEpd( Position position ) {
+		StringBuilder epd = new StringBuilder( 90 );
+		for ( int row = 0; row < 8; row++ ) {
+			int emptyTiles = 0;
+			for ( int col = 0; col < 8; col++ ) {
+				int piece = position.getPiece( Bitboards.square( row, col ) );
+				if ( piece == Position.EMPTY ) {
+					emptyTiles++;
+					continue;
+				}
+				if ( emptyTiles > 0 ) {
+					epd.append( emptyTiles );
+					emptyTiles = 0;
+				}
+				char letter = PIECE_LETTERS.charAt( piece % 6 );
+				epd.append( piece / 6 == Bitboards.WHITE ? Character.toUpperCase( letter ) : letter );
+			}
+			if ( emptyTiles > 0 ) {
+				epd.append( emptyTiles );
+			}
+			if ( row < 7 ) {
+				epd.append( '/' );
+			}
+		}
+
+		epd.append( position.getSideToMove() == Bitboards.WHITE ? " w " : " b " );
+		int castlingRights = position.getCastlingRights();
+		if ( castlingRights == 0 ) {
+			epd.append( '-' );
+		}
+		for ( int right = 0; right < 4; right++ ) {
+			if ( ( castlingRights & ( 1 << right ) ) != 0 ) {
+				epd.append( "KQkq".charAt( right ) );
+			}
+		}
+		epd.append( ' ' );
+		epd.append( position.getEnPassantSquare() < 0 ? "-" : Move.squareName( position.getEnPassantSquare() ) );
+		return epd.toString();
+	}
+
+	/**
+	 * Parse a square of the form "[file][rank]"
+	 *
+	 * @param name - the name of the square, e.g. "e4"
+	 * @return the square, or -1 if the name is not a square
+	 */
+	public static int parseSquare( String name ) {
+		if ( name.length() != 2 ) {
+			return -1;
+		}
+		int col = name.charAt( 0 ) - 'a';
+		int row = '8' - name.charAt( 1 );
+		if ( col < 0 || col >= 8 || row < 0 || row >= 8 ) {
+			return -1;
+		}
+		return Bitboards.square( row, col );
+	}
+}
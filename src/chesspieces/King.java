@@ -18,7 +18,7 @@ public class King extends ChessPiece {
 	 * @param team  - what team (black or white)
 	 * 
 	 */
-	public King( ChessPiece[][] board, int row, int col, Team team ) {
+	public King( Board board, int row, int col, Team team ) {
 		super( board, row, col, team, null );
 	}
 
@@ -32,38 +32,12 @@ public class King extends ChessPiece {
 	 */
 	public boolean attemptMoveTo( int targetRow, int targetCol, int currentMoveNumber ) {
 		if ( canMoveTo( targetRow, targetCol, true ) ) {
-			setLocation( targetRow, targetCol );
-
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
-			return true;
-		}
-		else if ( canCastleRightTo( targetRow, targetCol ) ) {
-			// Vacate current position
-			setLocation( targetRow, targetCol );
-
-			// Move Rook to the left of King
-			Rook targetRook = (Rook) getBoard()[getRow()][7];
-			targetRook.setLocation( getRow(), 5 );
-
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
-			targetRook.incrementNumMoves();
-			targetRook.setLastMoveNumber( currentMoveNumber );
+			moveTo( targetRow, targetCol, Move.NORMAL, currentMoveNumber );
 			return true;
 		}
-		else if ( canCastleLeftTo( targetRow, targetCol ) ) {
-			// Vacate current position
-			setLocation( targetRow, targetCol );
-
-			// Move Rook to the right of King
-			Rook targetRook = (Rook) getBoard()[getRow()][0];
-			targetRook.setLocation( getRow(), 3 );
-
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
-			targetRook.incrementNumMoves();
-			targetRook.setLastMoveNumber( currentMoveNumber );
+		else if ( canCastleRightTo( targetRow, targetCol ) || canCastleLeftTo( targetRow, targetCol ) ) {
+			// The board also moves the Rook to the other side of the King
+			moveTo( targetRow, targetCol, Move.CASTLE, currentMoveNumber );
 			return true;
 		}
 		else {
@@ -86,26 +60,17 @@ public class King extends ChessPiece {
 			return false;
 		}
 
-		int rowChange = targetRow - getRow();
-		int colChange = targetCol - getCol();
-		int distanceSquared = rowChange * rowChange + colChange * colChange;
-		// If distance == 1 or distance == Math.sqrt( 2 ) (account for double-precision error), then
-		// this King can move to that spot
-		if ( distanceSquared == 1 || distanceSquared == 2 ) {
-			ChessPiece targetPiece = getBoard()[targetRow][targetCol];
-			// Cannot move onto a piece of the same team, and cannot move onto a position that will put it in check
-			if ( targetPiece != null && targetPiece.getTeam() == getTeam() ) {
-				return false;
-			}
-
-			// Call isInCheckAt instead of willPutSelfKingInCheckAt
-			// - First, selfKing is null
-			// - Otherwise, if selfKing = this, willPutSelfKingInCheckAt( row, col ) moves King to target location and
-			// calls selfKing.isInCheck() = isInCheck(), which is equivalent to isInCheckAt( row, col )
-			return !checkPutSelfKingInCheck || !isInCheckAt( targetRow, targetCol );
+		Position position = getBoard().getPosition();
+		int square = Bitboards.square( getRow(), getCol() );
+		// Tiles that are one step away, excluding tiles occupied by a piece of the same team
+		long targets = Bitboards.KING_ATTACKS[square] & ~position.getOccupancy( Bitboards.index( getTeam() ) );
+		if ( ( targets & Bitboards.bit( targetRow, targetCol ) ) == 0 ) {
+			return false;
 		}
 
-		return false;
+		// Call isInCheckAt instead of willPutSelfKingInCheckAt: the attack map already sees through this King, so the
+		// target tile is attacked after the move exactly when it is attacked now
+		return !checkPutSelfKingInCheck || !isInCheckAt( targetRow, targetCol );
 	}
 
 	/**
@@ -116,7 +81,8 @@ public class King extends ChessPiece {
 	 * @return whether the King can castle to the right
 	 */
 	public boolean canCastleRightTo( int targetRow, int targetCol ) {
-		if ( getNumMoves() != 0 || isInCheck() ) {
+		// The King must be on its starting tile and never have moved
+		if ( getNumMoves() != 0 || getRow() != targetRow || getCol() != 4 || isInCheck() ) {
 			return false;
 		}
 
@@ -131,10 +97,10 @@ public class King extends ChessPiece {
 		Rook targetRook = null;
 		try {
 			if ( getTeam() == Team.WHITE ) {
-				targetRook = (Rook) getBoard()[7][7];
+				targetRook = (Rook) getBoard().getPiece( 7, 7 );
 			}
 			else {
-				targetRook = (Rook) getBoard()[0][7];
+				targetRook = (Rook) getBoard().getPiece( 0, 7 );
 			}
 		}
 		catch ( ClassCastException e ) {
@@ -142,19 +108,19 @@ public class King extends ChessPiece {
 		}
 
 		// Rook cannot have moved before
-		if ( targetRook.getNumMoves() != 0 ) {
+		if ( targetRook == null || targetRook.getNumMoves() != 0 ) {
 			// Target rook cannot have moved before
 			return false;
 		}
 
-		// Check locations that the King will go to; they cannot be occupied or under attack
-		if ( getBoard()[getRow()][5] != null || isInCheckAt( getRow(), 5 ) ) {
+		// Every tile between the King and the Rook must be empty
+		long path = Bitboards.BETWEEN[Bitboards.square( getRow(), getCol() )][Bitboards.square( getRow(), 7 )];
+		if ( ( getBoard().getPosition().getOccupancy() & path ) != 0 ) {
 			return false;
 		}
-		if ( getBoard()[getRow()][6] != null || isInCheckAt( getRow(), 6 ) ) {
-			return false;
-		}
-		return true;
+
+		// The tiles that the King will go to cannot be under attack
+		return !isInCheckAt( getRow(), 5 ) && !isInCheckAt( getRow(), 6 );
 	}
 
 	/**
@@ -165,7 +131,8 @@ public class King extends ChessPiece {
 	 * @return whether the King can castle to the left
 	 */
 	public boolean canCastleLeftTo( int targetRow, int targetCol ) {
-		if ( getNumMoves() != 0 || isInCheck() ) {
+		// The King must be on its starting tile and never have moved
+		if ( getNumMoves() != 0 || getRow() != targetRow || getCol() != 4 || isInCheck() ) {
 			return false;
 		}
 
@@ -180,10 +147,10 @@ public class King extends ChessPiece {
 		Rook targetRook = null;
 		try {
 			if ( getTeam() == Team.WHITE ) {
-				targetRook = (Rook) getBoard()[7][0];
+				targetRook = (Rook) getBoard().getPiece( 7, 0 );
 			}
 			else {
-				targetRook = (Rook) getBoard()[0][0];
+				targetRook = (Rook) getBoard().getPiece( 0, 0 );
 			}
 		}
 		catch ( ClassCastException e ) {
@@ -191,19 +158,19 @@ public class King extends ChessPiece {
 		}
 
 		// Rook cannot have moved before
-		if ( targetRook != null && targetRook.getNumMoves() != 0 ) {
+		if ( targetRook == null || targetRook.getNumMoves() != 0 ) {
 			// Target rook cannot have moved before
 			return false;
 		}
 
-		// Check locations that the King will go to; they cannot be occupied or under attack
-		if ( getBoard()[getRow()][3] != null || isInCheckAt( getRow(), 3 ) ) {
-			return false;
-		}
-		if ( getBoard()[getRow()][2] != null || isInCheckAt( getRow(), 2 ) ) {
+		// Every tile between the King and the Rook must be empty
+		long path = Bitboards.BETWEEN[Bitboards.square( getRow(), getCol() )][Bitboards.square( getRow(), 0 )];
+		if ( ( getBoard().getPosition().getOccupancy() & path ) != 0 ) {
 			return false;
 		}
-		return true;
+
+		// The tiles that the King will go to cannot be under attack
+		return !isInCheckAt( getRow(), 3 ) && !isInCheckAt( getRow(), 2 );
 	}
 
 	/**
@@ -224,38 +191,10 @@ public class King extends ChessPiece {
 	 * @return whether the King will be in check after moving to [targetRow, targetCol]
 	 */
 	private boolean isInCheckAt( int targetRow, int targetCol ) {
-		ChessPiece previousChessPiece = getBoard()[targetRow][targetCol];
-		int previousRow = getRow();
-		int previousCol = getCol();
-
-		// Move King to specified location
-		setLocation( targetRow, targetCol );
-
-		boolean willBePutInCheck = false;
-		for ( int i = 0; i < 8; i++ ) {
-			for ( int j = 0; j < 8; j++ ) {
-				ChessPiece enemyPiece = getBoard()[i][j];
-				// Cannot be put in check by own piece
-				if ( enemyPiece == null || enemyPiece.getTeam() == getTeam() ) {
-					continue;
-				}
-
-				// If an enemy Pawn can en pessant to the King's position, it can also directly move to the King's
-				// position
-				// An enemy King won't be able to castle to the King's position, as that will require the King to block
-				// the path between the King and the castling Rook
-				// Therefore, no need to check if enemyPiece can en pessant to castle to the King's position
-				if ( enemyPiece.canMoveTo( targetRow, targetCol, false ) ) {
-					willBePutInCheck = true;
-				}
-			}
-		}
-
-		// Restore King to original position
-		setLocation( previousRow, previousCol );
-		getBoard()[targetRow][targetCol] = previousChessPiece;
-
-		return willBePutInCheck;
+		// The attack map lets enemy sliding pieces see through this King, so tiles behind it are included. An enemy
+		// piece on [targetRow, targetCol] is only attacked if another enemy piece defends it
+		int enemyTeam = 1 - Bitboards.index( getTeam() );
+		return getBoard().getAttackMap().isAttacked( Bitboards.square( targetRow, targetCol ), enemyTeam );
 	}
 
 	/**
@@ -264,31 +203,34 @@ public class King extends ChessPiece {
 	 * @return whether the King is currently in checkmate
 	 */
 	public boolean isInCheckmate() {
-		if ( !isInCheck() ) {
-			return false;
+		if ( Bitboards.index( getTeam() ) == getBoard().getPosition().getSideToMove() ) {
+			// The board keeps the legal moves of the team to move
+			return getBoard().isCheckmate();
 		}
-
 		// King is in checkmate if none of its own pieces can move anywhere
-		for ( int index1 = 0; index1 < 64; index1++ ) {
-			int r1 = index1 / 8;
-			int c1 = index1 % 8;
-
-			ChessPiece friendlyPiece = getBoard()[r1][c1];
-			if ( friendlyPiece == null || friendlyPiece.getTeam() != getTeam() ) {
-				continue;
-			}
-
-			for ( int index2 = 0; index2 < 64; index2++ ) {
-				int r2 = index2 / 8;
-				int c2 = index2 % 8;
+		return isInCheck() && !MoveGenerator.hasLegalMove( getBoard().getPosition(), Bitboards.index( getTeam() ) );
+	}
 
-				if ( friendlyPiece.canMoveTo( r2, c2, true ) ) {
-					return false;
-				}
-			}
+	/**
+	 * Determine if the King's team is in stalemate
+	 * 
+	 * @return whether the King is not in check, but none of its own pieces can move anywhere
+	 */
+	public boolean isInStalemate() {
+		if ( Bitboards.index( getTeam() ) == getBoard().getPosition().getSideToMove() ) {
+			return getBoard().isStalemate();
 		}
+		return !isInCheck() && !MoveGenerator.hasLegalMove( getBoard().getPosition(), Bitboards.index( getTeam() ) );
+	}
 
-		return true;
+	/**
+	 * Get the type of the chess piece
+	 * 
+	 * @return {@link PieceType#KING}
+	 */
+	@Override
+	public PieceType getType() {
+		return PieceType.KING;
 	}
 
 	/**
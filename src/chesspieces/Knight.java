@@ -19,7 +19,7 @@ public class Knight extends ChessPiece {
 	 * @param selfKing - King instance of the same team
 	 * 
 	 */
-	public Knight( ChessPiece[][] board, int row, int col, Team team, King selfKing ) {
+	public Knight( Board board, int row, int col, Team team, King selfKing ) {
 		super( board, row, col, team, selfKing );
 	}
 
@@ -34,10 +34,7 @@ public class Knight extends ChessPiece {
 	@Override
 	public boolean attemptMoveTo( int targetRow, int targetCol, int currentMoveNumber ) {
 		if ( canMoveTo( targetRow, targetCol, true ) ) {
-			setLocation( targetRow, targetCol );
-			
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
+			moveTo( targetRow, targetCol, Move.NORMAL, currentMoveNumber );
 			return true;
 		}
 		else {
@@ -60,29 +57,26 @@ public class Knight extends ChessPiece {
 			return false;
 		}
 
-		int rowChange = targetRow - getRow();
-		int colChange = targetCol - getCol();
-
-		if ( rowChange == 0 && colChange == 0 ) {
-			// Destination and target location are the same
-			return false;
-		}
-
-		ChessPiece targetPiece = getBoard()[targetRow][targetCol];
-
-		// Cannot move onto a piece of the same team, and cannot move onto a position that will put it in check
-		if ( targetPiece != null && targetPiece.getTeam() == getTeam() ) {
+		Position position = getBoard().getPosition();
+		int square = Bitboards.square( getRow(), getCol() );
+		// Tiles that are a Knight's jump away, excluding tiles occupied by a piece of the same team
+		long targets = Bitboards.KNIGHT_ATTACKS[square] & ~position.getOccupancy( Bitboards.index( getTeam() ) );
+		if ( ( targets & Bitboards.bit( targetRow, targetCol ) ) == 0 ) {
 			return false;
 		}
+		return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
+	}
 
-		int distanceSquared = rowChange * rowChange + colChange * colChange;
-		if ( distanceSquared == 5 ) {
-			return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
-		}
-		
-		return false;
+	/**
+	 * Get the type of the chess piece
+	 * 
+	 * @return {@link PieceType#KNIGHT}
+	 */
+	@Override
+	public PieceType getType() {
+		return PieceType.KNIGHT;
 	}
-	
+
 	/**
 	 * Returns a String representation of Knight along with its team
 	 * @return a String representation of Knight along with its team
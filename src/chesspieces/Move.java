@@ -0,0 +1,129 @@
+package chesspieces;
+
+/**
+ * The Move class encodes a move as a single int, so that lists of moves can be generated without creating objects.
+ * Bits 0-5 hold the starting square, bits 6-11 the target square, bits 12-14 the piece type a Pawn is promoted to (0
+ * if the move is not a promotion) and bits 15-16 the kind of move.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class Move {
+
+	/**
+	 * Value used for "no move"
+	 */
+	public static final int NONE = 0;
+
+	/**
+	 * Kind of an ordinary move or capture
+	 */
+	public static final int NORMAL = 0;
+
+	/**
+	 * Kind of a Pawn moving two tiles forward
+	 */
+	public static final int DOUBLE_PUSH = 1;
+
+	/**
+	 * Kind of an en passant capture
+	 */
+	public static final int EN_PASSANT = 2;
+
+	/**
+	 * Kind of a castling move, encoded as the King's move
+	 */
+	public static final int CASTLE = 3;
+
+	private Move() {
+	}
+
+	/**
+	 * Encode a move
+	 *
+	 * @param from      - the starting square
+	 * @param to        - the target square
+	 * @param promotion - the piece type index to promote to, or 0 if the move is not a promotion
+	 * @param kind      - the kind of the move
+	 * @return the encoded move
+	 */
+	public static int encode( int from, int to, int promotion, int kind ) {
+		return from | ( to << 6 ) | ( promotion << 12 ) | ( kind << 15 );
+	}
+
+	/**
+	 * Encode an ordinary move or capture
+	 *
+	 * @param from - the starting square
+	 * @param to   - the target square
+	 * @return the encoded move
+	 */
+	public static int encode( int from, int to ) {
+		return from | ( to << 6 );
+	}
+
+	/**
+	 * Get the starting square of a move
+	 *
+	 * @param move - the encoded move
+	 * @return the starting square
+	 */
+	public static int from( int move ) {
+		return move & 63;
+	}
+
+	/**
+	 * Get the target square of a move
+	 *
+	 * @param move - the encoded move
+	 * @return the target square
+	 */
+	public static int to( int move ) {
+		return ( move >>> 6 ) & 63;
+	}
+
+	/**
+	 * Get the piece type a move promotes to
+	 *
+	 * @param move - the encoded move
+	 * @return the piece type index, or 0 if the move is not a promotion
+	 */
+	public static int promotion( int move ) {
+		return ( move >>> 12 ) & 7;
+	}
+
+	/**
+	 * Get the kind of a move
+	 *
+	 * @param move - the encoded move
+	 * @return {@link #NORMAL}, {@link #DOUBLE_PUSH}, {@link #EN_PASSANT} or {@link #CASTLE}
+	 */
+	public static int kind( int move ) {
+		return ( move >>> 15 ) & 3;
+	}
+
+	/**
+	 * Get the name of a square in the form "[file][rank]"
+	 *
+	 * @param square - the square
+	 * @return the name of the square, e.g. "e4"
+	 */
+	public static String squareName( int square ) {
+		return "" + (char) ( 'a' + Bitboards.col( square ) ) + (char) ( '8' - Bitboards.row( square ) );
+	}
+
+	/**
+	 * Get the coordinate notation of a move, e.g. "e2e4" or "e7e8q"
+	 *
+	 * @param move - the encoded move
+	 * @return the move in coordinate notation
+	 */
+	public static String toString( int move ) {
+		String name = squareName( from( move ) ) + squareName( to( move ) );
+		if ( promotion( move ) != 0 ) {
+			name += "pnbrqk".charAt( promotion( move ) );
+		}
+		return name;
+	}
+}
@@ -0,0 +1,294 @@
+package chesspieces;
+
+/**
+ * The MoveGenerator class generates every legal move of a team in a {@link Position}. Moves are generated per piece
+ * type from the attack tables, and legality is decided up front from the pieces giving check and the pieces pinned to
+ * the King, so no move has to be played out on the board to see if it leaves the King in check.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class MoveGenerator {
+
+	/**
+	 * The maximum number of legal moves in any chess position, rounded up. Move buffers should be at least this long
+	 */
+	public static final int MAX_MOVES = 256;
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Generate every legal move of the team to move
+	 *
+	 * @param position - the position
+	 * @param moves    - the buffer to write the encoded moves into, at least {@link #MAX_MOVES} long
+	 * @return the number of moves written into the buffer
+	 */
+	public static int generateLegalMoves( Position position, int[] moves ) {
+		return generateLegalMoves( position, position.getSideToMove(), moves );
+	}
+
+	/**
+	 * Generate every legal move of a team. En passant captures are only generated if the team is the team to move
+	 *
+	 * @param position - the position
+	 * @param team     - the index of the team to generate moves for
+	 * @param moves    - the buffer to write the encoded moves into, at least {@link #MAX_MOVES} long
+	 * @return the number of moves written into the buffer
+	 */
+	public static int generateLegalMoves( Position position, int team, int[] moves ) {
+		int kingSquare = position.getKingSquare( team );
+		if ( kingSquare < 0 ) {
+			return 0;
+		}
+
+		int enemyTeam = 1 - team;
+		long own = position.getOccupancy( team );
+		long occupancy = position.getOccupancy();
+		long checkers = position.attackersTo( kingSquare, enemyTeam, occupancy );
+		int count = 0;
+
+		// The King cannot hide from a sliding piece by stepping back along its line, so leave it out of the occupancy
+		long occupancyWithoutKing = occupancy & ~( 1L << kingSquare );
+		for ( long targets = Bitboards.KING_ATTACKS[kingSquare] & ~own; targets != 0; targets &= targets - 1 ) {
+			int target = Long.numberOfTrailingZeros( targets );
+			if ( position.attackersTo( target, enemyTeam, occupancyWithoutKing ) == 0 ) {
+				moves[count++] = Move.encode( kingSquare, target );
+			}
+		}
+
+		if ( Long.bitCount( checkers ) > 1 ) {
+			// In double check, only the King can move
+			return count;
+		}
+
+		// Tiles the other pieces may move to: anywhere not occupied by their own team, or when in check, onto the
+		// checking piece or between it and the King
+		long targetMask = ~own;
+		if ( checkers != 0 ) {
+			targetMask = checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros( checkers )];
+		}
+		else {
+			count = generateCastlingMoves( position, team, kingSquare, moves, count );
+		}
+
+		long pinned = getPinnedPieces( position, team );
+
+		// A pinned Knight can never move without exposing the King
+		for ( long knights = position.getPieces( team, Position.KNIGHT ) & ~pinned; knights != 0;
+				knights &= knights - 1 ) {
+			int from = Long.numberOfTrailingZeros( knights );
+			count = addMoves( from, Bitboards.KNIGHT_ATTACKS[from] & targetMask, moves, count );
+		}
+
+		long queens = position.getPieces( team, Position.QUEEN );
+		for ( long bishops = position.getPieces( team, Position.BISHOP ) | queens; bishops != 0;
+				bishops &= bishops - 1 ) {
+			int from = Long.numberOfTrailingZeros( bishops );
+			long targets = Bitboards.bishopAttacks( from, occupancy ) & targetMask;
+			if ( ( pinned & ( 1L << from ) ) != 0 ) {
+				targets &= Bitboards.LINE[kingSquare][from];
+			}
+			count = addMoves( from, targets, moves, count );
+		}
+		for ( long rooks = position.getPieces( team, Position.ROOK ) | queens; rooks != 0; rooks &= rooks - 1 ) {
+			int from = Long.numberOfTrailingZeros( rooks );
+			long targets = Bitboards.rookAttacks( from, occupancy ) & targetMask;
+			if ( ( pinned & ( 1L << from ) ) != 0 ) {
+				targets &= Bitboards.LINE[kingSquare][from];
+			}
+			count = addMoves( from, targets, moves, count );
+		}
+
+		return generatePawnMoves( position, team, kingSquare, targetMask, pinned, moves, count );
+	}
+
+	/**
+	 * Generate the legal moves of a team's Pawns, including en passant captures and promotions
+	 *
+	 * @param position   - the position
+	 * @param team       - the index of the team
+	 * @param kingSquare - the square of the team's King
+	 * @param targetMask - the tiles that pieces other than the King may move to
+	 * @param pinned     - the team's pieces that are pinned to the King
+	 * @param moves      - the buffer to write the encoded moves into
+	 * @param count      - the number of moves already in the buffer
+	 * @return the number of moves in the buffer
+	 */
+	private static int generatePawnMoves( Position position, int team, int kingSquare, long targetMask, long pinned,
+			int[] moves, int count ) {
+		long occupancy = position.getOccupancy();
+		long enemies = position.getOccupancy( 1 - team );
+		// White Pawns move towards row 0, black Pawns move towards row 7
+		int forward = team == Bitboards.WHITE ? -8 : 8;
+		int startRow = team == Bitboards.WHITE ? 6 : 1;
+		int enPassantSquare = team == position.getSideToMove() ? position.getEnPassantSquare() : -1;
+
+		for ( long pawns = position.getPieces( team, Position.PAWN ); pawns != 0; pawns &= pawns - 1 ) {
+			int from = Long.numberOfTrailingZeros( pawns );
+			long allowed = targetMask;
+			if ( ( pinned & ( 1L << from ) ) != 0 ) {
+				allowed &= Bitboards.LINE[kingSquare][from];
+			}
+
+			int oneStep = from + forward;
+			if ( ( occupancy & ( 1L << oneStep ) ) == 0 ) {
+				if ( ( allowed & ( 1L << oneStep ) ) != 0 ) {
+					count = addPawnMove( from, oneStep, moves, count );
+				}
+				int twoSteps = oneStep + forward;
+				if ( Bitboards.row( from ) == startRow && ( occupancy & ( 1L << twoSteps ) ) == 0
+						&& ( allowed & ( 1L << twoSteps ) ) != 0 ) {
+					moves[count++] = Move.encode( from, twoSteps, 0, Move.DOUBLE_PUSH );
+				}
+			}
+
+			for ( long captures = Bitboards.PAWN_ATTACKS[team][from] & enemies & allowed; captures != 0;
+					captures &= captures - 1 ) {
+				count = addPawnMove( from, Long.numberOfTrailingZeros( captures ), moves, count );
+			}
+
+			if ( enPassantSquare >= 0 && ( Bitboards.PAWN_ATTACKS[team][from] & ( 1L << enPassantSquare ) ) != 0 ) {
+				// En passant removes two pieces from a line at once, so play it out on the occupancy and look for any
+				// attacker of the King other than the captured Pawn
+				long capturedTile = 1L << ( enPassantSquare - forward );
+				long occupancyAfter = ( occupancy & ~( 1L << from ) & ~capturedTile ) | ( 1L << enPassantSquare );
+				if ( ( position.attackersTo( kingSquare, 1 - team, occupancyAfter ) & ~capturedTile ) == 0 ) {
+					moves[count++] = Move.encode( from, enPassantSquare, 0, Move.EN_PASSANT );
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Generate a team's castling moves. Precondition: the team is not in check
+	 *
+	 * @param position   - the position
+	 * @param team       - the index of the team
+	 * @param kingSquare - the square of the team's King
+	 * @param moves      - the buffer to write the encoded moves into
+	 * @param count      - the number of moves already in the buffer
+	 * @return the number of moves in the buffer
+	 */
+	private static int generateCastlingMoves( Position position, int team, int kingSquare, int[] moves, int count ) {
+		int homeRow = team == Bitboards.WHITE ? 7 : 0;
+		int kingside = team == Bitboards.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+		int queenside = team == Bitboards.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+		int rights = position.getCastlingRights();
+		if ( ( rights & ( kingside | queenside ) ) == 0 || kingSquare != Bitboards.square( homeRow, 4 ) ) {
+			return count;
+		}
+
+		long occupancy = position.getOccupancy();
+		long rooks = position.getPieces( team, Position.ROOK );
+		int enemyTeam = 1 - team;
+
+		// The tiles between the King and the Rook must be empty, and the King cannot pass through an attacked tile
+		if ( ( rights & kingside ) != 0 && ( rooks & Bitboards.bit( homeRow, 7 ) ) != 0
+				&& ( occupancy & Bitboards.BETWEEN[kingSquare][Bitboards.square( homeRow, 7 )] ) == 0
+				&& !position.isAttacked( Bitboards.square( homeRow, 5 ), enemyTeam )
+				&& !position.isAttacked( Bitboards.square( homeRow, 6 ), enemyTeam ) ) {
+			moves[count++] = Move.encode( kingSquare, Bitboards.square( homeRow, 6 ), 0, Move.CASTLE );
+		}
+		if ( ( rights & queenside ) != 0 && ( rooks & Bitboards.bit( homeRow, 0 ) ) != 0
+				&& ( occupancy & Bitboards.BETWEEN[kingSquare][Bitboards.square( homeRow, 0 )] ) == 0
+				&& !position.isAttacked( Bitboards.square( homeRow, 3 ), enemyTeam )
+				&& !position.isAttacked( Bitboards.square( homeRow, 2 ), enemyTeam ) ) {
+			moves[count++] = Move.encode( kingSquare, Bitboards.square( homeRow, 2 ), 0, Move.CASTLE );
+		}
+		return count;
+	}
+
+	/**
+	 * Add an ordinary move from a square to each target
+	 *
+	 * @param from    - the starting square
+	 * @param targets - the bitboard of target squares
+	 * @param moves   - the buffer to write the encoded moves into
+	 * @param count   - the number of moves already in the buffer
+	 * @return the number of moves in the buffer
+	 */
+	private static int addMoves( int from, long targets, int[] moves, int count ) {
+		for ( ; targets != 0; targets &= targets - 1 ) {
+			moves[count++] = Move.encode( from, Long.numberOfTrailingZeros( targets ) );
+		}
+		return count;
+	}
+
+	/**
+	 * Add a Pawn move, expanded into the four possible promotions if the Pawn reaches the last row
+	 *
+	 * @param from  - the starting square
+	 * @param to    - the target square
+	 * @param moves - the buffer to write the encoded moves into
+	 * @param count - the number of moves already in the buffer
+	 * @return the number of moves in the buffer
+	 */
+	private static int addPawnMove( int from, int to, int[] moves, int count ) {
+		int targetRow = Bitboards.row( to );
+		if ( targetRow == 0 || targetRow == 7 ) {
+			moves[count++] = Move.encode( from, to, Position.QUEEN, Move.NORMAL );
+			moves[count++] = Move.encode( from, to, Position.ROOK, Move.NORMAL );
+			moves[count++] = Move.encode( from, to, Position.BISHOP, Move.NORMAL );
+			moves[count++] = Move.encode( from, to, Position.KNIGHT, Move.NORMAL );
+		}
+		else {
+			moves[count++] = Move.encode( from, to );
+		}
+		return count;
+	}
+
+	/**
+	 * Get the pieces of a team that are pinned to their King, i.e. the only piece between the King and an enemy
+	 * sliding piece
+	 *
+	 * @param position - the position
+	 * @param team     - the index of the team
+	 * @return the bitboard of the pinned pieces
+	 */
+	public static long getPinnedPieces( Position position, int team ) {
+		int kingSquare = position.getKingSquare( team );
+		int enemyTeam = 1 - team;
+		long queens = position.getPieces( enemyTeam, Position.QUEEN );
+		long snipers = ( Bitboards.rookAttacks( kingSquare, 0L )
+				& ( position.getPieces( enemyTeam, Position.ROOK ) | queens ) )
+				| ( Bitboards.bishopAttacks( kingSquare, 0L )
+						& ( position.getPieces( enemyTeam, Position.BISHOP ) | queens ) );
+
+		long pinned = 0L;
+		for ( ; snipers != 0; snipers &= snipers - 1 ) {
+			long blockers = Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros( snipers )]
+					& position.getOccupancy();
+			if ( blockers != 0 && ( blockers & ( blockers - 1 ) ) == 0 ) {
+				pinned |= blockers & position.getOccupancy( team );
+			}
+		}
+		return pinned;
+	}
+
+	/**
+	 * Determine if a team's King is in check
+	 *
+	 * @param position - the position
+	 * @param team     - the index of the team
+	 * @return whether the team's King is attacked
+	 */
+	public static boolean isInCheck( Position position, int team ) {
+		int kingSquare = position.getKingSquare( team );
+		return kingSquare >= 0 && position.isAttacked( kingSquare, 1 - team );
+	}
+
+	/**
+	 * Determine if a team has any legal move
+	 *
+	 * @param position - the position
+	 * @param team     - the index of the team
+	 * @return whether the team has at least one legal move
+	 */
+	public static boolean hasLegalMove( Position position, int team ) {
+		return generateLegalMoves( position, team, new int[MAX_MOVES] ) > 0;
+	}
+}
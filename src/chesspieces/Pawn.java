@@ -9,6 +9,11 @@ package chesspieces;
  */
 public class Pawn extends ChessPiece {
 
+	/**
+	 * The chess pieces that the Pawn has promoted to, by type, or null before the Pawn first promotes
+	 */
+	private ChessPiece[] promotionPieces;
+
 	/**
 	 * Constructor for an instance of a Pawn
 	 * 
@@ -19,7 +24,7 @@ public class Pawn extends ChessPiece {
 	 * @param selfKing - King instance of the same team
 	 * 
 	 */
-	public Pawn( ChessPiece[][] board, int row, int col, Team team, King selfKing ) {
+	public Pawn( Board board, int row, int col, Team team, King selfKing ) {
 		super( board, row, col, team, selfKing );
 	}
 
@@ -35,28 +40,14 @@ public class Pawn extends ChessPiece {
 	@Override
 	public boolean attemptMoveTo( int targetRow, int targetCol, int currentMoveNumber ) {
 		if ( canMoveTo( targetRow, targetCol, true ) ) {
-			setLocation( targetRow, targetCol );
-
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
+			moveTo( targetRow, targetCol, Math.abs( targetRow - getRow() ) == 2 ? Move.DOUBLE_PUSH : Move.NORMAL,
+					currentMoveNumber );
 			return true;
 		}
-		else if ( canEnPessantLeftTo( targetRow, targetCol, currentMoveNumber ) ) {
-			// Remove target pawn from board
-			getBoard()[getRow()][getCol() - 1] = null;
-
-			setLocation( targetRow, targetCol );
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
-			return true;
-		}
-		else if ( canEnPessantRightTo( targetRow, targetCol, currentMoveNumber ) ) {
-			// Remove target pawn from board
-			getBoard()[getRow()][getCol() + 1] = null;
-
-			setLocation( targetRow, targetCol );
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
+		else if ( canEnPessantLeftTo( targetRow, targetCol, currentMoveNumber )
+				|| canEnPessantRightTo( targetRow, targetCol, currentMoveNumber ) ) {
+			// The board removes the target pawn beside this one
+			moveTo( targetRow, targetCol, Move.EN_PASSANT, currentMoveNumber );
 			return true;
 		}
 		else {
@@ -79,34 +70,35 @@ public class Pawn extends ChessPiece {
 			return false;
 		}
 
-		ChessPiece targetPiece = getBoard()[targetRow][targetCol];
-		int rowChange = targetRow - getRow();
-		int colChange = targetCol - getCol();
-		if ( ( getTeam() == Team.WHITE && rowChange == -1 ) || ( getTeam() == Team.BLACK && rowChange == 1 ) ) {
-			// Can move straight up/down (depending on team) by one if the target location is empty
-			if ( colChange == 0 && targetPiece == null ) {
-				return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
-			}
-			// Can move up by one and left/right by one if the target location contains an enemy piece
-			else if ( Math.abs( colChange ) == 1 && ( targetPiece != null && targetPiece.getTeam() != getTeam() ) ) {
-				return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
-			}
-			else {
-				return false;
-			}
-		}
-		else if ( ( getTeam() == Team.WHITE && rowChange == -2 ) || ( getTeam() == Team.BLACK && rowChange == 2 ) ) {
-			// Can move straight up/down (depending on team) by two if the target location is empty and numMoves == 0
-			if ( colChange == 0 && targetPiece == null && getNumMoves() == 0 ) {
-				return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
-			}
-			else {
-				return false;
-			}
+		Position position = getBoard().getPosition();
+		int team = Bitboards.index( getTeam() );
+		long tile = Bitboards.bit( getRow(), getCol() );
+
+		// Can move straight up/down (depending on team) by one if the target location is empty
+		long empty = ~position.getOccupancy();
+		long targets = ( getTeam() == Team.WHITE ? tile >>> 8 : tile << 8 ) & empty;
+		if ( getNumMoves() == 0 ) {
+			// Can move straight up/down (depending on team) by two if both locations are empty and numMoves == 0
+			targets |= ( getTeam() == Team.WHITE ? targets >>> 8 : targets << 8 ) & empty;
 		}
-		else {
+		// Can move up by one and left/right by one if the target location contains an enemy piece
+		targets |= Bitboards.PAWN_ATTACKS[team][Bitboards.square( getRow(), getCol() )]
+				& position.getOccupancy( 1 - team );
+
+		if ( ( targets & Bitboards.bit( targetRow, targetCol ) ) == 0 ) {
 			return false;
 		}
+		return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
+	}
+
+	/**
+	 * Get the type of the chess piece
+	 * 
+	 * @return {@link PieceType#PAWN}
+	 */
+	@Override
+	public PieceType getType() {
+		return PieceType.PAWN;
 	}
 
 	/**
@@ -132,7 +124,7 @@ public class Pawn extends ChessPiece {
 
 		int colChange = targetCol - getCol();
 		if ( colChange == 1 ) {
-			ChessPiece adjacentRightPiece = getBoard()[getRow()][getCol() + 1];
+			ChessPiece adjacentRightPiece = getBoard().getPiece( getRow(), getCol() + 1 );
 			if ( adjacentRightPiece instanceof Pawn ) {
 				Pawn targetPawn = (Pawn) adjacentRightPiece;
 				if ( targetPawn != null && getTeam() == targetPawn.getTeam() ) {
@@ -144,7 +136,8 @@ public class Pawn extends ChessPiece {
 					return false;
 				}
 
-				return !willPutSelfKingInCheckAt( targetRow, targetCol );
+				// The captured Pawn is beside this one, not on the target tile
+				return !willPutSelfKingInCheckAt( targetRow, targetCol, getRow(), getCol() + 1 );
 			}
 		}
 		return false;
@@ -173,7 +166,7 @@ public class Pawn extends ChessPiece {
 
 		int colChange = targetCol - getCol();
 		if ( colChange == -1 ) {
-			ChessPiece adjacentLeftPiece = getBoard()[getRow()][getCol() - 1];
+			ChessPiece adjacentLeftPiece = getBoard().getPiece( getRow(), getCol() - 1 );
 			if ( adjacentLeftPiece instanceof Pawn ) {
 				Pawn targetPawn = (Pawn) adjacentLeftPiece;
 				if ( targetPawn != null && getTeam() == targetPawn.getTeam() ) {
@@ -185,7 +178,8 @@ public class Pawn extends ChessPiece {
 					return false;
 				}
 
-				return !willPutSelfKingInCheckAt( targetRow, targetCol );
+				// The captured Pawn is beside this one, not on the target tile
+				return !willPutSelfKingInCheckAt( targetRow, targetCol, getRow(), getCol() - 1 );
 			}
 		}
 		return false;
@@ -204,19 +198,19 @@ public class Pawn extends ChessPiece {
 		}
 		switch ( promotionPiece ) {
 			case 'Q': {
-				getBoard()[getRow()][getCol()] = new Queen( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+				getBoard().promoteLastMove( this, Position.QUEEN );
 				return true;
 			}
 			case 'R': {
-				getBoard()[getRow()][getCol()] = new Rook( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+				getBoard().promoteLastMove( this, Position.ROOK );
 				return true;
 			}
 			case 'B': {
-				getBoard()[getRow()][getCol()] = new Bishop( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+				getBoard().promoteLastMove( this, Position.BISHOP );
 				return true;
 			}
 			case 'N': {
-				getBoard()[getRow()][getCol()] = new Knight( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+				getBoard().promoteLastMove( this, Position.KNIGHT );
 				return true;
 			}
 			default: {
@@ -226,6 +220,49 @@ public class Pawn extends ChessPiece {
 
 	}
 
+	/**
+	 * Replace the Pawn on the board with the chess piece it promotes to. The chess piece is only created the first
+	 * time the Pawn promotes to its type; after a promotion is taken back, the same chess piece is put back on the
+	 * board, as if it were new
+	 * 
+	 * @param type - the type of piece to promote to, e.g. {@link Position#QUEEN}
+	 */
+	void placePromotionPiece( int type ) {
+		if ( promotionPieces == null ) {
+			promotionPieces = new ChessPiece[Position.KING];
+		}
+
+		ChessPiece piece = promotionPieces[type];
+		if ( piece == null ) {
+			// The new chess piece replaces the Pawn on the board
+			promotionPieces[type] = createPromotionPiece( type );
+		}
+		else {
+			piece.setNumMoves( 0 );
+			piece.setLastMoveNumber( 0 );
+			getBoard().occupy( piece, getRow(), getCol() );
+		}
+	}
+
+	/**
+	 * Create the chess piece that the Pawn promotes to, in place of the Pawn
+	 * 
+	 * @param type - the type of piece to promote to, e.g. {@link Position#QUEEN}
+	 * @return the new chess piece
+	 */
+	private ChessPiece createPromotionPiece( int type ) {
+		switch ( type ) {
+			case Position.QUEEN:
+				return new Queen( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+			case Position.ROOK:
+				return new Rook( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+			case Position.BISHOP:
+				return new Bishop( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+			default:
+				return new Knight( getBoard(), getRow(), getCol(), getTeam(), getSelfKing() );
+		}
+	}
+
 	/**
 	 * Determine if the Pawn will be promoted at the indicated row.
 	 * 
@@ -0,0 +1,41 @@
+package chesspieces;
+
+/**
+ * This enum represents the six types of chess pieces. The ordinal of each type is used as an index into the bitboards
+ * of a {@link Position}.
+ * 
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public enum PieceType {
+	/**
+	 * Pawn
+	 */
+	PAWN,
+
+	/**
+	 * Knight
+	 */
+	KNIGHT,
+
+	/**
+	 * Bishop
+	 */
+	BISHOP,
+
+	/**
+	 * Rook
+	 */
+	ROOK,
+
+	/**
+	 * Queen
+	 */
+	QUEEN,
+
+	/**
+	 * King
+	 */
+	KING
+}
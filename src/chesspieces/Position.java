@@ -0,0 +1,569 @@
+package chesspieces;
+
+import java.util.Arrays;
+
+/**
+ * The Position class is the bitboard representation of the pieces on a chessboard. Each team has one bitboard per
+ * piece type, plus a bitboard of every tile that team occupies, so that move validation and check detection can be
+ * answered with a few bitwise operations instead of walking the board.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public class Position {
+
+	/**
+	 * Value of an empty square in the mailbox
+	 */
+	public static final int EMPTY = -1;
+
+	/**
+	 * Piece type index of a Pawn, equal to the ordinal of {@link PieceType#PAWN}
+	 */
+	public static final int PAWN = 0;
+
+	/**
+	 * Piece type index of a Knight, equal to the ordinal of {@link PieceType#KNIGHT}
+	 */
+	public static final int KNIGHT = 1;
+
+	/**
+	 * Piece type index of a Bishop, equal to the ordinal of {@link PieceType#BISHOP}
+	 */
+	public static final int BISHOP = 2;
+
+	/**
+	 * Piece type index of a Rook, equal to the ordinal of {@link PieceType#ROOK}
+	 */
+	public static final int ROOK = 3;
+
+	/**
+	 * Piece type index of a Queen, equal to the ordinal of {@link PieceType#QUEEN}
+	 */
+	public static final int QUEEN = 4;
+
+	/**
+	 * Piece type index of a King, equal to the ordinal of {@link PieceType#KING}
+	 */
+	public static final int KING = 5;
+
+	/**
+	 * Castling right of white to castle to the right (kingside)
+	 */
+	public static final int WHITE_KINGSIDE = 1;
+
+	/**
+	 * Castling right of white to castle to the left (queenside)
+	 */
+	public static final int WHITE_QUEENSIDE = 2;
+
+	/**
+	 * Castling right of black to castle to the right (kingside)
+	 */
+	public static final int BLACK_KINGSIDE = 4;
+
+	/**
+	 * Castling right of black to castle to the left (queenside)
+	 */
+	public static final int BLACK_QUEENSIDE = 8;
+
+	/**
+	 * The number of moves that can be undone before the undo stack has to grow
+	 */
+	private static final int INITIAL_UNDO_CAPACITY = 256;
+
+	/**
+	 * The castling rights kept when a piece moves from or to each square; moving a King or Rook off its starting
+	 * square, or capturing a Rook on its starting square, loses the matching rights
+	 */
+	private static final int[] CASTLING_MASK = new int[64];
+
+	static {
+		Arrays.fill( CASTLING_MASK, WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE );
+		CASTLING_MASK[Bitboards.square( 7, 4 )] &= ~( WHITE_KINGSIDE | WHITE_QUEENSIDE );
+		CASTLING_MASK[Bitboards.square( 7, 7 )] &= ~WHITE_KINGSIDE;
+		CASTLING_MASK[Bitboards.square( 7, 0 )] &= ~WHITE_QUEENSIDE;
+		CASTLING_MASK[Bitboards.square( 0, 4 )] &= ~( BLACK_KINGSIDE | BLACK_QUEENSIDE );
+		CASTLING_MASK[Bitboards.square( 0, 7 )] &= ~BLACK_KINGSIDE;
+		CASTLING_MASK[Bitboards.square( 0, 0 )] &= ~BLACK_QUEENSIDE;
+	}
+
+	/**
+	 * The bitboards of each piece type of each team, indexed by [team][piece type]
+	 */
+	private final long[][] pieces = new long[2][6];
+
+	/**
+	 * The bitboard of the tiles occupied by each team
+	 */
+	private final long[] teamOccupancy = new long[2];
+
+	/**
+	 * The bitboard of all occupied tiles
+	 */
+	private long occupancy;
+
+	/**
+	 * The piece on each square, encoded as (team * 6 + piece type), or {@link #EMPTY}
+	 */
+	private final int[] mailbox = new int[64];
+
+	/**
+	 * The index of the team to move
+	 */
+	private int sideToMove;
+
+	/**
+	 * The castling rights that are still available, as a combination of {@link #WHITE_KINGSIDE},
+	 * {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+	 */
+	private int castlingRights;
+
+	/**
+	 * The square that a Pawn of the team to move can capture onto en passant, or -1 if there is none
+	 */
+	private int enPassantSquare;
+
+	/**
+	 * The Zobrist hash of the position, updated with every change to it
+	 */
+	private long hash;
+
+	/**
+	 * The material and square bonuses of the pieces in the middlegame and in the endgame, from white's point of view,
+	 * and the game phase, kept up to date as pieces are put and removed (see {@link Evaluation})
+	 */
+	private int midgameScore;
+	private int endgameScore;
+	private int phase;
+
+	/**
+	 * The state that a move cannot restore by itself, saved by {@link #makeMove(int)} for {@link #unmakeMove(int)}:
+	 * the captured piece, the castling rights and the en passant square before each move
+	 */
+	private int[] undoCaptured = new int[INITIAL_UNDO_CAPACITY];
+	private int[] undoCastlingRights = new int[INITIAL_UNDO_CAPACITY];
+	private int[] undoEnPassantSquare = new int[INITIAL_UNDO_CAPACITY];
+
+	/**
+	 * The number of moves that can be undone
+	 */
+	private int undoSize;
+
+	/**
+	 * Create an empty position
+	 */
+	public Position() {
+		Arrays.fill( mailbox, EMPTY );
+		sideToMove = Bitboards.WHITE;
+		castlingRights = 0;
+		enPassantSquare = -1;
+		hash = 0;
+	}
+
+	/**
+	 * Create a copy of a position. The moves made on the other position cannot be undone on the copy
+	 *
+	 * @param other - the position to copy
+	 */
+	public Position( Position other ) {
+		for ( int team = 0; team < 2; team++ ) {
+			System.arraycopy( other.pieces[team], 0, pieces[team], 0, 6 );
+		}
+		System.arraycopy( other.teamOccupancy, 0, teamOccupancy, 0, 2 );
+		System.arraycopy( other.mailbox, 0, mailbox, 0, 64 );
+		occupancy = other.occupancy;
+		sideToMove = other.sideToMove;
+		castlingRights = other.castlingRights;
+		enPassantSquare = other.enPassantSquare;
+		hash = other.hash;
+		midgameScore = other.midgameScore;
+		endgameScore = other.endgameScore;
+		phase = other.phase;
+	}
+
+	/**
+	 * Play a legal move for the team to move, updating the castling rights, en passant square and team to move. The
+	 * move can be taken back with {@link #unmakeMove(int)}; nothing is allocated unless more moves are made than the
+	 * undo stack has room for
+	 *
+	 * @param move - the encoded move, as generated by {@link MoveGenerator}
+	 */
+	public void makeMove( int move ) {
+		int from = Move.from( move );
+		int to = Move.to( move );
+		int kind = Move.kind( move );
+		int team = mailbox[from] / 6;
+		int type = Move.promotion( move ) != 0 ? Move.promotion( move ) : mailbox[from] % 6;
+
+		if ( undoSize == undoCaptured.length ) {
+			undoCaptured = Arrays.copyOf( undoCaptured, undoSize * 2 );
+			undoCastlingRights = Arrays.copyOf( undoCastlingRights, undoSize * 2 );
+			undoEnPassantSquare = Arrays.copyOf( undoEnPassantSquare, undoSize * 2 );
+		}
+		undoCaptured[undoSize] = mailbox[to];
+		undoCastlingRights[undoSize] = castlingRights;
+		undoEnPassantSquare[undoSize] = enPassantSquare;
+		undoSize++;
+
+		remove( to );
+		remove( from );
+		put( team, type, to );
+
+		if ( kind == Move.EN_PASSANT ) {
+			// The captured Pawn is behind the target square
+			remove( to + ( team == Bitboards.WHITE ? 8 : -8 ) );
+		}
+		else if ( kind == Move.CASTLE ) {
+			int row = Bitboards.row( to );
+			if ( Bitboards.col( to ) == 6 ) {
+				remove( Bitboards.square( row, 7 ) );
+				put( team, ROOK, Bitboards.square( row, 5 ) );
+			}
+			else {
+				remove( Bitboards.square( row, 0 ) );
+				put( team, ROOK, Bitboards.square( row, 3 ) );
+			}
+		}
+
+		setCastlingRights( castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to] );
+
+		// Only record the skipped tile if an enemy Pawn is next to the Pawn to capture it
+		int newEnPassantSquare = -1;
+		if ( kind == Move.DOUBLE_PUSH ) {
+			int skippedSquare = ( from + to ) / 2;
+			if ( ( Bitboards.PAWN_ATTACKS[team][skippedSquare] & pieces[1 - team][PAWN] ) != 0 ) {
+				newEnPassantSquare = skippedSquare;
+			}
+		}
+		setEnPassantSquare( newEnPassantSquare );
+
+		setSideToMove( 1 - team );
+	}
+
+	/**
+	 * Take back the last move made with {@link #makeMove(int)}, restoring the captured piece, castling rights, en
+	 * passant square, team to move and hash
+	 *
+	 * @param move - the encoded move, which must be the last move made
+	 */
+	public void unmakeMove( int move ) {
+		int from = Move.from( move );
+		int to = Move.to( move );
+		int kind = Move.kind( move );
+		int team = mailbox[to] / 6;
+		int type = Move.promotion( move ) != 0 ? PAWN : mailbox[to] % 6;
+		undoSize--;
+
+		remove( to );
+		put( team, type, from );
+		int captured = undoCaptured[undoSize];
+		if ( captured != EMPTY ) {
+			put( captured / 6, captured % 6, to );
+		}
+
+		if ( kind == Move.EN_PASSANT ) {
+			put( 1 - team, PAWN, to + ( team == Bitboards.WHITE ? 8 : -8 ) );
+		}
+		else if ( kind == Move.CASTLE ) {
+			int row = Bitboards.row( to );
+			if ( Bitboards.col( to ) == 6 ) {
+				remove( Bitboards.square( row, 5 ) );
+				put( team, ROOK, Bitboards.square( row, 7 ) );
+			}
+			else {
+				remove( Bitboards.square( row, 3 ) );
+				put( team, ROOK, Bitboards.square( row, 0 ) );
+			}
+		}
+
+		setCastlingRights( undoCastlingRights[undoSize] );
+		setEnPassantSquare( undoEnPassantSquare[undoSize] );
+		setSideToMove( team );
+	}
+
+	/**
+	 * Put a piece onto an empty square
+	 *
+	 * @param team   - the team index of the piece
+	 * @param type   - the piece type index of the piece
+	 * @param square - the square to put the piece on
+	 */
+	public void put( int team, int type, int square ) {
+		long tile = 1L << square;
+		pieces[team][type] |= tile;
+		teamOccupancy[team] |= tile;
+		occupancy |= tile;
+		mailbox[square] = team * 6 + type;
+		hash ^= Zobrist.PIECE_KEYS[team * 6 + type][square];
+		midgameScore += Evaluation.MIDGAME_VALUES[team * 6 + type][square];
+		endgameScore += Evaluation.ENDGAME_VALUES[team * 6 + type][square];
+		phase += Evaluation.PHASE_WEIGHTS[type];
+	}
+
+	/**
+	 * Remove the piece on a square, if any
+	 *
+	 * @param square - the square to clear
+	 */
+	public void remove( int square ) {
+		int piece = mailbox[square];
+		if ( piece == EMPTY ) {
+			return;
+		}
+
+		long tile = 1L << square;
+		int team = piece / 6;
+		pieces[team][piece % 6] &= ~tile;
+		teamOccupancy[team] &= ~tile;
+		occupancy &= ~tile;
+		mailbox[square] = EMPTY;
+		hash ^= Zobrist.PIECE_KEYS[piece][square];
+		midgameScore -= Evaluation.MIDGAME_VALUES[piece][square];
+		endgameScore -= Evaluation.ENDGAME_VALUES[piece][square];
+		phase -= Evaluation.PHASE_WEIGHTS[piece % 6];
+	}
+
+	/**
+	 * Get the encoded piece on a square
+	 *
+	 * @param square - the square
+	 * @return the piece encoded as (team * 6 + piece type), or {@link #EMPTY}
+	 */
+	public int getPiece( int square ) {
+		return mailbox[square];
+	}
+
+	/**
+	 * Get the bitboard of one piece type of one team
+	 *
+	 * @param team - the team index
+	 * @param type - the piece type index
+	 * @return the bitboard of the pieces
+	 */
+	public long getPieces( int team, int type ) {
+		return pieces[team][type];
+	}
+
+	/**
+	 * Get the number of pieces of one piece type of one team
+	 *
+	 * @param team - the team index
+	 * @param type - the piece type index
+	 * @return the number of pieces
+	 */
+	public int getPieceCount( int team, int type ) {
+		return Long.bitCount( pieces[team][type] );
+	}
+
+	/**
+	 * Get the bitboard of the tiles occupied by one team
+	 *
+	 * @param team - the team index
+	 * @return the bitboard of the team's pieces
+	 */
+	public long getOccupancy( int team ) {
+		return teamOccupancy[team];
+	}
+
+	/**
+	 * Get the bitboard of all occupied tiles
+	 *
+	 * @return the bitboard of all pieces
+	 */
+	public long getOccupancy() {
+		return occupancy;
+	}
+
+	/**
+	 * Get the team to move
+	 *
+	 * @return the index of the team to move
+	 */
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	/**
+	 * Set the team to move
+	 *
+	 * @param sideToMove - the index of the team to move
+	 */
+	public void setSideToMove( int sideToMove ) {
+		if ( sideToMove != this.sideToMove ) {
+			hash ^= Zobrist.SIDE_KEY;
+		}
+		this.sideToMove = sideToMove;
+	}
+
+	/**
+	 * Get the castling rights that are still available
+	 *
+	 * @return a combination of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and
+	 *         {@link #BLACK_QUEENSIDE}
+	 */
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	/**
+	 * Set the castling rights that are still available
+	 *
+	 * @param castlingRights - a combination of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE},
+	 *                       {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+	 */
+	public void setCastlingRights( int castlingRights ) {
+		hash ^= Zobrist.CASTLING_KEYS[this.castlingRights] ^ Zobrist.CASTLING_KEYS[castlingRights];
+		this.castlingRights = castlingRights;
+	}
+
+	/**
+	 * Get the square that a Pawn of the team to move can capture onto en passant
+	 *
+	 * @return the en passant square, or -1 if there is none
+	 */
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	/**
+	 * Set the square that a Pawn of the team to move can capture onto en passant
+	 *
+	 * @param enPassantSquare - the en passant square, or -1 if there is none
+	 */
+	public void setEnPassantSquare( int enPassantSquare ) {
+		if ( this.enPassantSquare >= 0 ) {
+			hash ^= Zobrist.EN_PASSANT_KEYS[Bitboards.col( this.enPassantSquare )];
+		}
+		if ( enPassantSquare >= 0 ) {
+			hash ^= Zobrist.EN_PASSANT_KEYS[Bitboards.col( enPassantSquare )];
+		}
+		this.enPassantSquare = enPassantSquare;
+	}
+
+	/**
+	 * Get the Zobrist hash of the position, which covers the pieces, the team to move, the castling rights and the
+	 * en passant square. Equal positions always have equal hashes
+	 *
+	 * @return the hash of the position
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Get the middlegame material and square bonuses of the pieces, from white's point of view
+	 *
+	 * @return the middlegame score in centipawns
+	 */
+	public int getMidgameScore() {
+		return midgameScore;
+	}
+
+	/**
+	 * Get the endgame material and square bonuses of the pieces, from white's point of view
+	 *
+	 * @return the endgame score in centipawns
+	 */
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+
+	/**
+	 * Get the game phase, from {@link Evaluation#MAX_PHASE} or more with all pieces on the board to 0 with only Kings
+	 * and Pawns left
+	 *
+	 * @return the game phase
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Get the square of a team's King
+	 *
+	 * @param team - the team index
+	 * @return the square of the King, or -1 if the team has no King
+	 */
+	public int getKingSquare( int team ) {
+		long king = pieces[team][KING];
+		return king == 0 ? -1 : Long.numberOfTrailingZeros( king );
+	}
+
+	/**
+	 * Determine if neither team has the pieces left to checkmate, whatever the moves: only Kings, a single Knight or
+	 * Bishop, or Bishops that all stand on tiles of the same color
+	 *
+	 * @return whether the material on the board is insufficient for checkmate
+	 */
+	public boolean isInsufficientMaterial() {
+		for ( int team = 0; team < 2; team++ ) {
+			if ( ( pieces[team][PAWN] | pieces[team][ROOK] | pieces[team][QUEEN] ) != 0 ) {
+				return false;
+			}
+		}
+
+		long knights = pieces[Bitboards.WHITE][KNIGHT] | pieces[Bitboards.BLACK][KNIGHT];
+		long bishops = pieces[Bitboards.WHITE][BISHOP] | pieces[Bitboards.BLACK][BISHOP];
+		if ( Long.bitCount( knights | bishops ) <= 1 ) {
+			return true;
+		}
+		long whiteTileBishops = bishops & Bitboards.WHITE_TILES;
+		return knights == 0 && ( whiteTileBishops == 0 || whiteTileBishops == bishops );
+	}
+
+	/**
+	 * Get the pieces of a team that attack a square, given a hypothetical occupancy of the board
+	 *
+	 * @param square    - the attacked square
+	 * @param team      - the index of the attacking team
+	 * @param occupancy - the bitboard of occupied tiles to use for sliding pieces
+	 * @return the bitboard of the team's pieces attacking the square
+	 */
+	public long attackersTo( int square, int team, long occupancy ) {
+		long[] own = pieces[team];
+		long queens = own[QUEEN];
+		return ( Bitboards.PAWN_ATTACKS[1 - team][square] & own[PAWN] )
+				| ( Bitboards.KNIGHT_ATTACKS[square] & own[KNIGHT] )
+				| ( Bitboards.KING_ATTACKS[square] & own[KING] )
+				| ( Bitboards.rookAttacks( square, occupancy ) & ( own[ROOK] | queens ) )
+				| ( Bitboards.bishopAttacks( square, occupancy ) & ( own[BISHOP] | queens ) );
+	}
+
+	/**
+	 * Determine if a square is attacked by any piece of a team
+	 *
+	 * @param square - the square
+	 * @param team   - the index of the attacking team
+	 * @return whether the square is attacked
+	 */
+	public boolean isAttacked( int square, int team ) {
+		return attackersTo( square, team, occupancy ) != 0;
+	}
+
+	/**
+	 * Determine if moving the piece on a square would leave the King of its team in check. Nothing is moved: the
+	 * position after the move is worked out from the occupancy alone, so this may be called from several threads at
+	 * once as long as none of them changes the position
+	 *
+	 * @param from           - the square of the piece to move
+	 * @param to             - the square to move the piece to
+	 * @param capturedSquare - the square of the piece captured by the move, which is only different from the target
+	 *                       square for en passant
+	 * @return whether the King of the moving piece would be attacked after the move
+	 */
+	public boolean leavesKingInCheck( int from, int to, int capturedSquare ) {
+		int team = mailbox[from] / 6;
+		int kingSquare = mailbox[from] % 6 == KING ? to : getKingSquare( team );
+		if ( kingSquare < 0 ) {
+			return false;
+		}
+
+		long removed = ( 1L << from ) | ( 1L << capturedSquare );
+		long occupancyAfter = ( occupancy & ~removed ) | ( 1L << to );
+		// A captured enemy piece no longer attacks anything
+		long captured = ( 1L << to ) | ( 1L << capturedSquare );
+		return ( attackersTo( kingSquare, 1 - team, occupancyAfter ) & ~captured ) != 0;
+	}
+}
@@ -18,7 +18,7 @@ public class Rook extends ChessPiece {
 	 * @param selfKing - King instance of the same team
 	 * 
 	 */
-	public Rook( ChessPiece[][] board, int row, int col, Team team, King selfKing ) {
+	public Rook( Board board, int row, int col, Team team, King selfKing ) {
 		super( board, row, col, team, selfKing );
 	}
 
@@ -33,10 +33,7 @@ public class Rook extends ChessPiece {
 	@Override
 	public boolean attemptMoveTo( int targetRow, int targetCol, int currentMoveNumber ) {
 		if ( canMoveTo( targetRow, targetCol, true ) ) {
-			setLocation( targetRow, targetCol );
-
-			incrementNumMoves();
-			setLastMoveNumber( currentMoveNumber );
+			moveTo( targetRow, targetCol, Move.NORMAL, currentMoveNumber );
 			return true;
 		}
 		else {
@@ -59,63 +56,28 @@ public class Rook extends ChessPiece {
 			return false;
 		}
 
-		int rowChange = targetRow - getRow();
-		int colChange = targetCol - getCol();
-
-		if ( rowChange == 0 && colChange == 0 ) {
-			// Destination and target location are the same
+		Position position = getBoard().getPosition();
+		int square = Bitboards.square( getRow(), getCol() );
+		// Tiles along the Rook's rank and file, up to and including the first piece in each direction, excluding tiles
+		// occupied by a piece of the same team
+		long targets = Bitboards.rookAttacks( square, position.getOccupancy() )
+				& ~position.getOccupancy( Bitboards.index( getTeam() ) );
+		if ( ( targets & Bitboards.bit( targetRow, targetCol ) ) == 0 ) {
 			return false;
 		}
+		return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
+	}
 
-		if ( rowChange == 0 || colChange == 0 ) {
-			ChessPiece targetPiece = getBoard()[targetRow][targetCol];
-			// Cannot move onto a piece of the same team
-			if ( targetPiece != null && targetPiece.getTeam() == getTeam() ) {
-				return false;
-			}
-
-			int currentRow = getRow();
-			int currentCol = getCol();
-			// Advance one space towards target location
-			if ( currentRow < targetRow ) {
-				currentRow++;
-			}
-			else if ( currentRow > targetRow ) {
-				currentRow--;
-			}
-			if ( currentCol < targetCol ) {
-				currentCol++;
-			}
-			else if ( currentCol > targetCol ) {
-				currentCol--;
-			}
-
-			// Check each tile along the Rook's path to target destination
-			while ( currentRow != targetRow || currentCol != targetCol ) {
-				if ( getBoard()[currentRow][currentCol] != null ) {
-					// Path to target destination is obstructed by friendly or enemy piece
-					return false;
-				}
-
-				// Advance towards target location
-				if ( currentRow < targetRow ) {
-					currentRow++;
-				}
-				else if ( currentRow > targetRow ) {
-					currentRow--;
-				}
-				if ( currentCol < targetCol ) {
-					currentCol++;
-				}
-				else if ( currentCol > targetCol ) {
-					currentCol--;
-				}
-			}
-			return !checkPutSelfKingInCheck || !willPutSelfKingInCheckAt( targetRow, targetCol );
-		}
-		return false;
+	/**
+	 * Get the type of the chess piece
+	 * 
+	 * @return {@link PieceType#ROOK}
+	 */
+	@Override
+	public PieceType getType() {
+		return PieceType.ROOK;
 	}
-	
+
 	/**
 	 * Returns a String representation of Rook along with its team
 	 * @return a String representation of Rook along with its team
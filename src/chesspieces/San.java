@@ -0,0 +1,141 @@
+package chesspieces;
+
+/**
+ * The San class reads moves written in Standard Algebraic Notation (SAN), as used in PGN files, e.g. "e4", "Nbd7",
+ * "exd6", "R1e2", "O-O-O" or "e8=Q+". A SAN move only names the piece type and the target square, so it is matched
+ * against the legal moves of the position to find the square the piece moves from.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class San {
+
+	/**
+	 * The letters of the piece types in SAN, indexed by piece type index. Pawns have no letter
+	 */
+	private static final String PIECE_LETTERS = "PNBRQK";
+
+	private San() {
+	}
+
+	/**
+	 * Find the legal move of the team to move that a SAN move describes. Check and mate marks ("+", "#") and
+	 * annotations ("!", "?") at the end are ignored, and castling may be written with zeros ("0-0")
+	 *
+	 * @param position - the position
+	 * @param san      - the move in SAN
+	 * @param moves    - a buffer for the legal moves of the position, at least {@link MoveGenerator#MAX_MOVES} long
+	 * @return the encoded move, or -1 if the SAN is malformed, or describes no legal move or more than one
+	 */
+	public static int parse( Position position, String san, int[] moves ) {
+		int end = san.length();
+		while ( end > 0 && "+#!?".indexOf( san.charAt( end - 1 ) ) >= 0 ) {
+			end--;
+		}
+		if ( end < 2 ) {
+			return -1;
+		}
+
+		int team = position.getSideToMove();
+		int kingSquare = position.getKingSquare( team );
+		if ( isCastling( san, end, 3 ) || isCastling( san, end, 5 ) ) {
+			int targetCol = end == 3 ? 6 : 2;
+			int castle = Move.encode( kingSquare, Bitboards.square( Bitboards.row( kingSquare ), targetCol ),
+					Move.NONE, Move.CASTLE );
+			int count = MoveGenerator.generateLegalMoves( position, moves );
+			for ( int i = 0; i < count; i++ ) {
+				if ( moves[i] == castle ) {
+					return castle;
+				}
+			}
+			return -1;
+		}
+
+		// The promotion comes last, with or without "="
+		int promotion = Move.NONE;
+		int promotionIndex = PIECE_LETTERS.indexOf( san.charAt( end - 1 ) );
+		if ( promotionIndex > Position.PAWN && promotionIndex < Position.KING ) {
+			promotion = promotionIndex;
+			end -= san.charAt( end - 2 ) == '=' ? 2 : 1;
+		}
+
+		// Then the target square
+		if ( end < 2 ) {
+			return -1;
+		}
+		int targetCol = san.charAt( end - 2 ) - 'a';
+		int targetRow = '8' - san.charAt( end - 1 );
+		if ( targetCol < 0 || targetCol >= 8 || targetRow < 0 || targetRow >= 8 ) {
+			return -1;
+		}
+		int target = Bitboards.square( targetRow, targetCol );
+		end -= 2;
+
+		// The piece letter comes first, and anything between it and the target square tells apart pieces of the same
+		// type that can reach the target square
+		int start = 0;
+		int type = Position.PAWN;
+		if ( end > 0 && PIECE_LETTERS.indexOf( san.charAt( 0 ) ) > Position.PAWN ) {
+			type = PIECE_LETTERS.indexOf( san.charAt( 0 ) );
+			start = 1;
+		}
+		if ( end > start && ( san.charAt( end - 1 ) == 'x' || san.charAt( end - 1 ) == ':' ) ) {
+			end--;
+		}
+		int fromCol = -1;
+		int fromRow = -1;
+		for ( int i = start; i < end; i++ ) {
+			char c = san.charAt( i );
+			if ( c >= 'a' && c <= 'h' ) {
+				fromCol = c - 'a';
+			}
+			else if ( c >= '1' && c <= '8' ) {
+				fromRow = '8' - c;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		int match = -1;
+		int count = MoveGenerator.generateLegalMoves( position, moves );
+		for ( int i = 0; i < count; i++ ) {
+			int move = moves[i];
+			int from = Move.from( move );
+			if ( Move.to( move ) != target || Move.promotion( move ) != promotion
+					|| position.getPiece( from ) != team * 6 + type || Move.kind( move ) == Move.CASTLE
+					|| ( fromCol >= 0 && Bitboards.col( from ) != fromCol )
+					|| ( fromRow >= 0 && Bitboards.row( from ) != fromRow ) ) {
+				continue;
+			}
+			if ( match >= 0 ) {
+				// Ambiguous
+				return -1;
+			}
+			match = move;
+		}
+		return match;
+	}
+
+	/**
+	 * Determine if a SAN move is castling: "O-O" (3 characters) or "O-O-O" (5 characters), with letter O's or zeros
+	 *
+	 * @param san    - the move in SAN
+	 * @param end    - the end of the move, without check marks and annotations
+	 * @param length - the length of the castling move to look for
+	 * @return whether the move is castling of the given length
+	 */
+	private static boolean isCastling( String san, int end, int length ) {
+		if ( end != length ) {
+			return false;
+		}
+		for ( int i = 0; i < length; i++ ) {
+			char c = san.charAt( i );
+			if ( i % 2 == 1 ? c != '-' : c != 'O' && c != '0' ) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -23,5 +23,18 @@ public enum Team {
 		public String toString() {
 			return "Black";
 		}
+	};
+
+	/**
+	 * Get the opposing team
+	 * @return the opposing team
+	 */
+	public Team getOpponent() {
+		if ( this == WHITE ) {
+			return BLACK;
+		}
+		else {
+			return WHITE;
+		}
 	}
 }
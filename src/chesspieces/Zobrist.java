@@ -0,0 +1,92 @@
+package chesspieces;
+
+/**
+ * The Zobrist class holds the random keys used to hash positions. The hash of a position is the XOR of the key of
+ * every piece on its square, the key of the castling rights, the key of the en passant file if there is one, and the
+ * side key if black is to move. Each change to a position then updates its hash with a single XOR per key.
+ *
+ * The keys come from a fixed seed, so the same position hashes to the same value in every run of the game.
+ *
+ * @author Eric Zhang
+ * @author Stanley Cai
+ *
+ */
+public final class Zobrist {
+
+	/**
+	 * The key of each piece on each square, indexed by [team * 6 + piece type][square]
+	 */
+	static final long[][] PIECE_KEYS = new long[12][64];
+
+	/**
+	 * The key of each combination of castling rights
+	 */
+	static final long[] CASTLING_KEYS = new long[16];
+
+	/**
+	 * The key of each file of the en passant square
+	 */
+	static final long[] EN_PASSANT_KEYS = new long[8];
+
+	/**
+	 * The key included when black is to move
+	 */
+	static final long SIDE_KEY;
+
+	static {
+		long[] seed = { 0x9E3779B97F4A7C15L };
+		for ( int piece = 0; piece < 12; piece++ ) {
+			for ( int square = 0; square < 64; square++ ) {
+				PIECE_KEYS[piece][square] = nextKey( seed );
+			}
+		}
+		// No castling rights hash to 0, so an empty position hashes to 0
+		for ( int rights = 1; rights < 16; rights++ ) {
+			CASTLING_KEYS[rights] = nextKey( seed );
+		}
+		for ( int file = 0; file < 8; file++ ) {
+			EN_PASSANT_KEYS[file] = nextKey( seed );
+		}
+		SIDE_KEY = nextKey( seed );
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Compute the hash of a position from scratch
+	 *
+	 * @param position - the position
+	 * @return the hash of the position
+	 */
+	public static long hash( Position position ) {
+		long hash = 0;
+		for ( int square = 0; square < 64; square++ ) {
+			int piece = position.getPiece( square );
+			if ( piece != Position.EMPTY ) {
+				hash ^= PIECE_KEYS[piece][square];
+			}
+		}
+		hash ^= CASTLING_KEYS[position.getCastlingRights()];
+		if ( position.getEnPassantSquare() >= 0 ) {
+			hash ^= EN_PASSANT_KEYS[Bitboards.col( position.getEnPassantSquare() )];
+		}
+		if ( position.getSideToMove() == Bitboards.BLACK ) {
+			hash ^= SIDE_KEY;
+		}
+		return hash;
+	}
+
+	/**
+	 * Generate the next key with the SplitMix64 generator
+	 *
+	 * @param seed - the state of the generator, advanced in place
+	 * @return the next key
+	 */
+	private static long nextKey( long[] seed ) {
+		long z = seed[0] += 0x9E3779B97F4A7C15L;
+		z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+		z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+		return z ^ ( z >>> 31 );
+	}
+}